@@ -33,12 +33,14 @@ import rabbit.data.store.model.PartEvent;
 import rabbit.data.store.model.PerspectiveEvent;
 import rabbit.data.store.model.SessionEvent;
 import rabbit.data.store.model.TaskFileEvent;
+import rabbit.data.xml.PackedXmlModule;
 import rabbit.data.xml.XmlModule;
 
 import com.google.inject.ConfigurationException;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Key;
+import com.google.inject.Module;
 import com.google.inject.util.Types;
 
 /**
@@ -46,10 +48,26 @@ import com.google.inject.util.Types;
  */
 public class DataHandler {
 
+  /**
+   * The system property for selecting the storage format. If its value is
+   * {@value #PACKED_STORE}, the data of a workspace is kept in a single file,
+   * see {@link PackedXmlModule}, otherwise in a file per kind of events per
+   * month, see {@link XmlModule}.
+   */
+  public static final String STORE_PROPERTY = "rabbit.data.store";
+
+  /**
+   * The value of {@link #STORE_PROPERTY} for the single file format.
+   */
+  public static final String PACKED_STORE = "packed";
+
   private static final Injector injector;
 
   static {
-    injector = Guice.createInjector(new XmlModule());
+    Module module = PACKED_STORE.equals(System.getProperty(STORE_PROPERTY))
+        ? new PackedXmlModule()
+        : new XmlModule();
+    injector = Guice.createInjector(module);
   }
 
   /**
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.access;
+
+import rabbit.data.access.model.IData;
+import rabbit.data.access.model.Keys;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import static java.util.Arrays.asList;
+
+import com.google.common.base.Predicates;
+
+import org.joda.time.Duration;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * @see Query
+ */
+public class QueryTest {
+
+  private final LocalDate start = new LocalDate(2011, 1, 1);
+  private final LocalDate end = start.plusDays(1);
+
+  @Test
+  public void acceptsShouldReturnFalseIfAFilterRejectsTheData() {
+    IData data = mock(IData.class);
+    given(data.get(Keys.PART_ID)).willReturn("a");
+    Query query = new Query.Builder(start, end)
+        .filter(Keys.PART_ID, Predicates.equalTo("b"))
+        .build();
+    assertThat(query.accepts(data), is(false));
+  }
+
+  @Test
+  public void acceptsShouldReturnTrueIfAllTheFiltersAcceptTheData() {
+    IData data = mock(IData.class);
+    given(data.get(Keys.PART_ID)).willReturn("a");
+    given(data.get(Keys.DURATION)).willReturn(new Duration(1));
+    Query query = new Query.Builder(start, end)
+        .filter(Keys.PART_ID, Predicates.equalTo("a"))
+        .filter(Keys.DURATION, Predicates.notNull())
+        .build();
+    assertThat(query.accepts(data), is(true));
+  }
+
+  @Test
+  public void aggregateShouldGroupTheRowsAgainWithTheNewData() {
+    Query query = new Query.Builder(start, end)
+        .groupBy(Keys.DATE)
+        .sum(Keys.DURATION)
+        .build();
+    IData row = mock(IData.class);
+    given(row.get(Keys.DATE)).willReturn(start);
+    given(row.get(Keys.DURATION)).willReturn(new Duration(10));
+    IData data = mock(IData.class);
+    given(data.get(Keys.DATE)).willReturn(start);
+    given(data.get(Keys.DURATION)).willReturn(new Duration(1));
+
+    List<IData> rows = query.aggregate(asList(row, data));
+    assertThat(rows.size(), is(1));
+    assertThat(rows.get(0).get(Keys.DATE), is(start));
+    assertThat(rows.get(0).get(Keys.DURATION), is(new Duration(11)));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void aggregateShouldThrowAnExceptionIfDataIsNull() {
+    new Query.Builder(start, end).build().aggregate(null);
+  }
+
+  @Test
+  public void filterShouldRequireAllThePredicatesOfAKeyToAccept() {
+    IData data = mock(IData.class);
+    given(data.get(Keys.PART_ID)).willReturn("a");
+    Query query = new Query.Builder(start, end)
+        .filter(Keys.PART_ID, Predicates.notNull())
+        .filter(Keys.PART_ID, Predicates.equalTo("b"))
+        .build();
+    assertThat(query.accepts(data), is(false));
+  }
+
+  @Test
+  public void shouldReturnTheDates() {
+    Query query = new Query.Builder(start, end).build();
+    assertThat(query.getStart(), is(start));
+    assertThat(query.getEnd(), is(end));
+  }
+
+  @Test
+  public void shouldReturnTheGroupByKeysInOrder() {
+    Query query = new Query.Builder(start, end)
+        .groupBy(Keys.WORKSPACE, Keys.DATE)
+        .build();
+    assertThat(query.getGroupBy(), is(asList(Keys.WORKSPACE, Keys.DATE)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void groupByShouldThrowAnExceptionIfKeyIsAlreadyAdded() {
+    new Query.Builder(start, end).groupBy(Keys.DATE).groupBy(Keys.DATE);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void sumShouldThrowAnExceptionIfKeyCannotBeSummed() {
+    new Query.Builder(start, end).sum(Keys.DATE);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void sumShouldThrowAnExceptionIfKeyIsAGroupByKey() {
+    new Query.Builder(start, end).groupBy(Keys.COUNT).sum(Keys.COUNT);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void shouldThrowAnExceptionIfStartDateIsNull() {
+    new Query.Builder(null, end);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void shouldThrowAnExceptionIfEndDateIsNull() {
+    new Query.Builder(start, null);
+  }
+}
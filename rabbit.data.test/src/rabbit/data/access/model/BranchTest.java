@@ -0,0 +1,50 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.access.model;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * @see Branch
+ */
+public class BranchTest {
+
+  @Test
+  public void shouldBeEqualIfNamesAreEqual() {
+    assertThat(new Branch("a").equals(new Branch("a")), is(true));
+    assertThat(new Branch("a").hashCode(), is(new Branch("a").hashCode()));
+  }
+
+  @Test
+  public void shouldNotBeEqualIfNamesAreNotEqual() {
+    assertThat(new Branch("a").equals(new Branch("b")), is(false));
+    assertThat(new Branch("a").equals(Branch.NONE), is(false));
+  }
+
+  @Test
+  public void shouldReturnTheName() {
+    assertThat(new Branch("topic/a").getName(), is("topic/a"));
+    assertThat(Branch.NONE.getName(), is(""));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void shouldThrowNullPointerExceptionIfConstructedWithoutAName() {
+    new Branch(null);
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.access.model;
+
+import rabbit.data.access.Query;
+import rabbit.data.access.model.IData;
+import rabbit.data.access.model.Keys;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.base.Predicates;
+
+import org.joda.time.Duration;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * @see Aggregator
+ */
+public class AggregatorTest {
+
+  private final LocalDate date = new LocalDate(2011, 1, 1);
+
+  @Test
+  public void getResultShouldReturnARowForEachGroupInOrderOfAppearance() {
+    Aggregator aggregator = new Aggregator(newQuery().build());
+    aggregator.add(newData("b", 1, 1));
+    aggregator.add(newData("a", 2, 1));
+    aggregator.add(newData("b", 4, 1));
+
+    List<IData> rows = aggregator.getResult();
+    assertThat(rows.size(), is(2));
+    assertThat(rows.get(0).get(Keys.PART_ID), is("b"));
+    assertThat(rows.get(0).get(Keys.DURATION), is(new Duration(5)));
+    assertThat(rows.get(0).get(Keys.COUNT), is(2));
+    assertThat(rows.get(1).get(Keys.PART_ID), is("a"));
+    assertThat(rows.get(1).get(Keys.DURATION), is(new Duration(2)));
+  }
+
+  @Test
+  public void getResultShouldNotReturnTheKeysThatAreNotInTheQuery() {
+    Aggregator aggregator = new Aggregator(newQuery().build());
+    aggregator.add(newData("a", 1, 1));
+    assertThat(aggregator.getResult().get(0).get(Keys.DATE),
+        is(nullValue()));
+  }
+
+  @Test
+  public void getResultShouldReturnASingleRowIfThereAreNoGroupByKeys() {
+    Query query = new Query.Builder(date, date).sum(Keys.DURATION).build();
+    Aggregator aggregator = new Aggregator(query);
+    aggregator.add(newData("a", 1, 1));
+    aggregator.add(newData("b", 2, 1));
+
+    List<IData> rows = aggregator.getResult();
+    assertThat(rows.size(), is(1));
+    assertThat(rows.get(0).get(Keys.DURATION), is(new Duration(3)));
+  }
+
+  @Test
+  public void getResultShouldReturnNoRowsIfNothingIsAdded() {
+    Aggregator aggregator = new Aggregator(newQuery().build());
+    assertThat(aggregator.getResult().isEmpty(), is(true));
+  }
+
+  @Test
+  public void addShouldIgnoreTheDataRejectedByTheQuery() {
+    Query query = newQuery()
+        .filter(Keys.PART_ID, Predicates.equalTo("a"))
+        .build();
+    Aggregator aggregator = new Aggregator(query);
+    aggregator.add(newData("a", 1, 1));
+    aggregator.add(newData("b", 1, 1));
+
+    List<IData> rows = aggregator.getResult();
+    assertThat(rows.size(), is(1));
+    assertThat(rows.get(0).get(Keys.PART_ID), is("a"));
+  }
+
+  @Test
+  public void addShouldGroupTheDataWithoutAValueTogether() {
+    Aggregator aggregator = new Aggregator(newQuery().build());
+    aggregator.add(newData(null, 1, 1));
+    aggregator.add(newData(null, 1, 1));
+
+    List<IData> rows = aggregator.getResult();
+    assertThat(rows.size(), is(1));
+    assertThat(rows.get(0).get(Keys.PART_ID), is(nullValue()));
+    assertThat(rows.get(0).get(Keys.COUNT), is(2));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void addShouldThrowAnExceptionIfDataIsNull() {
+    new Aggregator(newQuery().build()).add(null);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void shouldThrowAnExceptionIfConstructedWithoutAQuery() {
+    new Aggregator(null);
+  }
+
+  private IData newData(String partId, long duration, int count) {
+    IData data = mock(IData.class);
+    given(data.get(Keys.DATE)).willReturn(date);
+    given(data.get(Keys.PART_ID)).willReturn(partId);
+    given(data.get(Keys.DURATION)).willReturn(new Duration(duration));
+    given(data.get(Keys.COUNT)).willReturn(count);
+    return data;
+  }
+
+  private Query.Builder newQuery() {
+    return new Query.Builder(date, date)
+        .groupBy(Keys.PART_ID)
+        .sum(Keys.DURATION)
+        .sum(Keys.COUNT);
+  }
+}
@@ -24,6 +24,7 @@ import static org.junit.Assert.assertThat;
 
 import org.eclipse.core.commands.Command;
 import org.eclipse.core.runtime.Path;
+import org.joda.time.Duration;
 import org.joda.time.LocalDate;
 import org.junit.Before;
 import org.junit.Test;
@@ -74,6 +75,20 @@ public class CommandDataTest {
         is(count));
   }
 
+  @Test
+  public void shouldReturnTheDuration() {
+    Duration duration = new Duration(123);
+    assertThat(new CommandData(date, workspace, command, count, duration)
+        .get(ICommandData.DURATION), is(duration));
+  }
+
+  @Test
+  public void shouldReturnAZeroDurationIfConstructedWithoutADuration() {
+    assertThat(
+        create(date, workspace, command, count).get(ICommandData.DURATION),
+        is(Duration.ZERO));
+  }
+
   @Test
   public void shouldReturnTheDate() {
     assertThat(
@@ -103,6 +118,11 @@ public class CommandDataTest {
     create(date, workspace, null, count);
   }
 
+  @Test(expected = NullPointerException.class)
+  public void shouldThrowNullPointerExceptionIfConstructedWithoutADuration() {
+    new CommandData(date, workspace, command, count, null);
+  }
+
   @Test(expected = NullPointerException.class)
   public void shouldThrowNullPointerExceptionIfConstructedWithoutADate() {
     create(null, workspace, command, count);
@@ -15,6 +15,7 @@
  */
 package rabbit.data.internal.access.model;
 
+import rabbit.data.access.model.Branch;
 import rabbit.data.access.model.IFileData;
 import rabbit.data.access.model.WorkspaceStorage;
 
@@ -55,6 +56,20 @@ public class FileDataTest {
         is(nullValue()));
   }
 
+  @Test
+  public void shouldReturnTheBranch() {
+    Branch branch = new Branch("master");
+    assertThat(new FileData(date, workspace, duration, file, branch)
+        .get(IFileData.BRANCH), is(branch));
+  }
+
+  @Test
+  public void shouldReturnNoBranchIfConstructedWithoutABranch() {
+    assertThat(
+        create(date, workspace, duration, file).get(IFileData.BRANCH),
+        is(Branch.NONE));
+  }
+
   @Test
   public void shouldReturnTheDate() {
     assertThat(
@@ -83,6 +98,11 @@ public class FileDataTest {
         is(workspace));
   }
 
+  @Test(expected = NullPointerException.class)
+  public void shouldThrowNullPointerExceptionIfConstructedWithoutABranch() {
+    new FileData(date, workspace, duration, file, null);
+  }
+
   @Test(expected = NullPointerException.class)
   public void shouldThrowNullPointerExceptionIfConstructedWithoutADate() {
     create(null, workspace, duration, file);
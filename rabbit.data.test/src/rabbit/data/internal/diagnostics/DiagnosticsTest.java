@@ -0,0 +1,97 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.diagnostics;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * @see Diagnostics
+ */
+public class DiagnosticsTest {
+
+  @Test
+  public void counterShouldReturnTheSameCounterForTheSameName() {
+    assertThat(Diagnostics.counter("DiagnosticsTest.a"),
+        sameInstance(Diagnostics.counter("DiagnosticsTest.a")));
+  }
+
+  @Test
+  public void getCountersShouldReturnTheCurrentValues() {
+    Diagnostics.counter("DiagnosticsTest.b").set(7);
+    Map<String, Long> counters = Diagnostics.getCounters();
+    assertThat(counters.get("DiagnosticsTest.b"), is(7L));
+  }
+
+  @Test
+  public void histogramShouldReturnTheSameHistogramForTheSameName() {
+    LatencyHistogram histogram = Diagnostics.histogram("DiagnosticsTest.c");
+    assertThat(histogram.getName(), is("DiagnosticsTest.c"));
+    assertThat(Diagnostics.getHistograms().get("DiagnosticsTest.c"),
+        sameInstance(histogram));
+  }
+
+  @Test
+  public void nameOfShouldReturnTheSimpleNameOfAClass() {
+    assertThat(Diagnostics.nameOf(String.class), is("String"));
+  }
+
+  @Test
+  public void nameOfShouldReturnTheNameWithoutPackageOfAnAnonymousClass() {
+    Object anonymous = new Object() {};
+    assertThat(Diagnostics.nameOf(anonymous.getClass()),
+        is(DiagnosticsTest.class.getSimpleName() + "$1"));
+  }
+
+  @Test
+  public void registerMBeanShouldExposeTheInstruments() throws Exception {
+    Diagnostics.counter("DiagnosticsTest.d").set(3);
+    Diagnostics.registerMBean();
+    Diagnostics.registerMBean(); // No effects.
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(Diagnostics.MBEAN_NAME);
+      assertThat(server.isRegistered(name), is(true));
+      assertThat(server.getAttribute(name, "Counters") != null, is(true));
+      assertThat(server.getAttribute(name, "LatencySummaries") != null,
+          is(true));
+    } finally {
+      Diagnostics.unregisterMBean();
+    }
+    assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(
+        new ObjectName(Diagnostics.MBEAN_NAME)), is(false));
+  }
+
+  @Test
+  public void resetShouldSetTheInstrumentsToZero() {
+    Diagnostics.counter("DiagnosticsTest.e").set(1);
+    Diagnostics.histogram("DiagnosticsTest.e").record(1);
+
+    Diagnostics.reset();
+
+    assertThat(Diagnostics.counter("DiagnosticsTest.e").get(), is(0L));
+    assertThat(Diagnostics.histogram("DiagnosticsTest.e").getCount(), is(0L));
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.diagnostics;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @see LatencyHistogram
+ */
+public class LatencyHistogramTest {
+
+  @Test
+  public void getPercentileNanosShouldReturnTheUpperBoundOfTheBucket() {
+    LatencyHistogram histogram = new LatencyHistogram("a");
+    for (int i = 0; i < 99; i++) {
+      histogram.record(micros(3)); // Bucket [2, 4) us
+    }
+    histogram.record(micros(1000)); // Bucket [512, 1024) us
+
+    assertThat(histogram.getPercentileNanos(50), is(micros(4)));
+    assertThat(histogram.getPercentileNanos(99), is(micros(4)));
+    assertThat(histogram.getPercentileNanos(100), is(micros(1000)));
+  }
+
+  @Test
+  public void getPercentileNanosShouldReturnZeroIfNothingIsRecorded() {
+    assertThat(new LatencyHistogram("a").getPercentileNanos(90), is(0L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void getPercentileNanosShouldThrowAnExceptionIfPercentIsNotPositive() {
+    new LatencyHistogram("a").getPercentileNanos(0);
+  }
+
+  @Test
+  public void getUpperBoundNanosShouldReturnTheBoundsInPowersOfTwo() {
+    assertThat(LatencyHistogram.getUpperBoundNanos(0), is(micros(1)));
+    assertThat(LatencyHistogram.getUpperBoundNanos(3), is(micros(8)));
+    assertThat(LatencyHistogram.getUpperBoundNanos(
+        LatencyHistogram.BUCKETS - 1), is(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void recordShouldCountTheTimeInItsBucket() {
+    LatencyHistogram histogram = new LatencyHistogram("a");
+    histogram.record(500);
+    histogram.record(micros(1));
+    histogram.record(micros(7));
+    histogram.record(micros(8));
+
+    long[] buckets = histogram.getBucketCounts();
+    assertThat(buckets[0], is(1L));
+    assertThat(buckets[1], is(1L));
+    assertThat(buckets[3], is(1L));
+    assertThat(buckets[4], is(1L));
+  }
+
+  @Test
+  public void recordShouldUpdateTheCountTotalAndMax() {
+    LatencyHistogram histogram = new LatencyHistogram("a");
+    histogram.record(10);
+    histogram.record(30);
+    histogram.record(-5);
+
+    assertThat(histogram.getCount(), is(3L));
+    assertThat(histogram.getTotalNanos(), is(40L));
+    assertThat(histogram.getMaxNanos(), is(30L));
+    assertThat(histogram.getMeanNanos(), is(40 / 3.0));
+  }
+
+  @Test
+  public void resetShouldSetTheMeasurementsToZero() {
+    LatencyHistogram histogram = new LatencyHistogram("a");
+    histogram.record(micros(10));
+    histogram.reset();
+
+    assertThat(histogram.getCount(), is(0L));
+    assertThat(histogram.getTotalNanos(), is(0L));
+    assertThat(histogram.getMaxNanos(), is(0L));
+    assertThat(histogram.getBucketCounts(),
+        is(new long[LatencyHistogram.BUCKETS]));
+  }
+
+  @Test
+  public void stopShouldRecordTheTimeSinceStart() throws Exception {
+    LatencyHistogram histogram = new LatencyHistogram("a");
+    long start = histogram.start();
+    Thread.sleep(5);
+    histogram.stop(start);
+
+    assertThat(histogram.getCount(), is(1L));
+    assertThat(histogram.getTotalNanos() >= TimeUnit.MILLISECONDS.toNanos(5),
+        is(true));
+  }
+
+  private static long micros(long micros) {
+    return TimeUnit.MICROSECONDS.toNanos(micros);
+  }
+}
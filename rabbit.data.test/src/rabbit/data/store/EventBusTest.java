@@ -0,0 +1,92 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.store;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Test;
+
+/**
+ * @see EventBus
+ */
+public class EventBusTest {
+
+  private final EventBus bus = new EventBus();
+
+  @Test
+  public void addListenerShouldNotAddTheSameListenerTwice() {
+    IEventListener listener = mock(IEventListener.class);
+    bus.addListener(listener);
+    bus.addListener(listener);
+
+    bus.publish("a");
+    verify(listener, times(1)).eventPublished("a");
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void addListenerShouldThrowAnExceptionIfListenerIsNull() {
+    bus.addListener(null);
+  }
+
+  @Test
+  public void getDefaultShouldReturnTheSameBus() {
+    assertThat(EventBus.getDefault(), sameInstance(EventBus.getDefault()));
+  }
+
+  @Test
+  public void hasListenersShouldReturnTrueOnlyIfThereAreListeners() {
+    IEventListener listener = mock(IEventListener.class);
+    assertThat(bus.hasListeners(), is(false));
+    bus.addListener(listener);
+    assertThat(bus.hasListeners(), is(true));
+    bus.removeListener(listener);
+    assertThat(bus.hasListeners(), is(false));
+  }
+
+  @Test
+  public void publishShouldNotifyTheOtherListenersIfOneFails() {
+    IEventListener failing = mock(IEventListener.class);
+    doThrow(new IllegalStateException()).when(failing).eventPublished("a");
+    IEventListener listener = mock(IEventListener.class);
+    bus.addListener(failing);
+    bus.addListener(listener);
+
+    bus.publish("a");
+    verify(listener).eventPublished("a");
+  }
+
+  @Test
+  public void publishShouldNotNotifyARemovedListener() {
+    IEventListener listener = mock(IEventListener.class);
+    bus.addListener(listener);
+    bus.removeListener(listener);
+
+    bus.publish("a");
+    verify(listener, never()).eventPublished("a");
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void publishShouldThrowAnExceptionIfEventIsNull() {
+    bus.publish(null);
+  }
+}
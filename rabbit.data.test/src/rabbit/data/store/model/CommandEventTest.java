@@ -17,61 +17,106 @@ package rabbit.data.store.model;
 
 import rabbit.data.store.model.CommandEvent;
 
-import static org.junit.Assert.assertNotNull;
-import static org.junit.Assert.assertSame;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
 
-import org.eclipse.core.commands.ExecutionEvent;
-import org.eclipse.ui.PlatformUI;
-import org.eclipse.ui.commands.ICommandService;
 import org.joda.time.DateTime;
-import org.junit.Before;
 import org.junit.Test;
 
-import java.util.Collections;
-
 /**
  * Test for {@link CommandEvent}
  */
 public class CommandEventTest extends DiscreteEventTest {
 
-  private ExecutionEvent exe;
-  private CommandEvent event;
+  @Test
+  public void getLatencyBucketShouldReturnZeroForLessThanAMillisecond() {
+    assertThat(CommandEvent.getLatencyBucket(0), is(0));
+  }
 
-  @Before
-  public void setUp() {
-    exe = new ExecutionEvent(getCommandService().getCommand("something"),
-        Collections.EMPTY_MAP, null, null);
-    event = new CommandEvent(new DateTime(), exe);
+  @Test
+  public void getLatencyBucketShouldReturnThePowerOfTwoBucket() {
+    assertThat(CommandEvent.getLatencyBucket(1), is(1));
+    assertThat(CommandEvent.getLatencyBucket(2), is(2));
+    assertThat(CommandEvent.getLatencyBucket(3), is(2));
+    assertThat(CommandEvent.getLatencyBucket(4), is(3));
+    assertThat(CommandEvent.getLatencyBucket(1023), is(10));
   }
 
   @Test
-  public void testCommandEvent() {
-    assertNotNull(event);
+  public void getLatencyBucketShouldReturnTheLastBucketForLongDurations() {
+    assertThat(CommandEvent.getLatencyBucket(Long.MAX_VALUE),
+        is(CommandEvent.LATENCY_BUCKETS - 1));
   }
 
-  @Test(expected = NullPointerException.class)
-  public void testConstructor_withNull() {
-    new CommandEvent(new DateTime(), null);
+  @Test(expected = IllegalArgumentException.class)
+  public void getLatencyBucketShouldThrowAnExceptionIfDurationIsNegative() {
+    CommandEvent.getLatencyBucket(-1);
   }
 
   @Test
-  public void testGetExecutionEvent() {
-    assertSame(exe, event.getExecutionEvent());
+  public void shouldCountASingleExecution() {
+    CommandEvent event = new CommandEvent(new DateTime(), "id", 5);
+    assertThat(event.getCommandId(), is("id"));
+    assertThat(event.getCount(), is(1));
+    assertThat(event.getDuration(), is(5L));
+
+    int[] expected = new int[CommandEvent.LATENCY_BUCKETS];
+    expected[CommandEvent.getLatencyBucket(5)] = 1;
+    assertThat(event.getLatencies(), is(expected));
   }
 
-  @Override
-  protected CommandEvent createEvent(DateTime time) {
-    return new CommandEvent(time, new ExecutionEvent(getCommandService()
-        .getCommand("something"), Collections.EMPTY_MAP, null, null));
+  @Test
+  public void shouldCopyTheLatencies() {
+    int[] latencies = new int[CommandEvent.LATENCY_BUCKETS];
+    CommandEvent event =
+        new CommandEvent(new DateTime(), "id", 1, 0, latencies);
+    latencies[0] = 1;
+    assertThat(event.getLatencies()[0], is(0));
+
+    event.getLatencies()[0] = 1;
+    assertThat(event.getLatencies()[0], is(0));
   }
 
-  /**
-   * Gets the workbench command service.
-   * 
-   * @return The command service.
-   */
-  private ICommandService getCommandService() {
-    return (ICommandService) PlatformUI.getWorkbench().getService(
-        ICommandService.class);
+  @Test
+  public void shouldReturnTheValues() {
+    int[] latencies = new int[CommandEvent.LATENCY_BUCKETS];
+    latencies[2] = 3;
+    CommandEvent event =
+        new CommandEvent(new DateTime(), "id", 3, 10, latencies);
+    assertThat(event.getCommandId(), is("id"));
+    assertThat(event.getCount(), is(3));
+    assertThat(event.getDuration(), is(10L));
+    assertThat(event.getLatencies(), is(latencies));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowAnExceptionIfConstructedWithCountOfZero() {
+    new CommandEvent(new DateTime(), "id", 0, 0,
+        new int[CommandEvent.LATENCY_BUCKETS]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowAnExceptionIfConstructedWithNegativeDuration() {
+    new CommandEvent(new DateTime(), "id", -1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowAnExceptionIfConstructedWithWrongNumberOfBuckets() {
+    new CommandEvent(new DateTime(), "id", 1, 0, new int[1]);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void shouldThrowAnExceptionIfConstructedWithoutACommandId() {
+    new CommandEvent(new DateTime(), null, 0);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void shouldThrowAnExceptionIfConstructedWithoutLatencies() {
+    new CommandEvent(new DateTime(), "id", 1, 0, null);
+  }
+
+  @Override
+  protected CommandEvent createEvent(DateTime time) {
+    return new CommandEvent(time, "something", 0);
   }
 }
@@ -18,6 +18,7 @@ package rabbit.data.store.model;
 import rabbit.data.store.model.FileEvent;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
@@ -41,6 +42,14 @@ public class FileEventTest extends ContinuousEventTest {
     assertEquals(path, event.getFilePath());
   }
 
+  @Test
+  public void testGetBranch() {
+    IPath path = Path.fromPortableString("/project/folder/me.txt");
+    assertNull(createEvent(new Interval(0, 1), path).getBranch());
+    assertEquals("master",
+        new FileEvent(new Interval(0, 1), path, "master").getBranch());
+  }
+
   @Override
   protected final FileEvent createEvent(Interval interval) {
     return createEvent(interval, Path.fromPortableString("/p/f/a.txt"));
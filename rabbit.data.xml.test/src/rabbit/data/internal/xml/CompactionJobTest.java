@@ -0,0 +1,132 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.xml;
+
+import rabbit.data.internal.xml.DataCompactor.Rollup;
+import rabbit.data.internal.xml.schema.events.EventListType;
+import rabbit.data.internal.xml.schema.events.FileEventListType;
+import rabbit.data.internal.xml.schema.events.FileEventType;
+import rabbit.data.internal.xml.schema.events.ObjectFactory;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.joda.time.LocalDate;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.List;
+
+/**
+ * @see CompactionJob
+ */
+public class CompactionJobTest {
+
+  private static IProject project;
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    project = ResourcesPlugin.getWorkspace().getRoot()
+        .getProject("CompactionJobTest");
+    project.create(null);
+    project.open(null);
+  }
+
+  @AfterClass
+  public static void afterClass() throws Exception {
+    project.delete(true, null);
+  }
+
+  @Test
+  public void compactShouldKeepTheExistingFilesOutsideTheWorkspace()
+      throws Exception {
+    File external = File.createTempFile("CompactionJobTest", ".txt");
+    external.deleteOnExit();
+    File deleted = File.createTempFile("CompactionJobTest", ".txt");
+    deleted.delete();
+
+    ObjectFactory objectFactory = new ObjectFactory();
+    FileEventListType list = objectFactory.createFileEventListType();
+    list.setDate(DatatypeUtil.toXmlDate(new LocalDate(2010, 9, 13)));
+    for (File file : new File[]{external, deleted}) {
+      FileEventType event = objectFactory.createFileEventType();
+      event.setFilePath(file.getAbsolutePath());
+      event.setDuration(1);
+      list.getFileEvent().add(event);
+    }
+    EventListType doc = objectFactory.createEventListType();
+    doc.getFileEvents().add(list);
+
+    new DataCompactor(Rollup.WEEK, CompactionJob.EXISTING_FILES).compact(doc);
+
+    List<FileEventType> events = doc.getFileEvents().get(0).getFileEvent();
+    assertThat(events.size(), is(1));
+    assertThat(events.get(0).getFilePath(), is(external.getAbsolutePath()));
+  }
+
+  @Test
+  public void existingFilesShouldAcceptAnExistingFileOutsideTheWorkspace()
+      throws Exception {
+    File file = File.createTempFile("CompactionJobTest", ".txt");
+    file.deleteOnExit();
+    assertThat(CompactionJob.EXISTING_FILES.apply(file.getAbsolutePath()),
+        is(true));
+  }
+
+  @Test
+  public void existingFilesShouldAcceptAnExistingFileInTheWorkspace()
+      throws Exception {
+    IFile file = project.getFile("a.txt");
+    file.create(new ByteArrayInputStream(new byte[0]), true, null);
+    String path = file.getFullPath().toString();
+    assertThat(CompactionJob.EXISTING_FILES.apply(path), is(true));
+  }
+
+  @Test
+  public void existingFilesShouldAcceptAFileInAClosedProject()
+      throws Exception {
+    IProject closed = ResourcesPlugin.getWorkspace().getRoot()
+        .getProject("CompactionJobTestClosed");
+    closed.create(null);
+    try {
+      String path = closed.getFile("a.txt").getFullPath().toString();
+      assertThat(CompactionJob.EXISTING_FILES.apply(path), is(true));
+    } finally {
+      closed.delete(true, null);
+    }
+  }
+
+  @Test
+  public void existingFilesShouldRejectADeletedFileOutsideTheWorkspace()
+      throws Exception {
+    File file = File.createTempFile("CompactionJobTest", ".txt");
+    file.delete();
+    assertThat(CompactionJob.EXISTING_FILES.apply(file.getAbsolutePath()),
+        is(false));
+  }
+
+  @Test
+  public void existingFilesShouldRejectADeletedFileInTheWorkspace() {
+    String path = project.getFile("deleted.txt").getFullPath().toString();
+    assertThat(CompactionJob.EXISTING_FILES.apply(path), is(false));
+  }
+}
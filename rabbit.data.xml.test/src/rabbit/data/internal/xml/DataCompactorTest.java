@@ -0,0 +1,185 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.xml;
+
+import rabbit.data.internal.xml.DataCompactor.Rollup;
+import rabbit.data.internal.xml.schema.events.EventListType;
+import rabbit.data.internal.xml.schema.events.FileEventListType;
+import rabbit.data.internal.xml.schema.events.FileEventType;
+import rabbit.data.internal.xml.schema.events.ObjectFactory;
+import rabbit.data.internal.xml.schema.events.SessionEventListType;
+import rabbit.data.internal.xml.schema.events.SessionEventType;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.base.Predicates;
+
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * @see DataCompactor
+ */
+public class DataCompactorTest {
+
+  private final ObjectFactory objectFactory = new ObjectFactory();
+
+  @Test
+  public void compactShouldMergeTheDataOfEachWeek() {
+    EventListType doc = objectFactory.createEventListType();
+    // Wednesday, Friday, and Monday of the next week:
+    addSession(doc, new LocalDate(2010, 9, 15), 1);
+    addSession(doc, new LocalDate(2010, 9, 17), 10);
+    addSession(doc, new LocalDate(2010, 9, 20), 100);
+
+    assertThat(new DataCompactor(Rollup.WEEK).compact(doc), is(true));
+
+    List<SessionEventListType> lists = doc.getSessionEvents();
+    assertThat(lists.size(), is(2));
+    assertThat(dateOf(lists.get(0)), is(new LocalDate(2010, 9, 13)));
+    assertThat(durationOf(lists.get(0)), is(11L));
+    assertThat(dateOf(lists.get(1)), is(new LocalDate(2010, 9, 20)));
+    assertThat(durationOf(lists.get(1)), is(100L));
+  }
+
+  @Test
+  public void compactShouldMergeTheDataOfEachMonth() {
+    EventListType doc = objectFactory.createEventListType();
+    addSession(doc, new LocalDate(2010, 9, 15), 1);
+    addSession(doc, new LocalDate(2010, 9, 30), 10);
+
+    assertThat(new DataCompactor(Rollup.MONTH).compact(doc), is(true));
+
+    List<SessionEventListType> lists = doc.getSessionEvents();
+    assertThat(lists.size(), is(1));
+    assertThat(dateOf(lists.get(0)), is(new LocalDate(2010, 9, 1)));
+    assertThat(durationOf(lists.get(0)), is(11L));
+  }
+
+  @Test
+  public void compactShouldMergeTheElementsWithTheMergers() {
+    EventListType doc = objectFactory.createEventListType();
+    addFile(doc, new LocalDate(2010, 9, 15), "/p/a.txt", 1);
+    addFile(doc, new LocalDate(2010, 9, 16), "/p/a.txt", 10);
+    addFile(doc, new LocalDate(2010, 9, 16), "/p/b.txt", 100);
+
+    new DataCompactor(Rollup.WEEK).compact(doc);
+
+    List<FileEventType> events = doc.getFileEvents().get(0).getFileEvent();
+    assertThat(events.size(), is(2));
+    assertThat(events.get(0).getFilePath(), is("/p/a.txt"));
+    assertThat(events.get(0).getDuration(), is(11L));
+    assertThat(events.get(1).getFilePath(), is("/p/b.txt"));
+    assertThat(events.get(1).getDuration(), is(100L));
+  }
+
+  @Test
+  public void compactShouldNotChangeACompactedDocument() {
+    EventListType doc = objectFactory.createEventListType();
+    addSession(doc, new LocalDate(2010, 9, 15), 1);
+    addSession(doc, new LocalDate(2010, 9, 16), 10);
+    DataCompactor compactor = new DataCompactor(Rollup.WEEK);
+    compactor.compact(doc);
+
+    assertThat(compactor.compact(doc), is(false));
+    assertThat(doc.getSessionEvents().size(), is(1));
+    assertThat(durationOf(doc.getSessionEvents().get(0)), is(11L));
+  }
+
+  @Test
+  public void compactShouldRemoveTheFilesNotAcceptedByTheFilter() {
+    EventListType doc = objectFactory.createEventListType();
+    addFile(doc, new LocalDate(2010, 9, 13), "/p/a.txt", 1);
+    addFile(doc, new LocalDate(2010, 9, 13), "/p/b.txt", 10);
+
+    DataCompactor compactor = new DataCompactor(
+        Rollup.WEEK, Predicates.equalTo("/p/b.txt"));
+    assertThat(compactor.compact(doc), is(true));
+
+    List<FileEventType> events = doc.getFileEvents().get(0).getFileEvent();
+    assertThat(events.size(), is(1));
+    assertThat(events.get(0).getFilePath(), is("/p/b.txt"));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void compactShouldThrowAnExceptionIfDocumentIsNull() {
+    new DataCompactor(Rollup.WEEK).compact(null);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void constructorShouldThrowAnExceptionIfFilterIsNull() {
+    new DataCompactor(Rollup.WEEK, null);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void constructorShouldThrowAnExceptionIfRollupIsNull() {
+    new DataCompactor(null);
+  }
+
+  @Test
+  public void startOfShouldReturnTheFirstDayOfTheMonthForMonths() {
+    assertThat(Rollup.MONTH.startOf(new LocalDate(2010, 9, 15)),
+        is(new LocalDate(2010, 9, 1)));
+  }
+
+  @Test
+  public void startOfShouldReturnTheMondayOfTheWeekForWeeks() {
+    assertThat(Rollup.WEEK.startOf(new LocalDate(2010, 9, 19)),
+        is(new LocalDate(2010, 9, 13)));
+  }
+
+  @Test
+  public void startOfShouldNotReturnADayOfThePreviousMonthForWeeks() {
+    // The week of Wednesday 1 September starts on Monday 30 August:
+    assertThat(Rollup.WEEK.startOf(new LocalDate(2010, 9, 1)),
+        is(new LocalDate(2010, 9, 1)));
+  }
+
+  private void addFile(EventListType doc, LocalDate date, String path,
+      long duration) {
+    FileEventListType list = objectFactory.createFileEventListType();
+    list.setDate(DatatypeUtil.toXmlDate(date));
+    FileEventType event = objectFactory.createFileEventType();
+    event.setFilePath(path);
+    event.setDuration(duration);
+    list.getFileEvent().add(event);
+    doc.getFileEvents().add(list);
+  }
+
+  private void addSession(EventListType doc, LocalDate date, long duration) {
+    SessionEventListType list = objectFactory.createSessionEventListType();
+    list.setDate(DatatypeUtil.toXmlDate(date));
+    SessionEventType event = objectFactory.createSessionEventType();
+    event.setDuration(duration);
+    list.getSessionEvent().add(event);
+    doc.getSessionEvents().add(list);
+  }
+
+  private LocalDate dateOf(SessionEventListType list) {
+    return DatatypeUtil.toLocalDate(list.getDate());
+  }
+
+  private long durationOf(SessionEventListType list) {
+    long duration = 0;
+    for (SessionEventType event : list.getSessionEvent()) {
+      duration += event.getDuration();
+    }
+    return duration;
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.xml;
+
+import rabbit.data.internal.xml.schema.events.EventListType;
+import rabbit.data.internal.xml.schema.events.FileEventListType;
+import rabbit.data.internal.xml.schema.events.FileEventType;
+import rabbit.data.internal.xml.schema.events.ObjectFactory;
+
+import org.joda.time.LocalDate;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the size and the read and write times of an uncompressed and a
+ * compressed data file holding the same month of file events, see
+ * {@link DataStore}. Run as a Java application, not part of the tests.
+ */
+public final class DataStoreBenchmark {
+
+  private static final int DAYS = 30;
+  private static final int FILES_PER_DAY = 200;
+  private static final int WARM_UP = 5;
+  private static final int RUNS = 20;
+
+  public static void main(String[] args) throws Exception {
+    EventListType doc = createMonth();
+    File dir = new File(System.getProperty("java.io.tmpdir"));
+    File plain = new File(dir, "rabbit-benchmark.xml");
+    File compressed = new File(dir, "rabbit-benchmark.xml."
+        + DataStore.COMPRESSED_EXTENSION);
+    try {
+      run("xml", doc, plain);
+      run("xml.gz", doc, compressed);
+    } finally {
+      plain.delete();
+      compressed.delete();
+    }
+  }
+
+  private static EventListType createMonth() {
+    ObjectFactory factory = new ObjectFactory();
+    EventListType doc = factory.createEventListType();
+    LocalDate date = new LocalDate(2011, 1, 1);
+    for (int day = 0; day < DAYS; day++) {
+      FileEventListType list = factory.createFileEventListType();
+      list.setDate(DatatypeUtil.toXmlDate(date.plusDays(day)));
+      for (int i = 0; i < FILES_PER_DAY; i++) {
+        FileEventType event = factory.createFileEventType();
+        event.setFilePath("/project" + (i % 7) + "/src/pkg" + (i % 13)
+            + "/File" + i + ".java");
+        event.setDuration(1000L * (i + day));
+        list.getFileEvent().add(event);
+      }
+      doc.getFileEvents().add(list);
+    }
+    return doc;
+  }
+
+  private static void run(String name, EventListType doc, File file) {
+    DataStore store = DataStore.FILE_STORE;
+    for (int i = 0; i < WARM_UP; i++) {
+      store.write(doc, file);
+      store.read(file);
+    }
+
+    long write = 0;
+    long read = 0;
+    for (int i = 0; i < RUNS; i++) {
+      long start = System.nanoTime();
+      store.write(doc, file);
+      write += System.nanoTime() - start;
+
+      start = System.nanoTime();
+      store.read(file);
+      read += System.nanoTime() - start;
+    }
+    System.out.printf("%-7s %9d bytes, write %6.2f ms, read %6.2f ms%n",
+        name, file.length(), toMillis(write / RUNS), toMillis(read / RUNS));
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  private DataStoreBenchmark() {
+  }
+}
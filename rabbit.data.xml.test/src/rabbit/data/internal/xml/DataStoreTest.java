@@ -15,7 +15,9 @@
  */
 package rabbit.data.internal.xml;
 
+import rabbit.data.internal.xml.schema.events.EventListType;
 import rabbit.data.internal.xml.schema.events.ObjectFactory;
+import rabbit.data.internal.xml.schema.events.SessionEventListType;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertEquals;
@@ -26,6 +28,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.matchers.JUnitMatchers.hasItems;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 import org.joda.time.LocalDate;
@@ -35,10 +38,13 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @see DataStore
@@ -47,6 +53,128 @@ public class DataStoreTest {
 
   private DataStore store = DataStore.PART_STORE;
 
+  @Test
+  public void getDataFileShouldPreferTheCompressedFile() throws Exception {
+    IPath path = new Path(System.getProperty("java.io.tmpdir"));
+    LocalDate date = new LocalDate(1, 2, 1);
+    File plain = store.getDataFile(date, path);
+    File compressed = new File(plain.getPath() + ".gz");
+    try {
+      assertTrue(plain.createNewFile());
+      assertThat(store.getDataFile(date, path), equalTo(plain));
+
+      assertTrue(compressed.createNewFile());
+      assertThat(store.getDataFile(date, path), equalTo(compressed));
+    } finally {
+      FileUtils.deleteQuietly(plain);
+      FileUtils.deleteQuietly(compressed);
+    }
+  }
+
+  @Test
+  public void getModificationStampShouldChangeWhenTheFileIsWritten()
+      throws Exception {
+    File file = File.createTempFile("rabbit", ".xml");
+    try {
+      assertTrue(file.setLastModified(1000));
+      long stamp = store.getModificationStamp(file);
+      assertTrue(store.write(new ObjectFactory().createEventListType(), file));
+      assertFalse(store.getModificationStamp(file) == stamp);
+    } finally {
+      FileUtils.deleteQuietly(file);
+    }
+  }
+
+  @Test
+  public void openStreamShouldReturnNullIfFileDoesNotExist() throws Exception {
+    File file = File.createTempFile("rabbit", ".xml");
+    assertTrue(file.delete());
+    assertThat(store.openStream(file), equalTo(null));
+  }
+
+  @Test
+  public void openStreamShouldReturnTheDocumentOfACompressedFile()
+      throws Exception {
+    File file = File.createTempFile("rabbit", ".xml.gz");
+    try {
+      EventListType doc = new ObjectFactory().createEventListType();
+      assertTrue(store.write(doc, file));
+
+      InputStream in = store.openStream(file);
+      try {
+        assertThat(IOUtils.toString(in, "UTF-8").contains("<events"),
+            equalTo(true));
+      } finally {
+        in.close();
+      }
+    } finally {
+      FileUtils.deleteQuietly(file);
+    }
+  }
+
+  @Test
+  public void writeShouldCompressTheFileIfCompressionIsEnabled()
+      throws Exception {
+    File plain = File.createTempFile("rabbit", ".xml");
+    File compressed = new File(plain.getPath() + ".gz");
+    XmlPlugin.getDefault().setCompressingData(true);
+    try {
+      EventListType doc = new ObjectFactory().createEventListType();
+      SessionEventListType list = new SessionEventListType();
+      list.setDate(DatatypeUtil.toXmlDate(new LocalDate()));
+      doc.getSessionEvents().add(list);
+      assertTrue(store.write(doc, plain));
+
+      assertFalse(plain.exists());
+      assertTrue(compressed.exists());
+      assertThat(store.read(compressed).getSessionEvents().size(),
+          equalTo(1));
+    } finally {
+      XmlPlugin.getDefault().setCompressingData(false);
+      FileUtils.deleteQuietly(plain);
+      FileUtils.deleteQuietly(compressed);
+    }
+  }
+
+  @Test
+  public void writeShouldReplaceAnExistingFileWithoutLeavingATemporaryFile()
+      throws Exception {
+    File file = File.createTempFile("rabbit", ".xml");
+    File temp = new File(file.getPath() + ".tmp");
+    try {
+      EventListType doc = new ObjectFactory().createEventListType();
+      SessionEventListType list = new SessionEventListType();
+      list.setDate(DatatypeUtil.toXmlDate(new LocalDate()));
+      doc.getSessionEvents().add(list);
+      assertTrue(store.write(doc, file));
+      doc.getSessionEvents().add(new SessionEventListType());
+      assertTrue(store.write(doc, file));
+
+      assertFalse(temp.exists());
+      assertThat(store.read(file).getSessionEvents().size(), equalTo(2));
+    } finally {
+      FileUtils.deleteQuietly(file);
+      FileUtils.deleteQuietly(temp);
+    }
+  }
+
+  @Test
+  public void lockShouldBeSharedByThePlainAndCompressedFilesOfAMonth()
+      throws Exception {
+    File plain = File.createTempFile("rabbit", ".xml");
+    File compressed = new File(plain.getPath() + ".gz");
+    WriteLock lock = store.lock(plain);
+    try {
+      CountDownLatch acquired = new CountDownLatch(1);
+      lockInAnotherThread(compressed, acquired);
+      assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+      lock.release();
+      assertTrue(acquired.await(5, TimeUnit.SECONDS));
+    } finally {
+      FileUtils.deleteQuietly(plain);
+    }
+  }
+
   @Test
   public void testGetDataFile() {
     assertNotNull(store.getDataFile(new LocalDate()));
@@ -192,4 +320,15 @@ public class DataStoreTest {
   public void testWrite_fileNull() {
     store.write(new ObjectFactory().createEventListType(), null);
   }
+
+  private void lockInAnotherThread(final File file,
+      final CountDownLatch acquired) {
+    new Thread() {
+      @Override
+      public void run() {
+        store.lock(file).release();
+        acquired.countDown();
+      }
+    }.start();
+  }
 }
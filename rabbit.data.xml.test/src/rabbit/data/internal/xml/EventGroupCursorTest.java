@@ -0,0 +1,195 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.xml;
+
+import rabbit.data.internal.xml.schema.events.EventGroupType;
+import rabbit.data.internal.xml.schema.events.EventListType;
+import rabbit.data.internal.xml.schema.events.FileEventListType;
+import rabbit.data.internal.xml.schema.events.FileEventType;
+import rabbit.data.internal.xml.schema.events.JavaEventListType;
+import rabbit.data.internal.xml.schema.events.JavaEventType;
+import rabbit.data.internal.xml.schema.events.ObjectFactory;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import static java.util.Arrays.asList;
+
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+
+/**
+ * @see EventGroupCursor
+ */
+public class EventGroupCursorTest {
+
+  private final ObjectFactory objectFactory = new ObjectFactory();
+  private final LocalDate date = new LocalDate(2011, 1, 1);
+  private File file;
+
+  @Before
+  public void before() throws Exception {
+    file = File.createTempFile("rabbit", ".xml");
+  }
+
+  @After
+  public void after() {
+    file.delete();
+  }
+
+  @Test
+  public void getShouldReturnTheGroupWithTheReferencesUnresolved()
+      throws Exception {
+    EventListType doc = objectFactory.createEventListType();
+    newJavaEvents(doc, date, "=a");
+    EventGroupCursor<JavaEventListType> cursor = open(doc);
+    try {
+      assertThat(cursor.next(), is(true));
+      JavaEventType event = cursor.get().getJavaEvent().get(0);
+      assertThat(event.getHandleIdentifier(), is(nullValue()));
+      assertThat(cursor.getStrings().getString().get(
+          event.getHandleIdentifierRef()), is("=a"));
+    } finally {
+      cursor.close();
+    }
+  }
+
+  @Test
+  public void getDateShouldReturnTheDateOfTheGroup() throws Exception {
+    EventListType doc = objectFactory.createEventListType();
+    newJavaEvents(doc, date, "=a");
+    EventGroupCursor<JavaEventListType> cursor = open(doc);
+    try {
+      assertThat(cursor.next(), is(true));
+      assertThat(cursor.getDate(), is(date));
+    } finally {
+      cursor.close();
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void getShouldThrowAnExceptionIfCursorIsNotOnAGroup()
+      throws Exception {
+    EventGroupCursor<JavaEventListType> cursor =
+        open(objectFactory.createEventListType());
+    try {
+      cursor.get();
+    } finally {
+      cursor.close();
+    }
+  }
+
+  @Test
+  public void nextShouldReturnFalseIfThereAreNoMoreGroups() throws Exception {
+    EventListType doc = objectFactory.createEventListType();
+    newJavaEvents(doc, date, "=a");
+    EventGroupCursor<JavaEventListType> cursor = open(doc);
+    try {
+      assertThat(cursor.next(), is(true));
+      cursor.get();
+      assertThat(cursor.next(), is(false));
+    } finally {
+      cursor.close();
+    }
+  }
+
+  @Test
+  public void nextShouldSkipTheCurrentGroupIfItHasNotBeenRead()
+      throws Exception {
+    EventListType doc = objectFactory.createEventListType();
+    newJavaEvents(doc, date, "=a");
+    newJavaEvents(doc, date.plusDays(1), "=b");
+    EventGroupCursor<JavaEventListType> cursor = open(doc);
+    try {
+      assertThat(cursor.next(), is(true));
+      assertThat(cursor.next(), is(true));
+      assertThat(cursor.getDate(), is(date.plusDays(1)));
+      assertThat(cursor.get().getJavaEvent().size(), is(1));
+      assertThat(cursor.next(), is(false));
+    } finally {
+      cursor.close();
+    }
+  }
+
+  @Test
+  public void nextShouldSkipTheGroupsOfOtherTypes() throws Exception {
+    EventListType doc = objectFactory.createEventListType();
+    newFileEvents(doc, date, "/a");
+    newJavaEvents(doc, date.plusDays(1), "=a");
+    newFileEvents(doc, date.plusDays(2), "/b");
+    EventGroupCursor<FileEventListType> cursor =
+        open(doc, FileEventListType.class);
+    try {
+      assertThat(cursor.next(), is(true));
+      assertThat(cursor.getDate(), is(date));
+      assertThat(cursor.next(), is(true));
+      assertThat(cursor.getDate(), is(date.plusDays(2)));
+      assertThat(cursor.next(), is(false));
+      assertThat(cursor.getStrings().getString(), is(asList("/a", "/b", "=a")));
+    } finally {
+      cursor.close();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void openShouldThrowAnExceptionIfTypeIsNotAGroupOfADocument()
+      throws Exception {
+    EventGroupCursor.open(
+        new ByteArrayInputStream(new byte[0]), EventGroupType.class);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void openShouldThrowAnExceptionIfStreamIsNull() throws Exception {
+    EventGroupCursor.open(null, JavaEventListType.class);
+  }
+
+  private EventGroupCursor<JavaEventListType> open(EventListType doc)
+      throws Exception {
+    return open(doc, JavaEventListType.class);
+  }
+
+  private <S extends EventGroupType> EventGroupCursor<S> open(
+      EventListType doc, Class<S> type) throws Exception {
+    DataStore.JAVA_STORE.write(doc, file);
+    return EventGroupCursor.open(DataStore.JAVA_STORE.openStream(file), type);
+  }
+
+  private void newFileEvents(EventListType doc, LocalDate date, String path) {
+    FileEventListType list = objectFactory.createFileEventListType();
+    list.setDate(DatatypeUtil.toXmlDate(date));
+    FileEventType event = objectFactory.createFileEventType();
+    event.setFilePath(path);
+    event.setDuration(1);
+    list.getFileEvent().add(event);
+    doc.getFileEvents().add(list);
+  }
+
+  private void newJavaEvents(EventListType doc, LocalDate date, String handle) {
+    JavaEventListType list = objectFactory.createJavaEventListType();
+    list.setDate(DatatypeUtil.toXmlDate(date));
+    JavaEventType event = objectFactory.createJavaEventType();
+    event.setHandleIdentifier(handle);
+    event.setDuration(10);
+    list.getJavaEvent().add(event);
+    doc.getJavaEvents().add(list);
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.xml;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableSortedSet;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+/**
+ * @see PackFile
+ */
+public class PackFileTest {
+
+  private File file;
+  private PackFile pack;
+
+  @Before
+  public void before() throws Exception {
+    file = File.createTempFile("rabbit", ".pack");
+    file.delete();
+    pack = PackFile.of(file);
+  }
+
+  @After
+  public void after() {
+    file.delete();
+  }
+
+  @Test
+  public void compactShouldKeepThePages() throws Exception {
+    pack.write("a", bytes("1"));
+    pack.write("a", bytes("2"));
+    pack.write("b", bytes("3"));
+    long length = file.length();
+
+    pack.compact();
+
+    assertThat(file.length() < length, is(true));
+    assertThat(read("a"), is("2"));
+    assertThat(read("b"), is("3"));
+  }
+
+  @Test
+  public void compactShouldCopyPagesLargerThanABuffer() throws Exception {
+    StringBuilder large = new StringBuilder();
+    for (int i = 0; i < 100000; i++) {
+      large.append(i % 10);
+    }
+    pack.write("a", bytes("1"));
+    pack.write("a", bytes(large.toString()));
+    pack.write("b", bytes("2"));
+
+    pack.compact();
+
+    assertThat(read("a"), is(large.toString()));
+    assertThat(read("b"), is("2"));
+  }
+
+  @Test
+  public void compactShouldNotChangeAPageBeingRead() throws Exception {
+    pack.write("a", bytes("1"));
+    InputStream in = pack.read("a");
+
+    pack.write("a", bytes("2"));
+    pack.compact();
+
+    assertThat(new String(IOUtils.toByteArray(in), "UTF-8"), is("1"));
+    assertThat(read("a"), is("2"));
+  }
+
+  @Test
+  public void getNamesShouldReturnTheNamesOfThePagesInOrder()
+      throws Exception {
+    pack.write("b", bytes("1"));
+    pack.write("a", bytes("2"));
+    assertThat(pack.getNames(), is((Object) ImmutableSortedSet.of("a", "b")));
+  }
+
+  @Test
+  public void ofShouldReturnTheSameInstanceForTheSameFile() {
+    assertThat(PackFile.of(new File(file.getPath())), sameInstance(pack));
+  }
+
+  @Test
+  public void readShouldIgnoreAnInterruptedWrite() throws Exception {
+    pack.write("a", bytes("1"));
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      raf.seek(raf.length());
+      raf.write(bytes("garbage"));
+    } finally {
+      raf.close();
+    }
+    assertThat(read("a"), is("1"));
+    pack.write("b", bytes("2"));
+    assertThat(read("a"), is("1"));
+    assertThat(read("b"), is("2"));
+  }
+
+  @Test
+  public void readShouldReloadAFileReplacedWithTheSameStampAndLength()
+      throws Exception {
+    pack.write("a", bytes("1"));
+    pack.write("a", bytes("abcdefghijklmnop"));
+    assertThat(read("a"), is("abcdefghijklmnop"));
+
+    // Same length, different index position:
+    File other = File.createTempFile("rabbit", ".pack");
+    other.delete();
+    try {
+      PackFile.of(other).write("b", bytes("x"));
+      PackFile.of(other).write("a", bytes("y"));
+      assertThat(other.length(), is(file.length()));
+
+      long modified = file.lastModified();
+      FileUtils.copyFile(other, file);
+      file.setLastModified(modified);
+    } finally {
+      other.delete();
+    }
+    assertThat(read("a"), is("y"));
+    assertThat(read("b"), is("x"));
+  }
+
+  @Test
+  public void readShouldReturnNullIfThereIsNoSuchPage() throws Exception {
+    assertThat(pack.read("a"), is(nullValue()));
+    assertThat(pack.contains("a"), is(false));
+    assertThat(file.exists(), is(false));
+  }
+
+  @Test
+  public void readShouldReturnTheContentOfThePage() throws Exception {
+    pack.write("a", bytes("hello"));
+    pack.write("b", bytes("world"));
+    assertThat(pack.contains("a"), is(true));
+    assertThat(read("a"), is("hello"));
+    assertThat(read("b"), is("world"));
+  }
+
+  @Test
+  public void writeShouldReplaceThePageOfTheSameName() throws Exception {
+    pack.write("a", bytes("1"));
+    pack.write("a", bytes("22"));
+    assertThat(read("a"), is("22"));
+    assertThat(pack.getNames().size(), is(1));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void ofShouldThrowAnExceptionIfFileIsNull() {
+    PackFile.of(null);
+  }
+
+  private static byte[] bytes(String str) throws Exception {
+    return str.getBytes("UTF-8");
+  }
+
+  private String read(String name) throws Exception {
+    return new String(IOUtils.toByteArray(pack.read(name)), "UTF-8");
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.xml;
+
+import rabbit.data.internal.xml.schema.events.EventListType;
+import rabbit.data.internal.xml.schema.events.ObjectFactory;
+import rabbit.data.internal.xml.schema.events.SessionEventListType;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+
+import java.io.File;
+
+/**
+ * @see PackedDataStore
+ */
+public class PackedDataStoreTest {
+
+  private final PackedDataStore store = PackedDataStore.SESSION_STORE;
+  private File dir;
+  private IPath location;
+
+  @Before
+  public void before() throws Exception {
+    dir = File.createTempFile("rabbit", "");
+    dir.delete();
+    dir.mkdir();
+    location = Path.fromOSString(dir.getAbsolutePath());
+  }
+
+  @After
+  public void after() {
+    FileUtils.deleteQuietly(dir);
+  }
+
+  @Test
+  public void getDataFileShouldReturnAPageOfThePackFile() {
+    File file = store.getDataFile(new LocalDate(2011, 3, 1), location);
+    assertThat(file.getParentFile(),
+        is(new File(dir, PackedDataStore.PACK_FILE_NAME)));
+    assertThat(file.getName(), is("sessionEvents-2011-03"));
+  }
+
+  @Test
+  public void getDataFilesShouldReturnTheExistingPagesBetweenTheDates() {
+    LocalDate date = new LocalDate(2011, 3, 1);
+    File file = store.getDataFile(date, location);
+    store.write(newDocument(date), file);
+
+    assertThat(store.getDataFiles(date.minusMonths(1), date, location),
+        is(asList(file)));
+    assertThat(store.getDataFiles(date.plusMonths(1), date.plusMonths(2),
+        location).isEmpty(), is(true));
+    assertThat(PackedDataStore.FILE_STORE.getDataFiles(date, date, location)
+        .isEmpty(), is(true));
+  }
+
+  @Test
+  public void shouldBeAbleToReadTheWrittenDocument() {
+    LocalDate date = new LocalDate(2011, 3, 1);
+    File file = store.getDataFile(date, location);
+    assertThat(store.write(newDocument(date), file), is(true));
+
+    EventListType doc = store.read(file);
+    assertThat(doc.getSessionEvents().size(), is(1));
+    assertThat(DatatypeUtil.toLocalDate(
+        doc.getSessionEvents().get(0).getDate()), is(date));
+  }
+
+  @Test
+  public void readShouldReturnAnEmptyDocumentIfThereIsNoSuchPage() {
+    File file = store.getDataFile(new LocalDate(), location);
+    assertThat(store.read(file).getSessionEvents().isEmpty(), is(true));
+  }
+
+  private static EventListType newDocument(LocalDate date) {
+    EventListType doc = new ObjectFactory().createEventListType();
+    SessionEventListType list = new SessionEventListType();
+    list.setDate(DatatypeUtil.toXmlDate(date));
+    doc.getSessionEvents().add(list);
+    return doc;
+  }
+}
@@ -0,0 +1,55 @@
+package rabbit.data.internal.xml;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.name.Names;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Tests for {@link PackedStoreNamesModule}.
+ */
+@RunWith(Parameterized.class)
+public class PackedStoreNamesModuleTest {
+
+  @Parameters
+  public static Collection<Object[]> data() {
+    //@formatter:off
+    return Arrays.asList(new Object[][]{
+        {StoreNames.COMMAND_STORE,      PackedDataStore.COMMAND_STORE},
+        {StoreNames.FILE_STORE,         PackedDataStore.FILE_STORE},
+        {StoreNames.JAVA_STORE,         PackedDataStore.JAVA_STORE},
+        {StoreNames.LAUNCH_STORE,       PackedDataStore.LAUNCH_STORE},
+        {StoreNames.PART_STORE,         PackedDataStore.PART_STORE},
+        {StoreNames.PERSPECTIVE_STORE,  PackedDataStore.PERSPECTIVE_STORE},
+        {StoreNames.SESSION_STORE,      PackedDataStore.SESSION_STORE},
+        {StoreNames.TASK_STORE,         PackedDataStore.TASK_STORE},
+    });
+    //@formatter:on
+  }
+
+  private Injector injector;
+  private String storeName;
+  private IDataStore store;
+
+  public PackedStoreNamesModuleTest(String storeName, PackedDataStore store) {
+    this.storeName = storeName;
+    this.store = store;
+    injector = Guice.createInjector(new PackedStoreNamesModule());
+  }
+
+  @Test
+  public void shouldBindTheCorrectStore() {
+    assertThat(injector.getInstance(Key.get(IDataStore.class, Names.named(storeName))), is(store));
+  }
+}
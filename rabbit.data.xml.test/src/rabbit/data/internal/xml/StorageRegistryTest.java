@@ -0,0 +1,149 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.xml;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import static java.util.Arrays.asList;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+/**
+ * @see StorageRegistry
+ */
+public class StorageRegistryTest {
+
+  private StorageRegistry registry;
+  private File root;
+
+  @Before
+  public void setUp() throws Exception {
+    registry = new StorageRegistry();
+    root = File.createTempFile("rabbit", "");
+    root.delete();
+    root.mkdirs();
+  }
+
+  @After
+  public void tearDown() {
+    FileUtils.deleteQuietly(root);
+  }
+
+  @Test
+  public void existsShouldReturnFalseIfFolderDoesNotExist() {
+    assertThat(registry.exists(new File(root, "x/y.xml")), is(false));
+  }
+
+  @Test
+  public void existsShouldReturnTheCachedResultIfFolderIsNotChanged()
+      throws Exception {
+    long stamp = setOldStamp(root);
+    File file = new File(root, "a.xml");
+    assertThat(registry.exists(file), is(false));
+
+    file.createNewFile();
+    root.setLastModified(stamp);
+    assertThat(registry.exists(file), is(false));
+  }
+
+  @Test
+  public void existsShouldReturnTheNewResultIfFolderIsChanged()
+      throws Exception {
+    long stamp = setOldStamp(root);
+    File file = new File(root, "a.xml");
+    assertThat(registry.exists(file), is(false));
+
+    file.createNewFile();
+    root.setLastModified(stamp + 1000);
+    assertThat(registry.exists(file), is(true));
+  }
+
+  @Test
+  public void existsShouldNotTrustAListingOfARecentlyChangedFolder()
+      throws Exception {
+    File file = new File(root, "a.xml");
+    assertThat(registry.exists(file), is(false));
+
+    // The stamp may not change for changes in the same second:
+    long stamp = root.lastModified();
+    file.createNewFile();
+    root.setLastModified(stamp);
+    assertThat(registry.exists(file), is(true));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void existsShouldThrowAnExceptionIfFileIsNull() {
+    registry.exists(null);
+  }
+
+  @Test
+  public void getStoragePathsShouldReturnTheFoldersAndTheCurrentLocation()
+      throws Exception {
+    new File(root, "a").mkdir();
+    new File(root, "b.xml").createNewFile();
+    new File(root, "c").mkdir();
+    IPath current = path(new File(root, "current"));
+
+    assertThat(asList(registry.getStoragePaths(root, current)).size(), is(3));
+    assertThat(asList(registry.getStoragePaths(root, current)).containsAll(
+        asList(path(new File(root, "a")), path(new File(root, "c")), current)),
+        is(true));
+  }
+
+  @Test
+  public void getStoragePathsShouldReturnANewFolderOfTheRoot() {
+    IPath current = path(new File(root, "current"));
+    long stamp = setOldStamp(root);
+    assertThat(registry.getStoragePaths(root, current).length, is(1));
+
+    new File(root, "a").mkdir();
+    root.setLastModified(stamp + 1000);
+    assertThat(asList(registry.getStoragePaths(root, current)).contains(
+        path(new File(root, "a"))), is(true));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void getStoragePathsShouldThrowAnExceptionIfCurrentIsNull() {
+    registry.getStoragePaths(root, null);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void getStoragePathsShouldThrowAnExceptionIfRootIsNull() {
+    registry.getStoragePaths(null, new Path("/a"));
+  }
+
+  private static IPath path(File file) {
+    return Path.fromOSString(file.getAbsolutePath());
+  }
+
+  /**
+   * Sets the stamp of the given folder to a time outside of
+   * {@link StorageRegistry#RACY_INTERVAL}.
+   */
+  private static long setOldStamp(File folder) {
+    long stamp = (System.currentTimeMillis() / 1000 - 60) * 1000;
+    folder.setLastModified(stamp);
+    return stamp;
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.xml;
+
+import rabbit.data.internal.xml.schema.events.EventListType;
+import rabbit.data.internal.xml.schema.events.FileEventListType;
+import rabbit.data.internal.xml.schema.events.FileEventType;
+import rabbit.data.internal.xml.schema.events.JavaEventListType;
+import rabbit.data.internal.xml.schema.events.JavaEventType;
+import rabbit.data.internal.xml.schema.events.ObjectFactory;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import static java.util.Arrays.asList;
+
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+import java.io.File;
+
+/**
+ * @see StringTables
+ */
+public class StringTablesTest {
+
+  private final ObjectFactory objectFactory = new ObjectFactory();
+
+  @Test
+  public void decodeShouldReplaceTheReferencesWithTheSharedStrings() {
+    EventListType doc = objectFactory.createEventListType();
+    JavaEventType e1 = newJavaEvent(doc, "=a/src<pkg{A.java");
+    JavaEventType e2 = newJavaEvent(doc, "=a/src<pkg{A.java");
+    StringTables.encode(doc);
+
+    StringTables.decode(doc);
+
+    assertThat(doc.getStrings(), is(nullValue()));
+    assertThat(e1.getHandleIdentifierRef(), is(nullValue()));
+    assertThat(e1.getHandleIdentifier(), is("=a/src<pkg{A.java"));
+    assertThat(e1.getHandleIdentifier(),
+        sameInstance(e2.getHandleIdentifier()));
+  }
+
+  @Test
+  public void decodeShouldNotChangeADocumentWithoutAStringTable() {
+    EventListType doc = objectFactory.createEventListType();
+    JavaEventType event = newJavaEvent(doc, "=a");
+
+    StringTables.decode(doc);
+
+    assertThat(event.getHandleIdentifier(), is("=a"));
+    assertThat(event.getHandleIdentifierRef(), is(nullValue()));
+  }
+
+  @Test
+  public void encodeShouldWriteEachDistinctStringOnce() {
+    EventListType doc = objectFactory.createEventListType();
+    JavaEventType java1 = newJavaEvent(doc, "=a");
+    JavaEventType java2 = newJavaEvent(doc, "=b");
+    JavaEventType java3 = newJavaEvent(doc, "=a");
+    FileEventType file = newFileEvent(doc, "/p/f.txt");
+
+    StringTables.encode(doc);
+
+    assertThat(doc.getStrings().getString(),
+        is(asList("/p/f.txt", "=a", "=b")));
+    assertThat(file.getFilePath(), is(nullValue()));
+    assertThat(file.getFilePathRef(), is(0));
+    assertThat(java1.getHandleIdentifier(), is(nullValue()));
+    assertThat(java1.getHandleIdentifierRef(), is(1));
+    assertThat(java2.getHandleIdentifierRef(), is(2));
+    assertThat(java3.getHandleIdentifierRef(), is(1));
+  }
+
+  @Test
+  public void encodeShouldNotAddATableToADocumentWithoutStrings() {
+    EventListType doc = objectFactory.createEventListType();
+    StringTables.encode(doc);
+    assertThat(doc.getStrings(), is(nullValue()));
+  }
+
+  @Test
+  public void shouldBeAbleToReadTheWrittenDocument() throws Exception {
+    File file = File.createTempFile("rabbit", ".xml");
+    try {
+      EventListType doc = objectFactory.createEventListType();
+      JavaEventType event = newJavaEvent(doc, "=a/src<pkg{A.java");
+
+      DataStore.JAVA_STORE.write(doc, file);
+      // The document is restored after being written:
+      assertThat(event.getHandleIdentifier(), is("=a/src<pkg{A.java"));
+
+      doc = DataStore.JAVA_STORE.read(file);
+      JavaEventType actual = doc.getJavaEvents().get(0).getJavaEvent().get(0);
+      assertThat(actual.getHandleIdentifier(), is("=a/src<pkg{A.java"));
+      assertThat(actual.getDuration(), is(event.getDuration()));
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void decodeShouldThrowAnExceptionIfDocumentIsNull() {
+    StringTables.decode(null);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void encodeShouldThrowAnExceptionIfDocumentIsNull() {
+    StringTables.encode(null);
+  }
+
+  private FileEventType newFileEvent(EventListType doc, String path) {
+    FileEventListType list = objectFactory.createFileEventListType();
+    list.setDate(DatatypeUtil.toXmlDate(new LocalDate()));
+    FileEventType event = objectFactory.createFileEventType();
+    event.setFilePath(path);
+    event.setDuration(1);
+    list.getFileEvent().add(event);
+    doc.getFileEvents().add(list);
+    return event;
+  }
+
+  private JavaEventType newJavaEvent(EventListType doc, String handle) {
+    JavaEventListType list = objectFactory.createJavaEventListType();
+    list.setDate(DatatypeUtil.toXmlDate(new LocalDate()));
+    JavaEventType event = objectFactory.createJavaEventType();
+    event.setHandleIdentifier(handle);
+    event.setDuration(10);
+    list.getJavaEvent().add(event);
+    doc.getJavaEvents().add(list);
+    return event;
+  }
+}
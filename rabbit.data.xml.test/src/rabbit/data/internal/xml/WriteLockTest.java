@@ -0,0 +1,122 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.xml;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @see WriteLock
+ */
+public class WriteLockTest {
+
+  private File location;
+
+  @Before
+  public void createLocation() throws Exception {
+    location = File.createTempFile("rabbit", "");
+    location.delete();
+    location.mkdirs();
+  }
+
+  @After
+  public void deleteLocation() {
+    FileUtils.deleteQuietly(location);
+  }
+
+  @Test
+  public void acquireShouldBeReentrant() {
+    WriteLock lock1 = WriteLock.acquire(location, "a");
+    WriteLock lock2 = WriteLock.acquire(location, "a");
+    lock2.release();
+    lock1.release();
+  }
+
+  @Test
+  public void acquireShouldBlockOtherThreadsUntilReleased() throws Exception {
+    WriteLock lock = WriteLock.acquire(location, "a");
+    CountDownLatch acquired = acquireInAnotherThread(location, "a");
+    try {
+      assertThat(acquired.await(200, TimeUnit.MILLISECONDS), is(false));
+    } finally {
+      lock.release();
+    }
+    assertThat(acquired.await(5, TimeUnit.SECONDS), is(true));
+  }
+
+  @Test
+  public void acquireShouldCreateTheLockFileInTheLocation() {
+    WriteLock.acquire(location, "a").release();
+    assertThat(new File(location, WriteLock.LOCK_FILE_NAME).isFile(),
+        is(true));
+  }
+
+  @Test
+  public void acquireShouldNotBlockOtherThreadsFromOtherFiles()
+      throws Exception {
+    WriteLock lock = WriteLock.acquire(location, "a");
+    try {
+      CountDownLatch acquired = acquireInAnotherThread(location, "b");
+      assertThat(acquired.await(5, TimeUnit.SECONDS), is(true));
+    } finally {
+      lock.release();
+    }
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void acquireShouldThrowAnExceptionIfLocationIsNull() {
+    WriteLock.acquire(null, "a");
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void acquireShouldThrowAnExceptionIfNameIsNull() {
+    WriteLock.acquire(location, null);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void releaseShouldThrowAnExceptionIfLockIsNotHeld() {
+    WriteLock lock = WriteLock.acquire(location, "a");
+    lock.release();
+    lock.release();
+  }
+
+  /**
+   * Acquires and releases a lock in a new thread.
+   * 
+   * @return A latch that is released once the lock is acquired.
+   */
+  private static CountDownLatch acquireInAnotherThread(
+      final File location, final String name) {
+    final CountDownLatch acquired = new CountDownLatch(1);
+    new Thread() {
+      @Override
+      public void run() {
+        WriteLock.acquire(location, name).release();
+        acquired.countDown();
+      }
+    }.start();
+    return acquired;
+  }
+}
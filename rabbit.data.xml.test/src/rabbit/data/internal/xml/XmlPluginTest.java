@@ -26,11 +26,13 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.matchers.JUnitMatchers.hasItem;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
+import org.joda.time.LocalDate;
 import org.junit.Test;
 
 import java.io.File;
@@ -60,6 +62,27 @@ public class XmlPluginTest {
     assertTrue(plugin.getStoragePath().toFile().isDirectory());
   }
 
+  @Test
+  public void getStoragePathShouldRecreateADeletedFolder() {
+    IPath oldPath = plugin.getStoragePathRoot();
+    File root = oldPath.append(System.currentTimeMillis() + "").toFile();
+    assertTrue(root.mkdirs());
+    try {
+      assertTrue(plugin.setStoragePathRoot(root));
+      File folder = plugin.getStoragePath().toFile();
+      assertTrue(folder.isDirectory());
+
+      assertTrue(folder.delete());
+      assertTrue(plugin.getStoragePath().toFile().isDirectory());
+    } finally {
+      plugin.setStoragePathRoot(oldPath.toFile());
+      for (File file : root.listFiles()) {
+        file.delete();
+      }
+      root.delete();
+    }
+  }
+
   @Test
   public void getStoragePathRootShouldReturnTheParentOfTheStoragePath() {
     assertThat(plugin.getStoragePathRoot(),
@@ -71,6 +94,55 @@ public class XmlPluginTest {
     assertEquals(XmlPlugin.PLUGIN_ID, plugin.getBundle().getSymbolicName());
   }
 
+  @Test
+  public void setCompressingDataShouldChangeWhetherDataIsCompressed() {
+    boolean old = plugin.isCompressingData();
+    try {
+      plugin.setCompressingData(true);
+      assertTrue(plugin.isCompressingData());
+      plugin.setCompressingData(false);
+      assertFalse(plugin.isCompressingData());
+    } finally {
+      plugin.setCompressingData(old);
+    }
+  }
+
+  @Test
+  public void setCompactionAgeShouldChangeTheAgeOfTheDataToCompact() {
+    int old = plugin.getCompactionAge();
+    try {
+      plugin.setCompactionAge(6);
+      assertThat(plugin.getCompactionAge(), equalTo(6));
+    } finally {
+      plugin.setCompactionAge(old);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void setCompactionAgeShouldThrowAnExceptionIfAgeIsNegative() {
+    plugin.setCompactionAge(-1);
+  }
+
+  @Test
+  public void setCompactionRollupShouldCompactTheDataAgainIfChanged() {
+    DataCompactor.Rollup old = plugin.getCompactionRollup();
+    LocalDate oldMonth = plugin.getCompactedMonth();
+    try {
+      plugin.setCompactionRollup(DataCompactor.Rollup.WEEK);
+      plugin.setCompactedMonth(new LocalDate(2010, 5, 31));
+      assertThat(plugin.getCompactedMonth(),
+          equalTo(new LocalDate(2010, 5, 1)));
+
+      plugin.setCompactionRollup(DataCompactor.Rollup.WEEK);
+      assertNotNull(plugin.getCompactedMonth());
+      plugin.setCompactionRollup(DataCompactor.Rollup.MONTH);
+      assertNull(plugin.getCompactedMonth());
+    } finally {
+      plugin.setCompactionRollup(old);
+      plugin.setCompactedMonth(oldMonth);
+    }
+  }
+
   @Test
   public void setStoragePathRootTests() throws IOException {
     IPath oldPath = plugin.getStoragePathRoot();
@@ -17,11 +17,18 @@ package rabbit.data.internal.xml.access;
 
 import static rabbit.data.internal.xml.DatatypeUtil.toXmlDate;
 
+import rabbit.data.access.IDataVisitor;
+import rabbit.data.access.Query;
+import rabbit.data.access.model.IData;
+import rabbit.data.access.model.Keys;
 import rabbit.data.access.model.WorkspaceStorage;
 import rabbit.data.internal.xml.XmlPlugin;
 import rabbit.data.internal.xml.access.AbstractAccessor;
 import rabbit.data.internal.xml.schema.events.EventGroupType;
 import rabbit.data.internal.xml.schema.events.EventListType;
+import rabbit.data.store.model.DiscreteEvent;
+
+import static com.google.common.collect.Lists.newArrayList;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
@@ -29,11 +36,18 @@ import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.matchers.JUnitMatchers.hasItem;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import static java.util.Arrays.asList;
 
 import org.apache.commons.io.FileUtils;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
+import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -86,6 +100,18 @@ public abstract class AbstractAccessorTest2<T, E, S extends EventGroupType> {
     accessor = create();
   }
 
+  @Test
+  public void convertShouldIgnoreObjectsThatAreNotEventsOfTheAccessor() {
+    Collection<T> data = accessor.convert(
+        asList("event", new DiscreteEvent(new DateTime())));
+    assertThat(data.isEmpty(), is(true));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void convertShouldThrowNullPointerExceptionIfEventsIsNull() {
+    accessor.convert(null);
+  }
+
   @Test
   public void getCategoriesShouldReturnTheCorrectCategories() {
     EventListType eventList = new EventListType();
@@ -184,6 +210,95 @@ public abstract class AbstractAccessorTest2<T, E, S extends EventGroupType> {
     assertValues(element, date, ws, data.iterator().next());
   }
 
+  @Test
+  public void getDataShouldReturnARowForEachGroupOfAQuery() {
+    LocalDate start = new LocalDate(2010, 2, 1);
+    LocalDate end = new LocalDate(2010, 2, 2);
+    S list1 = createCategory();
+    list1.setDate(toXmlDate(start));
+    getElements(list1).add(createElement());
+    getElements(list1).add(createElement());
+
+    S list2 = createCategory();
+    list2.setDate(toXmlDate(end));
+    getElements(list2).add(createElement());
+
+    EventListType events = new EventListType();
+    accessor.getCategories(events).add(list1);
+    accessor.getCategories(events).add(list2);
+    accessor.getDataStore().write(
+        events, accessor.getDataStore().getDataFile(start));
+
+    Query query = new Query.Builder(start, end).groupBy(Keys.DATE).build();
+    List<IData> rows = newArrayList(accessor.getData(query));
+    assertThat(rows.size(), is(2));
+    assertThat(rows.get(0).get(Keys.DATE), is(start));
+    assertThat(rows.get(1).get(Keys.DATE), is(end));
+  }
+
+  @Test
+  public void getDataShouldReuseTheDataOfAnUnchangedFile() {
+    LocalDate date = new LocalDate(2010, 3, 1);
+    File file = accessor.getDataStore().getDataFile(date);
+    writeData(createElement(), date, file);
+    assertTrue(file.setLastModified(System.currentTimeMillis() - 60000));
+
+    T first = accessor.getData(date, date).iterator().next();
+    T second = accessor.getData(date, date).iterator().next();
+    assertSame(first, second);
+  }
+
+  @Test
+  public void getDataShouldReuseTheDataOfAnUnchangedFileForOtherDates() {
+    LocalDate start = new LocalDate(2010, 5, 1);
+    LocalDate end = start.plusDays(1);
+    S list1 = createCategory();
+    list1.setDate(toXmlDate(start));
+    getElements(list1).add(createElement());
+    S list2 = createCategory();
+    list2.setDate(toXmlDate(end));
+    getElements(list2).add(createElement());
+    EventListType events = new EventListType();
+    accessor.getCategories(events).add(list1);
+    accessor.getCategories(events).add(list2);
+    File file = accessor.getDataStore().getDataFile(start);
+    accessor.getDataStore().write(events, file);
+    assertTrue(file.setLastModified(System.currentTimeMillis() - 60000));
+
+    // The range is shifted by a day, within the same file:
+    T first = accessor.getData(start, start).iterator().next();
+    Collection<T> shifted = accessor.getData(start, end);
+    assertThat(shifted.size(), is(2));
+    assertSame(first, shifted.iterator().next());
+    assertThat(accessor.getData(end, end).size(), is(1));
+  }
+
+  @Test
+  public void getDataShouldReadAFileAgainIfTheFileHasChanged() {
+    LocalDate date = new LocalDate(2010, 4, 1);
+    File file = accessor.getDataStore().getDataFile(date);
+    writeData(createElement(), date, file);
+    long modified = System.currentTimeMillis() - 60000;
+    assertTrue(file.setLastModified(modified));
+    assertThat(accessor.getData(date, date).size(), is(1));
+
+    S category = createCategory();
+    category.setDate(toXmlDate(date));
+    getElements(category).add(createElement());
+    getElements(category).add(createElement());
+    EventListType events = new EventListType();
+    accessor.getCategories(events).add(category);
+    accessor.getDataStore().write(events, file);
+    assertTrue(file.setLastModified(modified + 1000));
+
+    assertThat(accessor.getData(date, date).size(), is(2));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void getDataShouldThrowNullPointerExceptionIfQueryIsNull() {
+    accessor.getData((Query) null);
+  }
+
   @Test(expected = NullPointerException.class)
   public void getDataShouldThrowNullPointerExceptionIfEndDateIsNull() {
     accessor.getData(new LocalDate(), null);
@@ -205,6 +320,50 @@ public abstract class AbstractAccessorTest2<T, E, S extends EventGroupType> {
     assertSame(getElements(category), accessor.getElements(category));
   }
 
+  @Test
+  public void visitShouldReturnFalseIfTheMonitorIsCanceled() {
+    LocalDate date = new LocalDate().minusDays(3);
+    writeData(date);
+    IProgressMonitor monitor = new NullProgressMonitor();
+    monitor.setCanceled(true);
+    @SuppressWarnings("unchecked")
+    IDataVisitor<T> visitor = mock(IDataVisitor.class);
+
+    assertThat(accessor.visit(date, date, visitor, monitor), is(false));
+    verifyZeroInteractions(visitor);
+  }
+
+  @Test
+  public void visitShouldStopIfTheVisitorReturnsFalse() {
+    LocalDate date = new LocalDate().minusDays(4);
+    E element = createElement();
+    S category = createCategory();
+    category.setDate(toXmlDate(date));
+    getElements(category).add(element);
+    getElements(category).add(createElement());
+    EventListType events = new EventListType();
+    accessor.getCategories(events).add(category);
+    accessor.getDataStore().write(
+        events, accessor.getDataStore().getDataFile(date));
+
+    final List<T> visited = newArrayList();
+    boolean completed = accessor.visit(date, date, new IDataVisitor<T>() {
+      @Override
+      public boolean visit(T data) {
+        visited.add(data);
+        return false;
+      }
+    }, null);
+
+    assertThat(completed, is(false));
+    assertThat(visited.size(), is(1));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void visitShouldThrowNullPointerExceptionIfVisitorIsNull() {
+    accessor.visit(new LocalDate(), new LocalDate(), null, null);
+  }
+
   @Test
   public void shouldCreateADataNodeCorrectly() throws Exception {
     LocalDate date = new LocalDate();
@@ -18,6 +18,7 @@ package rabbit.data.internal.xml.access;
 import static rabbit.data.access.model.ICommandData.COMMAND;
 import static rabbit.data.access.model.ICommandData.COUNT;
 import static rabbit.data.access.model.ICommandData.DATE;
+import static rabbit.data.access.model.ICommandData.DURATION;
 import static rabbit.data.access.model.ICommandData.WORKSPACE;
 
 import rabbit.data.access.model.ICommandData;
@@ -48,6 +49,7 @@ public class CommandDataAccessorTest extends
     assertThat(actual.get(COMMAND).getId(), is(expected.getCommandId()));
     assertThat(actual.get(COUNT), is(expected.getCount()));
     assertThat(actual.get(DATE), is(expectedDate));
+    assertThat(actual.get(DURATION).getMillis(), is(expected.getDuration()));
     assertThat(actual.get(WORKSPACE), is(expectedWs));
   }
 
@@ -66,6 +68,7 @@ public class CommandDataAccessorTest extends
     CommandEventType type = new CommandEventType();
     type.setCommandId("abc");
     type.setCount(10);
+    type.setDuration(1000L);
     return type;
   }
 
@@ -23,12 +23,19 @@ import rabbit.data.internal.xml.access.SessionDataAccessor;
 import rabbit.data.internal.xml.schema.events.EventListType;
 import rabbit.data.internal.xml.schema.events.SessionEventListType;
 import rabbit.data.internal.xml.schema.events.SessionEventType;
+import rabbit.data.store.model.SessionEvent;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
+import static java.util.Arrays.asList;
+
+import org.joda.time.DateTime;
+import org.joda.time.Interval;
 import org.joda.time.LocalDate;
+import org.junit.Test;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -37,6 +44,21 @@ import java.util.List;
 public class SessionDataAccessorTest extends
     AbstractAccessorTest2<ISessionData, SessionEventType, SessionEventListType> {
 
+  @Test
+  public void convertShouldCreateTheDataOfTheSessionEvents() {
+    DateTime end = new DateTime();
+    Interval interval = new Interval(end.minusMinutes(2), end);
+
+    Collection<ISessionData> data =
+        accessor.convert(asList(new SessionEvent(interval)));
+
+    assertThat(data.size(), is(1));
+    ISessionData actual = data.iterator().next();
+    assertThat(actual.get(ISessionData.DATE),
+        is(interval.getStart().toLocalDate()));
+    assertThat(actual.get(ISessionData.DURATION), is(interval.toDuration()));
+  }
+
   @Override
   protected void assertValues(SessionEventType expected,
       LocalDate expectedDate, WorkspaceStorage expectedWs, ISessionData actual) {
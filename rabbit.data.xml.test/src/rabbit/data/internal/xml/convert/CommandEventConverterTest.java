@@ -21,13 +21,8 @@ import rabbit.data.store.model.CommandEvent;
 
 import static org.junit.Assert.assertEquals;
 
-import org.eclipse.core.commands.ExecutionEvent;
-import org.eclipse.ui.PlatformUI;
-import org.eclipse.ui.commands.ICommandService;
 import org.joda.time.DateTime;
 
-import java.util.Collections;
-
 /**
  * @see CommandEventConverter
  */
@@ -41,24 +36,17 @@ public class CommandEventConverterTest extends
 
   @Override
   public void testConvert() throws Exception {
-    CommandEvent event = createEvent();
+    int[] latencies = new int[CommandEvent.LATENCY_BUCKETS];
+    latencies[0] = 1;
+    latencies[3] = 2;
+    CommandEvent event =
+        new CommandEvent(new DateTime(), "adnk2o385", 3, 11, latencies);
     CommandEventType type = converter.convert(event);
-    assertEquals(event.getExecutionEvent().getCommand().getId(),
-        type.getCommandId());
-    assertEquals(1, type.getCount());
-  }
-
-  private CommandEvent createEvent() {
-    return new CommandEvent(new DateTime(), createExecutionEvent("adnk2o385"));
-  }
-
-  private ExecutionEvent createExecutionEvent(String commandId) {
-    return new ExecutionEvent(getCommandService().getCommand(commandId),
-        Collections.EMPTY_MAP, null, null);
-  }
-
-  private ICommandService getCommandService() {
-    return (ICommandService) PlatformUI.getWorkbench().getService(
-        ICommandService.class);
+    assertEquals(event.getCommandId(), type.getCommandId());
+    assertEquals(3, type.getCount());
+    assertEquals(Long.valueOf(11), type.getDuration());
+    assertEquals(CommandEvent.LATENCY_BUCKETS, type.getLatencies().size());
+    assertEquals(Integer.valueOf(1), type.getLatencies().get(0));
+    assertEquals(Integer.valueOf(2), type.getLatencies().get(3));
   }
 }
@@ -20,6 +20,7 @@ import rabbit.data.internal.xml.schema.events.FileEventType;
 import rabbit.data.store.model.FileEvent;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import org.eclipse.core.runtime.Path;
 import org.joda.time.Interval;
@@ -41,6 +42,10 @@ public class FileEventConverterTest extends
     FileEventType type = converter.convert(event);
     assertEquals(event.getFilePath().toString(), type.getFilePath());
     assertEquals(event.getInterval().toDurationMillis(), type.getDuration());
+    assertNull(type.getBranch());
+
+    event = new FileEvent(new Interval(0, 1), new Path("/a"), "master");
+    assertEquals("master", converter.convert(event).getBranch());
   }
 
 }
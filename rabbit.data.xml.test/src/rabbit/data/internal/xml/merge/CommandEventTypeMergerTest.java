@@ -21,11 +21,14 @@ import rabbit.data.internal.xml.schema.events.CommandEventType;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import org.junit.Test;
 
+import static java.util.Arrays.asList;
+
 /**
  * @see CommandEventTypeMerger
  */
@@ -121,6 +124,31 @@ public class CommandEventTypeMergerTest extends
     assertEquals(totalCount, result.getCount());
   }
 
+  @Test
+  public void testMerge_durationsAndLatencies() throws Exception {
+    CommandEventType t1 = createTargetType();
+    t1.setDuration(10L);
+    t1.getLatencies().addAll(asList(1, 2));
+    CommandEventType t2 = createTargetType();
+    t2.setDuration(5L);
+    t2.getLatencies().addAll(asList(3, 4, 5));
+
+    CommandEventType result = merger.merge(t1, t2);
+    assertEquals(Long.valueOf(15), result.getDuration());
+    assertEquals(asList(4, 6, 5), result.getLatencies());
+    assertEquals(asList(1, 2), t1.getLatencies());
+  }
+
+  @Test
+  public void testMerge_withoutDurations() throws Exception {
+    CommandEventType t1 = createTargetType();
+    CommandEventType t2 = createTargetType();
+    assertNull(merger.merge(t1, t2).getDuration());
+
+    t2.setDuration(7L);
+    assertEquals(Long.valueOf(7), merger.merge(t1, t2).getDuration());
+  }
+
   @Override
   public void testMerge_notModifyParams() throws Exception {
     String commandId = "amAnCommandId";
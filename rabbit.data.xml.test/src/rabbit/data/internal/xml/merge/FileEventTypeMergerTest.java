@@ -103,6 +103,21 @@ public class FileEventTypeMergerTest extends AbstractMergerTest<FileEventType> {
     assertTrue(merger.isMergeable(t1, t2));
   }
 
+  @Test
+  public void testIsMergeable_differentBranches() throws Exception {
+    FileEventType t1 = createTargetType();
+    FileEventType t2 = createTargetType();
+    t1.setBranch("master");
+    assertFalse(merger.isMergeable(t1, t2));
+
+    t2.setBranch("topic");
+    assertFalse(merger.isMergeable(t1, t2));
+
+    t2.setBranch("master");
+    assertTrue(merger.isMergeable(t1, t2));
+    assertEquals("master", merger.merge(t1, t2).getBranch());
+  }
+
   @Override
   public void testMerge() throws Exception {
     FileEventType t1 = createTargetType();
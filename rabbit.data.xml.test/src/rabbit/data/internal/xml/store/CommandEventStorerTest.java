@@ -24,13 +24,8 @@ import rabbit.data.store.model.CommandEvent;
 
 import com.google.common.base.Objects;
 
-import org.eclipse.core.commands.ExecutionEvent;
-import org.eclipse.ui.PlatformUI;
-import org.eclipse.ui.commands.ICommandService;
 import org.joda.time.DateTime;
 
-import java.util.Collections;
-
 /**
  * @see CommandEventStorer
  */
@@ -46,30 +41,19 @@ public class CommandEventStorerTest extends
 
   @Override
   protected CommandEvent createEvent(DateTime dateTime) {
-    return new CommandEvent(dateTime, createExecutionEvent("adnk2o385"));
+    return new CommandEvent(dateTime, "adnk2o385", 10);
   }
 
   @Override
   protected CommandEvent createEventDiff(DateTime dateTime) {
-    return new CommandEvent(dateTime, createExecutionEvent("23545656"));
-  }
-
-  private ExecutionEvent createExecutionEvent(String commandId) {
-    return new ExecutionEvent(getCommandService().getCommand(commandId),
-        Collections.EMPTY_MAP, null, null);
-  }
-
-  /**
-   * Gets the workbench command service.
-   */
-  private ICommandService getCommandService() {
-    return (ICommandService) PlatformUI.getWorkbench().getService(
-        ICommandService.class);
+    return new CommandEvent(dateTime, "23545656", 20);
   }
 
   @Override
   protected boolean equal(CommandEventType t1, CommandEventType t2) {
     return Objects.equal(t1.getCommandId(), t2.getCommandId())
-        && t1.getCount() == t2.getCount();
+        && t1.getCount() == t2.getCount()
+        && Objects.equal(t1.getDuration(), t2.getDuration())
+        && Objects.equal(t1.getLatencies(), t2.getLatencies());
   }
 }
@@ -15,6 +15,7 @@
  */
 package rabbit.data.internal.xml.ui.pref;
 
+import rabbit.data.internal.xml.DataCompactor.Rollup;
 import rabbit.data.internal.xml.XmlPlugin;
 
 import org.apache.commons.io.FileUtils;
@@ -26,6 +27,7 @@ import org.eclipse.swt.SWT;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.DirectoryDialog;
@@ -33,6 +35,7 @@ import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Group;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Listener;
+import org.eclipse.swt.widgets.Spinner;
 import org.eclipse.swt.widgets.Text;
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPreferencePage;
@@ -45,6 +48,10 @@ public class StoragePathPreferencePage extends PreferencePage implements
     IWorkbenchPreferencePage {
 
   private Text storageText;
+  private Button compressButton;
+  private Spinner compactSpinner;
+  private Combo rollupCombo;
+  private Button dropDeletedButton;
 
   public StoragePathPreferencePage() {
   }
@@ -63,12 +70,19 @@ public class StoragePathPreferencePage extends PreferencePage implements
 
   @Override
   public boolean performOk() {
+    XmlPlugin plugin = XmlPlugin.getDefault();
+    plugin.setCompressingData(compressButton.getSelection());
+    plugin.setCompactionAge(compactSpinner.getSelection());
+    plugin.setCompactionRollup(
+        Rollup.values()[rollupCombo.getSelectionIndex()]);
+    plugin.setDroppingDeletedResources(dropDeletedButton.getSelection());
 
     final File oldRoot = XmlPlugin.getDefault().getStoragePathRoot().toFile();
     final File newRoot = new File(storageText.getText());
     
     // Nothing to do if directory is unchanged:
     if (oldRoot.equals(newRoot)) {
+      plugin.scheduleCompaction(0);
       return true;
     }
     
@@ -116,6 +130,7 @@ public class StoragePathPreferencePage extends PreferencePage implements
 
     XmlPlugin.getDefault().setStoragePathRoot(newRoot);
     setMessage("Storage location have been successfully changed.");
+    plugin.scheduleCompaction(0);
 
     return true;
   }
@@ -166,12 +181,58 @@ public class StoragePathPreferencePage extends PreferencePage implements
         }
       });
     }
+
+    // Contains settings for the format of the data files:
+    Group formatGroup = new Group(cmp, SWT.NONE);
+    formatGroup.setText("Data Files");
+    formatGroup.setLayoutData(new GridData(SWT.FILL, SWT.TOP, true, false));
+    formatGroup.setLayout(new GridLayout());
+    {
+      compressButton = new Button(formatGroup, SWT.CHECK);
+      compressButton.setText("Compress data files");
+      compressButton.setToolTipText("Existing data files are compressed when"
+          + " they are next updated.");
+      compressButton.setSelection(XmlPlugin.getDefault().isCompressingData());
+    }
+
+    // Contains settings for compacting old data:
+    Group compactGroup = new Group(cmp, SWT.NONE);
+    compactGroup.setText("Old Data");
+    compactGroup.setLayoutData(new GridData(SWT.FILL, SWT.TOP, true, false));
+    compactGroup.setLayout(new GridLayout(3, false));
+    {
+      new Label(compactGroup, SWT.NONE).setText("Compact data older than");
+      compactSpinner = new Spinner(compactGroup, SWT.BORDER);
+      compactSpinner.setValues(0, 0, 120, 0, 1, 6);
+      new Label(compactGroup, SWT.NONE).setText("months (0 to never compact)");
+
+      new Label(compactGroup, SWT.NONE).setText("Keep the totals of each");
+      rollupCombo = new Combo(compactGroup, SWT.READ_ONLY);
+      rollupCombo.setItems(new String[]{"Week", "Month"});
+      GridDataFactory.fillDefaults().span(2, 1).applyTo(rollupCombo);
+
+      dropDeletedButton = new Button(compactGroup, SWT.CHECK);
+      dropDeletedButton.setText("Drop the data of deleted files");
+      dropDeletedButton.setToolTipText("Only the files of this workspace are"
+          + " checked, files in closed projects are kept.");
+      GridDataFactory.fillDefaults().span(3, 1).applyTo(dropDeletedButton);
+    }
+    updateCompactionControls();
     return cmp;
   }
 
   @Override
   protected void performDefaults() {
     storageText.setText(XmlPlugin.getDefault().getStoragePathRoot().toOSString());
+    compressButton.setSelection(XmlPlugin.getDefault().isCompressingData());
+    updateCompactionControls();
     super.performDefaults();
   }
+
+  private void updateCompactionControls() {
+    XmlPlugin plugin = XmlPlugin.getDefault();
+    compactSpinner.setSelection(plugin.getCompactionAge());
+    rollupCombo.select(plugin.getCompactionRollup().ordinal());
+    dropDeletedButton.setSelection(plugin.isDroppingDeletedResources());
+  }
 }
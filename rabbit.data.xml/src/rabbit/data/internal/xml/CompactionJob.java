@@ -0,0 +1,157 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.xml;
+
+import rabbit.data.internal.xml.DataCompactor.Rollup;
+import rabbit.data.internal.xml.schema.events.EventListType;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ObjectArrays;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.joda.time.LocalDate;
+
+import java.io.File;
+
+/**
+ * A job that compacts the data files of old months, see {@link DataCompactor}.
+ * <p>
+ * The months older than {@link XmlPlugin#getCompactionAge()} months are
+ * compacted into {@link XmlPlugin#getCompactionRollup()} rollups, in all the
+ * storage locations and in both the plain and the packed data stores. Only
+ * the files that are changed by the compaction are written again. The last
+ * compacted month is remembered, see {@link XmlPlugin#getCompactedMonth()},
+ * so that each month is only compacted once. If
+ * {@link XmlPlugin#isDroppingDeletedResources()} is true, the data of the
+ * deleted files of the current workspace, and of the deleted files outside
+ * the workspace, are dropped, the data of the other workspaces is kept as
+ * they can't be checked.
+ * </p>
+ */
+final class CompactionJob extends Job {
+
+  /**
+   * The first month to look for data in, no data is older than the plug-in.
+   */
+  private static final LocalDate EPOCH = new LocalDate(2010, 1, 1);
+
+  private static final IDataStore[] STORES = ObjectArrays.concat(
+      DataStore.values(), PackedDataStore.values(), IDataStore.class);
+
+  /**
+   * Accepts the paths of the files that exist, and of the files in closed
+   * projects, which can't be checked. A path is a workspace path if its first
+   * segment names a project of this workspace, other paths are file system
+   * paths of files outside the workspace.
+   */
+  static final Predicate<String> EXISTING_FILES = new Predicate<String>() {
+    @Override
+    public boolean apply(String str) {
+      IPath path = new Path(str);
+      if (path.segmentCount() < 2) {
+        return true;
+      }
+      IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+      IProject project = root.getProject(path.segment(0));
+      if (!project.exists()) {
+        return new File(str).exists();
+      }
+      if (!project.isOpen()) {
+        return true;
+      }
+      return root.getFile(path).exists();
+    }
+  };
+
+  CompactionJob() {
+    super("Compacting Rabbit data");
+    setSystem(true);
+    setPriority(Job.DECORATE);
+  }
+
+  @Override
+  protected IStatus run(IProgressMonitor monitor) {
+    XmlPlugin plugin = XmlPlugin.getDefault();
+    int age = (plugin == null) ? 0 : plugin.getCompactionAge();
+    if (age <= 0) {
+      return Status.OK_STATUS;
+    }
+    LocalDate end = new LocalDate().withDayOfMonth(1).minusMonths(age)
+        .minusDays(1);
+    LocalDate done = plugin.getCompactedMonth();
+    LocalDate start = (done == null)
+        ? EPOCH : done.withDayOfMonth(1).plusMonths(1);
+    if (start.isAfter(end)) {
+      return Status.OK_STATUS;
+    }
+
+    Rollup rollup = plugin.getCompactionRollup();
+    DataCompactor keepAll = new DataCompactor(rollup);
+    DataCompactor keepExisting = plugin.isDroppingDeletedResources()
+        ? new DataCompactor(rollup, EXISTING_FILES) : keepAll;
+    IPath current = plugin.getStoragePath();
+    IPath[] paths = plugin.getStoragePaths();
+
+    boolean success = true;
+    monitor.beginTask(getName(), paths.length * STORES.length);
+    try {
+      for (IPath path : paths) {
+        DataCompactor compactor = path.equals(current) ? keepExisting : keepAll;
+        for (IDataStore store : STORES) {
+          if (monitor.isCanceled()) {
+            return Status.CANCEL_STATUS;
+          }
+          for (LocalDate month = start; !month.isAfter(end);
+              month = month.plusMonths(1)) {
+            if (store.getDataFiles(month, month, path).isEmpty()) {
+              continue;
+            }
+            File file = store.getDataFile(month, path);
+            WriteLock lock = store.lock(file);
+            try {
+              // Resolved again under the lock, another process may have
+              // compressed the file since:
+              file = store.getDataFile(month, path);
+              EventListType doc = store.read(file);
+              if (compactor.compact(doc)) {
+                success &= store.write(doc, file);
+              }
+            } finally {
+              lock.release();
+            }
+          }
+          monitor.worked(1);
+        }
+      }
+    } finally {
+      monitor.done();
+    }
+
+    // Failed months are compacted again next time:
+    if (success) {
+      plugin.setCompactedMonth(end);
+    }
+    return Status.OK_STATUS;
+  }
+}
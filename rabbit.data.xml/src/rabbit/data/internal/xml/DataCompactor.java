@@ -0,0 +1,295 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.xml;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Predicates.not;
+
+import rabbit.data.internal.xml.merge.CommandEventTypeMerger;
+import rabbit.data.internal.xml.merge.FileEventTypeMerger;
+import rabbit.data.internal.xml.merge.IMerger;
+import rabbit.data.internal.xml.merge.JavaEventTypeMerger;
+import rabbit.data.internal.xml.merge.LaunchEventTypeMerger;
+import rabbit.data.internal.xml.merge.Mergers;
+import rabbit.data.internal.xml.merge.PartEventTypeMerger;
+import rabbit.data.internal.xml.merge.PerspectiveEventTypeMerger;
+import rabbit.data.internal.xml.merge.SessionEventTypeMerger;
+import rabbit.data.internal.xml.merge.TaskFileEventTypeMerger;
+import rabbit.data.internal.xml.schema.events.CommandEventListType;
+import rabbit.data.internal.xml.schema.events.CommandEventType;
+import rabbit.data.internal.xml.schema.events.EventGroupType;
+import rabbit.data.internal.xml.schema.events.EventListType;
+import rabbit.data.internal.xml.schema.events.FileEventListType;
+import rabbit.data.internal.xml.schema.events.FileEventType;
+import rabbit.data.internal.xml.schema.events.JavaEventListType;
+import rabbit.data.internal.xml.schema.events.JavaEventType;
+import rabbit.data.internal.xml.schema.events.LaunchEventListType;
+import rabbit.data.internal.xml.schema.events.LaunchEventType;
+import rabbit.data.internal.xml.schema.events.PartEventListType;
+import rabbit.data.internal.xml.schema.events.PartEventType;
+import rabbit.data.internal.xml.schema.events.PerspectiveEventListType;
+import rabbit.data.internal.xml.schema.events.PerspectiveEventType;
+import rabbit.data.internal.xml.schema.events.SessionEventListType;
+import rabbit.data.internal.xml.schema.events.SessionEventType;
+import rabbit.data.internal.xml.schema.events.TaskFileEventListType;
+import rabbit.data.internal.xml.schema.events.TaskFileEventType;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+
+import org.joda.time.DateTimeConstants;
+import org.joda.time.LocalDate;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compacts the data of a document into rollups.
+ * <p>
+ * The categories of a document that fall into the same {@link Rollup} period
+ * are merged into one category dated the first day of the period, using the
+ * same mergers as the storers, so that the totals of the period are kept while
+ * the number of categories and elements is reduced. Periods never cross the
+ * month of a date, so that a compacted document still belongs to the data file
+ * of its month. File and task file events can optionally be filtered by their
+ * file paths, to drop the data of deleted resources. Compacting a document
+ * that is already compacted has no effects.
+ * </p>
+ */
+public final class DataCompactor {
+
+  /**
+   * The periods data can be rolled up into.
+   */
+  public static enum Rollup {
+
+    /** Rolls up the data of each week, starting on Mondays. */
+    WEEK,
+
+    /** Rolls up the data of each month. */
+    MONTH;
+
+    /**
+     * Gets the first day of the period containing the given date, the first
+     * day is never before the first day of the month of the date.
+     * 
+     * @param date The date.
+     * @return The first day of the period.
+     * @throws NullPointerException If {@code date} is null.
+     */
+    public LocalDate startOf(LocalDate date) {
+      LocalDate month = date.withDayOfMonth(1);
+      if (this == MONTH) {
+        return month;
+      }
+      LocalDate week = date.withDayOfWeek(DateTimeConstants.MONDAY);
+      return week.isBefore(month) ? month : week;
+    }
+  }
+
+  private static final Function<CommandEventListType, List<CommandEventType>>
+      COMMAND_EVENTS =
+      new Function<CommandEventListType, List<CommandEventType>>() {
+        @Override
+        public List<CommandEventType> apply(CommandEventListType list) {
+          return list.getCommandEvent();
+        }
+      };
+
+  private static final Function<FileEventListType, List<FileEventType>>
+      FILE_EVENTS = new Function<FileEventListType, List<FileEventType>>() {
+        @Override
+        public List<FileEventType> apply(FileEventListType list) {
+          return list.getFileEvent();
+        }
+      };
+
+  private static final Function<JavaEventListType, List<JavaEventType>>
+      JAVA_EVENTS = new Function<JavaEventListType, List<JavaEventType>>() {
+        @Override
+        public List<JavaEventType> apply(JavaEventListType list) {
+          return list.getJavaEvent();
+        }
+      };
+
+  private static final Function<LaunchEventListType, List<LaunchEventType>>
+      LAUNCH_EVENTS =
+      new Function<LaunchEventListType, List<LaunchEventType>>() {
+        @Override
+        public List<LaunchEventType> apply(LaunchEventListType list) {
+          return list.getLaunchEvent();
+        }
+      };
+
+  private static final Function<PartEventListType, List<PartEventType>>
+      PART_EVENTS = new Function<PartEventListType, List<PartEventType>>() {
+        @Override
+        public List<PartEventType> apply(PartEventListType list) {
+          return list.getPartEvent();
+        }
+      };
+
+  private static final
+      Function<PerspectiveEventListType, List<PerspectiveEventType>>
+      PERSPECTIVE_EVENTS =
+      new Function<PerspectiveEventListType, List<PerspectiveEventType>>() {
+        @Override
+        public List<PerspectiveEventType> apply(PerspectiveEventListType list) {
+          return list.getPerspectiveEvent();
+        }
+      };
+
+  private static final Function<SessionEventListType, List<SessionEventType>>
+      SESSION_EVENTS =
+      new Function<SessionEventListType, List<SessionEventType>>() {
+        @Override
+        public List<SessionEventType> apply(SessionEventListType list) {
+          return list.getSessionEvent();
+        }
+      };
+
+  private static final
+      Function<TaskFileEventListType, List<TaskFileEventType>>
+      TASK_FILE_EVENTS =
+      new Function<TaskFileEventListType, List<TaskFileEventType>>() {
+        @Override
+        public List<TaskFileEventType> apply(TaskFileEventListType list) {
+          return list.getTaskFileEvent();
+        }
+      };
+
+  private final Rollup rollup;
+  private final Predicate<FileEventType> fileFilter;
+  private final Predicate<TaskFileEventType> taskFileFilter;
+
+  /**
+   * Constructs a compactor that keeps all the data.
+   * 
+   * @param rollup The period to roll up the data into.
+   * @throws NullPointerException If {@code rollup} is null.
+   */
+  public DataCompactor(Rollup rollup) {
+    this(rollup, Predicates.<String> alwaysTrue());
+  }
+
+  /**
+   * Constructs a compactor.
+   * 
+   * @param rollup The period to roll up the data into.
+   * @param filePathFilter The filter of the file paths of file and task file
+   *          events, events with a path not accepted by the filter are
+   *          removed.
+   * @throws NullPointerException If any of the arguments is null.
+   */
+  public DataCompactor(Rollup rollup, final Predicate<String> filePathFilter) {
+    this.rollup = checkNotNull(rollup, "rollup");
+    checkNotNull(filePathFilter, "filePathFilter");
+    fileFilter = new Predicate<FileEventType>() {
+      @Override
+      public boolean apply(FileEventType e) {
+        return e.getFilePath() == null || filePathFilter.apply(e.getFilePath());
+      }
+    };
+    taskFileFilter = new Predicate<TaskFileEventType>() {
+      @Override
+      public boolean apply(TaskFileEventType e) {
+        return e.getFilePath() == null || filePathFilter.apply(e.getFilePath());
+      }
+    };
+  }
+
+  /**
+   * Compacts the given document. The document must not have a string table,
+   * see {@link StringTables#decode(EventListType)}.
+   * 
+   * @param doc The document.
+   * @return True if the document is changed, false otherwise.
+   * @throws NullPointerException If {@code doc} is null.
+   */
+  public boolean compact(EventListType doc) {
+    checkNotNull(doc, "doc");
+    boolean changed = false;
+    changed |= compact(doc.getCommandEvents(), COMMAND_EVENTS,
+        new CommandEventTypeMerger(),
+        Predicates.<CommandEventType> alwaysTrue());
+    changed |= compact(doc.getFileEvents(), FILE_EVENTS,
+        new FileEventTypeMerger(), fileFilter);
+    changed |= compact(doc.getJavaEvents(), JAVA_EVENTS,
+        new JavaEventTypeMerger(), Predicates.<JavaEventType> alwaysTrue());
+    changed |= compact(doc.getLaunchEvents(), LAUNCH_EVENTS,
+        new LaunchEventTypeMerger(), Predicates.<LaunchEventType> alwaysTrue());
+    changed |= compact(doc.getPartEvents(), PART_EVENTS,
+        new PartEventTypeMerger(), Predicates.<PartEventType> alwaysTrue());
+    changed |= compact(doc.getPerspectiveEvents(), PERSPECTIVE_EVENTS,
+        new PerspectiveEventTypeMerger(),
+        Predicates.<PerspectiveEventType> alwaysTrue());
+    changed |= compact(doc.getSessionEvents(), SESSION_EVENTS,
+        new SessionEventTypeMerger(),
+        Predicates.<SessionEventType> alwaysTrue());
+    changed |= compact(doc.getTaskFileEvents(), TASK_FILE_EVENTS,
+        new TaskFileEventTypeMerger(), taskFileFilter);
+    return changed;
+  }
+
+  /**
+   * Gets the period the data is rolled up into.
+   * 
+   * @return The period.
+   */
+  public Rollup getRollup() {
+    return rollup;
+  }
+
+  /**
+   * Compacts the given categories, the first category of each period is kept
+   * and dated the first day of the period, the elements of the other
+   * categories of the period are merged into it.
+   */
+  private <S extends EventGroupType, T> boolean compact(List<S> categories,
+      Function<S, List<T>> elements, IMerger<T> merger, Predicate<T> filter) {
+
+    boolean changed = false;
+    Map<LocalDate, S> periods = Maps.newHashMap();
+    for (Iterator<S> it = categories.iterator(); it.hasNext();) {
+      S category = it.next();
+      List<T> list = elements.apply(category);
+      changed |= Iterables.removeIf(list, not(filter));
+      if (category.getDate() == null) {
+        continue;
+      }
+
+      LocalDate date = DatatypeUtil.toLocalDate(category.getDate());
+      LocalDate start = rollup.startOf(date);
+      S period = periods.get(start);
+      if (period == null) {
+        periods.put(start, category);
+        if (!start.equals(date)) {
+          category.setDate(DatatypeUtil.toXmlDate(start));
+          changed = true;
+        }
+      } else {
+        Mergers.merge(merger, elements.apply(period), list);
+        it.remove();
+        changed = true;
+      }
+    }
+    return changed;
+  }
+}
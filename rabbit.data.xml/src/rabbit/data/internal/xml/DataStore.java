@@ -15,6 +15,10 @@
  */
 package rabbit.data.internal.xml;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import rabbit.data.internal.diagnostics.Diagnostics;
+import rabbit.data.internal.diagnostics.LatencyHistogram;
 import rabbit.data.internal.xml.schema.events.EventListType;
 import rabbit.data.internal.xml.schema.events.ObjectFactory;
 
@@ -25,14 +29,41 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.joda.time.LocalDate;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 
 /**
  * Data stores.
+ * <p>
+ * Data files are XML files, or gzip compressed XML files with an additional
+ * {@value #COMPRESSED_EXTENSION} extension, the format of a file is selected by
+ * its extension. Compressed files are streamed through the compression, the
+ * document is never held in memory in compressed form. New files are
+ * compressed if {@link XmlPlugin#isCompressingData()} is true, in which case an
+ * existing uncompressed file is replaced by a compressed one when it is written
+ * again. When both files of a month exist, the compressed one is used. The
+ * existence of the files is looked up in the listings of the storage
+ * locations, see {@link StorageRegistry}, instead of being checked per file.
+ * </p>
+ * <p>
+ * A file is written by writing a temporary file next to it first, the
+ * temporary file then replaces the file, so that a failure while writing
+ * leaves the previous content of the file intact, and readers in other
+ * processes see either the previous or the new version of the file. Writers
+ * are excluded by the {@link #lock(File)} of the file.
+ * </p>
  */
 public enum DataStore implements IDataStore {
 
@@ -47,6 +78,31 @@ public enum DataStore implements IDataStore {
   JAVA_STORE        ("javaEvents");
   //@formatter:on
 
+  /**
+   * The extension of compressed data files, following the XML extension.
+   */
+  public static final String COMPRESSED_EXTENSION = "gz";
+
+  /**
+   * The extension of the temporary files being written.
+   */
+  private static final String TEMP_EXTENSION = "tmp";
+
+  /**
+   * The size of the buffers used for compressing and decompressing.
+   */
+  private static final int BUFFER_SIZE = 8192;
+
+  /**
+   * Checks whether the given data file is compressed, by its extension.
+   * 
+   * @param file The file.
+   * @return True if the file is compressed, false otherwise.
+   */
+  static boolean isCompressed(File file) {
+    return file.getName().endsWith("." + COMPRESSED_EXTENSION);
+  }
+
   /**
    * An object factory for creating XML object types.
    */
@@ -54,8 +110,13 @@ public enum DataStore implements IDataStore {
 
   private String id;
 
+  private final LatencyHistogram readLatency;
+  private final LatencyHistogram writeLatency;
+
   private DataStore(String id) {
     this.id = id;
+    readLatency = Diagnostics.histogram("DataStore.read[" + name() + "]");
+    writeLatency = Diagnostics.histogram("DataStore.write[" + name() + "]");
   }
 
   @Override
@@ -65,8 +126,17 @@ public enum DataStore implements IDataStore {
 
   @Override
   public File getDataFile(LocalDate date, IPath location) {
-    return location.append(id + "-" + date.toString("yyyy-MM"))
-        .addFileExtension("xml").toFile();
+    IPath path = location.append(id + "-" + date.toString("yyyy-MM"))
+        .addFileExtension("xml");
+    File compressed = path.addFileExtension(COMPRESSED_EXTENSION).toFile();
+    if (exists(compressed)) {
+      return compressed;
+    }
+    File plain = path.toFile();
+    if (exists(plain) || !isCompressingData()) {
+      return plain;
+    }
+    return compressed;
   }
 
   @Override
@@ -89,13 +159,18 @@ public enum DataStore implements IDataStore {
     List<File> result = Lists.newLinkedList();
     for (; numMonths >= 0; numMonths--) {
       File f = getDataFile(end.minusMonths(numMonths), location);
-      if (f.exists()) {
+      if (exists(f)) {
         result.add(f);
       }
     }
     return result;
   }
 
+  @Override
+  public long getModificationStamp(File file) {
+    return file.lastModified();
+  }
+
   @Override
   public IPath getStorageLocation() {
     IPath path = XmlPlugin.getDefault().getStoragePath();
@@ -114,15 +189,45 @@ public enum DataStore implements IDataStore {
     return path;
   }
 
+  @Override
+  public WriteLock lock(File file) {
+    // The plain and compressed files of a month share a lock:
+    String name = checkNotNull(file, "file").getName();
+    if (isCompressed(file)) {
+      name = name.substring(
+          0, name.length() - COMPRESSED_EXTENSION.length() - 1);
+    }
+    return WriteLock.acquire(file.getAbsoluteFile().getParentFile(), name);
+  }
+
+  @Override
+  public InputStream openStream(File file) throws IOException {
+    if (!file.exists()) {
+      return null;
+    }
+    // Not mapped, a mapped file can't be replaced on some platforms until the
+    // mapping is garbage collected, which would fail the next write:
+    InputStream in =
+        new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+    if (isCompressed(file)) {
+      in = new BufferedInputStream(
+          new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE);
+    }
+    return in;
+  }
+
   @Override
   public EventListType read(File file) {
+    long start = readLatency.start();
     try {
       if (file.exists()) {
-        Object obj = JaxbUtil.unmarshal(file);
+        Object obj = unmarshal(file);
         if (obj instanceof JAXBElement<?>) {
           JAXBElement<?> element = (JAXBElement<?>) obj;
           if (element.getValue() instanceof EventListType) {
-            return (EventListType) element.getValue();
+            EventListType doc = (EventListType) element.getValue();
+            StringTables.decode(doc);
+            return doc;
           }
         }
       }
@@ -138,6 +243,8 @@ public enum DataStore implements IDataStore {
           .log(
               new Status(IStatus.ERROR, XmlPlugin.PLUGIN_ID, e.getMessage(), e));
       return objectFactory.createEventListType();
+    } finally {
+      readLatency.stop(start);
     }
     return objectFactory.createEventListType();
   }
@@ -147,8 +254,30 @@ public enum DataStore implements IDataStore {
     if (doc == null || f == null) {
       throw new NullPointerException();
     }
+    // Repeated strings are written once, and restored after writing, as the
+    // caller may still be using the document:
+    long start = writeLatency.start();
+    File target = f;
+    if (!isCompressed(f) && isCompressingData()) {
+      target = new File(f.getPath() + "." + COMPRESSED_EXTENSION);
+    }
+    StringTables.encode(doc);
+    WriteLock lock = lock(f);
     try {
-      JaxbUtil.marshal(objectFactory.createEvents(doc), f);
+      File temp = new File(target.getPath() + "." + TEMP_EXTENSION);
+      marshal(objectFactory.createEvents(doc), temp, isCompressed(target));
+      replace(temp, target);
+      if (isCompressed(target)) {
+        // The uncompressed file of the month, if any, is now out of date:
+        String path = target.getPath();
+        File plain = new File(path.substring(
+            0, path.length() - COMPRESSED_EXTENSION.length() - 1));
+        if (plain.exists() && !plain.delete()) {
+          XmlPlugin.getDefault().getLog().log(
+              new Status(IStatus.WARNING, XmlPlugin.PLUGIN_ID,
+                  "Unable to delete out of date data file: " + plain));
+        }
+      }
       return true;
     } catch (JAXBException e) {
       XmlPlugin
@@ -158,7 +287,87 @@ public enum DataStore implements IDataStore {
               new Status(IStatus.ERROR, XmlPlugin.PLUGIN_ID,
                   "Unable to save data.", e));
       return false;
+    } catch (IOException e) {
+      XmlPlugin.getDefault().getLog().log(
+          new Status(IStatus.ERROR, XmlPlugin.PLUGIN_ID,
+              "Unable to save data.", e));
+      return false;
+    } finally {
+      StringTables.decode(doc);
+      writeLatency.stop(start);
+      lock.release();
     }
   }
 
+  /**
+   * Checks whether the given file exists, using the listings of the storage
+   * locations cached by {@link StorageRegistry} where possible.
+   */
+  static boolean exists(File file) {
+    XmlPlugin plugin = XmlPlugin.getDefault();
+    return (plugin == null) ? file.exists() : plugin.getRegistry().exists(file);
+  }
+
+  /**
+   * @return True if new data files should be compressed.
+   */
+  private boolean isCompressingData() {
+    XmlPlugin plugin = XmlPlugin.getDefault();
+    return plugin != null && plugin.isCompressingData();
+  }
+
+  /**
+   * Marshals the given element to the given file.
+   */
+  private void marshal(JAXBElement<?> element, File file, boolean compress)
+      throws JAXBException, IOException {
+    if (!compress) {
+      JaxbUtil.marshal(element, file);
+      return;
+    }
+    GZIPOutputStream zip =
+        new GZIPOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+    try {
+      OutputStream out = new BufferedOutputStream(zip, BUFFER_SIZE);
+      JaxbUtil.marshalStream(element, out);
+      out.flush();
+      zip.finish();
+    } finally {
+      zip.close();
+    }
+  }
+
+  /**
+   * Replaces a file with another file.
+   * 
+   * @param from The file to rename.
+   * @param to The file to replace.
+   * @throws IOException If the file cannot be replaced, {@code from} is
+   *           deleted.
+   */
+  private void replace(File from, File to) throws IOException {
+    // Some platforms can't rename to an existing file:
+    if (from.renameTo(to) || (to.delete() && from.renameTo(to))) {
+      return;
+    }
+    from.delete();
+    throw new IOException("Unable to replace " + to);
+  }
+
+  /**
+   * Unmarshals the given file, decompressing the input if the file is a
+   * compressed file.
+   */
+  private Object unmarshal(File file) throws JAXBException, IOException {
+    if (!isCompressed(file)) {
+      return JaxbUtil.unmarshal(file);
+    }
+    InputStream in = new BufferedInputStream(new GZIPInputStream(
+        new FileInputStream(file), BUFFER_SIZE), BUFFER_SIZE);
+    try {
+      return JaxbUtil.unmarshalStream(in);
+    } finally {
+      in.close();
+    }
+  }
 }
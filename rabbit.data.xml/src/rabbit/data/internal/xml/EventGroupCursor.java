@@ -0,0 +1,291 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.xml;
+
+import static rabbit.data.internal.xml.DatatypeUtil.datatypeFactory;
+import static rabbit.data.internal.xml.DatatypeUtil.toLocalDate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import rabbit.data.internal.xml.schema.events.EventGroupType;
+import rabbit.data.internal.xml.schema.events.EventListType;
+import rabbit.data.internal.xml.schema.events.StringTableType;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.joda.time.LocalDate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * A forward only cursor over the event groups of one kind in a data file.
+ * <p>
+ * The document is scanned as a stream, groups of other kinds are skipped, and
+ * a group of the requested kind is only unmarshalled when {@link #get()} is
+ * called, so a caller can look at the date of a group with {@link #getDate()},
+ * which only decodes the date attribute of the group, and skip the group
+ * without creating any of its events. The string table of the document, if
+ * any, is read as it is passed, see {@link #getStrings()}.
+ * </p>
+ * <p>
+ * Typical usage:
+ * 
+ * <pre>
+ * EventGroupCursor&lt;FileEventListType&gt; cursor = 
+ *     EventGroupCursor.open(in, FileEventListType.class);
+ * try {
+ *   while (cursor.next()) {
+ *     if (isWanted(cursor.getDate())) {
+ *       FileEventListType group = cursor.get();
+ *     }
+ *   }
+ * } finally {
+ *   cursor.close();
+ * }
+ * </pre>
+ * 
+ * </p>
+ * 
+ * @param <S> The type of the event groups.
+ */
+public final class EventGroupCursor<S extends EventGroupType> {
+
+  /**
+   * The element name of the string table.
+   */
+  private static final String STRINGS = "strings";
+
+  /**
+   * The name of the date attribute of a group.
+   */
+  private static final String DATE = "date";
+
+  /**
+   * The types of the event groups to the names of their elements, worked out
+   * from the lists of {@link EventListType}.
+   */
+  private static final Map<Class<?>, String> ELEMENT_NAMES = elementNames();
+
+  private static final XMLInputFactory inputFactory =
+      XMLInputFactory.newInstance();
+
+  /**
+   * Opens a cursor on the given stream, the stream should contain a document
+   * of an {@link EventListType}.
+   * 
+   * @param in The stream to read, closed when the cursor is closed.
+   * @param type The type of the groups to read.
+   * @return A cursor positioned before the first group.
+   * @throws XMLStreamException If the stream cannot be read.
+   * @throws NullPointerException If any argument is null.
+   * @throws IllegalArgumentException If {@code type} is not the type of a group
+   *           of an {@link EventListType}.
+   */
+  public static <S extends EventGroupType> EventGroupCursor<S> open(
+      InputStream in, Class<S> type) throws XMLStreamException {
+    checkNotNull(in, "in");
+    checkNotNull(type, "type");
+    String name = ELEMENT_NAMES.get(type);
+    checkArgument(name != null, "Not a group of a document: %s", type);
+    return new EventGroupCursor<S>(in, type, name);
+  }
+
+  private final InputStream in;
+  private final XMLStreamReader reader;
+  private final Class<S> type;
+  private final String name;
+
+  /**
+   * True if the reader is at the start of a group that has not been consumed.
+   */
+  private boolean atGroup;
+
+  /**
+   * True if the reader has already been moved past the last element consumed,
+   * in which case the current event has not been looked at yet.
+   */
+  private boolean advanced;
+
+  @Nullable
+  private LocalDate date;
+  @Nullable
+  private StringTableType strings;
+
+  private EventGroupCursor(InputStream in, Class<S> type, String name)
+      throws XMLStreamException {
+    this.in = in;
+    this.type = type;
+    this.name = name;
+    this.reader = inputFactory.createXMLStreamReader(in);
+    this.reader.nextTag(); // The root element.
+  }
+
+  /**
+   * Closes this cursor and the underlying stream.
+   */
+  public void close() {
+    try {
+      reader.close();
+    } catch (XMLStreamException e) {
+      // Ignore, the stream is closed below.
+    }
+    try {
+      in.close();
+    } catch (IOException e) {
+      // Nothing more can be done.
+    }
+  }
+
+  /**
+   * Unmarshals the current group, moving the cursor past the group.
+   * 
+   * @return The group, with any references to the string table unresolved,
+   *         see {@link #getStrings()}.
+   * @throws IllegalStateException If the cursor is not on a group, or the
+   *           group has already been read.
+   * @throws JAXBException If the group cannot be unmarshalled.
+   */
+  public S get() throws JAXBException {
+    checkState(atGroup, "Not on a group");
+    atGroup = false;
+    advanced = true;
+    return JaxbUtil.unmarshal(reader, type);
+  }
+
+  /**
+   * Gets the date of the current group, decoding only the date attribute of
+   * the group.
+   * 
+   * @return The date, or null if the group has no valid date.
+   * @throws IllegalStateException If the cursor is not on a group, or the
+   *           group has already been read.
+   */
+  @Nullable
+  public LocalDate getDate() {
+    checkState(atGroup, "Not on a group");
+    if (date == null) {
+      String value = reader.getAttributeValue(null, DATE);
+      if (value != null) {
+        try {
+          date = toLocalDate(datatypeFactory.newXMLGregorianCalendar(
+              value.trim()));
+        } catch (IllegalArgumentException e) {
+          date = null; // Ignore invalid data.
+        }
+      }
+    }
+    return date;
+  }
+
+  /**
+   * Gets the string table of the document, the table precedes all the groups,
+   * so it's available as soon as the first group has been reached.
+   * 
+   * @return The table, or null if the document has no table.
+   */
+  @Nullable
+  public StringTableType getStrings() {
+    return strings;
+  }
+
+  /**
+   * Moves the cursor to the next group, skipping the current group if it has
+   * not been read.
+   * 
+   * @return True if the cursor is on a group, false if there are no more
+   *         groups.
+   * @throws XMLStreamException If the stream cannot be read.
+   * @throws JAXBException If the string table cannot be unmarshalled.
+   */
+  public boolean next() throws XMLStreamException, JAXBException {
+    if (atGroup) {
+      skipElement();
+      atGroup = false;
+    }
+    date = null;
+    // Every element reached here is a child of the root element, as the
+    // elements below them are either unmarshalled or skipped as a whole:
+    while (true) {
+      int event = advanced ? reader.getEventType() : reader.next();
+      advanced = false;
+      if (event == XMLStreamConstants.END_ELEMENT
+          || event == XMLStreamConstants.END_DOCUMENT) {
+        return false;
+      }
+      if (event != XMLStreamConstants.START_ELEMENT) {
+        continue;
+      }
+      String local = reader.getLocalName();
+      if (name.equals(local)) {
+        atGroup = true;
+        return true;
+      } else if (STRINGS.equals(local)) {
+        strings = JaxbUtil.unmarshal(reader, StringTableType.class);
+        advanced = true;
+      } else {
+        skipElement();
+      }
+    }
+  }
+
+  /**
+   * Skips the element the reader is at, leaving the reader at the end of the
+   * element.
+   */
+  private void skipElement() throws XMLStreamException {
+    for (int depth = 1; depth > 0;) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
+
+  private static Map<Class<?>, String> elementNames() {
+    ImmutableMap.Builder<Class<?>, String> names = ImmutableMap.builder();
+    for (Field field : EventListType.class.getDeclaredFields()) {
+      if (!List.class.equals(field.getType())) {
+        continue;
+      }
+      Type generic = field.getGenericType();
+      if (generic instanceof ParameterizedType) {
+        Type arg = ((ParameterizedType) generic).getActualTypeArguments()[0];
+        if (arg instanceof Class<?>
+            && EventGroupType.class.isAssignableFrom((Class<?>) arg)) {
+          names.put((Class<?>) arg, field.getName());
+        }
+      }
+    }
+    return names.build();
+  }
+}
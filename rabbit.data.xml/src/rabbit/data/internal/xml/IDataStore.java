@@ -21,8 +21,12 @@ import org.eclipse.core.runtime.IPath;
 import org.joda.time.LocalDate;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 /**
  * Represents a data store for storing data.
  */
@@ -37,7 +41,9 @@ public interface IDataStore {
   File getDataFile(LocalDate date);
 
   /**
-   * Gets the data file for the given date in the given location.
+   * Gets the data file for the given date in the given location. If the data
+   * of the date is stored in more than one format, the preferred file is
+   * returned.
    * 
    * @param date The date.
    * @param location The folder location.
@@ -66,6 +72,16 @@ public interface IDataStore {
    */
   List<File> getDataFiles(LocalDate start, LocalDate end, IPath location);
 
+  /**
+   * Gets a stamp of the given data file, the stamp changes when the data of the
+   * file is changed, and can be used to check whether data read from the file
+   * is still up to date.
+   * 
+   * @param f The data file.
+   * @return The stamp, or 0 if the file does not exist.
+   */
+  long getModificationStamp(File f);
+
   /**
    * Gets the storage location, if the location does not exist, it will be
    * created.
@@ -74,6 +90,32 @@ public interface IDataStore {
    */
   IPath getStorageLocation();
 
+  /**
+   * Locks the given data file for writing, blocking until the lock is
+   * available. The lock excludes the writers of the file in this and other
+   * processes, it should be held while the data of the file is read, changed
+   * and written back, so that concurrent changes are not lost. Writing a file
+   * replaces it as a whole, readers see either the old or the new version of
+   * the file and don't need the lock.
+   * 
+   * @param f The data file.
+   * @return The acquired lock, must be released by the same thread.
+   */
+  WriteLock lock(File f);
+
+  /**
+   * Opens the XML document of the given file for reading, for scanning the
+   * document without binding all of it, see {@link EventGroupCursor}. The
+   * stream must be closed by the caller, the file may not be replaced by a
+   * writer on some platforms while it is open.
+   * 
+   * @param f The file to read from.
+   * @return A stream of the XML document, or null if the file does not exist.
+   * @throws IOException If the file cannot be opened.
+   */
+  @Nullable
+  InputStream openStream(File f) throws IOException;
+
   /**
    * Creates the data from a given file.
    * 
@@ -18,6 +18,8 @@ package rabbit.data.internal.xml;
 import rabbit.data.internal.xml.schema.events.ObjectFactory;
 
 import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
@@ -26,6 +28,7 @@ import javax.xml.bind.MarshalException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.UnmarshalException;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamReader;
 
 /**
  * Utility class contains JAXB related operations.
@@ -64,6 +67,21 @@ public class JaxbUtil {
     mar.marshal(e, f);
   }
 
+  /**
+   * Marshals the given element to a stream. The stream is not closed.
+   * 
+   * @param e The element.
+   * @param out The stream.
+   * @throws JAXBException If any unexpected problem occurs during the
+   *           marshalling.
+   * @throws IllegalArgumentException If any of the method parameters are null
+   * @see #marshal(JAXBElement, File)
+   */
+  public static void marshalStream(JAXBElement<?> e, OutputStream out)
+      throws JAXBException {
+    mar.marshal(e, out);
+  }
+
   /**
    * Unmarshals a file.
    * 
@@ -79,6 +97,34 @@ public class JaxbUtil {
     return unmar.unmarshal(f);
   }
 
+  /**
+   * Unmarshals a stream. The stream is not closed.
+   * 
+   * @param in The stream.
+   * @return The object unmarshaled.
+   * @throws JAXBException If any unexpected errors occur while unmarshalling
+   * @throws IllegalArgumentException If the stream parameter is null
+   * @see #unmarshal(File)
+   */
+  public static Object unmarshalStream(InputStream in) throws JAXBException {
+    return unmar.unmarshal(in);
+  }
+
+  /**
+   * Unmarshals the element the given reader is at as the given type. When
+   * done, the reader is positioned after the end of the element.
+   * 
+   * @param reader The reader, at the start of an element.
+   * @param type The type to bind the element to.
+   * @return The object unmarshaled.
+   * @throws JAXBException If any unexpected errors occur while unmarshalling
+   * @throws IllegalArgumentException If any of the method parameters are null
+   */
+  public static <T> T unmarshal(XMLStreamReader reader, Class<T> type)
+      throws JAXBException {
+    return unmar.unmarshal(reader, type).getValue();
+  }
+
   private static void initialize() throws JAXBException {
     context = JAXBContext.newInstance(ObjectFactory.class);
     mar = context.createMarshaller();
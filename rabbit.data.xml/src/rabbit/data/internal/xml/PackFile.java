@@ -0,0 +1,462 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.xml;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Maps;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nullable;
+
+/**
+ * A single file holding named pages of bytes, with an index of the pages.
+ * <p>
+ * The file starts with a header containing the position of the index, the
+ * index lists the name, position and length of each page. A page is written by
+ * appending it to the file, followed by a new index, the header is updated
+ * last, so that a crash while writing leaves the previous state of the file
+ * intact. Replaced pages and indices are left unused in the file, once they
+ * take up more space than the used parts, the file is compacted by copying
+ * the used parts to a new file. Only the index and the pages being read are
+ * read from the file, into heap buffers, the file is never memory mapped, as
+ * a mapped file can't be replaced on some platforms until the mapping is
+ * garbage collected.
+ * </p>
+ * <p>
+ * The file is reloaded when it is changed by another process. There is one
+ * instance of this class per file, see {@link #of(File)}, and the methods of
+ * this class are thread safe. Writes are excluded from the writes of other
+ * processes by a {@link WriteLock} of the file, and reload the index under
+ * the lock before appending to the file. Reads take no file lock, a read
+ * opens the file once and reads the header, the index and the page through
+ * that one open file, so that a file replaced by a compaction in between is
+ * never mixed with the file it replaced. The header is read again after the
+ * page, and the read is retried if another process has written the file in
+ * the meantime.
+ * </p>
+ * <p>
+ * This is an experimental layout, used only when the store is selected with
+ * {@code -Drabbit.data.store=packed}. It is not a columnar format, and the
+ * file is not memory mapped. Data written in the default layout of a file per
+ * kind of events per month is not migrated into a pack file.
+ * </p>
+ */
+final class PackFile {
+
+  /**
+   * The position and length of a page.
+   */
+  private static final class Page {
+    final long position;
+    final int length;
+
+    Page(long position, int length) {
+      this.position = position;
+      this.length = length;
+    }
+  }
+
+  /** The first bytes of a file of this format, "RBPK". */
+  static final int MAGIC = 0x5242504b;
+
+  /** The version of the format. */
+  static final int VERSION = 1;
+
+  /** The files smaller than this size are never compacted. */
+  static final long COMPACT_THRESHOLD = 1 << 20;
+
+  /** The size of the header, containing the magic, version and index. */
+  private static final int HEADER_SIZE = 16;
+
+  /** The number of times a read is retried while the file keeps changing. */
+  private static final int MAX_READ_ATTEMPTS = 5;
+
+  private static final ConcurrentMap<File, PackFile> files =
+      new ConcurrentHashMap<File, PackFile>();
+
+  /**
+   * Gets the instance for the given file.
+   * 
+   * @param file The file, this file may not be physically existing.
+   * @return The instance for the file.
+   * @throws NullPointerException If {@code file} is null.
+   */
+  static PackFile of(File file) {
+    File key = checkNotNull(file, "file").getAbsoluteFile();
+    PackFile pack = files.get(key);
+    if (pack == null) {
+      pack = new PackFile(key);
+      PackFile existing = files.putIfAbsent(key, pack);
+      if (existing != null) {
+        pack = existing;
+      }
+    }
+    return pack;
+  }
+
+  private final File file;
+  private final File tempFile;
+
+  /** The pages, by their names, in the order of their names. */
+  private SortedMap<String, Page> index;
+
+  /** The total size of the pages in {@link #index}. */
+  private long pageSize;
+
+  /** The size of the current index in the file. */
+  private long indexSize;
+
+  /** The modification stamp of the file the index was loaded from. */
+  private long lastModified;
+  private long length;
+  private long indexPosition;
+
+  private PackFile(File file) {
+    this.file = file;
+    this.tempFile = new File(file.getPath() + ".tmp");
+    this.index = Maps.newTreeMap();
+    this.lastModified = -1;
+    this.length = -1;
+    this.indexPosition = -1;
+  }
+
+  /**
+   * Checks whether a page of the given name exists.
+   * 
+   * @param name The name of the page.
+   * @return True if the page exists, false otherwise.
+   * @throws IOException If the file cannot be read.
+   */
+  synchronized boolean contains(String name) throws IOException {
+    return load().containsKey(name);
+  }
+
+  /**
+   * Gets the file.
+   * 
+   * @return The file.
+   */
+  File getFile() {
+    return file;
+  }
+
+  /**
+   * Gets the names of the existing pages.
+   * 
+   * @return The names, in order.
+   * @throws IOException If the file cannot be read.
+   */
+  synchronized SortedSet<String> getNames() throws IOException {
+    return ImmutableSortedSet.copyOf(load().keySet());
+  }
+
+  /**
+   * Reads a page.
+   * 
+   * @param name The name of the page.
+   * @return A stream of the page, or null if there is no such page. The
+   *         stream does not need to be closed.
+   * @throws IOException If the file cannot be read.
+   */
+  @Nullable
+  synchronized InputStream read(String name) throws IOException {
+    for (int attempt = 1;; attempt++) {
+      completeRename();
+      long modified = file.lastModified();
+      if (!file.exists()) {
+        clear();
+        return null;
+      }
+      RandomAccessFile raf = new RandomAccessFile(file, "r");
+      try {
+        long position = readIndexPosition(raf);
+        Page page = load(raf, position, modified).get(name);
+        if (page == null) {
+          return null;
+        }
+        byte[] bytes = new byte[page.length];
+        raf.seek(page.position);
+        raf.readFully(bytes);
+        if (readIndexPosition(raf) == position) {
+          return new ByteArrayInputStream(bytes);
+        }
+      } finally {
+        raf.close();
+      }
+      if (attempt == MAX_READ_ATTEMPTS) {
+        throw new IOException("File keeps changing: " + file);
+      }
+      lastModified = -1;
+    }
+  }
+
+  /**
+   * Writes a page, replacing the page of the same name.
+   * 
+   * @param name The name of the page.
+   * @param bytes The content of the page.
+   * @throws IOException If the file cannot be written.
+   */
+  synchronized void write(String name, byte[] bytes) throws IOException {
+    checkNotNull(name, "name");
+    checkNotNull(bytes, "bytes");
+    WriteLock lock = lock();
+    try {
+      // Another process may have written the file since it was loaded:
+      lastModified = -1;
+      write(Maps.newTreeMap(load()), name, bytes);
+    } finally {
+      lock.release();
+    }
+  }
+
+  private void write(SortedMap<String, Page> pages, String name, byte[] bytes)
+      throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      long end = raf.length();
+      if (end < HEADER_SIZE) {
+        raf.setLength(0);
+        writeHeader(raf, 0);
+        end = HEADER_SIZE;
+      }
+      Page old = pages.put(name, new Page(end, bytes.length));
+      raf.seek(end);
+      raf.write(bytes);
+
+      byte[] indexBytes = encodeIndex(pages);
+      raf.write(indexBytes);
+      raf.getChannel().force(false);
+      raf.seek(8);
+      raf.writeLong(end + bytes.length);
+      raf.getChannel().force(false);
+
+      index = pages;
+      pageSize += bytes.length - (old == null ? 0 : old.length);
+      indexSize = indexBytes.length;
+      indexPosition = end + bytes.length;
+    } finally {
+      raf.close();
+    }
+    lastModified = file.lastModified();
+    length = file.length();
+
+    long used = HEADER_SIZE + pageSize + indexSize;
+    if (length > COMPACT_THRESHOLD && length - used > used) {
+      compact();
+    }
+  }
+
+  /**
+   * Copies the used parts of the file to a new file, and replaces the file
+   * with the new one.
+   * 
+   * @throws IOException If an error occurs.
+   */
+  synchronized void compact() throws IOException {
+    WriteLock lock = lock();
+    try {
+      compact(load());
+    } finally {
+      lock.release();
+    }
+  }
+
+  private void compact(SortedMap<String, Page> pages) throws IOException {
+    SortedMap<String, Page> compacted = Maps.newTreeMap();
+
+    RandomAccessFile in = new RandomAccessFile(file, "r");
+    RandomAccessFile out = new RandomAccessFile(tempFile, "rw");
+    try {
+      out.setLength(0);
+      writeHeader(out, 0);
+      long position = HEADER_SIZE;
+      out.seek(position);
+      for (Map.Entry<String, Page> entry : pages.entrySet()) {
+        Page page = entry.getValue();
+        byte[] bytes = new byte[page.length];
+        in.seek(page.position);
+        in.readFully(bytes);
+        out.write(bytes);
+        compacted.put(entry.getKey(), new Page(position, page.length));
+        position += page.length;
+      }
+      out.write(encodeIndex(compacted));
+      out.seek(8);
+      out.writeLong(position);
+      out.getChannel().force(false);
+    } finally {
+      in.close();
+      out.close();
+    }
+
+    // Not atomic on all platforms, load() completes an interrupted rename:
+    if (!tempFile.renameTo(file)
+        && !(file.delete() && tempFile.renameTo(file))) {
+      tempFile.delete();
+      throw new IOException("Unable to replace " + file);
+    }
+    lastModified = -1;
+    load();
+  }
+
+  /**
+   * Reloads the index if the file has changed since it was loaded.
+   * 
+   * @return The index.
+   */
+  private SortedMap<String, Page> load() throws IOException {
+    completeRename();
+    long modified = file.lastModified();
+    if (!file.exists()) {
+      clear();
+      return index;
+    }
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      return load(raf, readIndexPosition(raf), modified);
+    } finally {
+      raf.close();
+    }
+  }
+
+  /**
+   * Reloads the index from the given open file, if the file has changed since
+   * the index was loaded.
+   * 
+   * @param raf The open file.
+   * @param position The position of the index, as read from the header of
+   *        {@code raf}, or -1 if {@code raf} has no header.
+   * @param modified The modification stamp of the file, taken before the file
+   *        was opened.
+   * @return The index.
+   */
+  private SortedMap<String, Page> load(RandomAccessFile raf, long position,
+      long modified) throws IOException {
+    long size = raf.length();
+    if (modified == lastModified && size == length
+        && position == indexPosition) {
+      return index;
+    }
+
+    SortedMap<String, Page> pages = Maps.newTreeMap();
+    long pagesSize = 0;
+    long indexBytes = 0;
+    if (position >= HEADER_SIZE && position < size) {
+      byte[] bytes = new byte[(int) (size - position)];
+      raf.seek(position);
+      raf.readFully(bytes);
+      DataInputStream in =
+          new DataInputStream(new ByteArrayInputStream(bytes));
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        String name = in.readUTF();
+        Page page = new Page(in.readLong(), in.readInt());
+        pages.put(name, page);
+        pagesSize += page.length;
+      }
+      // Anything after the index is left by an interrupted write:
+      indexBytes = bytes.length - in.available();
+    }
+    index = pages;
+    pageSize = pagesSize;
+    indexSize = indexBytes;
+    lastModified = modified;
+    length = size;
+    indexPosition = position;
+    return index;
+  }
+
+  /**
+   * Reads the position of the index from the header of the given file.
+   * 
+   * @param raf The open file.
+   * @return The position, or -1 if the file is too small to have a header.
+   * @throws IOException If the file is not of this format.
+   */
+  private long readIndexPosition(RandomAccessFile raf) throws IOException {
+    if (raf.length() < HEADER_SIZE) {
+      return -1;
+    }
+    raf.seek(0);
+    if (raf.readInt() != MAGIC || raf.readInt() != VERSION) {
+      throw new IOException("Not a supported file: " + file);
+    }
+    return raf.readLong();
+  }
+
+  /**
+   * Completes a compaction interrupted before the new file was renamed.
+   */
+  private void completeRename() {
+    if (!file.exists() && tempFile.exists()) {
+      tempFile.renameTo(file);
+    }
+  }
+
+  /**
+   * Clears the index, for a file that does not exist.
+   */
+  private void clear() {
+    index = Maps.newTreeMap();
+    pageSize = 0;
+    indexSize = 0;
+    lastModified = -1;
+    length = -1;
+    indexPosition = -1;
+  }
+
+  private WriteLock lock() {
+    return WriteLock.acquire(file.getParentFile(), file.getName());
+  }
+
+  private static byte[] encodeIndex(SortedMap<String, Page> pages)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(pages.size());
+    for (Map.Entry<String, Page> entry : pages.entrySet()) {
+      out.writeUTF(entry.getKey());
+      out.writeLong(entry.getValue().position);
+      out.writeInt(entry.getValue().length);
+    }
+    out.close();
+    return bytes.toByteArray();
+  }
+
+  private static void writeHeader(RandomAccessFile raf, long indexPosition)
+      throws IOException {
+    raf.seek(0);
+    raf.writeInt(MAGIC);
+    raf.writeInt(VERSION);
+    raf.writeLong(indexPosition);
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.xml;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import rabbit.data.internal.diagnostics.Diagnostics;
+import rabbit.data.internal.diagnostics.LatencyHistogram;
+import rabbit.data.internal.xml.schema.events.EventListType;
+import rabbit.data.internal.xml.schema.events.ObjectFactory;
+
+import com.google.common.collect.Lists;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.joda.time.LocalDate;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+
+/**
+ * Data stores keeping the data of all kinds of events of a workspace in a
+ * single {@link PackFile}, instead of a file per kind per month like
+ * {@link DataStore}.
+ * <p>
+ * Each month of a kind is a page of the file, holding the compressed document
+ * of the month, with the days in order. The files returned by these stores
+ * are not physical files, they name a page inside of the pack file, as if the
+ * pack file was a folder, for example
+ * {@code <location>/events.pack/fileEvents-2011-01}.
+ * Opening a workspace therefore opens a single file, and reads only the index
+ * and the pages of the requested months.
+ * </p>
+ * <p>
+ * These stores are experimental and opt-in, they are used instead of
+ * {@link DataStore} only when Eclipse is started with
+ * {@code -Drabbit.data.store=packed}. The pack file is neither a columnar
+ * format nor memory mapped, and data already kept by {@link DataStore} is
+ * not migrated, it is not visible through these stores.
+ * </p>
+ */
+public enum PackedDataStore implements IDataStore {
+
+  //@formatter:off
+  COMMAND_STORE     ("commandEvents"),
+  PART_STORE        ("partEvents"),
+  PERSPECTIVE_STORE ("perspectiveEvents"),
+  FILE_STORE        ("fileEvents"),
+  TASK_STORE        ("taskEvents"),
+  LAUNCH_STORE      ("launchEvents"),
+  SESSION_STORE     ("sessionEvents"),
+  JAVA_STORE        ("javaEvents");
+  //@formatter:on
+
+  /**
+   * The name of the pack file in a storage location.
+   */
+  public static final String PACK_FILE_NAME = "events.pack";
+
+  /**
+   * The size of the buffers used for decompressing.
+   */
+  private static final int BUFFER_SIZE = 8192;
+
+  private final ObjectFactory objectFactory = new ObjectFactory();
+
+  private final String id;
+
+  private final LatencyHistogram readLatency;
+  private final LatencyHistogram writeLatency;
+
+  private PackedDataStore(String id) {
+    this.id = id;
+    readLatency = Diagnostics.histogram(
+        "PackedDataStore.read[" + name() + "]");
+    writeLatency = Diagnostics.histogram(
+        "PackedDataStore.write[" + name() + "]");
+  }
+
+  @Override
+  public File getDataFile(LocalDate date) {
+    return getDataFile(date, getStorageLocation());
+  }
+
+  @Override
+  public File getDataFile(LocalDate date, IPath location) {
+    return location.append(PACK_FILE_NAME)
+        .append(id + "-" + date.toString("yyyy-MM")).toFile();
+  }
+
+  @Override
+  public List<File> getDataFiles(LocalDate start, LocalDate end) {
+    List<File> result = Lists.newLinkedList();
+    for (IPath path : XmlPlugin.getDefault().getStoragePaths()) {
+      result.addAll(getDataFiles(start, end, path));
+    }
+    return result;
+  }
+
+  @Override
+  public List<File> getDataFiles(LocalDate start, LocalDate end,
+      IPath location) {
+    List<File> result = Lists.newLinkedList();
+    PackFile pack = PackFile.of(location.append(PACK_FILE_NAME).toFile());
+    if (!DataStore.exists(pack.getFile())) {
+      return result;
+    }
+    int numMonths = (end.getYear() - start.getYear()) * 12;
+    numMonths += end.getMonthOfYear() - start.getMonthOfYear();
+    try {
+      // The index is loaded once, instead of once per month:
+      Set<String> names = pack.getNames();
+      for (; numMonths >= 0; numMonths--) {
+        File f = getDataFile(end.minusMonths(numMonths), location);
+        if (names.contains(f.getName())) {
+          result.add(f);
+        }
+      }
+    } catch (IOException e) {
+      log("Unable to read " + pack.getFile(), e);
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The pages of a pack file share the stamp of the pack file, writing a page
+   * changes the stamps of all the pages of the file.
+   * </p>
+   */
+  @Override
+  public long getModificationStamp(File file) {
+    // The parent of a page is the pack file:
+    return checkNotNull(file, "file").getParentFile().lastModified();
+  }
+
+  @Override
+  public IPath getStorageLocation() {
+    return DataStore.valueOf(name()).getStorageLocation();
+  }
+
+  @Override
+  public WriteLock lock(File file) {
+    // The parent of a page is the pack file:
+    File pack = checkNotNull(file, "file").getAbsoluteFile().getParentFile();
+    return WriteLock.acquire(
+        pack.getParentFile(), pack.getName() + "/" + file.getName());
+  }
+
+  @Override
+  public InputStream openStream(File file) throws IOException {
+    checkNotNull(file, "file");
+    InputStream page = PackFile.of(file.getParentFile()).read(file.getName());
+    return (page == null) ? null : new BufferedInputStream(
+        new GZIPInputStream(page, BUFFER_SIZE), BUFFER_SIZE);
+  }
+
+  @Override
+  public EventListType read(File file) {
+    checkNotNull(file, "file");
+    long start = readLatency.start();
+    try {
+      InputStream page = PackFile.of(file.getParentFile()).read(
+          file.getName());
+      if (page != null) {
+        Object obj = JaxbUtil.unmarshalStream(new GZIPInputStream(page));
+        if (obj instanceof JAXBElement<?>
+            && ((JAXBElement<?>) obj).getValue() instanceof EventListType) {
+          EventListType doc = (EventListType) ((JAXBElement<?>) obj).getValue();
+          StringTables.decode(doc);
+          return doc;
+        }
+      }
+    } catch (JAXBException e) {
+      log("Unable to read " + file, e);
+    } catch (IOException e) {
+      log("Unable to read " + file, e);
+    } finally {
+      readLatency.stop(start);
+    }
+    return objectFactory.createEventListType();
+  }
+
+  @Override
+  public boolean write(EventListType doc, File f) {
+    checkNotNull(doc, "doc");
+    checkNotNull(f, "f");
+    long start = writeLatency.start();
+    StringTables.encode(doc);
+    WriteLock lock = lock(f);
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      GZIPOutputStream out = new GZIPOutputStream(bytes);
+      JaxbUtil.marshalStream(objectFactory.createEvents(doc), out);
+      out.close();
+      PackFile.of(f.getParentFile()).write(f.getName(), bytes.toByteArray());
+      return true;
+    } catch (JAXBException e) {
+      log("Unable to save data.", e);
+      return false;
+    } catch (IOException e) {
+      log("Unable to save data.", e);
+      return false;
+    } finally {
+      StringTables.decode(doc);
+      writeLatency.stop(start);
+      lock.release();
+    }
+  }
+
+  private static void log(String message, Exception e) {
+    XmlPlugin.getDefault().getLog().log(
+        new Status(IStatus.ERROR, XmlPlugin.PLUGIN_ID, message, e));
+  }
+}
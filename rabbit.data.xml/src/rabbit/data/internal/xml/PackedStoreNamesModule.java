@@ -0,0 +1,40 @@
+package rabbit.data.internal.xml;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.name.Names;
+
+/**
+ * Binds the {@link PackedDataStore}s to store names, the data of a workspace
+ * is kept in a single file.
+ */
+public class PackedStoreNamesModule extends AbstractModule {
+
+  @Override
+  protected void configure() {
+    bind(IDataStore.class)
+        .annotatedWith(Names.named(StoreNames.COMMAND_STORE))
+        .toInstance(PackedDataStore.COMMAND_STORE);
+    bind(IDataStore.class)
+        .annotatedWith(Names.named(StoreNames.FILE_STORE))
+        .toInstance(PackedDataStore.FILE_STORE);
+    bind(IDataStore.class)
+        .annotatedWith(Names.named(StoreNames.JAVA_STORE))
+        .toInstance(PackedDataStore.JAVA_STORE);
+    bind(IDataStore.class)
+        .annotatedWith(Names.named(StoreNames.LAUNCH_STORE))
+        .toInstance(PackedDataStore.LAUNCH_STORE);
+    bind(IDataStore.class)
+        .annotatedWith(Names.named(StoreNames.PART_STORE))
+        .toInstance(PackedDataStore.PART_STORE);
+    bind(IDataStore.class)
+        .annotatedWith(Names.named(StoreNames.PERSPECTIVE_STORE))
+        .toInstance(PackedDataStore.PERSPECTIVE_STORE);
+    bind(IDataStore.class)
+        .annotatedWith(Names.named(StoreNames.SESSION_STORE))
+        .toInstance(PackedDataStore.SESSION_STORE);
+    bind(IDataStore.class)
+        .annotatedWith(Names.named(StoreNames.TASK_STORE))
+        .toInstance(PackedDataStore.TASK_STORE);
+  }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.xml;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Sets;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+import java.io.File;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nullable;
+
+/**
+ * Caches the contents of the storage folders, so that the storage locations,
+ * and the data files existing in them, can be looked up without checking the
+ * file system for each of them.
+ * <p>
+ * A folder is listed once, and listed again when its modification stamp
+ * changes, which happens when a file is created, deleted or renamed in it, by
+ * this or another process. A lookup costs a check of the stamp of the folder,
+ * instead of a check per file. A listing taken within {@link #RACY_INTERVAL}
+ * of the stamp of its folder is not trusted, and is replaced on the next
+ * lookup, as the stamp may have a coarse resolution, and may not change again
+ * for changes made in the same interval. Polling the stamps is used instead of
+ * watching the folders, which is not supported by the execution environment.
+ * </p>
+ * <p>
+ * The methods of this class are thread safe.
+ * </p>
+ */
+final class StorageRegistry {
+
+  /**
+   * The interval in milliseconds after a change to a folder in which the
+   * listings of the folder are not trusted.
+   */
+  static final long RACY_INTERVAL = 2000;
+
+  /**
+   * The names in a folder, at a modification stamp of the folder.
+   */
+  private static final class Listing {
+    final long stamp;
+    final boolean racy;
+    final Set<String> names;
+
+    Listing(long stamp, boolean racy, Set<String> names) {
+      this.stamp = stamp;
+      this.racy = racy;
+      this.names = names;
+    }
+  }
+
+  /**
+   * The storage locations of a listing of the storage root.
+   */
+  private static final class Locations {
+    final Listing listing;
+    final IPath current;
+    final IPath[] paths;
+
+    Locations(Listing listing, IPath current, IPath[] paths) {
+      this.listing = listing;
+      this.current = current;
+      this.paths = paths;
+    }
+  }
+
+  private final ConcurrentMap<File, Listing> listings;
+  @Nullable private volatile Locations locations;
+
+  StorageRegistry() {
+    listings = new MapMaker().makeMap();
+  }
+
+  /**
+   * Clears the cached listings.
+   */
+  void clear() {
+    listings.clear();
+    locations = null;
+  }
+
+  /**
+   * Checks whether the given file exists.
+   * 
+   * @param file The file.
+   * @return True if the file exists, false otherwise.
+   * @throws NullPointerException If {@code file} is null.
+   */
+  boolean exists(File file) {
+    File parent = checkNotNull(file, "file").getAbsoluteFile().getParentFile();
+    if (parent == null) {
+      return file.exists();
+    }
+    return list(parent).names.contains(file.getName());
+  }
+
+  /**
+   * Gets the storage locations in the given root, a storage location is a
+   * folder in the root.
+   * 
+   * @param root The storage root.
+   * @param current The storage location of this workspace, always included.
+   * @return The storage locations.
+   * @throws NullPointerException If any of the arguments is null.
+   */
+  IPath[] getStoragePaths(File root, IPath current) {
+    checkNotNull(current, "current");
+    Listing listing = list(checkNotNull(root, "root").getAbsoluteFile());
+    Locations cached = locations;
+    if (cached == null
+        || cached.listing != listing
+        || !cached.current.equals(current)) {
+      Set<IPath> paths = Sets.newLinkedHashSet();
+      for (String name : listing.names) {
+        File file = new File(root, name);
+        if (file.isDirectory()) {
+          paths.add(Path.fromOSString(file.getAbsolutePath()));
+        }
+      }
+      paths.add(current);
+      cached = new Locations(
+          listing, current, paths.toArray(new IPath[paths.size()]));
+      locations = cached;
+    }
+    return cached.paths.clone();
+  }
+
+  /**
+   * Gets the listing of the given folder, listing the folder again if it has
+   * changed.
+   */
+  private Listing list(File folder) {
+    long stamp = folder.lastModified();
+    Listing listing = listings.get(folder);
+    if (listing == null || listing.racy || listing.stamp != stamp) {
+      // The stamp is taken before the names, a change in between changes the
+      // stamp again:
+      boolean racy = System.currentTimeMillis() - stamp < RACY_INTERVAL;
+      String[] names = folder.list();
+      listing = new Listing(stamp, racy, (names == null)
+          ? ImmutableSet.<String> of() : ImmutableSet.copyOf(names));
+      listings.put(folder, listing);
+    }
+    return listing;
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.xml;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import rabbit.data.internal.xml.schema.events.EventListType;
+import rabbit.data.internal.xml.schema.events.FileEventListType;
+import rabbit.data.internal.xml.schema.events.FileEventType;
+import rabbit.data.internal.xml.schema.events.JavaEventListType;
+import rabbit.data.internal.xml.schema.events.JavaEventType;
+import rabbit.data.internal.xml.schema.events.StringTableType;
+import rabbit.data.internal.xml.schema.events.TaskFileEventListType;
+import rabbit.data.internal.xml.schema.events.TaskFileEventType;
+
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * Encodes and decodes the string table of an {@link EventListType}.
+ * <p>
+ * When encoded, the file paths of file events and task file events, and the
+ * handle identifiers of Java events, are replaced by their indices in a table
+ * of the distinct strings of the document, so that each string is only written
+ * once per file. When decoded, the indices are replaced by the strings again,
+ * events referring to the same index share the same string instance. Documents
+ * without a table are left as they are.
+ * </p>
+ */
+public final class StringTables {
+
+  /**
+   * Decodes the given document, the string table is removed from the document
+   * and all references to it are replaced by the strings they refer to. Has no
+   * effects if the document has no string table.
+   * 
+   * @param doc The document.
+   * @throws NullPointerException If {@code doc} is null.
+   */
+  public static void decode(EventListType doc) {
+    checkNotNull(doc, "doc");
+    StringTableType table = doc.getStrings();
+    if (table == null) {
+      return;
+    }
+
+    List<String> strings = table.getString();
+    for (FileEventListType list : doc.getFileEvents()) {
+      for (FileEventType e : list.getFileEvent()) {
+        if (e.getFilePathRef() != null) {
+          e.setFilePath(get(strings, e.getFilePathRef()));
+          e.setFilePathRef(null);
+        }
+      }
+    }
+    for (TaskFileEventListType list : doc.getTaskFileEvents()) {
+      for (TaskFileEventType e : list.getTaskFileEvent()) {
+        if (e.getFilePathRef() != null) {
+          e.setFilePath(get(strings, e.getFilePathRef()));
+          e.setFilePathRef(null);
+        }
+      }
+    }
+    for (JavaEventListType list : doc.getJavaEvents()) {
+      for (JavaEventType e : list.getJavaEvent()) {
+        if (e.getHandleIdentifierRef() != null) {
+          e.setHandleIdentifier(get(strings, e.getHandleIdentifierRef()));
+          e.setHandleIdentifierRef(null);
+        }
+      }
+    }
+    doc.setStrings(null);
+  }
+
+  /**
+   * Encodes the given document, a string table is added to the document, and
+   * the strings are replaced by references to the table. Use
+   * {@link #decode(EventListType)} to restore the document.
+   * 
+   * @param doc The document.
+   * @throws NullPointerException If {@code doc} is null.
+   */
+  public static void encode(EventListType doc) {
+    checkNotNull(doc, "doc");
+    decode(doc);
+
+    StringTableType table = new StringTableType();
+    Map<String, Integer> ids = Maps.newHashMap();
+    for (FileEventListType list : doc.getFileEvents()) {
+      for (FileEventType e : list.getFileEvent()) {
+        if (e.getFilePath() != null) {
+          e.setFilePathRef(put(table, ids, e.getFilePath()));
+          e.setFilePath(null);
+        }
+      }
+    }
+    for (TaskFileEventListType list : doc.getTaskFileEvents()) {
+      for (TaskFileEventType e : list.getTaskFileEvent()) {
+        if (e.getFilePath() != null) {
+          e.setFilePathRef(put(table, ids, e.getFilePath()));
+          e.setFilePath(null);
+        }
+      }
+    }
+    for (JavaEventListType list : doc.getJavaEvents()) {
+      for (JavaEventType e : list.getJavaEvent()) {
+        if (e.getHandleIdentifier() != null) {
+          e.setHandleIdentifierRef(put(table, ids, e.getHandleIdentifier()));
+          e.setHandleIdentifier(null);
+        }
+      }
+    }
+    if (!ids.isEmpty()) {
+      doc.setStrings(table);
+    }
+  }
+
+  @Nullable
+  private static String get(List<String> strings, int index) {
+    return (index >= 0 && index < strings.size()) ? strings.get(index) : null;
+  }
+
+  private static Integer put(StringTableType table, Map<String, Integer> ids,
+      String str) {
+    Integer id = ids.get(str);
+    if (id == null) {
+      id = table.getString().size();
+      table.getString().add(str);
+      ids.put(str, id);
+    }
+    return id;
+  }
+
+  private StringTables() {
+  }
+}
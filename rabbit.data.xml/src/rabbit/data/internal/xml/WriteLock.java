@@ -0,0 +1,158 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.xml;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.Function;
+import com.google.common.collect.MapMaker;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Nullable;
+
+/**
+ * An exclusive lock for writing a data file, shared by the threads of this
+ * process and by the other processes using the same storage location.
+ * <p>
+ * The locks of the files of a storage location are taken on the
+ * {@value #LOCK_FILE_NAME} file of the location, each data file locks a one
+ * byte region of the file selected by the name of the data file, so that
+ * different data files can be written concurrently, two names may share a
+ * region. Within this process, a region is guarded by a reentrant lock, the
+ * lock of the file is only taken by the outermost acquisition. Data files are
+ * replaced as a whole when they are written, so readers always see a complete
+ * version of a file and never need a lock.
+ * </p>
+ * <p>
+ * If the file system does not support file locks, the lock only excludes the
+ * threads of this process.
+ * </p>
+ */
+public final class WriteLock {
+
+  /**
+   * The name of the file the locks of a storage location are taken on.
+   */
+  public static final String LOCK_FILE_NAME = ".lock";
+
+  /**
+   * The in process locks, by the lock file and region they guard.
+   */
+  private static final ConcurrentMap<String, ReentrantLock> locks =
+      new MapMaker().weakValues().makeComputingMap(
+          new Function<String, ReentrantLock>() {
+            @Override
+            public ReentrantLock apply(String key) {
+              return new ReentrantLock();
+            }
+          });
+
+  /**
+   * The channels of the lock files. A channel is never closed, as closing any
+   * channel of a file may release all the locks of this process on the file.
+   */
+  private static final ConcurrentMap<File, FileChannel> channels =
+      new MapMaker().makeMap();
+
+  /**
+   * Acquires the lock of the given data file, blocking until it is available.
+   * 
+   * @param location The storage location containing the data file.
+   * @param name The name of the data file, relative to the location.
+   * @return The acquired lock, must be released by the same thread.
+   * @throws NullPointerException If any of the arguments is null.
+   */
+  static WriteLock acquire(File location, String name) {
+    File lockFile = new File(checkNotNull(location, "location"),
+        LOCK_FILE_NAME).getAbsoluteFile();
+    long region = checkNotNull(name, "name").hashCode() & Integer.MAX_VALUE;
+    ReentrantLock local = locks.get(lockFile.getPath() + "#" + region);
+    local.lock();
+    if (local.getHoldCount() > 1) {
+      return new WriteLock(local, null);
+    }
+
+    FileLock fileLock = null;
+    try {
+      fileLock = getChannel(lockFile).lock(region, 1, false);
+    } catch (IOException e) {
+      log(lockFile, e);
+    } catch (RuntimeException e) {
+      local.unlock();
+      throw e;
+    }
+    return new WriteLock(local, fileLock);
+  }
+
+  private static synchronized FileChannel getChannel(File lockFile)
+      throws IOException {
+    FileChannel channel = channels.get(lockFile);
+    if (channel == null || !channel.isOpen()) {
+      if (!lockFile.getParentFile().exists()) {
+        lockFile.getParentFile().mkdirs();
+      }
+      channel = new RandomAccessFile(lockFile, "rw").getChannel();
+      channels.put(lockFile, channel);
+    }
+    return channel;
+  }
+
+  private static void log(File lockFile, IOException e) {
+    XmlPlugin plugin = XmlPlugin.getDefault();
+    if (plugin != null) {
+      plugin.getLog().log(new Status(IStatus.WARNING, XmlPlugin.PLUGIN_ID,
+          "Unable to lock " + lockFile, e));
+    }
+  }
+
+  private final ReentrantLock local;
+  @Nullable private final FileLock fileLock;
+
+  private WriteLock(ReentrantLock local, @Nullable FileLock fileLock) {
+    this.local = local;
+    this.fileLock = fileLock;
+  }
+
+  /**
+   * Releases this lock.
+   * 
+   * @throws IllegalStateException If the current thread does not hold this
+   *           lock.
+   */
+  public void release() {
+    checkState(local.isHeldByCurrentThread(), "Lock not held by this thread");
+    try {
+      if (fileLock != null && fileLock.isValid()) {
+        fileLock.release();
+      }
+    } catch (IOException e) {
+      // The lock is released when the channel is closed.
+    } finally {
+      local.unlock();
+    }
+  }
+}
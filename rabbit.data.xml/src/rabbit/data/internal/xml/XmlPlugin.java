@@ -15,7 +15,10 @@
  */
 package rabbit.data.internal.xml;
 
-import static com.google.common.collect.Sets.newHashSet;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import rabbit.data.internal.xml.DataCompactor.Rollup;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
@@ -25,6 +28,7 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
+import org.joda.time.LocalDate;
 import org.osgi.framework.BundleContext;
 
 import java.io.BufferedReader;
@@ -37,7 +41,8 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
 import java.util.Properties;
-import java.util.Set;
+
+import javax.annotation.Nullable;
 
 /**
  * Activator class for this plug-in.
@@ -60,6 +65,43 @@ public class XmlPlugin extends AbstractUIPlugin {
    */
   private static final String PROP_STORAGE_ROOT = "storage.root";
 
+  /**
+   * Constant string to use with a java.util.Properties to get/set whether new
+   * data files are compressed.
+   */
+  private static final String PROP_COMPRESS = "storage.compress";
+
+  /**
+   * Constant string to use with a java.util.Properties to get/set the age in
+   * months after which data is compacted.
+   */
+  private static final String PROP_COMPACT_AGE = "storage.compact.age";
+
+  /**
+   * Constant string to use with a java.util.Properties to get/set the period
+   * old data is rolled up into.
+   */
+  private static final String PROP_COMPACT_ROLLUP = "storage.compact.rollup";
+
+  /**
+   * Constant string to use with a java.util.Properties to get/set whether the
+   * data of deleted resources is dropped when compacted.
+   */
+  private static final String PROP_COMPACT_DROP_DELETED =
+      "storage.compact.dropDeleted";
+
+  /**
+   * Constant string to use with a java.util.Properties to get/set the last
+   * month that has been compacted.
+   */
+  private static final String PROP_COMPACTED_MONTH = "storage.compact.done";
+
+  /**
+   * The delay in milliseconds before compacting data after start up, so that
+   * the compaction does not slow down the start up.
+   */
+  private static final long COMPACTION_DELAY = 60000;
+
   public static XmlPlugin getDefault() {
     return plugin;
   }
@@ -67,8 +109,78 @@ public class XmlPlugin extends AbstractUIPlugin {
   /** The settings. */
   private Properties properties = new Properties();
 
+  private final CompactionJob compactionJob = new CompactionJob();
+
+  /** The contents of the storage locations, see {@link #getStoragePaths()}. */
+  private final StorageRegistry registry = new StorageRegistry();
+
+  /** The storage location of this workspace, see {@link #getStoragePath()}. */
+  @Nullable private volatile IPath storagePath;
+
   public XmlPlugin() {}
 
+  /**
+   * Gets the last month that has been compacted.
+   * 
+   * @return The first day of the month, or null if no data is compacted.
+   * @see #scheduleCompaction(long)
+   */
+  @Nullable
+  public LocalDate getCompactedMonth() {
+    String month = properties.getProperty(PROP_COMPACTED_MONTH);
+    if (month != null) {
+      try {
+        return new LocalDate(month).withDayOfMonth(1);
+      } catch (IllegalArgumentException e) {
+        // Compacts all the data again.
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Gets the age in months after which data is compacted, the data of a month
+   * is compacted once the month is more than this number of months old.
+   * 
+   * @return The age in months, or zero if data is never compacted.
+   * @see #scheduleCompaction(long)
+   */
+  public int getCompactionAge() {
+    try {
+      return Math.max(0, Integer.parseInt(
+          properties.getProperty(PROP_COMPACT_AGE, "0")));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * Gets the period old data is rolled up into when compacted.
+   * 
+   * @return The period.
+   * @see #scheduleCompaction(long)
+   */
+  public Rollup getCompactionRollup() {
+    String rollup = properties.getProperty(PROP_COMPACT_ROLLUP);
+    if (rollup != null) {
+      try {
+        return Rollup.valueOf(rollup);
+      } catch (IllegalArgumentException e) {
+        // Uses the default.
+      }
+    }
+    return Rollup.WEEK;
+  }
+
+  /**
+   * Gets the registry of the contents of the storage locations.
+   * 
+   * @return The registry.
+   */
+  StorageRegistry getRegistry() {
+    return registry;
+  }
+
   /**
    * Gets the full path to the storage location of this workspace. The returned
    * path should not be cached because it is changeable.
@@ -76,16 +188,23 @@ public class XmlPlugin extends AbstractUIPlugin {
    * @return The full path to the storage location folder.
    */
   public IPath getStoragePath() {
-    String workspace = ResourcesPlugin.getWorkspace().getRoot().getLocation()
-        .toOSString();
-    workspace = workspace.replace(File.separatorChar, '.');
-    workspace = workspace.replace(":", "");
-    IPath path = getStoragePathRoot().append(workspace);
+    IPath root = getStoragePathRoot();
+    IPath path = storagePath;
+    if (path == null || !path.removeLastSegments(1).equals(root)) {
+      String workspace = ResourcesPlugin.getWorkspace().getRoot()
+          .getLocation().toOSString();
+      workspace = workspace.replace(File.separatorChar, '.');
+      workspace = workspace.replace(":", "");
+      path = root.append(workspace);
+    }
+
+    // The folder may have been deleted since the path was cached:
     File file = path.toFile();
     if (!file.exists() && !file.mkdirs()) {
       getLog().log(new Status(IStatus.ERROR, PLUGIN_ID,
           "Unable to create folder (" + file + ") for saving Rabbit's data!"));
     }
+    storagePath = path;
     return path;
   }
 
@@ -102,27 +221,116 @@ public class XmlPlugin extends AbstractUIPlugin {
   /**
    * Gets the paths to all the workspace storage locations for this plug-in.
    * Includes {@link #getStoragePath()}. The returned paths should not be cached
-   * because they are changeable.
+   * because they are changeable. The storage root is only listed again when it
+   * has changed, see {@link StorageRegistry}.
    * 
    * @return The paths to all the workspace storage locations
    */
   public IPath[] getStoragePaths() {
-    IPath root = getStoragePathRoot();
-    File rootFile = root.toFile();
-    File[] files = rootFile.listFiles();
-    if (files == null) {
-      return new IPath[0];
+    return registry.getStoragePaths(
+        getStoragePathRoot().toFile(), getStoragePath());
+  }
+
+  /**
+   * Checks whether data files are written compressed. Existing uncompressed
+   * files are compressed when they are written again.
+   * 
+   * @return True if data files are compressed, false otherwise.
+   * @see DataStore
+   */
+  public boolean isCompressingData() {
+    return Boolean.parseBoolean(properties.getProperty(PROP_COMPRESS));
+  }
+
+  /**
+   * Checks whether the data of the deleted files of this workspace is dropped
+   * when old data is compacted.
+   * 
+   * @return True if the data is dropped, false if it is kept.
+   * @see #scheduleCompaction(long)
+   */
+  public boolean isDroppingDeletedResources() {
+    return Boolean.parseBoolean(
+        properties.getProperty(PROP_COMPACT_DROP_DELETED));
+  }
+
+  /**
+   * Schedules old data to be compacted in the background, has no effects if
+   * {@link #getCompactionAge()} is zero. The data of each month is compacted
+   * once, into rollups of {@link #getCompactionRollup()}, files are replaced
+   * as a whole, so that a failed compaction leaves the data intact.
+   * 
+   * @param delay The delay in milliseconds before the compaction starts.
+   */
+  public void scheduleCompaction(long delay) {
+    if (getCompactionAge() > 0) {
+      compactionJob.schedule(delay);
     }
+  }
 
-    Set<IPath> paths = newHashSet();
-    for (File file : files) {
-      if (file.isDirectory()) {
-        paths.add(Path.fromOSString(file.getAbsolutePath()));
-      }
+  /**
+   * Sets the last month that has been compacted.
+   * 
+   * @param month A date in the month, or null to compact all the data again.
+   */
+  void setCompactedMonth(@Nullable LocalDate month) {
+    if (month == null) {
+      properties.remove(PROP_COMPACTED_MONTH);
+    } else {
+      properties.setProperty(PROP_COMPACTED_MONTH,
+          month.withDayOfMonth(1).toString());
     }
-    paths.add(getStoragePath());
+  }
+
+  /**
+   * Sets the age in months after which data is compacted.
+   * 
+   * @param months The age in months, zero to never compact data.
+   * @throws IllegalArgumentException If {@code months} is negative.
+   * @see #getCompactionAge()
+   */
+  public void setCompactionAge(int months) {
+    checkArgument(months >= 0, "months");
+    properties.setProperty(PROP_COMPACT_AGE, String.valueOf(months));
+  }
 
-    return paths.toArray(new IPath[paths.size()]);
+  /**
+   * Sets the period old data is rolled up into. If the period is changed, the
+   * data that has been compacted is compacted again.
+   * 
+   * @param rollup The period.
+   * @throws NullPointerException If {@code rollup} is null.
+   */
+  public void setCompactionRollup(Rollup rollup) {
+    checkNotNull(rollup, "rollup");
+    if (rollup != getCompactionRollup()) {
+      setCompactedMonth(null);
+    }
+    properties.setProperty(PROP_COMPACT_ROLLUP, rollup.name());
+  }
+
+  /**
+   * Sets whether data files should be written compressed.
+   * 
+   * @param compress True to compress, false otherwise.
+   * @see #isCompressingData()
+   */
+  public void setCompressingData(boolean compress) {
+    properties.setProperty(PROP_COMPRESS, String.valueOf(compress));
+  }
+
+  /**
+   * Sets whether the data of the deleted files of this workspace is dropped
+   * when old data is compacted. If set to true, the data that has been
+   * compacted is compacted again.
+   * 
+   * @param drop True to drop the data, false to keep it.
+   */
+  public void setDroppingDeletedResources(boolean drop) {
+    if (drop && !isDroppingDeletedResources()) {
+      setCompactedMonth(null);
+    }
+    properties.setProperty(PROP_COMPACT_DROP_DELETED, String.valueOf(drop));
   }
 
   /**
@@ -149,6 +357,7 @@ public class XmlPlugin extends AbstractUIPlugin {
     }
 
     properties.setProperty(PROP_STORAGE_ROOT, dir.getAbsolutePath());
+    setCompactedMonth(null);
     return true;
   }
 
@@ -176,10 +385,12 @@ public class XmlPlugin extends AbstractUIPlugin {
       IOUtils.closeQuietly(reader);
       checkProperties(properties);
     }
+    scheduleCompaction(COMPACTION_DELAY);
   }
 
   @Override
   public void stop(BundleContext context) throws Exception {
+    compactionJob.cancel();
     Writer writer = null;
     try {
       checkProperties(properties);
@@ -16,30 +16,50 @@
 package rabbit.data.internal.xml.access;
 
 import static rabbit.data.internal.xml.DatatypeUtil.toLocalDate;
-import static rabbit.data.internal.xml.DatatypeUtil.toXmlDate;
 
 import rabbit.data.access.IAccessor;
+import rabbit.data.access.IDataVisitor;
+import rabbit.data.access.Query;
+import rabbit.data.access.model.IData;
 import rabbit.data.access.model.WorkspaceStorage;
+import rabbit.data.internal.access.model.Aggregator;
+import rabbit.data.internal.diagnostics.Diagnostics;
+import rabbit.data.internal.diagnostics.LatencyHistogram;
+import rabbit.data.internal.xml.EventGroupCursor;
 import rabbit.data.internal.xml.IDataStore;
+import rabbit.data.internal.xml.StringTables;
 import rabbit.data.internal.xml.XmlPlugin;
 import rabbit.data.internal.xml.schema.events.EventGroupType;
 import rabbit.data.internal.xml.schema.events.EventListType;
+import rabbit.data.store.model.DiscreteEvent;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Multimap;
 
+import org.apache.commons.io.IOUtils;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.joda.time.LocalDate;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import javax.annotation.Nullable;
+import javax.xml.bind.JAXBException;
 import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.stream.XMLStreamException;
 
 /**
  * Abstract class provides default behaviors, this class is designed
@@ -52,22 +72,230 @@ import javax.xml.datatype.XMLGregorianCalendar;
 public abstract class AbstractAccessor<T, E, S extends EventGroupType>
     implements IAccessor<T> {
 
+  /**
+   * The data nodes of all the dates of a data file.
+   */
+  private static final class CachedFile<T> {
+    final WorkspaceStorage ws;
+    final long stamp;
+    /** The date of each of {@link #nodes}. */
+    final List<LocalDate> dates;
+    final List<T> nodes;
+
+    CachedFile(WorkspaceStorage ws, long stamp, List<LocalDate> dates,
+        List<T> nodes) {
+      this.ws = ws;
+      this.stamp = stamp;
+      this.dates = dates;
+      this.nodes = nodes;
+    }
+
+    /**
+     * Gets the data nodes between the given dates, inclusive.
+     */
+    List<T> getNodes(LocalDate start, LocalDate end) {
+      List<T> result = Lists.newArrayList();
+      for (int i = 0; i < nodes.size(); ++i) {
+        LocalDate date = dates.get(i);
+        if (!date.isBefore(start) && !date.isAfter(end)) {
+          result.add(nodes.get(i));
+        }
+      }
+      return result;
+    }
+
+    boolean isValid(WorkspaceStorage ws, long stamp) {
+      return this.stamp == stamp && this.ws.equals(ws);
+    }
+  }
+
+  /**
+   * Files modified this recently before they were read are not cached, as a
+   * change made within the resolution of the modification time of the file
+   * system may not change the stamp of the file.
+   */
+  private static final long RACY_MILLIS = 2000;
+
   private final IDataStore store;
+  @Nullable
+  private final Class<S> categoryType;
+  private final LatencyHistogram getDataLatency;
+  private final LatencyHistogram queryLatency;
+  private final LatencyHistogram visitLatency;
 
   /**
-   * Constructor.
+   * The data nodes of the files last read, by file, for all the dates of each
+   * file. Values are soft referenced, so that the cache is dropped when memory
+   * is low.
+   */
+  private final ConcurrentMap<File, CachedFile<T>> cache =
+      new MapMaker().softValues().makeMap();
+  private final AtomicLong cacheHits;
+  private final AtomicLong cacheMisses;
+
+  /**
+   * Constructor. The data files will be read as whole documents, use
+   * {@link #AbstractAccessor(IDataStore, Class)} to only read the categories
+   * of the requested dates.
    * 
    * @param store The data store to get the data from.
    * @throws NullPointerException If any arguments are null.
    */
   protected AbstractAccessor(IDataStore store) {
+    this(null, store);
+  }
+
+  /**
+   * Constructor. The data files will be scanned with an
+   * {@link EventGroupCursor}, only the categories of the requested dates are
+   * unmarshalled, the rest of the documents are skipped.
+   * 
+   * @param store The data store to get the data from.
+   * @param categoryType The XML category type.
+   * @throws NullPointerException If any arguments are null.
+   */
+  protected AbstractAccessor(IDataStore store, Class<S> categoryType) {
+    this(checkNotNull(categoryType), store);
+  }
+
+  private AbstractAccessor(@Nullable Class<S> categoryType, IDataStore store) {
     this.store = checkNotNull(store);
+    this.categoryType = categoryType;
+    String name = Diagnostics.nameOf(getClass());
+    this.getDataLatency = Diagnostics.histogram(name + ".getData");
+    this.queryLatency = Diagnostics.histogram(name + ".query");
+    this.visitLatency = Diagnostics.histogram(name + ".visit");
+    this.cacheHits = Diagnostics.counter(name + ".cacheHits");
+    this.cacheMisses = Diagnostics.counter(name + ".cacheMisses");
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The events are converted by {@link #convertEvent(DiscreteEvent)}, and
+   * their data nodes are created the same way as the data nodes of the data
+   * read from the data store.
+   * </p>
+   */
+  @Override
+  public final Collection<T> convert(Collection<?> events) {
+    checkNotNull(events, "events is null");
+    List<T> result = Lists.newArrayList();
+    WorkspaceStorage ws = null;
+    for (Object event : events) {
+      if (!(event instanceof DiscreteEvent)) {
+        continue;
+      }
+      E element = convertEvent((DiscreteEvent) event);
+      if (element == null) {
+        continue;
+      }
+      if (ws == null) {
+        XmlPlugin plugin = XmlPlugin.getDefault();
+        IPath storagePath = plugin.getStoragePath();
+        ws = new WorkspaceStorage(storagePath,
+            plugin.getWorkspacePath(storagePath));
+      }
+      LocalDate date = ((DiscreteEvent) event).getTime().toLocalDate();
+      T node = null;
+      try {
+        node = createDataNode(date, ws, element);
+      } catch (Exception e) {
+        node = null;
+      }
+      if (node != null) {
+        result.add(node);
+      }
+    }
+    return result;
   }
 
   @Override
   public final Collection<T> getData(LocalDate start, LocalDate end) {
-    return filter(getXmlData(checkNotNull(start, "start date is null"),
-                             checkNotNull(end, "end date is null")));
+    checkNotNull(start, "start date is null");
+    checkNotNull(end, "end date is null");
+    long nanos = getDataLatency.start();
+    try {
+      final List<T> result = Lists.newArrayList();
+      doVisit(start, end, new IDataVisitor<T>() {
+        @Override
+        public boolean visit(T data) {
+          result.add(data);
+          return true;
+        }
+      }, new NullProgressMonitor());
+      return result;
+    } finally {
+      getDataLatency.stop(nanos);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The data nodes are created one category at a time, and are added to the
+   * result of the query as they are created, they are not kept.
+   * </p>
+   */
+  @Override
+  public final Collection<IData> getData(Query query) {
+    checkNotNull(query, "query is null");
+    long nanos = queryLatency.start();
+    try {
+      final Aggregator aggregator = new Aggregator(query);
+      doVisit(query.getStart(), query.getEnd(), new IDataVisitor<T>() {
+        @Override
+        public boolean visit(T data) {
+          if (data instanceof IData) {
+            aggregator.add((IData) data);
+          }
+          return true;
+        }
+      }, new NullProgressMonitor());
+      return aggregator.getResult();
+    } finally {
+      queryLatency.stop(nanos);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The data files are read one at a time, only the categories of the file
+   * being read are held in memory. The data nodes of each file are cached
+   * until the file is changed, so that reading the dates of the file again,
+   * such as a range shifted by a day, only reads the files that have been
+   * changed since.
+   * </p>
+   */
+  @Override
+  public final boolean visit(LocalDate start, LocalDate end,
+      IDataVisitor<? super T> visitor, @Nullable IProgressMonitor monitor) {
+    checkNotNull(start, "start date is null");
+    checkNotNull(end, "end date is null");
+    checkNotNull(visitor, "visitor is null");
+    long nanos = visitLatency.start();
+    try {
+      return doVisit(start, end, visitor,
+          (monitor == null) ? new NullProgressMonitor() : monitor);
+    } finally {
+      visitLatency.stop(nanos);
+    }
+  }
+
+  /**
+   * Converts an event to the XML type of this accessor, for
+   * {@link #convert(Collection)}. The default implementation returns null,
+   * subclasses should override this method to convert the events of their
+   * type.
+   * 
+   * @param event The event.
+   * @return The XML type, or null if the event is not of the type of this
+   *         accessor.
+   */
+  @Nullable
+  protected E convertEvent(DiscreteEvent event) {
+    return null;
   }
 
   /**
@@ -107,70 +335,198 @@ public abstract class AbstractAccessor<T, E, S extends EventGroupType>
   protected abstract Collection<E> getElements(S category);
 
   /**
-   * Filters the given data.
+   * Creates the data nodes of the given category, elements that cannot be
+   * converted are ignored.
+   */
+  private List<T> createDataNodes(WorkspaceStorage ws, LocalDate date,
+      S category) {
+    List<T> result = Lists.newArrayList();
+    for (E element : getElements(category)) {
+      T node = null;
+      try {
+        node = createDataNode(date, ws, element);
+      } catch (Exception e) {
+        node = null;
+      }
+      if (node != null) {
+        result.add(node);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Reads the data files between the given dates, passing the data nodes of
+   * each file to the visitor before the next file is read.
    * 
-   * @param data The raw data between the two dates of
-   *          {@link #getData(LocalDate, LocalDate)}.
-   * @return The filtered data.
-   */
-  private Collection<T> filter(Multimap<WorkspaceStorage, S> data) {
-    List<T> result = Lists.newLinkedList();
-    for (Map.Entry<WorkspaceStorage, S> entry : data.entries()) {
-      LocalDate date = toLocalDate(entry.getValue().getDate());
-      for (E element : getElements(entry.getValue())) {
-        T node = null;
-        try {
-          node = createDataNode(date, entry.getKey(), element);
-        } catch (Exception e) {
-          node = null;
+   * @return True if all the data has been visited, false if the visitor has
+   *         stopped or the monitor has been canceled.
+   */
+  private boolean doVisit(LocalDate start, LocalDate end,
+      IDataVisitor<? super T> visitor, IProgressMonitor monitor) {
+
+    Multimap<WorkspaceStorage, File> files = getDataFiles(start, end);
+    monitor.beginTask("Reading data", files.size());
+    try {
+      for (Map.Entry<WorkspaceStorage, File> entry : files.entries()) {
+        if (monitor.isCanceled()) {
+          return false;
         }
-        if (node != null) {
-          result.add(node);
+        for (T node : getDataNodes(entry.getKey(), entry.getValue(), start,
+            end)) {
+          if (!visitor.visit(node)) {
+            return false;
+          }
         }
+        monitor.worked(1);
       }
+      return !monitor.isCanceled();
+    } finally {
+      monitor.done();
     }
-    return result;
   }
 
   /**
-   * Gets the data from the XML files.
+   * Gets the data nodes between the given dates, inclusive, of the given file.
+   * The nodes are read from the cache if the file has not been changed since
+   * it was last read. A file that can be cached is read for all its dates.
+   */
+  private List<T> getDataNodes(WorkspaceStorage ws, File file,
+      LocalDate start, LocalDate end) {
+
+    long stamp = getDataStore().getModificationStamp(file);
+    CachedFile<T> cached = cache.get(file);
+    if (cached != null && cached.isValid(ws, stamp)) {
+      cacheHits.incrementAndGet();
+      return cached.getNodes(start, end);
+    }
+    cacheMisses.incrementAndGet();
+
+    long readTime = System.currentTimeMillis();
+    boolean isCacheable = stamp != 0 && stamp < readTime - RACY_MILLIS;
+    List<LocalDate> dates = Lists.newArrayList();
+    List<T> nodes = Lists.newArrayList();
+    List<S> categories = isCacheable
+        ? getCategories(file, null, null) : getCategories(file, start, end);
+    for (S category : categories) {
+      LocalDate date = toLocalDate(category.getDate());
+      List<T> created = createDataNodes(ws, date, category);
+      dates.addAll(Collections.nCopies(created.size(), date));
+      nodes.addAll(created);
+    }
+    if (!isCacheable) {
+      cache.remove(file);
+      return nodes;
+    }
+    cached = new CachedFile<T>(ws, stamp, dates, nodes);
+    cache.put(file, cached);
+    return cached.getNodes(start, end);
+  }
+
+  /**
+   * Gets the categories between the given dates, inclusive, of the given
+   * file.
    * 
-   * @param start The start date of the data to get.
-   * @param end The end date of the data to get.
-   * @return The data between the dates, inclusive.
+   * @param start The start date, or null to get the categories from the
+   *        first date.
+   * @param end The end date, or null to get the categories to the last date.
    */
-  private Multimap<WorkspaceStorage, S> getXmlData(LocalDate start,
-                                                   LocalDate end) {
+  private List<S> getCategories(File file, @Nullable LocalDate start,
+      @Nullable LocalDate end) {
+    if (categoryType != null) {
+      List<S> categories = scan(file, start, end);
+      if (categories != null) {
+        return categories;
+      }
+    }
 
-    XMLGregorianCalendar startDate = toXmlDate(start);
-    XMLGregorianCalendar endDate = toXmlDate(end);
-    XmlPlugin plugin = XmlPlugin.getDefault();
+    List<S> categories = Lists.newArrayList();
+    for (S list : getCategories(getDataStore().read(file))) {
+      XMLGregorianCalendar date = list.getDate();
+      if (date == null) {
+        continue; // Ignore invalid data.
+      }
+      if (isBetween(toLocalDate(date), start, end)) {
+        categories.add(list);
+      }
+    }
+    return categories;
+  }
 
+  /**
+   * Gets the data files between the given dates of all the storage locations.
+   */
+  private Multimap<WorkspaceStorage, File> getDataFiles(LocalDate start,
+      LocalDate end) {
+    XmlPlugin plugin = XmlPlugin.getDefault();
     IPath[] storagePaths = plugin.getStoragePaths();
-    Multimap<WorkspaceStorage, S> data = 
-        LinkedListMultimap.create(storagePaths.length);
-    Multimap<WorkspaceStorage, File> files = 
+    Multimap<WorkspaceStorage, File> files =
         LinkedListMultimap.create(storagePaths.length);
-
     for (IPath storagePath : storagePaths) {
       List<File> fileList = getDataStore().getDataFiles(start, end, storagePath);
       IPath workspacePath = plugin.getWorkspacePath(storagePath);
       files.putAll(new WorkspaceStorage(storagePath, workspacePath), fileList);
     }
+    return files;
+  }
 
-    for (Map.Entry<WorkspaceStorage, File> entry : files.entries()) {
-      for (S list : getCategories(getDataStore().read(entry.getValue()))) {
+  /**
+   * Checks whether the given date is between the given dates, inclusive, a
+   * null date is unbounded.
+   */
+  private static boolean isBetween(LocalDate date, @Nullable LocalDate start,
+      @Nullable LocalDate end) {
+    return (start == null || !date.isBefore(start))
+        && (end == null || !date.isAfter(end));
+  }
 
-        XMLGregorianCalendar date = list.getDate();
-        if (date == null) {
-          continue; // Ignore invalid data.
-        }
-        if (startDate.compare(date) <= 0 && date.compare(endDate) <= 0) {
-          data.put(entry.getKey(), list);
+  /**
+   * Scans the given file with a cursor for the categories between the given
+   * dates.
+   * 
+   * @return The categories, or null if the file cannot be scanned and should
+   *         be read as a whole document instead.
+   */
+  @Nullable
+  private List<S> scan(File file, @Nullable LocalDate start,
+      @Nullable LocalDate end) {
+    List<S> lists = Lists.newArrayList();
+    InputStream in = null;
+    EventGroupCursor<S> cursor = null;
+    try {
+      in = getDataStore().openStream(file);
+      if (in == null) {
+        return lists;
+      }
+      cursor = EventGroupCursor.open(in, categoryType);
+      while (cursor.next()) {
+        LocalDate date = cursor.getDate();
+        if (date == null || !isBetween(date, start, end)) {
+          continue; // Skipped without reading the events.
         }
+        lists.add(cursor.get());
+      }
+      // The table is only known once the first category has been reached,
+      // the references are resolved against it as a whole document would be:
+      if (cursor.getStrings() != null && !lists.isEmpty()) {
+        EventListType doc = new EventListType();
+        doc.setStrings(cursor.getStrings());
+        getCategories(doc).addAll(lists);
+        StringTables.decode(doc);
+      }
+    } catch (IOException e) {
+      return null;
+    } catch (XMLStreamException e) {
+      return null;
+    } catch (JAXBException e) {
+      return null;
+    } finally {
+      if (cursor != null) {
+        cursor.close();
+      } else {
+        IOUtils.closeQuietly(in);
       }
     }
-    return data;
+    return lists;
   }
-
 }
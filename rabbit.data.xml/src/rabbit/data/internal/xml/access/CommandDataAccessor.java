@@ -20,9 +20,12 @@ import rabbit.data.access.model.WorkspaceStorage;
 import rabbit.data.internal.access.model.CommandData;
 import rabbit.data.internal.xml.IDataStore;
 import rabbit.data.internal.xml.StoreNames;
+import rabbit.data.internal.xml.convert.CommandEventConverter;
 import rabbit.data.internal.xml.schema.events.CommandEventListType;
 import rabbit.data.internal.xml.schema.events.CommandEventType;
 import rabbit.data.internal.xml.schema.events.EventListType;
+import rabbit.data.store.model.CommandEvent;
+import rabbit.data.store.model.DiscreteEvent;
 
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
@@ -30,6 +33,7 @@ import com.google.inject.name.Named;
 import org.eclipse.core.commands.Command;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.commands.ICommandService;
+import org.joda.time.Duration;
 import org.joda.time.LocalDate;
 
 import java.util.Collection;
@@ -40,6 +44,8 @@ import java.util.Collection;
 public class CommandDataAccessor extends
     AbstractAccessor<ICommandData, CommandEventType, CommandEventListType> {
 
+  private final CommandEventConverter converter = new CommandEventConverter();
+
   /**
    * Constructor.
    * 
@@ -48,14 +54,22 @@ public class CommandDataAccessor extends
    */
   @Inject
   CommandDataAccessor(@Named(StoreNames.COMMAND_STORE) IDataStore store) {
-    super(store);
+    super(store, CommandEventListType.class);
+  }
+
+  @Override
+  protected CommandEventType convertEvent(DiscreteEvent event) {
+    return (event instanceof CommandEvent)
+        ? converter.convert((CommandEvent) event) : null;
   }
 
   @Override
   protected ICommandData createDataNode(
       LocalDate date, WorkspaceStorage ws, CommandEventType type) throws Exception {
     Command cmd = commandService().getCommand(type.getCommandId());
-    return new CommandData(date, ws, cmd, type.getCount());
+    Long duration = type.getDuration();
+    return new CommandData(date, ws, cmd, type.getCount(),
+        new Duration(duration == null ? 0 : duration));
   }
 
   @Override
@@ -15,18 +15,25 @@
  */
 package rabbit.data.internal.xml.access;
 
+import rabbit.data.access.model.Branch;
 import rabbit.data.access.model.IFileData;
 import rabbit.data.access.model.WorkspaceStorage;
 import rabbit.data.internal.access.model.FileData;
 import rabbit.data.internal.xml.IDataStore;
 import rabbit.data.internal.xml.StoreNames;
+import rabbit.data.internal.xml.convert.FileEventConverter;
 import rabbit.data.internal.xml.schema.events.EventListType;
 import rabbit.data.internal.xml.schema.events.FileEventListType;
 import rabbit.data.internal.xml.schema.events.FileEventType;
+import rabbit.data.store.model.DiscreteEvent;
+import rabbit.data.store.model.FileEvent;
+import rabbit.data.store.model.TaskFileEvent;
 
+import com.google.common.collect.MapMaker;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.Path;
@@ -34,6 +41,7 @@ import org.joda.time.Duration;
 import org.joda.time.LocalDate;
 
 import java.util.Collection;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Accesses file event data.
@@ -41,6 +49,16 @@ import java.util.Collection;
 public class FileDataAccessor extends
     AbstractAccessor<IFileData, FileEventType, FileEventListType> {
 
+  /**
+   * Files by path, with weak keys compared by identity. Events read from the
+   * same file share their path strings, so a path is only resolved once per
+   * file.
+   */
+  private final ConcurrentMap<String, IFile> files =
+      new MapMaker().weakKeys().makeMap();
+
+  private final FileEventConverter converter = new FileEventConverter();
+
   /**
    * Constructor.
    * 
@@ -49,14 +67,28 @@ public class FileDataAccessor extends
    */
   @Inject
   FileDataAccessor(@Named(StoreNames.FILE_STORE) IDataStore store) {
-    super(store);
+    super(store, FileEventListType.class);
+  }
+
+  @Override
+  protected FileEventType convertEvent(DiscreteEvent event) {
+    return (event instanceof FileEvent && !(event instanceof TaskFileEvent))
+        ? converter.convert((FileEvent) event) : null;
   }
 
   @Override
   protected IFileData createDataNode(LocalDate date, WorkspaceStorage ws,
       FileEventType type) throws Exception {
-    return new FileData(date, ws, new Duration(type.getDuration()),
-        workspaceRoot().getFile(new Path(type.getFilePath())));
+    String path = type.getFilePath();
+    IFile file = files.get(path);
+    if (file == null) {
+      file = workspaceRoot().getFile(new Path(path));
+      files.put(path, file);
+    }
+    Branch branch = (type.getBranch() == null)
+        ? Branch.NONE : new Branch(type.getBranch());
+    return new FileData(
+        date, ws, new Duration(type.getDuration()), file, branch);
   }
 
   @Override
@@ -20,10 +20,14 @@ import rabbit.data.access.model.WorkspaceStorage;
 import rabbit.data.internal.access.model.JavaData;
 import rabbit.data.internal.xml.IDataStore;
 import rabbit.data.internal.xml.StoreNames;
+import rabbit.data.internal.xml.convert.JavaEventConverter;
 import rabbit.data.internal.xml.schema.events.EventListType;
 import rabbit.data.internal.xml.schema.events.JavaEventListType;
 import rabbit.data.internal.xml.schema.events.JavaEventType;
+import rabbit.data.store.model.DiscreteEvent;
+import rabbit.data.store.model.JavaEvent;
 
+import com.google.common.collect.MapMaker;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 
@@ -33,6 +37,7 @@ import org.joda.time.Duration;
 import org.joda.time.LocalDate;
 
 import java.util.Collection;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Gets java element event data from the database.
@@ -40,6 +45,16 @@ import java.util.Collection;
 public class JavaDataAccessor extends
     AbstractAccessor<IJavaData, JavaEventType, JavaEventListType> {
 
+  /**
+   * Elements by handle identifier. Keys are weak and compared by identity:
+   * the events of a file with a string table share the same string instances,
+   * so each distinct handle identifier is only resolved once per file.
+   */
+  private final ConcurrentMap<String, IJavaElement> elements =
+      new MapMaker().weakKeys().makeMap();
+
+  private final JavaEventConverter converter = new JavaEventConverter();
+
   /**
    * Constructor.
    * 
@@ -48,14 +63,25 @@ public class JavaDataAccessor extends
    */
   @Inject
   JavaDataAccessor(@Named(StoreNames.JAVA_STORE) IDataStore store) {
-    super(store);
+    super(store, JavaEventListType.class);
+  }
+
+  @Override
+  protected JavaEventType convertEvent(DiscreteEvent event) {
+    return (event instanceof JavaEvent)
+        ? converter.convert((JavaEvent) event) : null;
   }
 
   @Override
   protected IJavaData createDataNode(LocalDate date, WorkspaceStorage ws,
       JavaEventType type) throws Exception {
     Duration duration = new Duration(type.getDuration());
-    IJavaElement element = JavaCore.create(type.getHandleIdentifier());
+    String handle = type.getHandleIdentifier();
+    IJavaElement element = elements.get(handle);
+    if (element == null) {
+      element = JavaCore.create(handle);
+      elements.put(handle, element);
+    }
     return new JavaData(date, ws, duration, element);
   }
 
@@ -21,9 +21,12 @@ import rabbit.data.access.model.WorkspaceStorage;
 import rabbit.data.internal.access.model.LaunchData;
 import rabbit.data.internal.xml.IDataStore;
 import rabbit.data.internal.xml.StoreNames;
+import rabbit.data.internal.xml.convert.LaunchEventConverter;
 import rabbit.data.internal.xml.schema.events.EventListType;
 import rabbit.data.internal.xml.schema.events.LaunchEventListType;
 import rabbit.data.internal.xml.schema.events.LaunchEventType;
+import rabbit.data.store.model.DiscreteEvent;
+import rabbit.data.store.model.LaunchEvent;
 
 import static com.google.common.collect.Sets.newHashSet;
 
@@ -46,6 +49,8 @@ import java.util.Set;
 public class LaunchDataAccessor extends
     AbstractAccessor<ILaunchData, LaunchEventType, LaunchEventListType> {
 
+  private final LaunchEventConverter converter = new LaunchEventConverter();
+
   /**
    * Constructor.
    * 
@@ -54,7 +59,13 @@ public class LaunchDataAccessor extends
    */
   @Inject
   LaunchDataAccessor(@Named(StoreNames.LAUNCH_STORE) IDataStore store) {
-    super(store);
+    super(store, LaunchEventListType.class);
+  }
+
+  @Override
+  protected LaunchEventType convertEvent(DiscreteEvent event) {
+    return (event instanceof LaunchEvent)
+        ? converter.convert((LaunchEvent) event) : null;
   }
 
   @Override
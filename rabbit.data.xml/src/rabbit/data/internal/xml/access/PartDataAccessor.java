@@ -20,9 +20,12 @@ import rabbit.data.access.model.WorkspaceStorage;
 import rabbit.data.internal.access.model.PartData;
 import rabbit.data.internal.xml.IDataStore;
 import rabbit.data.internal.xml.StoreNames;
+import rabbit.data.internal.xml.convert.PartEventConverter;
 import rabbit.data.internal.xml.schema.events.EventListType;
 import rabbit.data.internal.xml.schema.events.PartEventListType;
 import rabbit.data.internal.xml.schema.events.PartEventType;
+import rabbit.data.store.model.DiscreteEvent;
+import rabbit.data.store.model.PartEvent;
 
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
@@ -38,6 +41,8 @@ import java.util.Collection;
 public class PartDataAccessor extends
     AbstractAccessor<IPartData, PartEventType, PartEventListType> {
 
+  private final PartEventConverter converter = new PartEventConverter();
+
   /**
    * Constructor.
    * 
@@ -46,7 +51,13 @@ public class PartDataAccessor extends
    */
   @Inject
   PartDataAccessor(@Named(StoreNames.PART_STORE) IDataStore store) {
-    super(store);
+    super(store, PartEventListType.class);
+  }
+
+  @Override
+  protected PartEventType convertEvent(DiscreteEvent event) {
+    return (event instanceof PartEvent)
+        ? converter.convert((PartEvent) event) : null;
   }
 
   @Override
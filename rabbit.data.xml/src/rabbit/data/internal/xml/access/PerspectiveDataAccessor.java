@@ -20,9 +20,12 @@ import rabbit.data.access.model.WorkspaceStorage;
 import rabbit.data.internal.access.model.PerspectiveData;
 import rabbit.data.internal.xml.IDataStore;
 import rabbit.data.internal.xml.StoreNames;
+import rabbit.data.internal.xml.convert.PerspectiveEventConverter;
 import rabbit.data.internal.xml.schema.events.EventListType;
 import rabbit.data.internal.xml.schema.events.PerspectiveEventListType;
 import rabbit.data.internal.xml.schema.events.PerspectiveEventType;
+import rabbit.data.store.model.DiscreteEvent;
+import rabbit.data.store.model.PerspectiveEvent;
 
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
@@ -39,6 +42,9 @@ public class PerspectiveDataAccessor
     extends
     AbstractAccessor<IPerspectiveData, PerspectiveEventType, PerspectiveEventListType> {
 
+  private final PerspectiveEventConverter converter =
+      new PerspectiveEventConverter();
+
   /**
    * Constructor.
    * 
@@ -47,7 +53,13 @@ public class PerspectiveDataAccessor
    */
   @Inject
   PerspectiveDataAccessor(@Named(StoreNames.PERSPECTIVE_STORE) IDataStore store) {
-    super(store);
+    super(store, PerspectiveEventListType.class);
+  }
+
+  @Override
+  protected PerspectiveEventType convertEvent(DiscreteEvent event) {
+    return (event instanceof PerspectiveEvent)
+        ? converter.convert((PerspectiveEvent) event) : null;
   }
 
   @Override
@@ -5,9 +5,12 @@ import rabbit.data.access.model.WorkspaceStorage;
 import rabbit.data.internal.access.model.SessionData;
 import rabbit.data.internal.xml.IDataStore;
 import rabbit.data.internal.xml.StoreNames;
+import rabbit.data.internal.xml.convert.SessionEventConverter;
 import rabbit.data.internal.xml.schema.events.EventListType;
 import rabbit.data.internal.xml.schema.events.SessionEventListType;
 import rabbit.data.internal.xml.schema.events.SessionEventType;
+import rabbit.data.store.model.DiscreteEvent;
+import rabbit.data.store.model.SessionEvent;
 
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
@@ -23,6 +26,8 @@ import java.util.Collection;
 public class SessionDataAccessor extends
     AbstractAccessor<ISessionData, SessionEventType, SessionEventListType> {
 
+  private final SessionEventConverter converter = new SessionEventConverter();
+
   /**
    * Constructor.
    * 
@@ -31,7 +36,13 @@ public class SessionDataAccessor extends
    */
   @Inject
   SessionDataAccessor(@Named(StoreNames.SESSION_STORE) IDataStore store) {
-    super(store);
+    super(store, SessionEventListType.class);
+  }
+
+  @Override
+  protected SessionEventType convertEvent(DiscreteEvent event) {
+    return (event instanceof SessionEvent)
+        ? converter.convert((SessionEvent) event) : null;
   }
 
   @Override
@@ -15,16 +15,21 @@
  */
 package rabbit.data.internal.xml.access;
 
+import rabbit.data.access.model.Branch;
 import rabbit.data.access.model.ITaskData;
 import rabbit.data.access.model.WorkspaceStorage;
 import rabbit.data.common.TaskId;
 import rabbit.data.internal.access.model.TaskData;
 import rabbit.data.internal.xml.IDataStore;
 import rabbit.data.internal.xml.StoreNames;
+import rabbit.data.internal.xml.convert.TaskFileEventConverter;
 import rabbit.data.internal.xml.schema.events.EventListType;
 import rabbit.data.internal.xml.schema.events.TaskFileEventListType;
 import rabbit.data.internal.xml.schema.events.TaskFileEventType;
+import rabbit.data.store.model.DiscreteEvent;
+import rabbit.data.store.model.TaskFileEvent;
 
+import com.google.common.collect.MapMaker;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 
@@ -37,6 +42,7 @@ import org.joda.time.LocalDate;
 
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Gets task data.
@@ -44,6 +50,16 @@ import java.util.Collection;
 public class TaskDataAccessor extends
     AbstractAccessor<ITaskData, TaskFileEventType, TaskFileEventListType> {
 
+  /**
+   * Files by path, keys are compared by identity.
+   * 
+   * @see FileDataAccessor
+   */
+  private final ConcurrentMap<String, IFile> files =
+      new MapMaker().weakKeys().makeMap();
+
+  private final TaskFileEventConverter converter = new TaskFileEventConverter();
+
   /**
    * Constructor.
    * 
@@ -52,21 +68,34 @@ public class TaskDataAccessor extends
    */
   @Inject
   TaskDataAccessor(@Named(StoreNames.TASK_STORE) IDataStore store) {
-    super(store);
+    super(store, TaskFileEventListType.class);
+  }
+
+  @Override
+  protected TaskFileEventType convertEvent(DiscreteEvent event) {
+    return (event instanceof TaskFileEvent)
+        ? converter.convert((TaskFileEvent) event) : null;
   }
 
   @Override
   protected ITaskData createDataNode(LocalDate date, WorkspaceStorage ws,
       TaskFileEventType t) throws Exception {
     Duration duration = new Duration(t.getDuration());
-    IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
-    IFile file = root.getFile(new Path(t.getFilePath()));
+    String path = t.getFilePath();
+    IFile file = files.get(path);
+    if (file == null) {
+      IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+      file = root.getFile(new Path(path));
+      files.put(path, file);
+    }
 
     String handleId = t.getTaskId().getHandleId();
     Calendar createDate = t.getTaskId().getCreationDate().toGregorianCalendar();
     TaskId taskId = new TaskId(handleId, createDate.getTime());
 
-    return new TaskData(date, ws, duration, file, taskId);
+    Branch branch = (t.getBranch() == null)
+        ? Branch.NONE : new Branch(t.getBranch());
+    return new TaskData(date, ws, duration, file, taskId, branch);
   }
 
   @Override
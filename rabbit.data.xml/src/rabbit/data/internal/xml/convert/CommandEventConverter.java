@@ -30,8 +30,12 @@ public class CommandEventConverter extends
   @Override
   protected CommandEventType doConvert(CommandEvent element) {
     CommandEventType type = new CommandEventType();
-    type.setCommandId(element.getExecutionEvent().getCommand().getId());
-    type.setCount(1);
+    type.setCommandId(element.getCommandId());
+    type.setCount(element.getCount());
+    type.setDuration(element.getDuration());
+    for (int count : element.getLatencies()) {
+      type.getLatencies().add(count);
+    }
     return type;
   }
 
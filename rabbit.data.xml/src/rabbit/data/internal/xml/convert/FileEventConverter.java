@@ -32,6 +32,7 @@ public class FileEventConverter extends
     FileEventType type = new FileEventType();
     type.setDuration(element.getInterval().toDurationMillis());
     type.setFilePath(element.getFilePath().toString());
+    type.setBranch(element.getBranch());
     return type;
   }
 
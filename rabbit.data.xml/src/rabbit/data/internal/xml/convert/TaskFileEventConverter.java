@@ -47,6 +47,7 @@ public class TaskFileEventConverter extends
     final TaskFileEventType type = new TaskFileEventType();
     type.setDuration(event.getInterval().toDurationMillis());
     type.setFilePath(event.getFilePath().toString());
+    type.setBranch(event.getBranch());
     type.setTaskId(id);
 
     return type;
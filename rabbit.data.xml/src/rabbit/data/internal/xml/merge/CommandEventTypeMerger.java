@@ -17,6 +17,8 @@ package rabbit.data.internal.xml.merge;
 
 import rabbit.data.internal.xml.schema.events.CommandEventType;
 
+import java.util.List;
+
 /**
  * Merger for {@link CommandEventType}.
  */
@@ -30,6 +32,19 @@ public class CommandEventTypeMerger extends AbstractMerger<CommandEventType> {
     CommandEventType result = new CommandEventType();
     result.setCommandId(t1.getCommandId());
     result.setCount(t1.getCount() + t2.getCount());
+    if (t1.getDuration() != null || t2.getDuration() != null) {
+      result.setDuration(durationOf(t1) + durationOf(t2));
+    }
+    List<Integer> latencies = result.getLatencies();
+    latencies.addAll(t1.getLatencies());
+    List<Integer> other = t2.getLatencies();
+    for (int i = 0; i < other.size(); i++) {
+      if (i < latencies.size()) {
+        latencies.set(i, latencies.get(i) + other.get(i));
+      } else {
+        latencies.add(other.get(i));
+      }
+    }
     return result;
   }
 
@@ -39,4 +54,11 @@ public class CommandEventTypeMerger extends AbstractMerger<CommandEventType> {
         && (t1.getCommandId().equals(t2.getCommandId()));
   }
 
+  /**
+   * Gets the duration of the given element, elements written before durations
+   * were recorded have none.
+   */
+  private long durationOf(CommandEventType type) {
+    return (type.getDuration() == null) ? 0 : type.getDuration();
+  }
 }
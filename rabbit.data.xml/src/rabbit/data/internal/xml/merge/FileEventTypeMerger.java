@@ -17,6 +17,8 @@ package rabbit.data.internal.xml.merge;
 
 import rabbit.data.internal.xml.schema.events.FileEventType;
 
+import com.google.common.base.Objects;
+
 /**
  * Merger for {@link FileEventType}.
  */
@@ -29,13 +31,16 @@ public class FileEventTypeMerger extends AbstractMerger<FileEventType> {
   protected FileEventType doMerge(FileEventType t1, FileEventType t2) {
     FileEventType result = new FileEventType();
     result.setFilePath(t1.getFilePath());
+    result.setBranch(t1.getBranch());
     result.setDuration(t1.getDuration() + t2.getDuration());
     return result;
   }
 
   @Override
   public boolean doIsMergeable(FileEventType t1, FileEventType t2) {
-    return (t1.getFilePath() != null) && (t1.getFilePath().equals(t2.getFilePath()));
+    return (t1.getFilePath() != null)
+        && (t1.getFilePath().equals(t2.getFilePath()))
+        && Objects.equal(t1.getBranch(), t2.getBranch());
   }
 
 }
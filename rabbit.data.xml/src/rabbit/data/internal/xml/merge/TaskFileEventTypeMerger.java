@@ -18,6 +18,8 @@ package rabbit.data.internal.xml.merge;
 import rabbit.data.internal.xml.schema.events.TaskFileEventType;
 import rabbit.data.internal.xml.schema.events.TaskIdType;
 
+import com.google.common.base.Objects;
+
 import javax.xml.datatype.XMLGregorianCalendar;
 
 /**
@@ -49,7 +51,10 @@ public class TaskFileEventTypeMerger extends AbstractMerger<TaskFileEventType> {
             // Check the file IDs:
             && (t1.getFilePath() != null)
             && (t2.getFilePath() != null)
-            && (t1.getFilePath().equals(t2.getFilePath()));
+            && (t1.getFilePath().equals(t2.getFilePath()))
+            
+            // Check the branches, which may be null:
+            && Objects.equal(t1.getBranch(), t2.getBranch());
     }
     return result;
   }
@@ -63,6 +68,7 @@ public class TaskFileEventTypeMerger extends AbstractMerger<TaskFileEventType> {
     TaskFileEventType result = new TaskFileEventType();
     result.setDuration(t1.getDuration() + t2.getDuration());
     result.setFilePath(t1.getFilePath());
+    result.setBranch(t1.getBranch());
     result.setTaskId(id);
 
     return result;
@@ -8,9 +8,12 @@
 
 package rabbit.data.internal.xml.schema.events;
 
+import java.util.ArrayList;
+import java.util.List;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlList;
 import javax.xml.bind.annotation.XmlType;
 
 
@@ -24,6 +27,8 @@ import javax.xml.bind.annotation.XmlType;
  *   &lt;complexContent>
  *     &lt;extension base="{}countEventType">
  *       &lt;attribute name="commandId" use="required" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="duration" type="{}durationType" />
+ *       &lt;attribute name="latencies" type="{}countListType" />
  *     &lt;/extension>
  *   &lt;/complexContent>
  * &lt;/complexType>
@@ -39,6 +44,11 @@ public class CommandEventType
 
     @XmlAttribute(required = true)
     protected String commandId;
+    @XmlAttribute
+    protected Long duration;
+    @XmlList
+    @XmlAttribute
+    protected List<Integer> latencies;
 
     /**
      * Gets the value of the commandId property.
@@ -64,4 +74,57 @@ public class CommandEventType
         this.commandId = value;
     }
 
+    /**
+     * Gets the value of the duration property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Long }
+     *     
+     */
+    public Long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Sets the value of the duration property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Long }
+     *     
+     */
+    public void setDuration(Long value) {
+        this.duration = value;
+    }
+
+    /**
+     * Gets the value of the latencies property.
+     * 
+     * <p>
+     * This accessor method returns a reference to the live list,
+     * not a snapshot. Therefore any modification you make to the
+     * returned list will be present inside the JAXB object.
+     * This is why there is not a <CODE>set</CODE> method for the latencies property.
+     * 
+     * <p>
+     * For example, to add a new item, do as follows:
+     * <pre>
+     *    getLatencies().add(newItem);
+     * </pre>
+     * 
+     * 
+     * <p>
+     * Objects of the following type(s) are allowed in the list
+     * {@link Integer }
+     * 
+     * 
+     */
+    public List<Integer> getLatencies() {
+        if (latencies == null) {
+            latencies = new ArrayList<Integer>();
+        }
+        return this.latencies;
+    }
+
 }
@@ -26,6 +26,7 @@ import javax.xml.bind.annotation.XmlType;
  *   &lt;complexContent>
  *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
  *       &lt;sequence>
+ *         &lt;element name="strings" type="{}stringTableType" minOccurs="0"/>
  *         &lt;element name="commandEvents" type="{}commandEventListType" maxOccurs="unbounded"/>
  *         &lt;element name="partEvents" type="{}partEventListType" maxOccurs="unbounded"/>
  *         &lt;element name="fileEvents" type="{}fileEventListType" maxOccurs="unbounded"/>
@@ -44,6 +45,7 @@ import javax.xml.bind.annotation.XmlType;
  */
 @XmlAccessorType(XmlAccessType.FIELD)
 @XmlType(name = "eventListType", propOrder = {
+    "strings",
     "commandEvents",
     "partEvents",
     "fileEvents",
@@ -55,6 +57,7 @@ import javax.xml.bind.annotation.XmlType;
 })
 public class EventListType {
 
+    protected StringTableType strings;
     @XmlElement(required = true)
     protected List<CommandEventListType> commandEvents;
     @XmlElement(required = true)
@@ -72,6 +75,30 @@ public class EventListType {
     @XmlElement(required = true)
     protected List<JavaEventListType> javaEvents;
 
+    /**
+     * Gets the value of the strings property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link StringTableType }
+     *     
+     */
+    public StringTableType getStrings() {
+        return strings;
+    }
+
+    /**
+     * Sets the value of the strings property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link StringTableType }
+     *     
+     */
+    public void setStrings(StringTableType value) {
+        this.strings = value;
+    }
+
     /**
      * Gets the value of the commandEvents property.
      * 
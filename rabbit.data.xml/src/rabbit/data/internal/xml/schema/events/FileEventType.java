@@ -23,7 +23,9 @@ import javax.xml.bind.annotation.XmlType;
  * &lt;complexType name="fileEventType">
  *   &lt;complexContent>
  *     &lt;extension base="{}durationEventType">
- *       &lt;attribute name="filePath" use="required" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="filePath" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="filePathRef" type="{http://www.w3.org/2001/XMLSchema}int" />
+ *       &lt;attribute name="branch" type="{http://www.w3.org/2001/XMLSchema}string" />
  *     &lt;/extension>
  *   &lt;/complexContent>
  * &lt;/complexType>
@@ -37,8 +39,12 @@ public class FileEventType
     extends DurationEventType
 {
 
-    @XmlAttribute(required = true)
+    @XmlAttribute
     protected String filePath;
+    @XmlAttribute
+    protected Integer filePathRef;
+    @XmlAttribute
+    protected String branch;
 
     /**
      * Gets the value of the filePath property.
@@ -64,4 +70,52 @@ public class FileEventType
         this.filePath = value;
     }
 
+    /**
+     * Gets the value of the filePathRef property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getFilePathRef() {
+        return filePathRef;
+    }
+
+    /**
+     * Sets the value of the filePathRef property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setFilePathRef(Integer value) {
+        this.filePathRef = value;
+    }
+
+    /**
+     * Gets the value of the branch property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getBranch() {
+        return branch;
+    }
+
+    /**
+     * Sets the value of the branch property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setBranch(String value) {
+        this.branch = value;
+    }
+
 }
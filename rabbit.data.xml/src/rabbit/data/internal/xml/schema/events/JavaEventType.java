@@ -23,7 +23,8 @@ import javax.xml.bind.annotation.XmlType;
  * &lt;complexType name="javaEventType">
  *   &lt;complexContent>
  *     &lt;extension base="{}durationEventType">
- *       &lt;attribute name="handleIdentifier" use="required" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="handleIdentifier" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="handleIdentifierRef" type="{http://www.w3.org/2001/XMLSchema}int" />
  *     &lt;/extension>
  *   &lt;/complexContent>
  * &lt;/complexType>
@@ -37,8 +38,10 @@ public class JavaEventType
     extends DurationEventType
 {
 
-    @XmlAttribute(required = true)
+    @XmlAttribute
     protected String handleIdentifier;
+    @XmlAttribute
+    protected Integer handleIdentifierRef;
 
     /**
      * Gets the value of the handleIdentifier property.
@@ -64,4 +67,28 @@ public class JavaEventType
         this.handleIdentifier = value;
     }
 
+    /**
+     * Gets the value of the handleIdentifierRef property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getHandleIdentifierRef() {
+        return handleIdentifierRef;
+    }
+
+    /**
+     * Sets the value of the handleIdentifierRef property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setHandleIdentifierRef(Integer value) {
+        this.handleIdentifierRef = value;
+    }
+
 }
@@ -208,6 +208,14 @@ public class ObjectFactory {
         return new FileEventType();
     }
 
+    /**
+     * Create an instance of {@link StringTableType }
+     * 
+     */
+    public StringTableType createStringTableType() {
+        return new StringTableType();
+    }
+
     /**
      * Create an instance of {@link JAXBElement }{@code <}{@link EventListType }{@code >}}
      * 
@@ -27,7 +27,9 @@ import javax.xml.bind.annotation.XmlType;
  *       &lt;sequence>
  *         &lt;element name="taskId" type="{}taskIdType"/>
  *       &lt;/sequence>
- *       &lt;attribute name="filePath" use="required" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="filePath" type="{http://www.w3.org/2001/XMLSchema}string" />
+ *       &lt;attribute name="filePathRef" type="{http://www.w3.org/2001/XMLSchema}int" />
+ *       &lt;attribute name="branch" type="{http://www.w3.org/2001/XMLSchema}string" />
  *     &lt;/extension>
  *   &lt;/complexContent>
  * &lt;/complexType>
@@ -45,8 +47,12 @@ public class TaskFileEventType
 
     @XmlElement(required = true)
     protected TaskIdType taskId;
-    @XmlAttribute(required = true)
+    @XmlAttribute
     protected String filePath;
+    @XmlAttribute
+    protected Integer filePathRef;
+    @XmlAttribute
+    protected String branch;
 
     /**
      * Gets the value of the taskId property.
@@ -96,4 +102,52 @@ public class TaskFileEventType
         this.filePath = value;
     }
 
+    /**
+     * Gets the value of the filePathRef property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getFilePathRef() {
+        return filePathRef;
+    }
+
+    /**
+     * Sets the value of the filePathRef property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setFilePathRef(Integer value) {
+        this.filePathRef = value;
+    }
+
+    /**
+     * Gets the value of the branch property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getBranch() {
+        return branch;
+    }
+
+    /**
+     * Sets the value of the branch property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setBranch(String value) {
+        this.branch = value;
+    }
+
 }
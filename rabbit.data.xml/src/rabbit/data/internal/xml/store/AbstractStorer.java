@@ -19,7 +19,10 @@ import static rabbit.data.internal.xml.DatatypeUtil.isSameDate;
 import static rabbit.data.internal.xml.DatatypeUtil.isSameMonthInYear;
 import static rabbit.data.internal.xml.DatatypeUtil.toXmlDate;
 
+import rabbit.data.internal.diagnostics.Diagnostics;
+import rabbit.data.internal.diagnostics.LatencyHistogram;
 import rabbit.data.internal.xml.IDataStore;
+import rabbit.data.internal.xml.WriteLock;
 import rabbit.data.internal.xml.XmlPlugin;
 import rabbit.data.internal.xml.convert.IConverter;
 import rabbit.data.internal.xml.merge.IMerger;
@@ -75,6 +78,9 @@ public abstract class AbstractStorer<E extends DiscreteEvent, T, S extends Event
   /** The data store to store the data to. */
   private final IDataStore store;
 
+  /** Measures {@link #commit()}, per data store. */
+  private final LatencyHistogram commitLatency;
+
   /**
    * Constructor.
    * 
@@ -91,6 +97,8 @@ public abstract class AbstractStorer<E extends DiscreteEvent, T, S extends Event
     data = new LinkedHashSet<S>();
     currentMonth = new LocalDate();
     objectFactory = new ObjectFactory();
+    commitLatency =
+        Diagnostics.histogram("AbstractStorer.commit[" + store + "]");
   }
 
   @Override
@@ -98,36 +106,49 @@ public abstract class AbstractStorer<E extends DiscreteEvent, T, S extends Event
     if (data.isEmpty())
       return;
 
+    long start = commitLatency.start();
     File f = getDataStore().getDataFile(currentMonth);
-    EventListType events = getDataStore().read(f);
-    List<S> categories = getCategories(events);
+    // Holds the lock from reading to writing the file, so that data written
+    // by other processes in between is not lost:
+    WriteLock lock = getDataStore().lock(f);
+    try {
+      // Resolved again under the lock, another process may have compressed
+      // the file since:
+      f = getDataStore().getDataFile(currentMonth);
+      EventListType events = getDataStore().read(f);
+      List<S> categories = getCategories(events);
+
+      IMerger<T> merger = getMerger();
+      for (S mergeFrom : data) {
+
+        boolean done = false;
+        for (S mergeTo : categories) {
+          if (mergeFrom.getDate().equals(mergeTo.getDate())) {
+            if (merger != null)
+              Mergers.merge(
+                  merger, getElements(mergeTo), getElements(mergeFrom));
+            else
+              getElements(mergeTo).addAll(getElements(mergeFrom));
+
+            done = true;
+            break;
+          }
+        }
 
-    IMerger<T> merger = getMerger();
-    for (S mergeFrom : data) {
-
-      boolean done = false;
-      for (S mergeTo : categories) {
-        if (mergeFrom.getDate().equals(mergeTo.getDate())) {
-          if (merger != null)
-            Mergers.merge(merger, getElements(mergeTo), getElements(mergeFrom));
-          else
-            getElements(mergeTo).addAll(getElements(mergeFrom));
-
-          done = true;
-          break;
+        if (!done) {
+          categories.add(mergeFrom);
         }
       }
 
-      if (!done) {
-        categories.add(mergeFrom);
+      if (!getDataStore().write(events, f)) {
+        XmlPlugin.getDefault().getLog().log(new Status(
+            IStatus.ERROR, XmlPlugin.PLUGIN_ID, "Unable to save data."));
       }
+    } finally {
+      lock.release();
+      data.clear();
+      commitLatency.stop(start);
     }
-
-    if (!getDataStore().write(events, f)) {
-      XmlPlugin.getDefault().getLog().log(
-          new Status(IStatus.ERROR, XmlPlugin.PLUGIN_ID, "Unable to save data."));
-    }
-    data.clear();
   }
 
   @Override
@@ -0,0 +1,26 @@
+package rabbit.data.xml;
+
+import rabbit.data.internal.xml.PackedStoreNamesModule;
+import rabbit.data.internal.xml.access.AccessorModule;
+import rabbit.data.internal.xml.convert.ConverterModule;
+import rabbit.data.internal.xml.merge.MergerModule;
+import rabbit.data.internal.xml.store.StorerModule;
+
+import com.google.inject.AbstractModule;
+
+/**
+ * A module of this plug-in, same as {@link XmlModule}, except that the data of
+ * a workspace is kept in a single file, instead of a file per kind of events
+ * per month.
+ */
+public class PackedXmlModule extends AbstractModule {
+
+  @Override
+  protected void configure() {
+    install(new PackedStoreNamesModule());
+    install(new ConverterModule());
+    install(new MergerModule());
+    install(new StorerModule());
+    install(new AccessorModule());
+  }
+}
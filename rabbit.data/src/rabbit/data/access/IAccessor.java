@@ -15,10 +15,15 @@
  */
 package rabbit.data.access;
 
+import rabbit.data.access.model.IData;
+
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.joda.time.LocalDate;
 
 import java.util.Collection;
 
+import javax.annotation.Nullable;
+
 /**
  * Represents a data accessor to get data out of a data store.
  * 
@@ -26,6 +31,20 @@ import java.util.Collection;
  */
 public interface IAccessor<T> {
 
+  /**
+   * Converts the given events, such as the events published by the trackers on
+   * the {@link rabbit.data.store.EventBus} before they are saved, to the data
+   * of this accessor, without reading the data store. The data is of the
+   * current workspace, events that are not of the type of this accessor are
+   * ignored.
+   * 
+   * @param events The events.
+   * @return The data of the events, or an empty collection if none of the
+   *         events is of the type of this accessor.
+   * @throws NullPointerException If {@code events} is null.
+   */
+  Collection<T> convert(Collection<?> events);
+
   /**
    * Gets the data between the dates, inclusive.
    * 
@@ -35,4 +54,34 @@ public interface IAccessor<T> {
    * @throws NullPointerException If any of the arguments is null.
    */
   Collection<T> getData(LocalDate start, LocalDate end);
+
+  /**
+   * Gets the aggregated data of the given query, the elements between the
+   * dates of the query are evaluated as they are read, and are not kept.
+   * 
+   * @param query The query.
+   * @return The rows of the query, or an empty collection if no data is found.
+   * @throws NullPointerException If {@code query} is null.
+   * @see Query
+   */
+  Collection<IData> getData(Query query);
+
+  /**
+   * Passes the data between the dates, inclusive, to the given visitor as the
+   * data is being read, instead of returning all of the data at the end. The
+   * reading stops as soon as the visitor returns false, or the monitor is
+   * canceled.
+   * 
+   * @param start The start date.
+   * @param end The end date.
+   * @param visitor The visitor to pass the data to.
+   * @param monitor The monitor to report the progress to and to check for
+   *          cancellation, may be null.
+   * @return True if all the data has been visited, false if the reading has
+   *         been stopped.
+   * @throws NullPointerException If any of {@code start, end, visitor} is
+   *           null.
+   */
+  boolean visit(LocalDate start, LocalDate end, IDataVisitor<? super T> visitor,
+      @Nullable IProgressMonitor monitor);
 }
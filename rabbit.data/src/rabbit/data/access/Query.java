@@ -0,0 +1,244 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.access;
+
+import rabbit.data.access.model.IData;
+import rabbit.data.access.model.IKey;
+import rabbit.data.access.model.Keys;
+import rabbit.data.internal.access.model.Aggregator;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.joda.time.LocalDate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A query for an {@link IAccessor}, for getting aggregated data instead of
+ * every element between two dates.
+ * <p>
+ * The elements between the dates of a query are filtered by the filters of the
+ * query, then grouped by the values of the group by keys of the query, each
+ * group becomes a single row of the result, holding the values of the group by
+ * keys and the sums of the values of the sum keys of the elements in the
+ * group. Supported sum keys are {@link Keys#DURATION} and {@link Keys#COUNT}.
+ * </p>
+ * <p>
+ * For example, the following query gets the total duration of each day:
+ * 
+ * <pre>
+ * Query query = new Query.Builder(start, end)
+ *     .groupBy(Keys.DATE)
+ *     .sum(Keys.DURATION)
+ *     .build();
+ * </pre>
+ * 
+ * </p>
+ */
+public final class Query {
+
+  /**
+   * Builds a {@link Query}.
+   */
+  public static final class Builder {
+
+    private final LocalDate start;
+    private final LocalDate end;
+    private final List<IKey<?>> groupBy = Lists.newArrayList();
+    private final Map<IKey<?>, Predicate<Object>> filters =
+        Maps.newLinkedHashMap();
+    private final Set<IKey<?>> sums = Sets.newLinkedHashSet();
+
+    /**
+     * Constructs a new builder.
+     * 
+     * @param start The start date of the query.
+     * @param end The end date of the query, inclusive.
+     * @throws NullPointerException If any of the arguments is null.
+     */
+    public Builder(LocalDate start, LocalDate end) {
+      this.start = checkNotNull(start, "start");
+      this.end = checkNotNull(end, "end");
+    }
+
+    /**
+     * Builds the query.
+     * 
+     * @return A new query.
+     */
+    public Query build() {
+      return new Query(this);
+    }
+
+    /**
+     * Only accepts the elements whose value of the given key is accepted by
+     * the given predicate. If a predicate has already been given for the key,
+     * both predicates must accept the value.
+     * 
+     * @param key The key.
+     * @param predicate The predicate, the value it's given may be null.
+     * @return This builder.
+     * @throws NullPointerException If any of the arguments is null.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Builder filter(IKey<T> key, Predicate<? super T> predicate) {
+      checkNotNull(key, "key");
+      checkNotNull(predicate, "predicate");
+      Predicate<Object> p = (Predicate<Object>) predicate;
+      Predicate<Object> old = filters.get(key);
+      filters.put(key, (old == null) ? p : and(old, p));
+      return this;
+    }
+
+    /**
+     * Adds keys to group the elements by, in order.
+     * 
+     * @param keys The keys.
+     * @return This builder.
+     * @throws NullPointerException If any of the keys is null.
+     * @throws IllegalArgumentException If a key has already been added, to
+     *           group by or to sum.
+     */
+    public Builder groupBy(IKey<?>... keys) {
+      for (IKey<?> key : keys) {
+        checkNotNull(key, "key");
+        checkArgument(!groupBy.contains(key) && !sums.contains(key),
+            "Duplicate key");
+        groupBy.add(key);
+      }
+      return this;
+    }
+
+    /**
+     * Sums the values of the given key of the elements of each group.
+     * 
+     * @param key The key, {@link Keys#DURATION} or {@link Keys#COUNT}.
+     * @return This builder.
+     * @throws NullPointerException If {@code key} is null.
+     * @throws IllegalArgumentException If {@code key} cannot be summed, or has
+     *           already been added to group by.
+     */
+    public Builder sum(IKey<?> key) {
+      checkNotNull(key, "key");
+      checkArgument(key == Keys.DURATION || key == Keys.COUNT,
+          "Key cannot be summed");
+      checkArgument(!groupBy.contains(key), "Duplicate key");
+      sums.add(key);
+      return this;
+    }
+
+    private static Predicate<Object> and(
+        final Predicate<Object> a, final Predicate<Object> b) {
+      return new Predicate<Object>() {
+        @Override
+        public boolean apply(Object input) {
+          return a.apply(input) && b.apply(input);
+        }
+      };
+    }
+  }
+
+  private final LocalDate start;
+  private final LocalDate end;
+  private final List<IKey<?>> groupBy;
+  private final Map<IKey<?>, Predicate<Object>> filters;
+  private final Set<IKey<?>> sums;
+
+  private Query(Builder builder) {
+    start = builder.start;
+    end = builder.end;
+    groupBy = ImmutableList.copyOf(builder.groupBy);
+    filters = ImmutableMap.copyOf(builder.filters);
+    sums = ImmutableSet.copyOf(builder.sums);
+  }
+
+  /**
+   * Checks whether the given element is accepted by the filters of this
+   * query.
+   * 
+   * @param data The element.
+   * @return True if the element is accepted, false otherwise.
+   * @throws NullPointerException If {@code data} is null.
+   */
+  public boolean accepts(IData data) {
+    checkNotNull(data, "data");
+    for (Map.Entry<IKey<?>, Predicate<Object>> entry : filters.entrySet()) {
+      if (!entry.getValue().apply(data.get(entry.getKey()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Evaluates this query over the given elements, such as the rows returned by
+   * an accessor for this query together with new elements, the rows are
+   * grouped again with the elements. The dates of this query are not checked.
+   * 
+   * @param data The elements.
+   * @return The rows of the result.
+   * @throws NullPointerException If {@code data} is null or contains null.
+   * @see IAccessor#getData(Query)
+   */
+  public List<IData> aggregate(Collection<? extends IData> data) {
+    checkNotNull(data, "data");
+    Aggregator aggregator = new Aggregator(this);
+    for (IData element : data) {
+      aggregator.add(element);
+    }
+    return aggregator.getResult();
+  }
+
+  /**
+   * @return The end date of this query, inclusive.
+   */
+  public LocalDate getEnd() {
+    return end;
+  }
+
+  /**
+   * @return An immutable list of the keys to group by, in order.
+   */
+  public List<IKey<?>> getGroupBy() {
+    return groupBy;
+  }
+
+  /**
+   * @return The start date of this query.
+   */
+  public LocalDate getStart() {
+    return start;
+  }
+
+  /**
+   * @return An immutable set of the keys to sum.
+   */
+  public Set<IKey<?>> getSums() {
+    return sums;
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.access.model;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A version control branch that data was recorded on.
+ */
+public final class Branch {
+
+  /**
+   * The branch of data that was not recorded in a repository, or was recorded
+   * before branches were recorded.
+   */
+  public static final Branch NONE = new Branch("");
+
+  private final String name;
+
+  /**
+   * Constructor.
+   * @param name The name of the branch, an empty name means no branch.
+   * @throws NullPointerException If {@code name} is null.
+   */
+  public Branch(String name) {
+    this.name = checkNotNull(name, "name");
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return (obj instanceof Branch) && ((Branch) obj).getName().equals(name);
+  }
+
+  /**
+   * @return The name of the branch, empty if this is {@link #NONE}.
+   */
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public int hashCode() {
+    return name.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
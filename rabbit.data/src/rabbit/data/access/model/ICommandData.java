@@ -16,6 +16,7 @@
 package rabbit.data.access.model;
 
 import org.eclipse.core.commands.Command;
+import org.joda.time.Duration;
 import org.joda.time.LocalDate;
 
 /**
@@ -47,4 +48,10 @@ public interface ICommandData extends IData {
    * Key for the execution count.
    */
   static final IKey<Integer> COUNT = Keys.COUNT;
+
+  /**
+   * Key for the total execution duration, zero for data recorded before
+   * durations were recorded.
+   */
+  static final IKey<Duration> DURATION = Keys.DURATION;
 }
@@ -48,4 +48,9 @@ public interface IFileData extends IData {
    * Key for the file.
    */
   static final IKey<IFile> FILE = Keys.FILE;
+
+  /**
+   * Key for the branch the time was spent on, {@link Branch#NONE} if unknown.
+   */
+  static final IKey<Branch> BRANCH = Keys.BRANCH;
 }
@@ -55,4 +55,9 @@ public interface ITaskData extends IData {
    * Key for the task ID.
    */
   static final IKey<TaskId> TASK_ID = Keys.TASK_ID;
+
+  /**
+   * Key for the branch the time was spent on, {@link Branch#NONE} if unknown.
+   */
+  static final IKey<Branch> BRANCH = Keys.BRANCH;
 }
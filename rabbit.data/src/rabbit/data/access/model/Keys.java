@@ -30,6 +30,11 @@ import java.util.Set;
  */
 public class Keys {
 
+  /**
+   * Key for a version control branch.
+   */
+  public static final IKey<Branch> BRANCH = Key.create();
+  
   /**
    * Key for a command.
    */
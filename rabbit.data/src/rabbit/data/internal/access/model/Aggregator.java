@@ -0,0 +1,144 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.access.model;
+
+import rabbit.data.access.Query;
+import rabbit.data.access.model.IData;
+import rabbit.data.access.model.IKey;
+import rabbit.data.access.model.Keys;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.joda.time.Duration;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * Evaluates a {@link Query} over elements as they are added, only the rows of
+ * the result are kept, not the elements.
+ */
+public final class Aggregator {
+
+  /**
+   * A row of the result of a query.
+   */
+  private static final class Row implements IData {
+    private final Map<IKey<? extends Object>, Object> data;
+
+    Row(Map<IKey<? extends Object>, Object> data) {
+      this.data = data;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T get(@Nullable IKey<T> key) {
+      return (T) data.get(key);
+    }
+  }
+
+  private final Query query;
+  private final IKey<?>[] groupBy;
+  private final IKey<?>[] sums;
+
+  /**
+   * The group by values of each group to the sums of the group, in order of
+   * appearance.
+   */
+  private final Map<List<Object>, long[]> groups;
+
+  /**
+   * Constructor.
+   * 
+   * @param query The query to evaluate.
+   * @throws NullPointerException If {@code query} is null.
+   */
+  public Aggregator(Query query) {
+    this.query = checkNotNull(query, "query");
+    this.groupBy = query.getGroupBy().toArray(new IKey<?>[0]);
+    this.sums = query.getSums().toArray(new IKey<?>[0]);
+    this.groups = Maps.newLinkedHashMap();
+  }
+
+  /**
+   * Adds an element to the result, if it's accepted by the query. The date of
+   * the element is not checked against the dates of the query.
+   * 
+   * @param data The element.
+   * @throws NullPointerException If {@code data} is null.
+   */
+  public void add(IData data) {
+    if (!query.accepts(data)) {
+      return;
+    }
+    Object[] values = new Object[groupBy.length];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = data.get(groupBy[i]);
+    }
+    List<Object> group = Arrays.asList(values);
+    long[] total = groups.get(group);
+    if (total == null) {
+      total = new long[sums.length];
+      groups.put(group, total);
+    }
+    for (int i = 0; i < sums.length; i++) {
+      Object value = data.get(sums[i]);
+      if (value instanceof Duration) {
+        total[i] += ((Duration) value).getMillis();
+      } else if (value instanceof Number) {
+        total[i] += ((Number) value).longValue();
+      }
+    }
+  }
+
+  /**
+   * Gets the rows of the elements added so far, in order of appearance of the
+   * groups. A row has a value for each group by key of the query, unless the
+   * value of the group is null, and a value for each sum key.
+   * 
+   * @return A new list of rows.
+   */
+  public List<IData> getResult() {
+    List<IData> rows = Lists.newArrayListWithCapacity(groups.size());
+    for (Map.Entry<List<Object>, long[]> entry : groups.entrySet()) {
+      ImmutableMap.Builder<IKey<? extends Object>, Object> row =
+          ImmutableMap.builder();
+      List<Object> values = entry.getKey();
+      for (int i = 0; i < groupBy.length; i++) {
+        if (values.get(i) != null) {
+          row.put(groupBy[i], values.get(i));
+        }
+      }
+      long[] total = entry.getValue();
+      for (int i = 0; i < sums.length; i++) {
+        if (sums[i] == Keys.DURATION) {
+          row.put(sums[i], new Duration(total[i]));
+        } else {
+          row.put(sums[i], (int) total[i]);
+        }
+      }
+      rows.add(new Row(row.build()));
+    }
+    return rows;
+  }
+}
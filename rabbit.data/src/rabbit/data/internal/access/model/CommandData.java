@@ -23,6 +23,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import org.eclipse.core.commands.Command;
+import org.joda.time.Duration;
 import org.joda.time.LocalDate;
 
 import java.util.Map;
@@ -52,6 +53,24 @@ public class CommandData implements ICommandData {
                      WorkspaceStorage workspace, 
                      Command command, 
                      int count) {
+    this(date, workspace, command, count, Duration.ZERO);
+  }
+
+  /**
+   * Constructor.
+   * @param date The date of the session.
+   * @param workspace The workspace of the session.
+   * @param command The command.
+   * @param count The execution count.
+   * @param duration The total execution duration.
+   * @throws NullPointerException If any of the arguments are null;
+   * @throws IllegalArgumentException If {@code count < 1}.
+   */
+  public CommandData(LocalDate date, 
+                     WorkspaceStorage workspace, 
+                     Command command, 
+                     int count,
+                     Duration duration) {
     
     checkArgument(count >= 1, "count < 1");
     
@@ -60,6 +79,7 @@ public class CommandData implements ICommandData {
         .put(WORKSPACE, checkNotNull(workspace, "workspace"))
         .put(COMMAND,   checkNotNull(command,   "commandId"))
         .put(COUNT,     count)
+        .put(DURATION,  checkNotNull(duration,  "duration"))
         .build();
   }
 
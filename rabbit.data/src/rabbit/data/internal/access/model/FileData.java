@@ -15,6 +15,7 @@
  */
 package rabbit.data.internal.access.model;
 
+import rabbit.data.access.model.Branch;
 import rabbit.data.access.model.IFileData;
 import rabbit.data.access.model.IKey;
 import rabbit.data.access.model.WorkspaceStorage;
@@ -49,12 +50,27 @@ public class FileData implements IFileData {
    */
   public FileData(
       LocalDate date, WorkspaceStorage workspace, Duration duration, IFile file) {
+    this(date, workspace, duration, file, Branch.NONE);
+  }
+  
+  /**
+   * Constructor.
+   * @param date The date of the session.
+   * @param workspace The workspace of the session.
+   * @param duration The duration of the session.
+   * @param file The workspace file.
+   * @param branch The branch of the session.
+   * @throws NullPointerException If any of the arguments are null;
+   */
+  public FileData(LocalDate date, WorkspaceStorage workspace,
+      Duration duration, IFile file, Branch branch) {
     
     data = new KeyMapBuilder()
         .put(DATE,      checkNotNull(date, "date"))
         .put(WORKSPACE, checkNotNull(workspace, "workspace"))
         .put(DURATION,  checkNotNull(duration, "duration"))
         .put(FILE,      checkNotNull(file, "file"))
+        .put(BRANCH,    checkNotNull(branch, "branch"))
         .build();
   }
 
@@ -15,6 +15,7 @@
  */
 package rabbit.data.internal.access.model;
 
+import rabbit.data.access.model.Branch;
 import rabbit.data.access.model.IKey;
 import rabbit.data.access.model.ITaskData;
 import rabbit.data.access.model.WorkspaceStorage;
@@ -55,6 +56,26 @@ public class TaskData implements ITaskData {
       Duration duration, 
       IFile file,
       TaskId taskId) {
+    this(date, workspace, duration, file, taskId, Branch.NONE);
+  }
+  
+  /**
+   * Constructor.
+   * @param date The date of the session.
+   * @param workspace The workspace of the session.
+   * @param duration The duration of the session.
+   * @param file The workspace file.
+   * @param taskId The task ID.
+   * @param branch The branch of the session.
+   * @throws NullPointerException If any of the arguments are null;
+   */
+  public TaskData(
+      LocalDate date, 
+      WorkspaceStorage workspace,
+      Duration duration, 
+      IFile file,
+      TaskId taskId,
+      Branch branch) {
     
     data = new KeyMapBuilder()
         .put(DATE,      checkNotNull(date, "date"))
@@ -62,6 +83,7 @@ public class TaskData implements ITaskData {
         .put(DURATION,  checkNotNull(duration, "duration"))
         .put(FILE,      checkNotNull(file, "file"))
         .put(TASK_ID,   checkNotNull(taskId, "taskId"))
+        .put(BRANCH,    checkNotNull(branch, "branch"))
         .build();
   }
 
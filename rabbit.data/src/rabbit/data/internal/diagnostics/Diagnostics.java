@@ -0,0 +1,170 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.diagnostics;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.MapMaker;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registry of the instruments measuring Rabbit itself.
+ * <p>
+ * Instruments are created on first use and live as long as the plug-in. Names
+ * are of the form {@code Type.operation} or {@code Type.operation[qualifier]},
+ * the same name always returns the same instrument, so classes usually look up
+ * their instruments once and keep them in fields. Counters are plain
+ * {@link AtomicLong}s, they are either incremented, or set to a current value
+ * such as the size of a buffer.
+ * </p>
+ * <p>
+ * The instruments can be read through {@link #getCounters()} and
+ * {@link #getHistograms()}, or through JMX once
+ * {@link #registerMBean()} has been called.
+ * </p>
+ */
+public final class Diagnostics {
+
+  /**
+   * The name of the MBean registered by {@link #registerMBean()}.
+   */
+  public static final String MBEAN_NAME = "rabbit:type=Diagnostics";
+
+  private static final ConcurrentMap<String, AtomicLong> counters =
+      new MapMaker().makeComputingMap(new Function<String, AtomicLong>() {
+        @Override
+        public AtomicLong apply(String name) {
+          return new AtomicLong();
+        }
+      });
+
+  private static final ConcurrentMap<String, LatencyHistogram> histograms =
+      new MapMaker().makeComputingMap(
+          new Function<String, LatencyHistogram>() {
+            @Override
+            public LatencyHistogram apply(String name) {
+              return new LatencyHistogram(name);
+            }
+          });
+
+  /**
+   * Gets the counter of the given name, creating it if necessary.
+   * @param name the name of the counter.
+   * @return the counter.
+   * @throws NullPointerException if {@code name} is null.
+   */
+  public static AtomicLong counter(String name) {
+    return counters.get(checkNotNull(name, "name"));
+  }
+
+  /**
+   * @return a sorted snapshot of the values of the counters.
+   */
+  public static Map<String, Long> getCounters() {
+    ImmutableSortedMap.Builder<String, Long> builder =
+        ImmutableSortedMap.naturalOrder();
+    for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+      builder.put(entry.getKey(), entry.getValue().get());
+    }
+    return builder.build();
+  }
+
+  /**
+   * @return the histograms, sorted by name.
+   */
+  public static Map<String, LatencyHistogram> getHistograms() {
+    return ImmutableSortedMap.copyOf(histograms);
+  }
+
+  /**
+   * Gets the histogram of the given name, creating it if necessary.
+   * @param name the name of the histogram.
+   * @return the histogram.
+   * @throws NullPointerException if {@code name} is null.
+   */
+  public static LatencyHistogram histogram(String name) {
+    return histograms.get(checkNotNull(name, "name"));
+  }
+
+  /**
+   * Gets the name to use for instruments of the given class, that is the
+   * simple name of the class, or the name without the package for anonymous
+   * classes.
+   * @param clazz the class.
+   * @return the name.
+   * @throws NullPointerException if {@code clazz} is null.
+   */
+  public static String nameOf(Class<?> clazz) {
+    String name = clazz.getSimpleName();
+    if (name.length() == 0) {
+      name = clazz.getName();
+      name = name.substring(name.lastIndexOf('.') + 1);
+    }
+    return name;
+  }
+
+  /**
+   * Registers the instruments as an MBean named {@link #MBEAN_NAME} with the
+   * platform MBean server. Has no effects if already registered.
+   * @throws JMException if the MBean cannot be registered.
+   */
+  public static synchronized void registerMBean() throws JMException {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(MBEAN_NAME);
+    if (!server.isRegistered(name)) {
+      server.registerMBean(new DiagnosticsBean(), name);
+    }
+  }
+
+  /**
+   * Resets the counters and the histograms to zero. Counters holding current
+   * values will be set again by their owners as things change.
+   */
+  public static void reset() {
+    for (AtomicLong counter : counters.values()) {
+      counter.set(0);
+    }
+    for (LatencyHistogram histogram : histograms.values()) {
+      histogram.reset();
+    }
+  }
+
+  /**
+   * Unregisters the MBean registered by {@link #registerMBean()}. Has no
+   * effects if not registered.
+   * @throws JMException if the MBean cannot be unregistered.
+   */
+  public static synchronized void unregisterMBean() throws JMException {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(MBEAN_NAME);
+    if (server.isRegistered(name)) {
+      server.unregisterMBean(name);
+    }
+  }
+
+  private Diagnostics() {
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.diagnostics;
+
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * The MBean registered by {@link Diagnostics#registerMBean()}.
+ * <p>
+ * The maps returned are sorted by their natural ordering without an explicit
+ * comparator, as JMX can't convert sorted maps with comparators to open data.
+ * </p>
+ */
+final class DiagnosticsBean implements DiagnosticsMXBean {
+
+  DiagnosticsBean() {
+  }
+
+  @Override
+  public long[] bucketCounts(String name) {
+    LatencyHistogram histogram = Diagnostics.getHistograms().get(name);
+    return (histogram == null) ? new long[0] : histogram.getBucketCounts();
+  }
+
+  @Override
+  public Map<String, Long> getCounters() {
+    SortedMap<String, Long> result = Maps.newTreeMap();
+    result.putAll(Diagnostics.getCounters());
+    return result;
+  }
+
+  @Override
+  public Map<String, Long> getLatencyCounts() {
+    SortedMap<String, Long> result = Maps.newTreeMap();
+    for (LatencyHistogram histogram : Diagnostics.getHistograms().values()) {
+      result.put(histogram.getName(), histogram.getCount());
+    }
+    return result;
+  }
+
+  @Override
+  public Map<String, Double> getLatencyMaxMillis() {
+    SortedMap<String, Double> result = Maps.newTreeMap();
+    for (LatencyHistogram histogram : Diagnostics.getHistograms().values()) {
+      result.put(histogram.getName(), histogram.getMaxNanos() / 1000000.0);
+    }
+    return result;
+  }
+
+  @Override
+  public Map<String, Double> getLatencyMeanMillis() {
+    SortedMap<String, Double> result = Maps.newTreeMap();
+    for (LatencyHistogram histogram : Diagnostics.getHistograms().values()) {
+      result.put(histogram.getName(), histogram.getMeanNanos() / 1000000.0);
+    }
+    return result;
+  }
+
+  @Override
+  public Map<String, String> getLatencySummaries() {
+    SortedMap<String, String> result = Maps.newTreeMap();
+    for (LatencyHistogram histogram : Diagnostics.getHistograms().values()) {
+      result.put(histogram.getName(), histogram.toString());
+    }
+    return result;
+  }
+
+  @Override
+  public void reset() {
+    Diagnostics.reset();
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.diagnostics;
+
+import java.util.Map;
+
+/**
+ * Management interface of the instruments of {@link Diagnostics}.
+ */
+public interface DiagnosticsMXBean {
+
+  /**
+   * @return the values of the counters, by name.
+   */
+  Map<String, Long> getCounters();
+
+  /**
+   * @return the number of calls of each histogram, by name.
+   */
+  Map<String, Long> getLatencyCounts();
+
+  /**
+   * @return the mean time in milliseconds of each histogram, by name.
+   */
+  Map<String, Double> getLatencyMeanMillis();
+
+  /**
+   * @return the maximum time in milliseconds of each histogram, by name.
+   */
+  Map<String, Double> getLatencyMaxMillis();
+
+  /**
+   * @return a one line summary of each histogram, by name.
+   */
+  Map<String, String> getLatencySummaries();
+
+  /**
+   * Gets the bucket counts of a histogram.
+   * @param name the name of the histogram.
+   * @return the bucket counts, or an empty array if there is no such
+   *         histogram.
+   * @see LatencyHistogram#getBucketCounts()
+   */
+  long[] bucketCounts(String name);
+
+  /**
+   * Resets the counters and the histograms to zero.
+   */
+  void reset();
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.internal.diagnostics;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts the calls to an operation, and the distribution of the time spent in
+ * them.
+ * <p>
+ * The measured times are counted in buckets of powers of two microseconds,
+ * bucket {@code 0} holds the calls that took less than a microsecond, and
+ * bucket {@code i} holds the calls that took at least 2<sup>i-1</sup> and less
+ * than 2<sup>i</sup> microseconds. Percentiles are therefore approximate, they
+ * are the upper bounds of the buckets they fall in.
+ * </p>
+ * <p>
+ * Usage:
+ * 
+ * <pre>
+ * long start = histogram.start();
+ * try {
+ *   // Work to be measured.
+ * } finally {
+ *   histogram.stop(start);
+ * }
+ * </pre>
+ * 
+ * This class is thread safe, recording is lock free.
+ * </p>
+ */
+public final class LatencyHistogram {
+
+  /**
+   * The number of buckets, the last bucket holds all calls that took more than
+   * about 18 minutes.
+   */
+  public static final int BUCKETS = 32;
+
+  private final String name;
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong total = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Constructor.
+   * @param name the name of the measured operation.
+   */
+  LatencyHistogram(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Gets the upper bound of a bucket.
+   * @param bucket the index of the bucket.
+   * @return the upper bound in nanoseconds, exclusive.
+   * @throws IllegalArgumentException if the index is not within
+   *         {@code [0, BUCKETS)}.
+   */
+  public static long getUpperBoundNanos(int bucket) {
+    checkArgument(bucket >= 0 && bucket < BUCKETS);
+    if (bucket == BUCKETS - 1) {
+      return Long.MAX_VALUE;
+    }
+    return TimeUnit.MICROSECONDS.toNanos(1L << bucket);
+  }
+
+  /**
+   * @return the number of calls recorded in each bucket.
+   */
+  public long[] getBucketCounts() {
+    long[] result = new long[BUCKETS];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = buckets.get(i);
+    }
+    return result;
+  }
+
+  /**
+   * @return the number of recorded calls.
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * @return the longest recorded time in nanoseconds.
+   */
+  public long getMaxNanos() {
+    return max.get();
+  }
+
+  /**
+   * @return the mean of the recorded times in nanoseconds, or 0 if nothing
+   *         has been recorded.
+   */
+  public double getMeanNanos() {
+    long n = count.get();
+    return (n == 0) ? 0 : total.get() / (double) n;
+  }
+
+  /**
+   * @return the name of the measured operation.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Gets an approximation of a percentile of the recorded times.
+   * @param percent the percentile, within {@code (0, 100]}.
+   * @return the upper bound in nanoseconds of the bucket containing the
+   *         percentile, but never more than {@link #getMaxNanos()}. Returns 0
+   *         if nothing has been recorded.
+   * @throws IllegalArgumentException if {@code percent} is not within
+   *         {@code (0, 100]}.
+   */
+  public long getPercentileNanos(double percent) {
+    checkArgument(percent > 0 && percent <= 100);
+    long[] counts = getBucketCounts();
+    long n = 0;
+    for (long c : counts) {
+      n += c;
+    }
+    long rank = (long) Math.ceil(n * percent / 100);
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank && counts[i] > 0) {
+        return Math.min(getUpperBoundNanos(i), getMaxNanos());
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * @return the sum of the recorded times in nanoseconds.
+   */
+  public long getTotalNanos() {
+    return total.get();
+  }
+
+  /**
+   * Records the time of a call.
+   * @param nanos the time in nanoseconds, negative values are recorded as 0.
+   */
+  public void record(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+    buckets.incrementAndGet(bucketOf(nanos));
+    count.incrementAndGet();
+    total.addAndGet(nanos);
+    for (long m = max.get(); nanos > m && !max.compareAndSet(m, nanos);) {
+      m = max.get();
+    }
+  }
+
+  /**
+   * Resets the measurements to zero.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets.set(i, 0);
+    }
+    count.set(0);
+    total.set(0);
+    max.set(0);
+  }
+
+  /**
+   * Starts a measurement.
+   * @return the start time to be passed to {@link #stop(long)}.
+   */
+  public long start() {
+    return System.nanoTime();
+  }
+
+  /**
+   * Stops a measurement, recording the time since the given start time.
+   * @param start the value returned by {@link #start()}.
+   */
+  public void stop(long start) {
+    record(System.nanoTime() - start);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%d calls, mean %.3f ms, 90%% < %.3f ms, 99%% < %.3f ms, max %.3f ms",
+        getCount(), getMeanNanos() / 1000000, toMillis(getPercentileNanos(90)),
+        toMillis(getPercentileNanos(99)), toMillis(getMaxNanos()));
+  }
+
+  private static int bucketOf(long nanos) {
+    long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+    return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / 1000000.0;
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.store;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * An in-process bus for the events recorded by the trackers, so that clients
+ * can see the events as they happen, before they are saved.
+ * <p>
+ * The events are passed to the listeners on the thread publishing them. An
+ * exception thrown by a listener is logged and does not prevent the event
+ * from being passed to the other listeners.
+ * </p>
+ */
+public final class EventBus {
+
+  private static final EventBus instance = new EventBus();
+
+  /**
+   * Gets the shared bus.
+   * 
+   * @return The shared bus.
+   */
+  public static EventBus getDefault() {
+    return instance;
+  }
+
+  private final List<IEventListener> listeners;
+
+  /**
+   * Constructs a new bus, use {@link #getDefault()} to get the shared bus.
+   */
+  EventBus() {
+    listeners = new CopyOnWriteArrayList<IEventListener>();
+  }
+
+  /**
+   * Adds a listener to this bus. Has no effects if the listener has already
+   * been added.
+   * 
+   * @param listener The listener.
+   * @throws NullPointerException If {@code listener} is null.
+   */
+  public void addListener(IEventListener listener) {
+    checkNotNull(listener, "listener");
+    if (!listeners.contains(listener)) {
+      listeners.add(listener);
+    }
+  }
+
+  /**
+   * Checks whether this bus has any listeners. Publishers may use this to
+   * avoid creating events that no one is listening to.
+   * 
+   * @return True if there are listeners, false otherwise.
+   */
+  public boolean hasListeners() {
+    return !listeners.isEmpty();
+  }
+
+  /**
+   * Publishes an event to the listeners of this bus.
+   * 
+   * @param event The event.
+   * @throws NullPointerException If {@code event} is null.
+   */
+  public void publish(Object event) {
+    checkNotNull(event, "event");
+    for (IEventListener listener : listeners) {
+      try {
+        listener.eventPublished(event);
+      } catch (RuntimeException e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
+  /**
+   * Removes a listener from this bus.
+   * 
+   * @param listener The listener.
+   */
+  public void removeListener(IEventListener listener) {
+    listeners.remove(listener);
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.data.store;
+
+/**
+ * Listens to the events published on an {@link EventBus}.
+ */
+public interface IEventListener {
+
+  /**
+   * Called when an event has been published. This method is called on the
+   * thread publishing the event, which is often the display thread, so
+   * implementations should return quickly and handle the event later.
+   * 
+   * @param event The event, such as a newly closed
+   *        {@link rabbit.data.store.model.ContinuousEvent}.
+   */
+  void eventPublished(Object event);
+}
@@ -15,36 +15,131 @@
  */
 package rabbit.data.store.model;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import org.eclipse.core.commands.ExecutionEvent;
 import org.joda.time.DateTime;
 
 /**
- * A command execution event.
+ * Contains the executions of a command, the number of executions, their total
+ * duration, and a histogram of their durations.
+ * <p>
+ * The histogram has {@link #LATENCY_BUCKETS} buckets, see
+ * {@link #getLatencyBucket(long)}.
+ * </p>
  */
 public class CommandEvent extends DiscreteEvent {
 
-  private final ExecutionEvent event;
+  /**
+   * The number of buckets of the latency histogram.
+   */
+  public static final int LATENCY_BUCKETS = 20;
+
+  /**
+   * Gets the latency histogram bucket for the given duration. Bucket 0 holds
+   * durations of less than a millisecond, bucket {@code n} holds durations of
+   * at least {@code 2^(n-1)} and less than {@code 2^n} milliseconds, the last
+   * bucket holds all the longer durations.
+   * 
+   * @param durationMillis The duration in milliseconds.
+   * @return The bucket, between 0 inclusive and {@link #LATENCY_BUCKETS}
+   *         exclusive.
+   * @throws IllegalArgumentException If {@code durationMillis < 0}.
+   */
+  public static int getLatencyBucket(long durationMillis) {
+    checkArgument(durationMillis >= 0, "durationMillis < 0");
+    int bucket = 64 - Long.numberOfLeadingZeros(durationMillis);
+    return Math.min(bucket, LATENCY_BUCKETS - 1);
+  }
+
+  private final String commandId;
+  private final int count;
+  private final long duration;
+  private final int[] latencies;
 
   /**
-   * Constructs a new event.
+   * Constructs a new event for a single execution.
    * 
-   * @param time The time of the event.
-   * @param event The execution event.
+   * @param time The time of the execution.
+   * @param commandId The ID of the command.
+   * @param durationMillis The duration of the execution in milliseconds.
    * @throws NullPointerException If any of the arguments is null.
+   * @throws IllegalArgumentException If {@code durationMillis < 0}.
    */
-  public CommandEvent(DateTime time, ExecutionEvent event) {
+  public CommandEvent(DateTime time, String commandId, long durationMillis) {
+    this(time, commandId, 1, durationMillis,
+        histogramOf(getLatencyBucket(durationMillis)));
+  }
+
+  /**
+   * Constructs a new event for a number of executions.
+   * 
+   * @param time The time of the last execution.
+   * @param commandId The ID of the command.
+   * @param count The number of executions.
+   * @param durationMillis The total duration of the executions in
+   *        milliseconds.
+   * @param latencies The latency histogram, with {@link #LATENCY_BUCKETS}
+   *        elements, the array is copied.
+   * @throws NullPointerException If any of the arguments is null.
+   * @throws IllegalArgumentException If {@code count < 1}, or
+   *         {@code durationMillis < 0}, or {@code latencies} does not have
+   *         {@link #LATENCY_BUCKETS} elements.
+   */
+  public CommandEvent(DateTime time, String commandId, int count,
+      long durationMillis, int[] latencies) {
     super(time);
-    this.event = checkNotNull(event);
+    checkArgument(count >= 1, "count < 1");
+    checkArgument(durationMillis >= 0, "durationMillis < 0");
+    checkNotNull(latencies, "latencies");
+    checkArgument(latencies.length == LATENCY_BUCKETS,
+        "latencies.length != LATENCY_BUCKETS");
+    this.commandId = checkNotNull(commandId, "commandId");
+    this.count = count;
+    this.duration = durationMillis;
+    this.latencies = latencies.clone();
   }
 
   /**
-   * Gets the execution event.
+   * Gets the ID of the command.
    * 
-   * @return The execution event.
+   * @return The command ID.
    */
-  public final ExecutionEvent getExecutionEvent() {
-    return event;
+  public final String getCommandId() {
+    return commandId;
+  }
+
+  /**
+   * Gets the number of executions.
+   * 
+   * @return The execution count.
+   */
+  public final int getCount() {
+    return count;
+  }
+
+  /**
+   * Gets the total duration of the executions.
+   * 
+   * @return The duration in milliseconds.
+   */
+  public final long getDuration() {
+    return duration;
+  }
+
+  /**
+   * Gets the latency histogram of the executions.
+   * 
+   * @return A copy of the histogram.
+   * @see #getLatencyBucket(long)
+   */
+  public final int[] getLatencies() {
+    return latencies.clone();
+  }
+
+  private static int[] histogramOf(int bucket) {
+    int[] histogram = new int[LATENCY_BUCKETS];
+    histogram[bucket] = 1;
+    return histogram;
   }
 }
@@ -24,12 +24,15 @@ import org.joda.time.Interval;
 
 import java.net.URI;
 
+import javax.annotation.Nullable;
+
 /**
  * Represents a file event.
  */
 public class FileEvent extends ContinuousEvent {
 
   private final IPath filePath;
+  @Nullable private final String branch;
 
   /**
    * Constructs a new event.
@@ -43,8 +46,32 @@ public class FileEvent extends ContinuousEvent {
    * @see URI#getPath()
    */
   public FileEvent(Interval interval, IPath filePath) {
+    this(interval, filePath, null);
+  }
+
+  /**
+   * Constructs a new event.
+   * 
+   * @param interval The interval of this event.
+   * @param filePath The path of the file.
+   * @param branch The version control branch the file was on, or null if
+   *        unknown.
+   * @throws NullPointerException If time is null or file path is null.
+   */
+  public FileEvent(Interval interval, IPath filePath, @Nullable String branch) {
     super(interval);
     this.filePath = checkNotNull(filePath);
+    this.branch = branch;
+  }
+
+  /**
+   * Gets the version control branch.
+   * 
+   * @return The branch, or null if unknown.
+   */
+  @Nullable
+  public final String getBranch() {
+    return branch;
   }
 
   /**
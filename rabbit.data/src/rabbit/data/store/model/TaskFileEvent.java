@@ -21,6 +21,8 @@ import org.eclipse.core.runtime.IPath;
 import org.eclipse.mylyn.tasks.core.ITask;
 import org.joda.time.Interval;
 
+import javax.annotation.Nullable;
+
 /**
  * Represents a task event.
  */
@@ -37,7 +39,23 @@ public class TaskFileEvent extends FileEvent {
    * @throws NullPointerException If any of the arguments are null.
    */
   public TaskFileEvent(Interval interval, IPath filePath, ITask task) {
-    super(interval, filePath);
+    this(interval, filePath, task, null);
+  }
+
+  /**
+   * Constructs a new event.
+   * 
+   * @param interval The time interval.
+   * @param filePath The path of the file.
+   * @param task The task that was working on.
+   * @param branch The version control branch the file was on, or null if
+   *        unknown.
+   * @throws NullPointerException If any of the arguments except
+   *         {@code branch} are null.
+   */
+  public TaskFileEvent(Interval interval, IPath filePath, ITask task,
+      @Nullable String branch) {
+    super(interval, filePath, branch);
     this.task = checkNotNull(task);
   }
 
@@ -239,6 +239,10 @@ public class JavaTrackerTest extends AbstractTrackerTest<JavaEvent> {
 
     long preEnd = System.currentTimeMillis();
     text.notifyListeners(SWT.KeyDown, new Event());
+    // The caret is checked after the event has been processed:
+    while (text.getDisplay().readAndDispatch()) {
+      // Runs the pending asynchronous runnables.
+    }
     long postEnd = System.currentTimeMillis();
 
     // One data should be in the collection (the selected package declaration):
@@ -251,6 +255,27 @@ public class JavaTrackerTest extends AbstractTrackerTest<JavaEvent> {
     checkTime(preStart, start, postStart, preEnd, end, postEnd);
   }
 
+  /**
+   * Test that typing inside the element being tracked does not end the
+   * current session.
+   */
+  @Test
+  public void testTypingInsideElement() throws Exception {
+    JavaEditor editor = closeAndOpenEditor();
+    IDocument document = getDocument(editor);
+    int offset = document.get().indexOf(unit.getTypes()[0].getElementName());
+    editor.getSelectionProvider().setSelection(new TextSelection(offset, 0));
+    tracker.setEnabled(true);
+
+    StyledText text = editor.getViewer().getTextWidget();
+    text.notifyListeners(SWT.KeyDown, new Event());
+    while (text.getDisplay().readAndDispatch()) {
+      // Runs the pending asynchronous runnables.
+    }
+
+    assertEquals(0, tracker.getData().size());
+  }
+
   /**
    * When the tracker is set to enable, but if there is no active workbench
    * window, no data will be collected.
@@ -817,6 +842,48 @@ public class JavaTrackerTest extends AbstractTrackerTest<JavaEvent> {
     assertEquals(IJavaElement.METHOD, event.getElement().getElementType());
   }
 
+  /**
+   * Test many events on the same anonymous type. All the events should be
+   * filtered to the type's first non-anonymous parent, and kept separately.
+   */
+  @Test
+  public void testFilter_existingElement_typeAnonymousManyEvents()
+      throws Exception {
+    JavaEditor editor = closeAndOpenEditor();
+    IDocument document = getDocument(editor);
+    StringBuilder anonymous = new StringBuilder();
+    anonymous.append("void aMethod() {");
+    anonymous.append("  new Runnable() { ");
+    anonymous.append("    public void run(){");
+    anonymous.append("    } ");
+    anonymous.append("  };");
+    anonymous.append("}");
+
+    int offset = document.get().indexOf("{") + 1;
+    document.replace(offset, 0, anonymous.toString());
+
+    offset = document.get().indexOf("Runnable");
+    int len = "Runnable".length();
+    editor.getSelectionProvider().setSelection(new TextSelection(offset, len));
+
+    IJavaElement element = getElementAtOffset(editor);
+    // Check that we got the selection right:
+    assertEquals(IJavaElement.TYPE, element.getElementType());
+
+    tracker.flushData();
+    int count = 100;
+    for (int i = 0; i < count; ++i) {
+      tracker.addData(new JavaEvent(new Interval(i * 10, i * 10 + 5), element));
+    }
+    tracker.saveData();
+
+    assertEquals(count, tracker.getData().size());
+    for (JavaEvent event : tracker.getData()) {
+      assertEquals("aMethod", event.getElement().getElementName());
+      assertEquals(IJavaElement.METHOD, event.getElement().getElementType());
+    }
+  }
+
   /**
    * Test an event on an inner class. This event should be not filtered on save.
    */
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.tracking.internal.trackers;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.Maps;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.JavaModelException;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.annotation.Nullable;
+
+/**
+ * Converts Java elements to the elements that time is saved under, see
+ * {@link JavaTracker}.
+ * <p>
+ * The results for existing elements are cached, so that an element, or an
+ * anonymous type and the members of it, are only walked once. Elements can be
+ * handed to {@link #prefetch(IJavaElement)} as they are recorded, they will
+ * then be resolved by a background job, and will most likely be in the cache
+ * by the time the data is saved. The cache holds the most recently used
+ * {@link #MAX_CACHE_SIZE} elements.
+ * </p>
+ */
+final class JavaElementNormalizer {
+
+  /**
+   * The maximum number of elements to cache the results for.
+   */
+  static final int MAX_CACHE_SIZE = 10000;
+
+  /**
+   * Existing elements to the elements they are converted to. Bounded, as an
+   * element is often converted to itself, which keeps the key reachable.
+   */
+  private final Map<IJavaElement, IJavaElement> cache;
+
+  /**
+   * Elements waiting to be resolved by {@link #job}.
+   */
+  private final Queue<IJavaElement> pending;
+
+  private final Job job = new Job("Resolving Java elements") {
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      IJavaElement element;
+      while ((element = pending.poll()) != null) {
+        if (monitor.isCanceled()) {
+          pending.clear();
+          return Status.CANCEL_STATUS;
+        }
+        if (!cache.containsKey(element)) {
+          normalize(element);
+        }
+      }
+      return Status.OK_STATUS;
+    }
+  };
+
+  JavaElementNormalizer() {
+    cache = Collections.synchronizedMap(
+        new LinkedHashMap<IJavaElement, IJavaElement>(16, 0.75f, true) {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected boolean removeEldestEntry(
+              Map.Entry<IJavaElement, IJavaElement> eldest) {
+            return size() > MAX_CACHE_SIZE;
+          }
+        });
+    pending = new ConcurrentLinkedQueue<IJavaElement>();
+    job.setSystem(true);
+    job.setPriority(Job.DECORATE);
+  }
+
+  /**
+   * Cancels the background job and clears the cache.
+   */
+  void clear() {
+    job.cancel();
+    pending.clear();
+    cache.clear();
+  }
+
+  /**
+   * Converts the given element. Elements that do not exist are converted to
+   * their first existing parent, up to the {@link ITypeRoot} containing them.
+   * Existing elements are converted to one of the following:
+   * <ul>
+   * <li>A type that is not anonymous.</li>
+   * <li>A method that is not enclosed in an anonymous type.</li>
+   * <li>An initializer.</li>
+   * <li>A compilation unit.</li>
+   * <li>A class file.</li>
+   * </ul>
+   * or to the element itself if none is found.
+   * 
+   * @param element the element.
+   * @return the converted element.
+   * @throws NullPointerException if {@code element} is null.
+   */
+  IJavaElement normalize(IJavaElement element) {
+    checkNotNull(element, "element");
+    // ITypeRoot represents the file, xxx.java. Everything above that is not
+    // modifiable in a JavaEditor, so no need to check them:
+    if (!element.exists()) {
+      IJavaElement e = element;
+      for (; !e.exists() && !(e instanceof ITypeRoot); e = e.getParent());
+      return e;
+    }
+
+    IJavaElement actual = null;
+    try {
+      actual = resolve(element);
+    } catch (JavaModelException e) {
+      e.printStackTrace();
+    }
+    return (actual == null) ? element : actual;
+  }
+
+  /**
+   * Converts each of the given elements once, duplicates are only resolved
+   * once.
+   * 
+   * @param elements the elements.
+   * @return a map of the distinct elements to their converted elements.
+   * @throws NullPointerException if {@code elements} is null or contains null.
+   * @see #normalize(IJavaElement)
+   */
+  Map<IJavaElement, IJavaElement> normalizeAll(
+      Collection<? extends IJavaElement> elements) {
+    Map<IJavaElement, IJavaElement> result = Maps.newHashMap();
+    for (IJavaElement element : elements) {
+      if (!result.containsKey(element)) {
+        result.put(element, normalize(element));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Schedules the given element to be resolved in the background, if it's not
+   * already cached.
+   * 
+   * @param element the element.
+   * @throws NullPointerException if {@code element} is null.
+   */
+  void prefetch(IJavaElement element) {
+    checkNotNull(element, "element");
+    if (!cache.containsKey(element)) {
+      pending.add(element);
+      job.schedule();
+    }
+  }
+
+  /**
+   * Resolves an existing element, using the cache if possible.
+   * 
+   * @see #normalize(IJavaElement)
+   */
+  @Nullable
+  private IJavaElement resolve(@Nullable IJavaElement element)
+      throws JavaModelException {
+
+    if (element == null) {
+      return null;
+    }
+    IJavaElement actual = cache.get(element);
+    if (actual == null) {
+      actual = filterElement(element);
+      if (actual != null) {
+        cache.put(element, actual);
+      }
+    }
+    return actual;
+  }
+
+  @Nullable
+  private IJavaElement filterElement(IJavaElement element)
+      throws JavaModelException {
+
+    switch (element.getElementType()) {
+      case IJavaElement.TYPE:
+        if (((IType) element).isAnonymous()) {
+          return resolve(element.getParent());
+        }
+        return element;
+
+      case IJavaElement.METHOD:
+        if (((IType) element.getParent()).isAnonymous()) {
+          return resolve(element.getParent());
+        }
+        return element;
+
+      case IJavaElement.INITIALIZER:
+      case IJavaElement.COMPILATION_UNIT:
+      case IJavaElement.CLASS_FILE:
+        return element;
+
+      default:
+        return resolve(element.getParent());
+    }
+  }
+}
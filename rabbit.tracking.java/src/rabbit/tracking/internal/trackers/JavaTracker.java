@@ -19,20 +19,25 @@ import rabbit.data.handler.DataHandler;
 import rabbit.data.store.IStorer;
 import rabbit.data.store.model.JavaEvent;
 import rabbit.tracking.internal.IdleDetector;
+import rabbit.tracking.internal.Journal;
 import rabbit.tracking.internal.TrackingPlugin;
+import rabbit.tracking.internal.WorkbenchState;
 import rabbit.tracking.internal.util.Recorder;
-import rabbit.tracking.internal.util.WorkbenchUtil;
 
 import com.google.common.collect.Sets;
 
 import org.eclipse.jdt.core.IJavaElement;
-import org.eclipse.jdt.core.IType;
-import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.ISourceRange;
+import org.eclipse.jdt.core.ISourceReference;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.internal.ui.actions.SelectionConverter;
 import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
+import org.eclipse.jface.text.ITextViewerExtension5;
+import org.eclipse.jface.text.source.ISourceViewer;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Listener;
 import org.eclipse.ui.IEditorPart;
@@ -46,17 +51,21 @@ import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PlatformUI;
 import org.joda.time.Interval;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.Set;
 
-import javax.annotation.Nullable;
-
 /**
- * Tracks time spent on Java elements such as classes, methods.
+ * Tracks time spent on Java elements such as classes, methods. In sampling
+ * mode, the element at the caret of the active Java editor is sampled.
  */
 @SuppressWarnings("restriction")
-public class JavaTracker extends AbstractTracker<JavaEvent> {
+public class JavaTracker extends AbstractSampledTracker<JavaEvent> {
 
   /*
    * Note that a lot of elements may be tracked by this tracker, and many of
@@ -82,6 +91,12 @@ public class JavaTracker extends AbstractTracker<JavaEvent> {
    * shhhh!)
    */
 
+  /**
+   * The time in milliseconds without input in an editor, before the element at
+   * the caret is resolved again.
+   */
+  private static final int QUIET_PERIOD_MILLIS = 500;
+
   /**
    * A set of all text widgets that are currently being listened to. This set is
    * not synchronised.
@@ -93,6 +108,11 @@ public class JavaTracker extends AbstractTracker<JavaEvent> {
    */
   private final Recorder<IJavaElement> recorder = new Recorder<IJavaElement>();
 
+  /**
+   * Converts the recorded elements to the elements to be saved.
+   */
+  private final JavaElementNormalizer normalizer = new JavaElementNormalizer();
+
   /**
    * A part listener listening for Java editor events.
    */
@@ -172,10 +192,7 @@ public class JavaTracker extends AbstractTracker<JavaEvent> {
 
       if (o == TrackingPlugin.getDefault().getIdleDetector()) {
         if (((IdleDetector) o).isUserActive()) {
-          IWorkbenchWindow win = WorkbenchUtil.getActiveWindow();
-          if (win != null && WorkbenchUtil.isActiveShell(win)) {
-            checkStart(win.getPartService().getActivePart());
-          }
+          checkStart();
         } else {
           recorder.stop();
         }
@@ -185,14 +202,71 @@ public class JavaTracker extends AbstractTracker<JavaEvent> {
         IJavaElement element = recorder.getLastRecord().getUserData();
         if (element != null) {
           addData(new JavaEvent(new Interval(start, end), element));
+          normalizer.prefetch(element);
         }
       }
     }
   };
 
+  /**
+   * The editor of the element being recorded, only accessed in the display
+   * thread.
+   */
+  private JavaEditor currentEditor;
+
+  /**
+   * The source range of the element being recorded, or null if unknown, only
+   * accessed in the display thread.
+   */
+  private ISourceRange currentRange;
+
+  /**
+   * Resolves the element at the caret, scheduled to run when there has been no
+   * input for {@link #QUIET_PERIOD_MILLIS}.
+   */
+  private final Runnable resolveLater = new Runnable() {
+    @Override
+    public void run() {
+      if (isEnabled()) {
+        long start = getOverheadMeter().start();
+        try {
+          checkStart();
+        } finally {
+          getOverheadMeter().stop(start);
+        }
+      }
+    }
+  };
+
+  /**
+   * Resolves the element at the caret right away if the caret has moved out of
+   * the source range of the current element, run after an input event has been
+   * processed by the editor.
+   */
+  private final Runnable checkCaret = new Runnable() {
+    @Override
+    public void run() {
+      if (!isEnabled()) {
+        return;
+      }
+      long start = getOverheadMeter().start();
+      try {
+        if (!isCaretInCurrentRange()) {
+          Display.getCurrent().timerExec(-1, resolveLater);
+          checkStart();
+        }
+      } finally {
+        getOverheadMeter().stop(start);
+      }
+    }
+  };
+
   /**
    * Listener to listen to keyboard input and mouse input on text widgets of
-   * editors.
+   * editors. Input events are coalesced, the element at the caret is only
+   * resolved when the caret leaves the source range of the current element, or
+   * after a quiet period, so that typing inside an element does not cost a Java
+   * model lookup for every keystroke.
    */
   private final Listener listener = new Listener() {
 
@@ -202,7 +276,15 @@ public class JavaTracker extends AbstractTracker<JavaEvent> {
 
     @Override
     public void handleEvent(Event event) {
-      checkStart();
+      long start = getOverheadMeter().start();
+      try {
+        // Reschedules the runnable if already scheduled:
+        event.display.timerExec(QUIET_PERIOD_MILLIS, resolveLater);
+        // The caret has not been moved yet when a key is down:
+        event.display.asyncExec(checkCaret);
+      } finally {
+        getOverheadMeter().stop(start);
+      }
     }
   };
 
@@ -215,6 +297,30 @@ public class JavaTracker extends AbstractTracker<JavaEvent> {
     recorder.addObserver(observer);
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The element is only resolved again if the active editor has changed, or
+   * if the caret has left the source range of the element being recorded.
+   * </p>
+   */
+  @Override
+  public void sample() {
+    if (!isEnabled() || !isSampling()) {
+      return;
+    }
+    WorkbenchState state = TrackingPlugin.getDefault().getWorkbenchState();
+    IWorkbenchPart part = null;
+    if (state.isActiveShell(state.getActiveWindow())) {
+      part = state.getActivePart();
+    }
+    if (!(part instanceof JavaEditor)) {
+      recorder.stop();
+    } else if (part != currentEditor || !isCaretInCurrentRange()) {
+      checkStart(part);
+    }
+  }
+
   @Override
   public void saveData() {
     filterData();
@@ -226,6 +332,24 @@ public class JavaTracker extends AbstractTracker<JavaEvent> {
     return DataHandler.getStorer(JavaEvent.class);
   }
 
+  @Override
+  protected Journal.Codec<JavaEvent> createJournalCodec() {
+    return new Journal.Codec<JavaEvent>() {
+      @Override
+      public JavaEvent read(DataInput in) throws IOException {
+        Interval interval = Journal.readInterval(in);
+        IJavaElement element = JavaCore.create(in.readUTF());
+        return (element == null) ? null : new JavaEvent(interval, element);
+      }
+
+      @Override
+      public void write(JavaEvent event, DataOutput out) throws IOException {
+        Journal.writeInterval(event.getInterval(), out);
+        out.writeUTF(event.getElement().getHandleIdentifier());
+      }
+    };
+  }
+
   @Override
   protected void doDisable() {
     recorder.stop();
@@ -236,14 +360,17 @@ public class JavaTracker extends AbstractTracker<JavaEvent> {
     for (IWorkbenchWindow window : workbench.getWorkbenchWindows()) {
       deregister(window);
     }
+    normalizer.clear();
   }
 
   @Override
   protected void doEnable() {
-    IWorkbench workbench = PlatformUI.getWorkbench();
-    workbench.addWindowListener(winListener);
-    for (IWorkbenchWindow window : workbench.getWorkbenchWindows()) {
-      register(window);
+    if (!isSampling()) {
+      IWorkbench workbench = PlatformUI.getWorkbench();
+      workbench.addWindowListener(winListener);
+      for (IWorkbenchWindow window : workbench.getWorkbenchWindows()) {
+        register(window);
+      }
     }
     TrackingPlugin.getDefault().getIdleDetector().addObserver(observer);
 
@@ -258,9 +385,9 @@ public class JavaTracker extends AbstractTracker<JavaEvent> {
    * starts a new session.
    */
   private void checkStart() {
-    IWorkbenchWindow win = WorkbenchUtil.getActiveWindow();
-    if (WorkbenchUtil.isActiveShell(win)) {
-      checkStart(win.getPartService().getActivePart());
+    WorkbenchState state = TrackingPlugin.getDefault().getWorkbenchState();
+    if (state.isActiveShell(state.getActiveWindow())) {
+      checkStart(state.getActivePart());
     }
   }
 
@@ -281,10 +408,15 @@ public class JavaTracker extends AbstractTracker<JavaEvent> {
       @Override
       public void run() {
         IJavaElement element = null;
+        currentEditor = (JavaEditor) activePart;
+        currentRange = null;
         try {
           element = SelectionConverter.getElementAtOffset((JavaEditor) activePart);
           if (element != null) {
             recorder.start(element);
+            if (element instanceof ISourceReference) {
+              currentRange = ((ISourceReference) element).getSourceRange();
+            }
           }
         } catch (JavaModelException e) {
           // Nothing we can do.
@@ -295,6 +427,36 @@ public class JavaTracker extends AbstractTracker<JavaEvent> {
     });
   }
 
+  /**
+   * Checks whether the caret of the current editor is still inside the source
+   * range of the element being recorded. Must be called in the display thread.
+   * 
+   * @return True if the caret is inside the range, false if the caret is
+   *         outside, or if the range, the editor or the element is unknown.
+   */
+  private boolean isCaretInCurrentRange() {
+    JavaEditor editor = currentEditor;
+    ISourceRange range = currentRange;
+    if (editor == null || range == null || !recorder.isRecording()) {
+      return false;
+    }
+    ISourceViewer viewer = editor.getViewer();
+    if (viewer == null) {
+      return false;
+    }
+    StyledText widget = viewer.getTextWidget();
+    if (widget == null || widget.isDisposed() || !widget.isFocusControl()) {
+      return false;
+    }
+
+    int offset = widget.getCaretOffset();
+    if (viewer instanceof ITextViewerExtension5) {
+      offset = ((ITextViewerExtension5) viewer).widgetOffset2ModelOffset(offset);
+    }
+    return offset >= range.getOffset()
+        && offset <= range.getOffset() + range.getLength();
+  }
+
   /**
    * Removes the workbench window so that it's no longer being tracked.
    * 
@@ -317,7 +479,7 @@ public class JavaTracker extends AbstractTracker<JavaEvent> {
    * 
    * @param editor The editor.
    */
-  private synchronized void deregister(JavaEditor editor) {
+  private synchronized void deregister(final JavaEditor editor) {
     final StyledText widget = editor.getViewer().getTextWidget();
     if (registeredWidgets.contains(widget)) {
       PlatformUI.getWorkbench().getDisplay().syncExec(new Runnable() {
@@ -325,6 +487,10 @@ public class JavaTracker extends AbstractTracker<JavaEvent> {
         public void run() {
           widget.removeListener(SWT.KeyDown, listener);
           widget.removeListener(SWT.MouseDown, listener);
+          if (currentEditor == editor) {
+            currentEditor = null;
+            currentRange = null;
+          }
         }
       });
       registeredWidgets.remove(widget);
@@ -346,86 +512,31 @@ public class JavaTracker extends AbstractTracker<JavaEvent> {
    * of the elements, if all parents are missing (e.g. deletes the file), we
    * save it under the file parent, like "File.java".
    * </p>
+   * <p>
+   * Each distinct element is only converted once, most of them will have been
+   * resolved in the background by the time this method is called, see
+   * {@link JavaElementNormalizer}.
+   * </p>
    */
   private void filterData() {
-    Set<JavaEvent> filteredData = Sets.newLinkedHashSet();
-    for (JavaEvent event : getData()) {
-      IJavaElement e = event.getElement();
-      // ITypeRoot represents the file, xxx.java. Everything above that is not
-      // modifiable in a JavaEditor, so no need to check them:
-      if (!e.exists()) {
-        for (; !e.exists() && !(e instanceof ITypeRoot); e = e.getParent());
-        filteredData.add(new JavaEvent(event.getInterval(), e));
+    Collection<JavaEvent> data = getData();
+    Set<IJavaElement> elements = Sets.newHashSet();
+    for (JavaEvent event : data) {
+      elements.add(event.getElement());
+    }
+    Map<IJavaElement, IJavaElement> actuals = normalizer.normalizeAll(elements);
 
+    Set<JavaEvent> filteredData = Sets.newLinkedHashSet();
+    for (JavaEvent event : data) {
+      IJavaElement actual = actuals.get(event.getElement());
+      if (actual.equals(event.getElement())) {
+        filteredData.add(event);
       } else {
-        IJavaElement actual = null;
-        try {
-          actual = filterElement(e);
-        } catch (JavaModelException ex) {
-          actual = null;
-          ex.printStackTrace();
-        }
-
-        if (actual == null) {
-          filteredData.add(event);
-        } else {
-          filteredData.add(new JavaEvent(event.getInterval(), actual));
-        }
+        filteredData.add(new JavaEvent(event.getInterval(), actual));
       }
     }
     // Replace the old data with the filtered:
-    flushData();
-    for (JavaEvent event : filteredData) {
-      addData(event);
-    }
-  }
-
-  /**
-   * Gets the actual element that we want before saving. One of the following
-   * types is returned:
-   * 
-   * <ul>
-   * <li>A type that is not anonymous.</li>
-   * <li>A method that is not enclosed in an anonymous type.</li>
-   * <li>An initializer.</li>
-   * <li>A compilation unit.</li>
-   * <li>A class file.</li>
-   * <li>Null</li>
-   * </ul>
-   * 
-   * @param element The element to filter.
-   * @return A filtered element, or null if not found.
-   * @throws JavaModelException If this element does not exist or if an
-   *           exception occurs while accessing its corresponding resource.
-   */
-  private IJavaElement filterElement(@Nullable IJavaElement element)
-      throws JavaModelException {
-
-    if (element == null) {
-      return null;
-    }
-
-    switch (element.getElementType()) {
-      case IJavaElement.TYPE:
-        if (((IType) element).isAnonymous()) {
-          return filterElement(element.getParent());
-        }
-        return element;
-
-      case IJavaElement.METHOD:
-        if (((IType) element.getParent()).isAnonymous()) {
-          return filterElement(element.getParent());
-        }
-        return element;
-
-      case IJavaElement.INITIALIZER:
-      case IJavaElement.COMPILATION_UNIT:
-      case IJavaElement.CLASS_FILE:
-        return element;
-
-      default:
-        return filterElement(element.getParent());
-    }
+    replaceData(filteredData);
   }
 
   /**
@@ -18,6 +18,11 @@ package rabbit.tracking.internal.trackers;
 import rabbit.data.handler.DataHandler;
 import rabbit.data.store.IStorer;
 import rabbit.data.store.model.TaskFileEvent;
+import rabbit.tracking.internal.BranchResolver;
+import rabbit.tracking.internal.TrackingPlugin;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.IPath;
@@ -32,6 +37,10 @@ import org.eclipse.ui.IWorkbenchPart;
 import org.joda.time.Interval;
 
 import java.net.URI;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Tracks task events.
@@ -42,6 +51,16 @@ public class TaskTracker extends AbstractPartTracker<TaskFileEvent> {
     super();
   }
 
+  /**
+   * Tags the events with the version control branches of their files before
+   * saving, see {@link BranchResolver}.
+   */
+  @Override
+  public void saveData() {
+    attributeBranches();
+    super.saveData();
+  }
+
   @Override
   protected IStorer<TaskFileEvent> createDataStorer() {
     return DataHandler.getStorer(TaskFileEvent.class);
@@ -80,4 +99,41 @@ public class TaskTracker extends AbstractPartTracker<TaskFileEvent> {
     }
     return null;
   }
+
+  /**
+   * Replaces the events that have no branch with events tagged with the
+   * current branches of their files. The branches are resolved once per
+   * distinct file.
+   */
+  private void attributeBranches() {
+    Collection<TaskFileEvent> data = getData();
+    Set<IPath> paths = Sets.newHashSet();
+    for (TaskFileEvent event : data) {
+      if (event.getBranch() == null) {
+        paths.add(event.getFilePath());
+      }
+    }
+    if (paths.isEmpty()) {
+      return;
+    }
+    Map<IPath, String> branches =
+        TrackingPlugin.getDefault().getBranchResolver().resolveAll(paths);
+    if (branches.isEmpty()) {
+      return;
+    }
+
+    List<TaskFileEvent> attributed =
+        Lists.newArrayListWithCapacity(data.size());
+    for (TaskFileEvent event : data) {
+      String branch = branches.get(event.getFilePath());
+      if (event.getBranch() != null || branch == null) {
+        attributed.add(event);
+      } else {
+        attributed.add(new TaskFileEvent(
+            event.getInterval(), event.getFilePath(), event.getTask(), branch));
+      }
+    }
+    // Replace the old data with the attributed:
+    replaceData(attributed);
+  }
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.tracking.internal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * @see BranchResolver
+ */
+public class BranchResolverTest {
+
+  private File root;
+  private BranchResolver resolver;
+
+  @Before
+  public void before() throws Exception {
+    root = File.createTempFile("rabbit", "");
+    root.delete();
+    root.mkdirs();
+    resolver = new BranchResolver();
+  }
+
+  @After
+  public void after() {
+    delete(root);
+  }
+
+  @Test
+  public void resolveShouldReturnTheBranchOfTheEnclosingRepository()
+      throws Exception {
+    File repo = newRepository("repo", "ref: refs/heads/topic/a\n");
+    File file = new File(repo, "src/pkg/A.java");
+    assertThat(resolver.resolve(file), is("topic/a"));
+  }
+
+  @Test
+  public void resolveShouldReturnTheAbbreviatedCommitIdOfADetachedHead()
+      throws Exception {
+    String commit = "0123456789abcdef0123456789abcdef01234567";
+    File repo = newRepository("repo", commit + "\n");
+    assertThat(resolver.resolve(new File(repo, "a.txt")), is("0123456"));
+  }
+
+  @Test
+  public void resolveShouldFollowAGitFile() throws Exception {
+    File actual = newRepository("actual", "ref: refs/heads/worktree\n");
+    File dir = new File(root, "checkout");
+    dir.mkdirs();
+    write(new File(dir, ".git"), "gitdir: " + new File(actual, ".git") + "\n");
+    assertThat(resolver.resolve(new File(dir, "a.txt")), is("worktree"));
+  }
+
+  @Test
+  public void resolveShouldReturnNullIfFileIsNotInARepository() {
+    File dir = new File(root, "nowhere");
+    dir.mkdirs();
+    assertThat(resolver.resolve(new File(dir, "a.txt")), is(nullValue()));
+  }
+
+  @Test
+  public void resolveShouldProbeADirectoryAgainOnceItsEntryExpires()
+      throws Exception {
+    resolver = new BranchResolver(0);
+    File dir = new File(root, "repo");
+    dir.mkdirs();
+    File file = new File(dir, "a.txt");
+    assertThat(resolver.resolve(file), is(nullValue()));
+
+    newRepository("repo", "ref: refs/heads/master\n");
+    assertThat(resolver.resolve(file), is("master"));
+  }
+
+  @Test
+  public void resolveShouldCacheADirectoryNotInARepository()
+      throws Exception {
+    File dir = new File(root, "repo");
+    dir.mkdirs();
+    File file = new File(dir, "a.txt");
+    assertThat(resolver.resolve(file), is(nullValue()));
+
+    newRepository("repo", "ref: refs/heads/master\n");
+    assertThat(resolver.resolve(file), is(nullValue()));
+  }
+
+  @Test
+  public void resolveShouldReadTheHeadAgainWhenItChanges() throws Exception {
+    File repo = newRepository("repo", "ref: refs/heads/master\n");
+    File file = new File(repo, "a.txt");
+    assertThat(resolver.resolve(file), is("master"));
+
+    File head = new File(repo, ".git/HEAD");
+    long lastModified = head.lastModified();
+    write(head, "ref: refs/heads/b\n");
+    head.setLastModified(lastModified + 2000);
+    assertThat(resolver.resolve(file), is("b"));
+  }
+
+  @Test
+  public void resolveShouldUseTheInnermostRepository() throws Exception {
+    File outer = newRepository("outer", "ref: refs/heads/outer\n");
+    File inner = newRepository("outer/lib/inner", "ref: refs/heads/inner\n");
+    assertThat(resolver.resolve(new File(outer, "a.txt")), is("outer"));
+    assertThat(resolver.resolve(new File(inner, "a.txt")), is("inner"));
+  }
+
+  @Test
+  public void resolveAllShouldReturnTheBranchesOfTheFilesInRepositories()
+      throws Exception {
+    File repo = newRepository("repo", "ref: refs/heads/master\n");
+    IPath inRepo = new Path(new File(repo, "a.txt").getAbsolutePath());
+    IPath outside = new Path(new File(root, "b.txt").getAbsolutePath());
+
+    Map<IPath, String> branches = resolver.resolveAll(asList(inRepo, outside));
+    assertThat(branches.size(), is(1));
+    assertThat(branches.get(inRepo), is("master"));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void resolveShouldThrowAnExceptionIfFileIsNull() {
+    resolver.resolve(null);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void resolveAllShouldThrowAnExceptionIfPathsIsNull() {
+    resolver.resolveAll(null);
+  }
+
+  private File newRepository(String path, String head) throws IOException {
+    File dir = new File(root, path);
+    File git = new File(dir, ".git");
+    git.mkdirs();
+    write(new File(git, "HEAD"), head);
+    return dir;
+  }
+
+  private static void write(File file, String content) throws IOException {
+    FileWriter writer = new FileWriter(file);
+    try {
+      writer.write(content);
+    } finally {
+      writer.close();
+    }
+  }
+
+  private static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.tracking.internal;
+
+import static com.google.common.collect.Lists.newArrayList;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.joda.time.Interval;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @see Journal
+ */
+public class JournalTest {
+
+  /**
+   * A codec writing strings.
+   */
+  private static final Journal.Codec<String> CODEC =
+      new Journal.Codec<String>() {
+        @Override
+        public String read(DataInput in) throws IOException {
+          return in.readUTF();
+        }
+
+        @Override
+        public void write(String event, DataOutput out) throws IOException {
+          out.writeUTF(event);
+        }
+      };
+
+  private File file;
+  private Journal journal;
+
+  @Before
+  public void before() throws Exception {
+    file = File.createTempFile("rabbit", ".dat");
+    journal = new Journal(file);
+  }
+
+  @After
+  public void after() {
+    journal.close();
+    file.delete();
+  }
+
+  @Test
+  public void appendShouldHaveNoEffectsIfNotOpen() {
+    journal.append("a", "1", CODEC);
+    assertThat(journal.isOpen(), is(false));
+    assertThat(file.length(), is(0L));
+  }
+
+  @Test
+  public void commitShouldTruncateTheFileWhenAllNamesAreCommitted()
+      throws Exception {
+    journal.open();
+    journal.append("a", "1", CODEC);
+    journal.append("b", "2", CODEC);
+    journal.commit("a");
+    journal.sync();
+    assertThat(file.length() > 0, is(true));
+
+    journal.commit("b");
+    assertThat(file.length(), is(0L));
+  }
+
+  @Test
+  public void openShouldIgnoreAHalfWrittenRecordAtTheEnd() throws Exception {
+    journal.open();
+    journal.append("a", "1", CODEC);
+    journal.append("a", "2", CODEC);
+    journal.close();
+
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      raf.setLength(raf.length() - 1);
+    } finally {
+      raf.close();
+    }
+
+    Map<String, List<byte[]>> records = journal.open();
+    assertThat(records.get("a").size(), is(1));
+  }
+
+  @Test
+  public void openShouldReturnTheRecordsThatWereNotCommitted()
+      throws Exception {
+    journal.open();
+    journal.append("a", "1", CODEC);
+    journal.append("b", "2", CODEC);
+    journal.commit("a");
+    journal.append("a", "3", CODEC);
+    journal.close(); // As if crashed.
+
+    Map<String, List<byte[]>> records = journal.open();
+    assertThat(newArrayList(records.keySet()), is(asList("b", "a")));
+    assertThat(records.get("a").size(), is(1));
+    assertThat(records.get("b").size(), is(1));
+  }
+
+  @Test
+  public void openShouldTruncateTheFileIfEverythingWasCommitted()
+      throws Exception {
+    journal.open();
+    journal.append("a", "1", CODEC);
+    journal.close();
+    journal.open();
+    journal.commit("a");
+    journal.close();
+
+    assertThat(journal.open().isEmpty(), is(true));
+    assertThat(file.length(), is(0L));
+  }
+
+  @Test
+  public void shouldBeAbleToReadTheWrittenInterval() throws Exception {
+    final Interval interval = new Interval(10, 25);
+    journal.open();
+    journal.append("a", interval, new Journal.Codec<Interval>() {
+      @Override
+      public Interval read(DataInput in) throws IOException {
+        return Journal.readInterval(in);
+      }
+
+      @Override
+      public void write(Interval event, DataOutput out) throws IOException {
+        Journal.writeInterval(event, out);
+      }
+    });
+    journal.close();
+
+    byte[] record = journal.open().get("a").get(0);
+    DataInput in = new DataInputStream(new ByteArrayInputStream(record));
+    assertThat(Journal.readInterval(in), is(interval));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void constructorShouldThrowAnExceptionIfFileIsNull() {
+    new Journal(null);
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.tracking.internal;
+
+import rabbit.data.internal.diagnostics.Diagnostics;
+import rabbit.data.internal.diagnostics.LatencyHistogram;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * @see OverheadMeter
+ */
+public class OverheadMeterTest {
+
+  @Test
+  public void resetShouldSetTheMeasurementsToZero() {
+    OverheadMeter meter = new OverheadMeter();
+    meter.stop(meter.start());
+    long before = System.currentTimeMillis();
+
+    meter.reset();
+
+    assertThat(meter.getCalls(), is(0L));
+    assertThat(meter.getTotalNanos(), is(0L));
+    assertThat(meter.getSinceMillis() >= before, is(true));
+  }
+
+  @Test
+  public void stopShouldAddTheMeasuredTimeToTheParentAndHistogram() {
+    OverheadMeter parent = new OverheadMeter();
+    LatencyHistogram histogram =
+        Diagnostics.histogram("OverheadMeterTest.child");
+    histogram.reset();
+    OverheadMeter meter = new OverheadMeter(parent, histogram);
+
+    meter.stop(meter.start());
+
+    assertThat(parent.getCalls(), is(1L));
+    assertThat(parent.getTotalNanos(), is(meter.getTotalNanos()));
+    assertThat(histogram.getCount(), is(1L));
+    assertThat(histogram.getTotalNanos(), is(meter.getTotalNanos()));
+  }
+
+  @Test
+  public void stopShouldAddTheMeasuredTime() throws Exception {
+    OverheadMeter meter = new OverheadMeter();
+    long start = meter.start();
+    Thread.sleep(5);
+    meter.stop(start);
+    meter.stop(meter.start());
+
+    assertThat(meter.getCalls(), is(2L));
+    assertThat(meter.getTotalNanos() >= 5000000L, is(true));
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.tracking.internal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+
+import static java.util.Arrays.asList;
+
+import org.eclipse.swt.widgets.Display;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @see Sampler
+ */
+public class SamplerTest {
+
+  private Display display;
+  private IdleDetector detector;
+  private OverheadMeter meter;
+  private Sampler sampler;
+  private ISampledTracker<?> tracker;
+
+  @After
+  public void after() {
+    sampler.setRunning(false);
+    detector.setRunning(false);
+    display.dispose();
+  }
+
+  @Before
+  public void before() {
+    display = new Display();
+    detector = new IdleDetector(display, 60000, 1000);
+    meter = new OverheadMeter();
+    sampler = new Sampler(detector, meter, 10);
+    tracker = mock(ISampledTracker.class);
+    given(tracker.isEnabled()).willReturn(true);
+    given(tracker.isSampling()).willReturn(true);
+    sampler.setTrackers(asList(tracker));
+  }
+
+  @Test
+  public void shouldMeasureTheTimeSpentSampling() {
+    sampler.setRunning(true);
+    runEventLoop(100);
+    assertThat(meter.getCalls() > 0, is(true));
+  }
+
+  @Test
+  public void shouldNotSampleATrackerInEventDrivenMode() {
+    given(tracker.isSampling()).willReturn(false);
+    sampler.setRunning(true);
+    runEventLoop(100);
+    verify(tracker, never()).sample();
+  }
+
+  @Test
+  public void shouldNotSampleWhenTheUserIsInactive() throws Exception {
+    detector = new IdleDetector(display, 10, 5);
+    sampler = new Sampler(detector, meter, 10);
+    sampler.setTrackers(asList(tracker));
+    detector.setRunning(true);
+    Thread.sleep(50);
+    assertThat(detector.isUserActive(), is(false));
+
+    sampler.setRunning(true);
+    runEventLoop(100);
+    verify(tracker, never()).sample();
+  }
+
+  @Test
+  public void shouldSampleTheTrackersAtAFixedRate() {
+    sampler.setRunning(true);
+    runEventLoop(100);
+    verify(tracker, atLeast(2)).sample();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldStopSamplingWhenStopped() {
+    sampler.setRunning(true);
+    runEventLoop(50);
+    sampler.setRunning(false);
+    runEventLoop(20);
+    reset(tracker);
+
+    runEventLoop(100);
+    verify(tracker, never()).sample();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowAnExceptionIfIntervalIsNotPositive() {
+    new Sampler(detector, meter, 0);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void shouldThrowAnExceptionIfConstructedWithoutADetector() {
+    new Sampler(null, meter, 10);
+  }
+
+  private void runEventLoop(long millis) {
+    long end = System.currentTimeMillis() + millis;
+    while (System.currentTimeMillis() < end) {
+      if (!display.readAndDispatch()) {
+        Thread.yield();
+      }
+    }
+  }
+}
@@ -32,6 +32,7 @@ import org.junit.Test;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Set;
 
@@ -102,6 +103,22 @@ public class TrackingPluginTest {
     }
   }
 
+  @Test
+  public void testGetUnsavedData() throws Exception {
+    Object event = new Object();
+    ITracker<Object> tracker = TestUtil.newTracker();
+    tracker.getData().add(event);
+
+    TrackingPlugin rc = new TrackingPlugin();
+    Field field = TrackingPlugin.class.getDeclaredField("trackers");
+    field.setAccessible(true);
+    field.set(rc, ImmutableSet.<ITracker<?>> of(tracker));
+
+    assertEquals(Arrays.asList(event), rc.getUnsavedData());
+    // The data is not saved:
+    assertFalse(tracker.getData().isEmpty());
+  }
+
   @Test
   public void testSaveCurrentData() throws Exception {
     ITracker<Object> tracker = TestUtil.newTracker();
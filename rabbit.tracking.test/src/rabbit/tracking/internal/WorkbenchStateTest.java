@@ -0,0 +1,134 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.tracking.internal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.eclipse.ui.IWorkbench;
+import org.eclipse.ui.IWorkbenchPart;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PlatformUI;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tests for a {@link WorkbenchState}.
+ */
+public class WorkbenchStateTest {
+
+  private IWorkbench workbench;
+  private WorkbenchState state;
+
+  @Before
+  public void before() {
+    workbench = PlatformUI.getWorkbench();
+    state = new WorkbenchState(workbench);
+  }
+
+  @After
+  public void after() {
+    state.setRunning(false);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void constructorShouldThrowAnExceptionIfWorkbenchIsNull() {
+    new WorkbenchState(null);
+  }
+
+  @Test
+  public void getActivePartShouldReturnTheSnapshotInAnotherThread()
+      throws Exception {
+    state.setRunning(true);
+    IWorkbenchPart expected =
+        workbench.getActiveWorkbenchWindow().getPartService().getActivePart();
+
+    IWorkbenchPart actual = callInAnotherThread(new Callable<IWorkbenchPart>() {
+      @Override
+      public IWorkbenchPart call() throws Exception {
+        return state.getActivePart();
+      }
+    });
+    assertThat(actual, is(expected));
+  }
+
+  @Test
+  public void getActiveWindowShouldReturnNullInAnotherThreadIfNotRunning()
+      throws Exception {
+    IWorkbenchWindow actual = callInAnotherThread(
+        new Callable<IWorkbenchWindow>() {
+          @Override
+          public IWorkbenchWindow call() throws Exception {
+            return state.getActiveWindow();
+          }
+        });
+    assertThat(actual, is(nullValue()));
+  }
+
+  @Test
+  public void getActiveWindowShouldReturnTheActiveWindowInTheDisplayThread() {
+    assertThat(state.getActiveWindow(),
+        is(workbench.getActiveWorkbenchWindow()));
+  }
+
+  @Test
+  public void getActiveWindowShouldReturnTheSnapshotInAnotherThread()
+      throws Exception {
+    state.setRunning(true);
+    IWorkbenchWindow actual = callInAnotherThread(
+        new Callable<IWorkbenchWindow>() {
+          @Override
+          public IWorkbenchWindow call() throws Exception {
+            return state.getActiveWindow();
+          }
+        });
+    assertThat(actual, is(workbench.getActiveWorkbenchWindow()));
+  }
+
+  @Test
+  public void isActiveShellShouldReturnFalseIfWindowIsNull() {
+    assertThat(state.isActiveShell(null), is(false));
+  }
+
+  @Test
+  public void isRunningShouldReturnFalseIfNotStarted() {
+    assertThat(state.isRunning(), is(false));
+  }
+
+  @Test
+  public void setRunningShouldChangeTheRunningState() {
+    state.setRunning(true);
+    assertThat(state.isRunning(), is(true));
+    state.setRunning(false);
+    assertThat(state.isRunning(), is(false));
+  }
+
+  private static <T> T callInAnotherThread(Callable<T> callable)
+      throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      return executor.submit(callable).get();
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
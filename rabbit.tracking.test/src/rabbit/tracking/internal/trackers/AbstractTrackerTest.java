@@ -15,12 +15,16 @@
  */
 package rabbit.tracking.internal.trackers;
 
+import rabbit.data.store.EventBus;
+import rabbit.data.store.IEventListener;
 import rabbit.tracking.internal.trackers.AbstractTracker;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -43,6 +47,19 @@ public abstract class AbstractTrackerTest<T> {
     assertEquals(1, tracker.getData().size());
   }
 
+  @Test
+  public void testAddDataPublishesTheData() {
+    IEventListener listener = mock(IEventListener.class);
+    EventBus.getDefault().addListener(listener);
+    try {
+      T event = createEvent();
+      tracker.addData(event);
+      verify(listener).eventPublished(event);
+    } finally {
+      EventBus.getDefault().removeListener(listener);
+    }
+  }
+
   @Test
   public void testFlushData() {
     tracker.addData(createEvent());
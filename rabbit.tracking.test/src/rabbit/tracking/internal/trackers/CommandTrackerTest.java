@@ -15,11 +15,15 @@
  */
 package rabbit.tracking.internal.trackers;
 
+import rabbit.data.store.EventBus;
+import rabbit.data.store.IEventListener;
 import rabbit.data.store.model.CommandEvent;
 import rabbit.tracking.internal.trackers.CommandTracker;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 import org.eclipse.core.commands.AbstractHandler;
 import org.eclipse.core.commands.Command;
@@ -34,8 +38,7 @@ import org.eclipse.ui.commands.ICommandService;
 import org.eclipse.ui.handlers.IHandlerService;
 import org.joda.time.DateTime;
 import org.junit.Test;
-
-import java.util.Collections;
+import org.mockito.ArgumentCaptor;
 
 /**
  * Test for {@link CommandTracker}
@@ -74,9 +77,81 @@ public class CommandTrackerTest extends AbstractTrackerTest<CommandEvent> {
 
     assertEquals(1, tracker.getData().size());
     CommandEvent e = tracker.getData().iterator().next();
-    assertEquals(command, e.getExecutionEvent().getCommand());
+    assertEquals(command.getId(), e.getCommandId());
+    assertEquals(1, e.getCount());
     assertTrue(start <= e.getTime().getMillis());
     assertTrue(end >= e.getTime().getMillis());
+    assertTrue(end - start >= e.getDuration());
+  }
+
+  @Test
+  public void testExecution_aggregated() throws Exception {
+    tracker.setEnabled(true);
+
+    String id = System.currentTimeMillis() + "." + System.nanoTime();
+    Command command = getCommandService().getCommand(id);
+    command.define("a", "b", getCommandService().getDefinedCategories()[0]);
+    getHandlerService().activateHandler(command.getId(), createHandler());
+    for (int i = 0; i < 3; i++) {
+      getHandlerService().executeCommand(command.getId(), null);
+    }
+
+    assertEquals(1, tracker.getData().size());
+    CommandEvent e = tracker.getData().iterator().next();
+    assertEquals(3, e.getCount());
+    int total = 0;
+    for (int count : e.getLatencies()) {
+      total += count;
+    }
+    assertEquals(3, total);
+  }
+
+  @Test
+  public void testAddData_sameCommandOnSameDay() {
+    DateTime time = new DateTime();
+    tracker.addData(new CommandEvent(time, "a", 1));
+    tracker.addData(new CommandEvent(time.plusMillis(1), "a", 2));
+    tracker.addData(new CommandEvent(time, "b", 4));
+
+    assertEquals(2, tracker.getData().size());
+    for (CommandEvent e : tracker.getData()) {
+      if (e.getCommandId().equals("a")) {
+        assertEquals(2, e.getCount());
+        assertEquals(3, e.getDuration());
+        assertEquals(time.plusMillis(1), e.getTime());
+      } else {
+        assertEquals(1, e.getCount());
+        assertEquals(4, e.getDuration());
+      }
+    }
+  }
+
+  @Test
+  public void testExecution_publishedToLiveListeners() throws Exception {
+    tracker.setEnabled(true);
+    IEventListener listener = mock(IEventListener.class);
+    EventBus.getDefault().addListener(listener);
+    try {
+      String id = System.currentTimeMillis() + "." + System.nanoTime();
+      Command command = getCommandService().getCommand(id);
+      command.define("a", "b", getCommandService().getDefinedCategories()[0]);
+      getHandlerService().activateHandler(command.getId(), createHandler());
+      getHandlerService().executeCommand(command.getId(), null);
+
+      ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+      verify(listener).eventPublished(event.capture());
+      assertEquals(id, ((CommandEvent) event.getValue()).getCommandId());
+    } finally {
+      EventBus.getDefault().removeListener(listener);
+    }
+  }
+
+  @Test
+  public void testAddData_sameCommandOnDifferentDays() {
+    DateTime time = new DateTime();
+    tracker.addData(new CommandEvent(time, "a", 1));
+    tracker.addData(new CommandEvent(time.minusDays(1), "a", 1));
+    assertEquals(2, tracker.getData().size());
   }
 
   @Test
@@ -97,7 +172,7 @@ public class CommandTrackerTest extends AbstractTrackerTest<CommandEvent> {
 
   @Override
   protected CommandEvent createEvent() {
-    return new CommandEvent(new DateTime(), createExecutionEvent("1"));
+    return new CommandEvent(new DateTime(), "1", 0);
   }
 
   @Override
@@ -105,11 +180,6 @@ public class CommandTrackerTest extends AbstractTrackerTest<CommandEvent> {
     return new CommandTracker();
   }
 
-  private ExecutionEvent createExecutionEvent(String commandId) {
-    return new ExecutionEvent(getCommandService().getCommand(commandId),
-        Collections.emptyMap(), null, null);
-  }
-
   private IHandler createHandler() {
     return new AbstractHandler() {
       @Override
@@ -21,12 +21,17 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.debug.core.DebugEvent;
 import org.eclipse.debug.core.DebugPlugin;
 import org.eclipse.debug.core.IDebugEventSetListener;
@@ -35,8 +40,12 @@ import org.eclipse.debug.core.ILaunchConfiguration;
 import org.eclipse.debug.core.ILaunchConfigurationType;
 import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
 import org.eclipse.debug.core.ILaunchManager;
+import org.eclipse.debug.core.ILaunchesListener2;
 import org.eclipse.debug.core.model.IProcess;
+import org.eclipse.debug.core.model.ISourceLocator;
+import org.eclipse.debug.core.model.IStackFrame;
 import org.eclipse.debug.core.model.ISuspendResume;
+import org.eclipse.debug.core.model.IThread;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
@@ -53,8 +62,10 @@ import org.junit.Test;
 import static java.lang.String.format;
 
 import java.io.IOException;
+import java.lang.reflect.Field;
 import java.net.URI;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -479,6 +490,97 @@ public class LaunchTrackerTest extends AbstractTrackerTest<LaunchEvent> {
     assertTrue(event.getFilePaths().contains(unit2.getResource().getFullPath()));
   }
 
+  @Test
+  public void testEventsAfterTermination_areIgnored() throws Exception {
+    ILaunch launch = mockLaunch();
+    IProcess process = mockProcess(launch);
+    IThread thread = mockThread(launch);
+    IStackFrame frame = mockFrame(thread);
+    given(thread.getTopStackFrame()).willReturn(frame);
+    ISourceLocator locator = mock(ISourceLocator.class);
+    given(launch.getSourceLocator()).willReturn(locator);
+    IFile file = mockFile("/p/A.java");
+    given(locator.getSourceElement(frame)).willReturn(file);
+
+    fireDebugEvent(new DebugEvent(process, DebugEvent.CREATE));
+    given(launch.isTerminated()).willReturn(true);
+    getLaunchesListener().launchesTerminated(new ILaunch[]{launch});
+
+    // Late events of the terminated launch:
+    fireDebugEvent(new DebugEvent(process, DebugEvent.CREATE));
+    fireDebugEvent(new DebugEvent(thread, DebugEvent.SUSPEND));
+    fireDebugEvent(new DebugEvent(process, DebugEvent.TERMINATE));
+    getResolver().join();
+
+    assertEquals(1, tracker.getData().size());
+    assertTrue(getMap("recorders").isEmpty());
+    assertTrue(getMap("launchFiles").isEmpty());
+    assertTrue(getMap("pending").isEmpty());
+  }
+
+  @Test
+  public void testLaunchesTerminated_releasesTheLaunch() throws Exception {
+    ILaunch launch = mockLaunch();
+    IProcess process = mockProcess(launch);
+    IThread thread = mockThread(launch);
+    IStackFrame frame = mockFrame(thread);
+    given(thread.getTopStackFrame()).willReturn(frame);
+    ISourceLocator locator = mock(ISourceLocator.class);
+    given(launch.getSourceLocator()).willReturn(locator);
+    IFile file = mockFile("/p/A.java");
+    given(locator.getSourceElement(frame)).willReturn(file);
+
+    fireDebugEvent(new DebugEvent(process, DebugEvent.CREATE));
+    fireDebugEvent(new DebugEvent(thread, DebugEvent.SUSPEND));
+    assertEquals(1, getMap("recorders").size());
+    assertEquals(1, getMap("pending").size());
+
+    given(launch.isTerminated()).willReturn(true);
+    getLaunchesListener().launchesTerminated(new ILaunch[]{launch});
+
+    // The pending frame is resolved before the launch is recorded:
+    assertEquals(1, tracker.getData().size());
+    LaunchEvent event = tracker.getData().iterator().next();
+    assertEquals(Collections.singleton(file.getFullPath()),
+        event.getFilePaths());
+    assertTrue(getMap("recorders").isEmpty());
+    assertTrue(getMap("launchFiles").isEmpty());
+    assertTrue(getMap("pending").isEmpty());
+  }
+
+  @Test
+  public void testSuspend_resolvesEachFrameOnce() throws Exception {
+    ILaunch launch = mockLaunch();
+    IThread thread = mockThread(launch);
+    IStackFrame first = mockFrame(thread);
+    IStackFrame last = mockFrame(thread);
+    ISourceLocator locator = mock(ISourceLocator.class);
+    given(launch.getSourceLocator()).willReturn(locator);
+    IFile file = mockFile("/p/A.java");
+    given(locator.getSourceElement(last)).willReturn(file);
+
+    fireDebugEvent(new DebugEvent(mockProcess(launch), DebugEvent.CREATE));
+
+    // Stepping quickly, only the frame the thread stops at is resolved:
+    given(thread.getTopStackFrame()).willReturn(first);
+    fireDebugEvent(new DebugEvent(thread, DebugEvent.SUSPEND));
+    given(thread.getTopStackFrame()).willReturn(last);
+    fireDebugEvent(new DebugEvent(thread, DebugEvent.SUSPEND));
+    fireDebugEvent(new DebugEvent(thread, DebugEvent.SUSPEND));
+    getResolver().join();
+
+    verify(locator, never()).getSourceElement(first);
+    verify(locator, times(1)).getSourceElement(last);
+    assertEquals(Collections.singleton(file.getFullPath()),
+        getMap("launchFiles").get(launch));
+
+    // A resolved frame is not resolved again:
+    fireDebugEvent(new DebugEvent(thread, DebugEvent.SUSPEND));
+    getResolver().join();
+    verify(locator, times(1)).getSourceElement(last);
+    assertTrue(getMap("pending").isEmpty());
+  }
+
   @Override
   protected LaunchEvent createEvent() {
     ILaunchConfigurationType type = mock(ILaunchConfigurationType.class);
@@ -521,4 +623,62 @@ public class LaunchTrackerTest extends AbstractTrackerTest<LaunchEvent> {
     config.launch(mode, null, true);
     return config;
   }
+
+  private void fireDebugEvent(DebugEvent event) throws Exception {
+    IDebugEventSetListener listener = getField("listener");
+    listener.handleDebugEvents(new DebugEvent[]{event});
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T getField(String name) throws Exception {
+    Field field = LaunchTracker.class.getDeclaredField(name);
+    field.setAccessible(true);
+    return (T) field.get(tracker);
+  }
+
+  private ILaunchesListener2 getLaunchesListener() throws Exception {
+    return getField("launchesListener");
+  }
+
+  private Map<?, ?> getMap(String name) throws Exception {
+    return getField(name);
+  }
+
+  private Job getResolver() throws Exception {
+    return getField("resolver");
+  }
+
+  private IFile mockFile(String path) {
+    IFile file = mock(IFile.class);
+    given(file.getFullPath()).willReturn(new Path(path));
+    return file;
+  }
+
+  private IStackFrame mockFrame(IThread thread) {
+    IStackFrame frame = mock(IStackFrame.class);
+    given(frame.getThread()).willReturn(thread);
+    return frame;
+  }
+
+  private ILaunch mockLaunch() throws Exception {
+    ILaunchConfigurationType type = mock(ILaunchConfigurationType.class);
+    ILaunchConfiguration config = mock(ILaunchConfiguration.class);
+    given(config.getType()).willReturn(type);
+    ILaunch launch = mock(ILaunch.class);
+    given(launch.getLaunchConfiguration()).willReturn(config);
+    return launch;
+  }
+
+  private IProcess mockProcess(ILaunch launch) {
+    IProcess process = mock(IProcess.class);
+    given(process.getLaunch()).willReturn(launch);
+    return process;
+  }
+
+  private IThread mockThread(ILaunch launch) {
+    IThread thread = mock(IThread.class);
+    given(thread.getLaunch()).willReturn(launch);
+    given(thread.isSuspended()).willReturn(true);
+    return thread;
+  }
 }
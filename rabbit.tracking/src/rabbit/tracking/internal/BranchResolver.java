@@ -0,0 +1,343 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.tracking.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.Maps;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+/**
+ * Resolves the Git branches that files are on.
+ * <p>
+ * The branch of a file is read from the {@code HEAD} file of the enclosing
+ * repository, which is the first directory up from the file containing a
+ * {@code .git} directory, or a {@code .git} file pointing to one. The
+ * repository of each directory is cached, and so is the branch of each
+ * repository, the {@code HEAD} file is only read again when its modification
+ * time or size has changed. Resolving a batch of files costs one check of
+ * the {@code HEAD} file per repository. Directories found not to be in a
+ * repository are probed again once {@link #NO_REPOSITORY_MILLIS} have passed,
+ * so that a repository created later is picked up.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ */
+public final class BranchResolver {
+
+  /**
+   * A repository and the branch last read from its {@code HEAD} file.
+   */
+  private static final class Repository {
+    final File head;
+    private long lastModified = -1;
+    private long length = -1;
+    @Nullable private String branch;
+
+    Repository(File gitDir) {
+      head = new File(gitDir, "HEAD");
+    }
+
+    @Nullable
+    synchronized String getBranch() {
+      long modified = head.lastModified();
+      long size = head.length();
+      if (modified != lastModified || size != length) {
+        branch = readBranch(head);
+        lastModified = modified;
+        length = size;
+      }
+      return branch;
+    }
+  }
+
+  /**
+   * The prefix of the content of a {@code HEAD} file referring to a branch.
+   */
+  private static final String REF_PREFIX = "ref: ";
+
+  /**
+   * The prefix of branch references.
+   */
+  private static final String HEADS_PREFIX = "refs/heads/";
+
+  /**
+   * The prefix of the content of a {@code .git} file referring to the actual
+   * repository directory.
+   */
+  private static final String GITDIR_PREFIX = "gitdir: ";
+
+  /**
+   * The length of the abbreviated commit ID used for a detached head.
+   */
+  private static final int ABBREV_LENGTH = 7;
+
+  /**
+   * The value of {@link #directories} for directories not in a repository.
+   */
+  private static final Repository NO_REPOSITORY = new Repository(new File(""));
+
+  /**
+   * The time after which a directory not in a repository is probed again.
+   */
+  static final long NO_REPOSITORY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+  /**
+   * Directories to their enclosing repositories.
+   */
+  private final ConcurrentMap<File, Repository> directories;
+
+  /**
+   * Directories not in a repository, to the times they were probed, in
+   * nanoseconds.
+   */
+  private final ConcurrentMap<File, Long> unversioned;
+
+  /**
+   * The time in nanoseconds after which an entry of {@link #unversioned}
+   * expires.
+   */
+  private final long expiryNanos;
+
+  /**
+   * Repository directories to the repositories, so that directories in the
+   * same repository share the cached branch.
+   */
+  private final ConcurrentMap<File, Repository> repositories;
+
+  /**
+   * Constructor.
+   */
+  public BranchResolver() {
+    this(NO_REPOSITORY_MILLIS);
+  }
+
+  /**
+   * Constructor.
+   * 
+   * @param expiryMillis the time after which a directory not in a repository
+   *        is probed again.
+   */
+  BranchResolver(long expiryMillis) {
+    directories = new ConcurrentHashMap<File, Repository>();
+    repositories = new ConcurrentHashMap<File, Repository>();
+    unversioned = new ConcurrentHashMap<File, Long>();
+    expiryNanos = TimeUnit.MILLISECONDS.toNanos(expiryMillis);
+  }
+
+  /**
+   * Clears the cached repositories and branches.
+   */
+  public void clear() {
+    directories.clear();
+    repositories.clear();
+    unversioned.clear();
+  }
+
+  /**
+   * Gets the branch of the given file.
+   * 
+   * @param file the file, does not have to exist.
+   * @return the name of the branch, the abbreviated ID of the commit if the
+   *         head is detached, or null if the file is not in a repository.
+   * @throws NullPointerException if {@code file} is null.
+   */
+  @Nullable
+  public String resolve(File file) {
+    checkNotNull(file, "file");
+    File dir = file.getAbsoluteFile().getParentFile();
+    if (dir == null) {
+      return null;
+    }
+    Repository repo = findRepository(dir);
+    return (repo == NO_REPOSITORY) ? null : repo.getBranch();
+  }
+
+  /**
+   * Gets the branches of the given paths, each repository is only checked
+   * once.
+   * 
+   * @param paths the workspace paths or file system paths of the files.
+   * @return a map of the paths to their branches, paths that are not in a
+   *         repository are not in the map.
+   * @throws NullPointerException if {@code paths} is null or contains null.
+   * @see #resolve(File)
+   */
+  public Map<IPath, String> resolveAll(Collection<? extends IPath> paths) {
+    Map<IPath, String> result = Maps.newHashMap();
+    Map<Repository, String> branches = Maps.newHashMap();
+    for (IPath path : paths) {
+      if (result.containsKey(path)) {
+        continue;
+      }
+      File dir = toFile(path).getAbsoluteFile().getParentFile();
+      if (dir == null) {
+        continue;
+      }
+      Repository repo = findRepository(dir);
+      if (repo == NO_REPOSITORY) {
+        continue;
+      }
+      String branch = branches.get(repo);
+      if (branch == null && !branches.containsKey(repo)) {
+        branch = repo.getBranch();
+        branches.put(repo, branch);
+      }
+      if (branch != null) {
+        result.put(path, branch);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Finds the repository enclosing the given directory.
+   * 
+   * @return the repository, or {@link #NO_REPOSITORY}.
+   */
+  private Repository findRepository(File dir) {
+    Repository repo = directories.get(dir);
+    if (repo != null) {
+      return repo;
+    }
+    long now = System.nanoTime();
+    Long probed = unversioned.get(dir);
+    if (probed != null && now - probed < expiryNanos) {
+      return NO_REPOSITORY;
+    }
+
+    File gitDir = findGitDir(dir);
+    if (gitDir != null) {
+      repo = repositories.get(gitDir);
+      if (repo == null) {
+        Repository newRepo = new Repository(gitDir);
+        repo = repositories.putIfAbsent(gitDir, newRepo);
+        if (repo == null) {
+          repo = newRepo;
+        }
+      }
+    } else {
+      File parent = dir.getParentFile();
+      repo = (parent == null) ? NO_REPOSITORY : findRepository(parent);
+    }
+    if (repo == NO_REPOSITORY) {
+      unversioned.put(dir, now);
+    } else {
+      directories.put(dir, repo);
+      unversioned.remove(dir);
+    }
+    return repo;
+  }
+
+  /**
+   * Gets the repository directory of the given directory.
+   * 
+   * @return the repository directory, or null if the given directory is not
+   *         the root of a repository.
+   */
+  @Nullable
+  private static File findGitDir(File dir) {
+    File git = new File(dir, ".git");
+    if (git.isDirectory()) {
+      return git;
+    }
+    if (git.isFile()) {
+      String line = readFirstLine(git);
+      if (line != null && line.startsWith(GITDIR_PREFIX)) {
+        File target = new File(line.substring(GITDIR_PREFIX.length()).trim());
+        return target.isAbsolute() ? target : new File(dir, target.getPath());
+      }
+    }
+    return null;
+  }
+
+  @Nullable
+  private static String readBranch(File head) {
+    String line = readFirstLine(head);
+    if (line == null) {
+      return null;
+    }
+    line = line.trim();
+    if (line.startsWith(REF_PREFIX)) {
+      String ref = line.substring(REF_PREFIX.length()).trim();
+      return ref.startsWith(HEADS_PREFIX)
+          ? ref.substring(HEADS_PREFIX.length()) : ref;
+    }
+    // A detached head, the file contains the commit ID:
+    if (line.length() > ABBREV_LENGTH) {
+      return line.substring(0, ABBREV_LENGTH);
+    }
+    return line.isEmpty() ? null : line;
+  }
+
+  @Nullable
+  private static String readFirstLine(File file) {
+    BufferedReader reader = null;
+    try {
+      reader = new BufferedReader(new FileReader(file));
+      return reader.readLine();
+    } catch (IOException e) {
+      return null;
+    } finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (IOException e) {
+          // Ignore.
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the file of the given path, which may be a workspace path or a file
+   * system path.
+   */
+  private static File toFile(IPath path) {
+    IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+    IResource resource = root.findMember(path);
+    if (resource != null && resource.getLocation() != null) {
+      return resource.getLocation().toFile();
+    }
+    // The file may have been deleted, use the location of its project:
+    if (path.segmentCount() > 1 && !path.toFile().exists()) {
+      IProject project = root.getProject(path.segment(0));
+      if (project.getLocation() != null) {
+        return project.getLocation()
+            .append(path.removeFirstSegments(1)).toFile();
+      }
+    }
+    return path.toFile();
+  }
+}
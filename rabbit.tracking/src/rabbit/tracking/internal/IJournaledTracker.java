@@ -0,0 +1,54 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.tracking.internal;
+
+import rabbit.tracking.ITracker;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * A tracker that records its events in a {@link Journal} as they are added,
+ * and commits them once they are saved, so that the events can be recovered
+ * if the workbench is not shut down normally.
+ * <p>
+ * The records of a tracker are kept under the name of the class of the
+ * tracker.
+ * </p>
+ * 
+ * @param <T> The type of the data of the tracker.
+ */
+public interface IJournaledTracker<T> extends ITracker<T> {
+
+  /**
+   * Saves the events of the given records, which were recorded in the journal
+   * but never committed. Must only be called when this tracker is disabled
+   * and holds no data. Records that cannot be read are ignored.
+   * 
+   * @param records The records of this tracker.
+   * @throws NullPointerException If {@code records} is null.
+   */
+  void recover(List<byte[]> records);
+
+  /**
+   * Sets the journal to record the events in. Has no effects if this tracker
+   * does not support journaling.
+   * 
+   * @param journal The journal, or null to stop journaling.
+   */
+  void setJournal(@Nullable Journal journal);
+}
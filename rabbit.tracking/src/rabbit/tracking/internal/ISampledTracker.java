@@ -0,0 +1,56 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.tracking.internal;
+
+import rabbit.tracking.ITracker;
+
+/**
+ * A tracker that can be driven by a {@link Sampler} instead of listening to
+ * every change in the workbench.
+ * <p>
+ * In sampling mode, a tracker does not register the listeners it uses in the
+ * event driven mode, except for observing the {@link IdleDetector}, instead,
+ * {@link #sample()} is called at a fixed rate while the user is active, and
+ * the tracker attributes the time between two samples to what it was tracking.
+ * </p>
+ * 
+ * @param <T> The type of the data of the tracker.
+ */
+public interface ISampledTracker<T> extends ITracker<T> {
+
+  /**
+   * Checks whether this tracker is in sampling mode.
+   * 
+   * @return True if this tracker is in sampling mode, false otherwise.
+   */
+  boolean isSampling();
+
+  /**
+   * Samples the current state of the workbench, and starts or stops recording
+   * accordingly. Called on the display thread, has no effects if this tracker
+   * is not enabled or not in sampling mode.
+   */
+  void sample();
+
+  /**
+   * Sets whether this tracker should be in sampling mode. Must only be called
+   * when this tracker is disabled.
+   * 
+   * @param sampling True for sampling mode, false for event driven mode.
+   * @throws IllegalStateException If this tracker is enabled.
+   */
+  void setSampling(boolean sampling);
+}
@@ -0,0 +1,398 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.tracking.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import rabbit.data.internal.diagnostics.Diagnostics;
+import rabbit.data.internal.diagnostics.LatencyHistogram;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.joda.time.Interval;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+/**
+ * A write-ahead journal of the events held by the trackers, so that the events
+ * survive a crash of the workbench.
+ * <p>
+ * Trackers append a compact record for each event as it is recorded, and
+ * append a commit record once their events are saved. A record belongs to the
+ * journal name of a tracker, and records followed by a commit of the same name
+ * are no longer needed. The file is truncated once every name has been
+ * committed. When opened, the records that were never committed are returned,
+ * so that they can be saved again, see {@link #open()}.
+ * </p>
+ * <p>
+ * Appending only copies the record into a buffer, the buffer is written and
+ * forced to the disk by a background job, at most {@link #SYNC_DELAY_MILLIS}
+ * after the first record of a batch. A crash may therefore lose the records of
+ * the last few seconds, and may leave a record half written at the end of the
+ * file, such a record is ignored when the file is read.
+ * </p>
+ * <p>
+ * If the file cannot be written, the error is logged and this journal stops
+ * recording until it is opened again.
+ * </p>
+ */
+public final class Journal {
+
+  /**
+   * Writes and reads the events of a tracker as journal records.
+   * 
+   * @param <T> The event type.
+   */
+  public interface Codec<T> {
+
+    /**
+     * Reads an event written by {@link #write(Object, DataOutput)}.
+     * 
+     * @param in The input containing a single record.
+     * @return The event, or null if the event can no longer be created, for
+     *         example if what it refers to no longer exists.
+     * @throws IOException If the record cannot be read.
+     */
+    @Nullable
+    T read(DataInput in) throws IOException;
+
+    /**
+     * Writes the given event.
+     * 
+     * @param event The event.
+     * @param out The output.
+     * @throws IOException If an error occurs.
+     */
+    void write(T event, DataOutput out) throws IOException;
+  }
+
+  /**
+   * The maximum time in milliseconds before appended records are forced to the
+   * disk.
+   */
+  public static final long SYNC_DELAY_MILLIS = 2000;
+
+  private static final byte RECORD = 1;
+  private static final byte COMMIT = 2;
+
+  /**
+   * Reads an interval written by {@link #writeInterval(Interval, DataOutput)}.
+   * 
+   * @param in The input.
+   * @return The interval.
+   * @throws IOException If an error occurs.
+   */
+  public static Interval readInterval(DataInput in) throws IOException {
+    long start = in.readLong();
+    return new Interval(start, start + in.readLong());
+  }
+
+  /**
+   * Writes an interval as its start and its duration in milliseconds.
+   * 
+   * @param interval The interval.
+   * @param out The output.
+   * @throws IOException If an error occurs.
+   */
+  public static void writeInterval(Interval interval, DataOutput out)
+      throws IOException {
+    out.writeLong(interval.getStartMillis());
+    out.writeLong(interval.toDurationMillis());
+  }
+
+  /**
+   * Reads the records of the given file that were not committed.
+   * 
+   * @param file The file.
+   * @return The names to their records, in the order they were written.
+   * @throws IOException If an error occurs.
+   */
+  static Map<String, List<byte[]>> read(File file) throws IOException {
+    Map<String, List<byte[]>> records = Maps.newLinkedHashMap();
+    if (!file.exists()) {
+      return records;
+    }
+    DataInputStream in = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(file)));
+    try {
+      while (true) {
+        int kind = in.read();
+        if (kind == RECORD) {
+          String name = in.readUTF();
+          int length = in.readInt();
+          if (length < 0 || length > file.length()) {
+            break; // Corrupted.
+          }
+          byte[] record = new byte[length];
+          in.readFully(record);
+          List<byte[]> list = records.get(name);
+          if (list == null) {
+            list = Lists.newArrayList();
+            records.put(name, list);
+          }
+          list.add(record);
+        } else if (kind == COMMIT) {
+          records.remove(in.readUTF());
+        } else {
+          break; // End of file, or corrupted.
+        }
+      }
+    } catch (EOFException e) {
+      // A half written record at the end, ignore it.
+    } finally {
+      in.close();
+    }
+    return records;
+  }
+
+  private final LatencyHistogram appendLatency =
+      Diagnostics.histogram("Journal.append");
+
+  private final File file;
+
+  /** Reused buffer for encoding a single record. */
+  private final ByteArrayOutputStream record;
+  private final DataOutputStream recordOut;
+
+  /** The names with records that are not yet committed. */
+  private final Set<String> uncommitted;
+
+  @Nullable private FileOutputStream stream;
+  @Nullable private DataOutputStream out;
+  private boolean isSyncScheduled;
+
+  /**
+   * Held while the file is forced to the disk, so that appending, which only
+   * needs the monitor of this journal, does not wait for the disk. Always
+   * acquired before the monitor of this journal.
+   */
+  private final Object syncLock = new Object();
+
+  private final Job syncJob = new Job("Syncing the tracking journal") {
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      sync();
+      return Status.OK_STATUS;
+    }
+  };
+
+  /**
+   * Constructor. The journal is not open until {@link #open()} is called.
+   * 
+   * @param file The journal file.
+   * @throws NullPointerException If {@code file} is null.
+   */
+  public Journal(File file) {
+    this.file = checkNotNull(file, "file");
+    record = new ByteArrayOutputStream(256);
+    recordOut = new DataOutputStream(record);
+    uncommitted = Sets.newHashSet();
+    syncJob.setSystem(true);
+  }
+
+  /**
+   * Appends a record of the given event. Has no effects if this journal is not
+   * open.
+   * 
+   * @param name The journal name of the tracker.
+   * @param event The event.
+   * @param codec The codec for writing the event.
+   * @throws NullPointerException If any argument is null.
+   */
+  public synchronized <T> void append(String name, T event,
+      Codec<? super T> codec) {
+    if (out == null) {
+      return;
+    }
+    long start = appendLatency.start();
+    try {
+      record.reset();
+      codec.write(event, recordOut);
+      out.writeByte(RECORD);
+      out.writeUTF(name);
+      out.writeInt(record.size());
+      record.writeTo(out);
+      uncommitted.add(name);
+      scheduleSync();
+    } catch (IOException e) {
+      fail(e);
+    } finally {
+      appendLatency.stop(start);
+    }
+  }
+
+  /**
+   * Closes this journal, the appended records are forced to the disk.
+   */
+  public void close() {
+    synchronized (syncLock) {
+      syncJob.cancel();
+      sync();
+      synchronized (this) {
+        closeFile();
+      }
+    }
+  }
+
+  /**
+   * Commits the records of the given name, they will no longer be returned by
+   * {@link #open()}. If all names are committed, the file is truncated. Has no
+   * effects if this journal is not open.
+   * 
+   * @param name The journal name of the tracker.
+   * @throws NullPointerException If {@code name} is null.
+   */
+  public synchronized void commit(String name) {
+    checkNotNull(name, "name");
+    if (out == null || !uncommitted.remove(name)) {
+      return;
+    }
+    try {
+      if (uncommitted.isEmpty()) {
+        out.flush();
+        stream.getChannel().truncate(0);
+      } else {
+        out.writeByte(COMMIT);
+        out.writeUTF(name);
+        scheduleSync();
+      }
+    } catch (IOException e) {
+      fail(e);
+    }
+  }
+
+  /**
+   * Checks whether this journal is open.
+   * 
+   * @return True if open, false otherwise.
+   */
+  public synchronized boolean isOpen() {
+    return out != null;
+  }
+
+  /**
+   * Opens this journal for appending. The names of the returned records are
+   * considered not committed, until they are committed again.
+   * 
+   * @return The records in the file that were not committed, by their names.
+   * @throws IOException If the file cannot be read or opened.
+   */
+  public Map<String, List<byte[]>> open() throws IOException {
+    synchronized (syncLock) {
+      synchronized (this) {
+        closeFile();
+        Map<String, List<byte[]>> records = read(file);
+        stream = new FileOutputStream(file, true);
+        out = new DataOutputStream(new BufferedOutputStream(stream));
+        uncommitted.clear();
+        uncommitted.addAll(records.keySet());
+        if (uncommitted.isEmpty()) {
+          stream.getChannel().truncate(0);
+        }
+        return records;
+      }
+    }
+  }
+
+  /**
+   * Writes the appended records to the file, and forces them to the disk. Has
+   * no effects if this journal is not open. Records may be appended while the
+   * file is being forced, they are forced by the next sync.
+   */
+  public void sync() {
+    synchronized (syncLock) {
+      FileChannel channel;
+      synchronized (this) {
+        isSyncScheduled = false;
+        if (out == null) {
+          return;
+        }
+        try {
+          out.flush();
+        } catch (IOException e) {
+          fail(e);
+          return;
+        }
+        channel = stream.getChannel();
+      }
+      // Opening and closing also hold the sync lock, so the channel is only
+      // closed under us if appending failed, which has already been logged.
+      try {
+        channel.force(false);
+      } catch (IOException e) {
+        synchronized (this) {
+          if (stream != null && stream.getChannel() == channel) {
+            fail(e);
+          }
+        }
+      }
+    }
+  }
+
+  private void closeFile() {
+    if (out != null) {
+      try {
+        out.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+    out = null;
+    stream = null;
+    uncommitted.clear();
+  }
+
+  private void fail(IOException e) {
+    TrackingPlugin plugin = TrackingPlugin.getDefault();
+    if (plugin != null) {
+      plugin.getLog().log(new Status(IStatus.ERROR, TrackingPlugin.PLUGIN_ID,
+          "Unable to write the tracking journal, journaling is stopped.", e));
+    } else {
+      e.printStackTrace();
+    }
+    closeFile();
+  }
+
+  private void scheduleSync() {
+    if (!isSyncScheduled) {
+      isSyncScheduled = true;
+      syncJob.schedule(SYNC_DELAY_MILLIS);
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.tracking.internal;
+
+import rabbit.data.internal.diagnostics.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+
+/**
+ * Measures the time spent by the trackers reacting to the workbench, so that
+ * the event driven mode and the sampling mode of the trackers can be compared.
+ * <p>
+ * Usage:
+ * 
+ * <pre>
+ * long start = meter.start();
+ * try {
+ *   // Work to be measured.
+ * } finally {
+ *   meter.stop(start);
+ * }
+ * </pre>
+ * 
+ * This class is thread safe.
+ * </p>
+ */
+public final class OverheadMeter {
+
+  private final AtomicLong calls = new AtomicLong();
+  private final AtomicLong nanos = new AtomicLong();
+  private volatile long since = System.currentTimeMillis();
+
+  @Nullable private final OverheadMeter parent;
+  @Nullable private final LatencyHistogram histogram;
+
+  /**
+   * Constructs a meter on its own.
+   */
+  public OverheadMeter() {
+    this(null, null);
+  }
+
+  /**
+   * Constructs a meter which also adds its measurements to the given meter and
+   * histogram, for measuring a part of what the parent meter measures.
+   * @param parent the meter measuring the whole, or null.
+   * @param histogram the histogram for the distribution of the measurements,
+   *        or null.
+   */
+  public OverheadMeter(
+      @Nullable OverheadMeter parent, @Nullable LatencyHistogram histogram) {
+    this.parent = parent;
+    this.histogram = histogram;
+  }
+
+  /**
+   * @return the number of measured calls since the last reset.
+   */
+  public long getCalls() {
+    return calls.get();
+  }
+
+  /**
+   * @return the time in milliseconds when this meter was last reset.
+   */
+  public long getSinceMillis() {
+    return since;
+  }
+
+  /**
+   * @return the total measured time in nanoseconds since the last reset.
+   */
+  public long getTotalNanos() {
+    return nanos.get();
+  }
+
+  /**
+   * Resets the measurements to zero.
+   */
+  public void reset() {
+    calls.set(0);
+    nanos.set(0);
+    since = System.currentTimeMillis();
+  }
+
+  /**
+   * Starts a measurement.
+   * @return the start time to be passed to {@link #stop(long)}.
+   */
+  public long start() {
+    return System.nanoTime();
+  }
+
+  /**
+   * Ends a measurement.
+   * @param start the value returned by {@link #start()}.
+   */
+  public void stop(long start) {
+    record(System.nanoTime() - start);
+  }
+
+  @Override
+  public String toString() {
+    long n = getCalls();
+    long total = getTotalNanos();
+    long elapsed = System.currentTimeMillis() - getSinceMillis();
+    return String.format(
+        "%d calls, %.3f ms total, %.3f us per call, over %d s",
+        n,
+        total / (double) TimeUnit.MILLISECONDS.toNanos(1),
+        (n == 0) ? 0.0 : total / (double) n / TimeUnit.MICROSECONDS.toNanos(1),
+        TimeUnit.MILLISECONDS.toSeconds(elapsed));
+  }
+
+  private void record(long elapsed) {
+    nanos.addAndGet(elapsed);
+    calls.incrementAndGet();
+    if (histogram != null) {
+      histogram.record(elapsed);
+    }
+    if (parent != null) {
+      parent.record(elapsed);
+    }
+  }
+}
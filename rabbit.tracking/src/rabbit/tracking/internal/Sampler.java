@@ -0,0 +1,176 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.tracking.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+
+import org.eclipse.swt.widgets.Display;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Observable;
+import java.util.Observer;
+
+/**
+ * Samples the trackers in sampling mode at a fixed rate, with a single timer
+ * on the display thread.
+ * <p>
+ * Samples are only taken while the {@link IdleDetector} reports the user as
+ * active, a sample is taken right away when the user becomes active again. The
+ * time spent sampling is measured by an {@link OverheadMeter}.
+ * </p>
+ */
+public final class Sampler {
+
+  private final Display display;
+  private final IdleDetector idleDetector;
+  private final OverheadMeter meter;
+  private List<ISampledTracker<?>> trackers;
+  private volatile int intervalMillis;
+  private boolean isRunning;
+
+  private final Runnable tick = new Runnable() {
+    @Override
+    public void run() {
+      if (!isRunning()) {
+        return;
+      }
+      sampleNow();
+      display.timerExec(intervalMillis, this);
+    }
+  };
+
+  private final Runnable sample = new Runnable() {
+    @Override
+    public void run() {
+      if (isRunning()) {
+        sampleNow();
+      }
+    }
+  };
+
+  private final Observer idleObserver = new Observer() {
+    @Override
+    public void update(Observable o, Object arg) {
+      if (idleDetector.isUserActive() && !display.isDisposed()) {
+        display.asyncExec(sample);
+      }
+    }
+  };
+
+  /**
+   * Constructor. When constructed, this object is not yet running.
+   * 
+   * @param idleDetector The detector for gating the samples.
+   * @param meter The meter for measuring the time spent sampling.
+   * @param intervalMillis The time between two samples, in milliseconds.
+   * @throws NullPointerException If any argument is null.
+   * @throws IllegalArgumentException If {@code intervalMillis} is not positive.
+   */
+  public Sampler(IdleDetector idleDetector, OverheadMeter meter,
+      int intervalMillis) {
+    this.idleDetector = checkNotNull(idleDetector, "idleDetector");
+    this.meter = checkNotNull(meter, "meter");
+    this.display = idleDetector.getDisplay();
+    this.trackers = ImmutableList.of();
+    setInterval(intervalMillis);
+  }
+
+  /**
+   * @return The time between two samples, in milliseconds.
+   */
+  public int getInterval() {
+    return intervalMillis;
+  }
+
+  /**
+   * @return True if this sampler is running, false otherwise.
+   */
+  public synchronized boolean isRunning() {
+    return isRunning;
+  }
+
+  /**
+   * Sets the time between two samples, takes effect after the next sample.
+   * 
+   * @param millis The time in milliseconds.
+   * @throws IllegalArgumentException If {@code millis} is not positive.
+   */
+  public void setInterval(int millis) {
+    checkArgument(millis > 0, "interval must be positive");
+    intervalMillis = millis;
+  }
+
+  /**
+   * Starts or stops sampling. Calling this method with the current state has
+   * no effects.
+   * 
+   * @param run True to start, false to stop.
+   */
+  public synchronized void setRunning(boolean run) {
+    if (isRunning == run || display.isDisposed()) {
+      return;
+    }
+    isRunning = run;
+    if (run) {
+      idleDetector.addObserver(idleObserver);
+      display.asyncExec(tick);
+    } else {
+      idleDetector.deleteObserver(idleObserver);
+      display.asyncExec(new Runnable() {
+        @Override
+        public void run() {
+          display.timerExec(-1, tick);
+        }
+      });
+    }
+  }
+
+  /**
+   * Sets the trackers to sample, only the trackers in sampling mode are
+   * sampled.
+   * 
+   * @param trackers The trackers.
+   * @throws NullPointerException If {@code trackers} is null or contains null.
+   */
+  public synchronized void setTrackers(
+      Collection<? extends ISampledTracker<?>> trackers) {
+    this.trackers = ImmutableList.copyOf(trackers);
+  }
+
+  private void sampleNow() {
+    if (!idleDetector.isUserActive()) {
+      return;
+    }
+    List<ISampledTracker<?>> targets;
+    synchronized (this) {
+      targets = trackers;
+    }
+    long start = meter.start();
+    try {
+      for (ISampledTracker<?> tracker : targets) {
+        if (tracker.isSampling() && tracker.isEnabled()) {
+          tracker.sample();
+        }
+      }
+    } finally {
+      meter.stop(start);
+    }
+  }
+}
@@ -15,10 +15,12 @@
  */
 package rabbit.tracking.internal;
 
+import rabbit.data.internal.diagnostics.Diagnostics;
 import rabbit.tracking.ITracker;
 
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.ISafeRunnable;
@@ -31,8 +33,13 @@ import org.eclipse.ui.IWorkbenchListener;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import javax.management.JMException;
+
 /**
  * The activator class controls the plug-in life cycle
  */
@@ -45,6 +52,18 @@ public class TrackingPlugin extends AbstractUIPlugin implements
   /** ID of the tracker extension point. */
   public static final String TRACKER_EXTENSION_ID = "rabbit.tracking.trackers";
 
+  /** Preference key for whether the trackers are in sampling mode. */
+  public static final String SAMPLING = "sampling";
+
+  /** Preference key for the time between two samples, in milliseconds. */
+  public static final String SAMPLING_INTERVAL = "samplingInterval";
+
+  /** The default time between two samples, in milliseconds. */
+  public static final int DEFAULT_SAMPLING_INTERVAL = 1000;
+
+  /** Name of the journal file in the state location of this plug-in. */
+  private static final String JOURNAL_FILE = "journal.dat";
+
   // The shared instance
   private static TrackingPlugin plugin;
 
@@ -58,6 +77,11 @@ public class TrackingPlugin extends AbstractUIPlugin implements
   }
 
   private IdleDetector idleDetector;
+  private BranchResolver branchResolver;
+  private WorkbenchState workbenchState;
+  private OverheadMeter overheadMeter;
+  private Sampler sampler;
+  private Journal journal;
 
   /** An set of trackers. */
   private ImmutableSet<ITracker<?>> trackers;
@@ -69,9 +93,25 @@ public class TrackingPlugin extends AbstractUIPlugin implements
     long oneSec = TimeUnit.SECONDS.toMillis(1);
     long oneMin = TimeUnit.MINUTES.toMillis(1);
     idleDetector = new IdleDetector(getWorkbench().getDisplay(), oneMin, oneSec);
+    workbenchState = new WorkbenchState(getWorkbench());
+    branchResolver = new BranchResolver();
+    overheadMeter = new OverheadMeter();
+    OverheadMeter samplerMeter = new OverheadMeter(
+        overheadMeter, Diagnostics.histogram("Sampler.sample"));
+    sampler = new Sampler(
+        idleDetector, samplerMeter, DEFAULT_SAMPLING_INTERVAL);
     trackers = ImmutableSet.of();
   }
 
+  /**
+   * Gets the shared resolver for the version control branches of files.
+   * 
+   * @return The branch resolver.
+   */
+  public BranchResolver getBranchResolver() {
+    return branchResolver;
+  }
+
   /**
    * Gets the global idleness detector in use. Clients may attach themselves as
    * observers to the detector but must not change the detector's state (like
@@ -83,6 +123,48 @@ public class TrackingPlugin extends AbstractUIPlugin implements
     return idleDetector;
   }
 
+  /**
+   * Gets the meter measuring the time spent by the trackers, in event driven
+   * mode or in sampling mode, see {@link #isSamplingEnabled()}. The meter is
+   * reset when the mode changes.
+   * 
+   * @return The overhead meter.
+   */
+  public OverheadMeter getOverheadMeter() {
+    return overheadMeter;
+  }
+
+  /**
+   * Gets the time between two samples in sampling mode.
+   * 
+   * @return The time in milliseconds.
+   */
+  public int getSamplingInterval() {
+    return getPreferenceStore().getInt(SAMPLING_INTERVAL);
+  }
+
+  /**
+   * Gets the global workbench state in use. Clients may read the state from
+   * any thread but must not change the state's running state (like calling
+   * {@link WorkbenchState#setRunning(boolean)}).
+   * 
+   * @return The workbench state.
+   */
+  public WorkbenchState getWorkbenchState() {
+    return workbenchState;
+  }
+
+  /**
+   * Checks whether the trackers that support it are sampling the workbench at
+   * a fixed rate, instead of reacting to every event.
+   * 
+   * @return True if sampling mode is enabled, false otherwise.
+   * @see ISampledTracker
+   */
+  public boolean isSamplingEnabled() {
+    return getPreferenceStore().getBoolean(SAMPLING);
+  }
+
   @Override
   public void postShutdown(IWorkbench workbench) {
     // Everything should be done before the workbench is shut down, use
@@ -97,6 +179,20 @@ public class TrackingPlugin extends AbstractUIPlugin implements
     return true;
   }
 
+  /**
+   * Gets the data collected by the trackers that is not yet saved. Must be
+   * called from the UI thread, where the trackers collect their data.
+   * 
+   * @return A copy of the data of all the trackers.
+   */
+  public List<Object> getUnsavedData() {
+    List<Object> data = Lists.newArrayList();
+    for (ITracker<?> tracker : trackers) {
+      data.addAll(tracker.getData());
+    }
+    return data;
+  }
+
   /**
    * Call this method to saves all current data collected by the trackers now.
    * All data will be saved and flushed from the trackers.
@@ -109,6 +205,42 @@ public class TrackingPlugin extends AbstractUIPlugin implements
     }
   }
 
+  /**
+   * Enables or disables sampling mode, the trackers that support sampling mode
+   * are restarted in the new mode, and their data is saved.
+   * 
+   * @param enable True to enable sampling mode, false for event driven mode.
+   * @see ISampledTracker
+   */
+  public void setSamplingEnabled(boolean enable) {
+    if (isSamplingEnabled() == enable) {
+      return;
+    }
+    logOverhead();
+    getPreferenceStore().setValue(SAMPLING, enable);
+
+    sampler.setRunning(false);
+    for (ISampledTracker<?> tracker : getSampledTrackers()) {
+      boolean enabled = tracker.isEnabled();
+      tracker.setEnabled(false);
+      tracker.setSampling(enable);
+      tracker.setEnabled(enabled);
+    }
+    overheadMeter.reset();
+    sampler.setRunning(enable);
+  }
+
+  /**
+   * Sets the time between two samples in sampling mode.
+   * 
+   * @param millis The time in milliseconds.
+   * @throws IllegalArgumentException If {@code millis} is not positive.
+   */
+  public void setSamplingInterval(int millis) {
+    sampler.setInterval(millis);
+    getPreferenceStore().setValue(SAMPLING_INTERVAL, millis);
+  }
+
   @Override
   public void start(BundleContext context) throws Exception {
     super.start(context);
@@ -117,19 +249,56 @@ public class TrackingPlugin extends AbstractUIPlugin implements
     if (trackers != null)
       setEnableTrackers(trackers, false);
 
+    getPreferenceStore().setDefault(SAMPLING, false);
+    getPreferenceStore().setDefault(
+        SAMPLING_INTERVAL, DEFAULT_SAMPLING_INTERVAL);
+    if (getSamplingInterval() > 0) {
+      sampler.setInterval(getSamplingInterval());
+    }
+
     getWorkbench().addWorkbenchListener(this);
+    workbenchState.setRunning(true);
     trackers = createTrackers();
+    boolean sampling = isSamplingEnabled();
+    for (ISampledTracker<?> tracker : getSampledTrackers()) {
+      tracker.setSampling(sampling);
+    }
+    sampler.setTrackers(getSampledTrackers());
+    journal = new Journal(getStateLocation().append(JOURNAL_FILE).toFile());
+    recoverJournal();
     setEnableTrackers(trackers, true);
 
     idleDetector.setRunning(true);
+    overheadMeter.reset();
+    sampler.setRunning(sampling);
+
+    try {
+      Diagnostics.registerMBean();
+    } catch (JMException e) {
+      getLog().log(new Status(IStatus.WARNING, PLUGIN_ID,
+          "Unable to register the diagnostics MBean.", e));
+    }
   }
 
   @Override
   public void stop(BundleContext context) throws Exception {
+    sampler.setRunning(false);
+    logOverhead();
     idleDetector.setRunning(false);
     getWorkbench().removeWorkbenchListener(this);
     setEnableTrackers(trackers, false);
+    workbenchState.setRunning(false);
+    for (IJournaledTracker<?> tracker : getJournaledTrackers()) {
+      tracker.setJournal(null);
+    }
+    journal.close();
 
+    try {
+      Diagnostics.unregisterMBean();
+    } catch (JMException e) {
+      getLog().log(new Status(IStatus.WARNING, PLUGIN_ID,
+          "Unable to unregister the diagnostics MBean.", e));
+    }
     plugin = null;
     super.stop(context);
   }
@@ -169,6 +338,80 @@ public class TrackingPlugin extends AbstractUIPlugin implements
     return builder.build();
   }
 
+  /**
+   * @return The trackers that record their data in the journal.
+   */
+  private List<IJournaledTracker<?>> getJournaledTrackers() {
+    List<IJournaledTracker<?>> result = Lists.newArrayList();
+    for (ITracker<?> tracker : trackers) {
+      if (tracker instanceof IJournaledTracker<?>) {
+        result.add((IJournaledTracker<?>) tracker);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return The trackers that support sampling mode.
+   */
+  private List<ISampledTracker<?>> getSampledTrackers() {
+    List<ISampledTracker<?>> result = Lists.newArrayList();
+    for (ITracker<?> tracker : trackers) {
+      if (tracker instanceof ISampledTracker<?>) {
+        result.add((ISampledTracker<?>) tracker);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Logs the overhead measured in the current mode.
+   */
+  private void logOverhead() {
+    String mode = isSamplingEnabled() ? "sampling" : "event driven";
+    getLog().log(new Status(IStatus.INFO, PLUGIN_ID,
+        "Tracking overhead in " + mode + " mode: " + overheadMeter));
+  }
+
+  /**
+   * Opens the journal, and saves the data left in it by a previous session
+   * that did not shut down normally. The records of trackers that are no
+   * longer installed are discarded.
+   */
+  private void recoverJournal() {
+    final Map<String, List<byte[]>> records;
+    try {
+      records = journal.open();
+    } catch (IOException e) {
+      getLog().log(new Status(IStatus.ERROR, PLUGIN_ID,
+          "Unable to open the tracking journal.", e));
+      return;
+    }
+
+    for (final IJournaledTracker<?> tracker : getJournaledTrackers()) {
+      tracker.setJournal(journal);
+      final List<byte[]> list = records.remove(tracker.getClass().getName());
+      if (list == null) {
+        continue;
+      }
+      SafeRunner.run(new ISafeRunnable() {
+        @Override
+        public void handleException(Throwable e) {
+          getLog().log(new Status(IStatus.ERROR, PLUGIN_ID,
+              "Unable to recover the journal of " + tracker, e));
+        }
+
+        @Override
+        public void run() throws Exception {
+          tracker.recover(list);
+        }
+      });
+    }
+    for (String name : records.keySet()) {
+      journal.commit(name);
+    }
+  }
+
   /**
    * Enables or disables the trackers.
    * 
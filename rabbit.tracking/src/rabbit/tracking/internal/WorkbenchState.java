@@ -0,0 +1,339 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.tracking.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.eclipse.swt.events.ShellEvent;
+import org.eclipse.swt.events.ShellListener;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.ui.IPartListener;
+import org.eclipse.ui.IPerspectiveDescriptor;
+import org.eclipse.ui.IPerspectiveListener;
+import org.eclipse.ui.IWindowListener;
+import org.eclipse.ui.IWorkbench;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchPart;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PerspectiveAdapter;
+
+import javax.annotation.Nullable;
+
+/**
+ * Keeps a snapshot of the state of the workbench, so that the state can be read
+ * from any thread without blocking on the display thread.
+ * <p>
+ * The snapshot contains the active workbench window, whether the shell of the
+ * window is active and not minimized, the active part of the window, and the
+ * perspective of the window. The snapshot is replaced by shell, window, part
+ * and perspective listeners on the display thread, and is published through a
+ * volatile field. When called on the display thread, the methods of this class
+ * read the workbench directly, so the result is never behind the listeners
+ * that are being notified of the same event.
+ * </p>
+ * <p>
+ * When {@link #isRunning()} is false, the snapshot is not updated.
+ * </p>
+ */
+public final class WorkbenchState {
+
+  /**
+   * An immutable snapshot of the workbench state.
+   */
+  private static final class Snapshot {
+    static final Snapshot EMPTY = new Snapshot(null, false, null, null);
+
+    @Nullable final IWorkbenchWindow window;
+    final boolean activeShell;
+    @Nullable final IWorkbenchPart part;
+    @Nullable final IPerspectiveDescriptor perspective;
+
+    Snapshot(@Nullable IWorkbenchWindow window, boolean activeShell,
+        @Nullable IWorkbenchPart part,
+        @Nullable IPerspectiveDescriptor perspective) {
+      this.window = window;
+      this.activeShell = activeShell;
+      this.part = part;
+      this.perspective = perspective;
+    }
+  }
+
+  private final IWorkbench workbench;
+  private volatile Snapshot snapshot;
+  private boolean isRunning;
+
+  private final ShellListener shellListener = new ShellListener() {
+    @Override
+    public void shellActivated(ShellEvent e) {
+      update();
+    }
+
+    @Override
+    public void shellClosed(ShellEvent e) {
+      update();
+    }
+
+    @Override
+    public void shellDeactivated(ShellEvent e) {
+      // The display may still report the shell as active at this point:
+      Snapshot s = snapshot;
+      if (s.window != null && s.window.getShell() == e.widget) {
+        snapshot = new Snapshot(s.window, false, s.part, s.perspective);
+      }
+    }
+
+    @Override
+    public void shellDeiconified(ShellEvent e) {
+      update();
+    }
+
+    @Override
+    public void shellIconified(ShellEvent e) {
+      update();
+    }
+  };
+
+  private final IPartListener partListener = new IPartListener() {
+    @Override
+    public void partActivated(IWorkbenchPart part) {
+      update();
+    }
+
+    @Override
+    public void partBroughtToTop(IWorkbenchPart part) {
+    }
+
+    @Override
+    public void partClosed(IWorkbenchPart part) {
+      update();
+    }
+
+    @Override
+    public void partDeactivated(IWorkbenchPart part) {
+      update();
+    }
+
+    @Override
+    public void partOpened(IWorkbenchPart part) {
+    }
+  };
+
+  private final IPerspectiveListener perspectiveListener =
+      new PerspectiveAdapter() {
+        @Override
+        public void perspectiveActivated(
+            IWorkbenchPage page, IPerspectiveDescriptor perspective) {
+          update();
+        }
+
+        @Override
+        public void perspectiveDeactivated(
+            IWorkbenchPage page, IPerspectiveDescriptor perspective) {
+          update();
+        }
+      };
+
+  private final IWindowListener windowListener = new IWindowListener() {
+    @Override
+    public void windowActivated(IWorkbenchWindow window) {
+      update();
+    }
+
+    @Override
+    public void windowClosed(IWorkbenchWindow window) {
+      deregister(window);
+      update();
+    }
+
+    @Override
+    public void windowDeactivated(IWorkbenchWindow window) {
+      update();
+    }
+
+    @Override
+    public void windowOpened(IWorkbenchWindow window) {
+      register(window);
+      update();
+    }
+  };
+
+  private final Runnable start = new Runnable() {
+    @Override
+    public void run() {
+      workbench.addWindowListener(windowListener);
+      for (IWorkbenchWindow window : workbench.getWorkbenchWindows()) {
+        register(window);
+      }
+      update();
+    }
+  };
+
+  private final Runnable stop = new Runnable() {
+    @Override
+    public void run() {
+      workbench.removeWindowListener(windowListener);
+      for (IWorkbenchWindow window : workbench.getWorkbenchWindows()) {
+        deregister(window);
+      }
+      snapshot = Snapshot.EMPTY;
+    }
+  };
+
+  /**
+   * Constructor. When constructed, this object is not yet running.
+   * @param workbench the workbench to listen to.
+   * @throws NullPointerException if {@code workbench} is null.
+   * @see #setRunning(boolean)
+   */
+  public WorkbenchState(IWorkbench workbench) {
+    this.workbench = checkNotNull(workbench, "workbench");
+    this.snapshot = Snapshot.EMPTY;
+    this.isRunning = false;
+  }
+
+  /**
+   * Gets the active part of the active workbench window.
+   * @return the active part, or null.
+   */
+  @Nullable
+  public IWorkbenchPart getActivePart() {
+    if (isDisplayThread()) {
+      IWorkbenchWindow win = workbench.getActiveWorkbenchWindow();
+      return (win == null) ? null : win.getPartService().getActivePart();
+    }
+    return snapshot.part;
+  }
+
+  /**
+   * Gets the active workbench window.
+   * @return the active workbench window, or null.
+   */
+  @Nullable
+  public IWorkbenchWindow getActiveWindow() {
+    if (isDisplayThread()) {
+      return workbench.getActiveWorkbenchWindow();
+    }
+    return snapshot.window;
+  }
+
+  /**
+   * Gets the perspective of the active workbench window.
+   * @return the perspective, or null.
+   */
+  @Nullable
+  public IPerspectiveDescriptor getPerspective() {
+    if (isDisplayThread()) {
+      return getPerspective(workbench.getActiveWorkbenchWindow());
+    }
+    return snapshot.perspective;
+  }
+
+  /**
+   * Checks whether the shell of the given window is active and not minimized.
+   * @param win the window.
+   * @return true if the window's shell is active, false otherwise or if
+   *         {@code win} is null.
+   */
+  public boolean isActiveShell(@Nullable IWorkbenchWindow win) {
+    if (win == null) {
+      return false;
+    }
+    if (isDisplayThread()) {
+      return isActiveShell(win.getShell());
+    }
+    Snapshot s = snapshot;
+    return s.window == win && s.activeShell;
+  }
+
+  /**
+   * Checks whether this object is running.
+   * @return true if running, false otherwise.
+   */
+  public synchronized boolean isRunning() {
+    return isRunning;
+  }
+
+  /**
+   * Sets whether this object should be running or not. Subsequent calls to set
+   * the same state will have no effects. If the display is disposed, calling
+   * this method has no effects.
+   * @param run true to run, false to stop.
+   */
+  public synchronized void setRunning(boolean run) {
+    Display display = workbench.getDisplay();
+    if (isRunning == run || display.isDisposed()) {
+      return;
+    }
+    isRunning = run;
+    display.syncExec(run ? start : stop);
+  }
+
+  private void deregister(IWorkbenchWindow window) {
+    window.getPartService().removePartListener(partListener);
+    window.removePerspectiveListener(perspectiveListener);
+    Shell shell = window.getShell();
+    if (shell != null && !shell.isDisposed()) {
+      shell.removeShellListener(shellListener);
+    }
+  }
+
+  private boolean isDisplayThread() {
+    return Display.getCurrent() != null;
+  }
+
+  private void register(IWorkbenchWindow window) {
+    window.getPartService().addPartListener(partListener);
+    window.addPerspectiveListener(perspectiveListener);
+    Shell shell = window.getShell();
+    if (shell != null && !shell.isDisposed()) {
+      shell.addShellListener(shellListener);
+    }
+  }
+
+  /**
+   * Takes a new snapshot of the workbench, must be called on the display
+   * thread.
+   */
+  private void update() {
+    IWorkbenchWindow win = workbench.getActiveWorkbenchWindow();
+    if (win == null) {
+      snapshot = Snapshot.EMPTY;
+      return;
+    }
+    snapshot = new Snapshot(win,
+        isActiveShell(win.getShell()),
+        win.getPartService().getActivePart(),
+        getPerspective(win));
+  }
+
+  private static boolean isActiveShell(@Nullable Shell shell) {
+    return shell != null
+        && !shell.isDisposed()
+        && shell.getDisplay().getActiveShell() == shell
+        && !shell.getMinimized();
+  }
+
+  @Nullable
+  private static IPerspectiveDescriptor getPerspective(
+      @Nullable IWorkbenchWindow win) {
+    if (win == null) {
+      return null;
+    }
+    IWorkbenchPage page = win.getActivePage();
+    return (page == null) ? null : page.getPerspective();
+  }
+}
@@ -17,6 +17,7 @@ package rabbit.tracking.internal.trackers;
 
 import rabbit.tracking.internal.IdleDetector;
 import rabbit.tracking.internal.TrackingPlugin;
+import rabbit.tracking.internal.WorkbenchState;
 import rabbit.tracking.internal.util.Recorder;
 import rabbit.tracking.internal.util.WorkbenchUtil;
 
@@ -33,11 +34,13 @@ import java.util.Observer;
 import javax.annotation.Nullable;
 
 /**
- * Defines common behaviours for part trackers.
+ * Defines common behaviours for part trackers. In sampling mode, the active
+ * part of the active window is sampled.
  * 
  * @param <E> The event type that is being tracked.
  */
-public abstract class AbstractPartTracker<E> extends AbstractTracker<E> {
+public abstract class AbstractPartTracker<E>
+    extends AbstractSampledTracker<E> {
 
   /**
    * A recorder for recording the time.
@@ -51,7 +54,12 @@ public abstract class AbstractPartTracker<E> extends AbstractTracker<E> {
 
     @Override
     public void partActivated(IWorkbenchPart part) {
-      recorder.start(part);
+      long start = getOverheadMeter().start();
+      try {
+        recorder.start(part);
+      } finally {
+        getOverheadMeter().stop(start);
+      }
     }
 
     @Override
@@ -67,7 +75,12 @@ public abstract class AbstractPartTracker<E> extends AbstractTracker<E> {
 
     @Override
     public void partDeactivated(IWorkbenchPart part) {
-      recorder.stop();
+      long start = getOverheadMeter().start();
+      try {
+        recorder.stop();
+      } finally {
+        getOverheadMeter().stop(start);
+      }
     }
 
     @Override
@@ -102,7 +115,7 @@ public abstract class AbstractPartTracker<E> extends AbstractTracker<E> {
     @Override
     public void windowOpened(IWorkbenchWindow window) {
       window.getPartService().addPartListener(partListener);
-      if (WorkbenchUtil.isActiveShell(window)) {
+      if (getWorkbenchState().isActiveShell(window)) {
         checkStart(window.getPartService().getActivePart());
       }
     }
@@ -121,7 +134,7 @@ public abstract class AbstractPartTracker<E> extends AbstractTracker<E> {
 
       if (o == TrackingPlugin.getDefault().getIdleDetector()) {
         if (((IdleDetector) o).isUserActive()) {
-          checkStart(WorkbenchUtil.getActivePart());
+          checkStart(getWorkbenchState().getActivePart());
         } else {
           recorder.stop();
         }
@@ -156,16 +169,35 @@ public abstract class AbstractPartTracker<E> extends AbstractTracker<E> {
     recorder.stop();
   }
 
+  @Override
+  public void sample() {
+    if (!isEnabled() || !isSampling()) {
+      return;
+    }
+    WorkbenchState state = getWorkbenchState();
+    IWorkbenchPart part = null;
+    if (state.isActiveShell(state.getActiveWindow())) {
+      part = state.getActivePart();
+    }
+    if (part != null) {
+      recorder.start(part);
+    } else {
+      recorder.stop();
+    }
+  }
+
   @Override
   protected void doEnable() {
     TrackingPlugin.getDefault().getIdleDetector().addObserver(observer);
-    PlatformUI.getWorkbench().addWindowListener(winListener);
-    for (IPartService s : WorkbenchUtil.getPartServices()) {
-      s.addPartListener(partListener);
+    if (!isSampling()) {
+      PlatformUI.getWorkbench().addWindowListener(winListener);
+      for (IPartService s : WorkbenchUtil.getPartServices()) {
+        s.addPartListener(partListener);
+      }
     }
-    IWorkbenchWindow win = WorkbenchUtil.getActiveWindow();
-    if (WorkbenchUtil.isActiveShell(win)) {
-      checkStart(win.getPartService().getActivePart());
+    WorkbenchState state = getWorkbenchState();
+    if (state.isActiveShell(state.getActiveWindow())) {
+      checkStart(state.getActivePart());
     }
   }
 
@@ -180,6 +212,13 @@ public abstract class AbstractPartTracker<E> extends AbstractTracker<E> {
   protected abstract E tryCreateEvent(long startMillis, long endMillis,
       IWorkbenchPart part);
 
+  /**
+   * @return the workbench state of the tracking plug-in.
+   */
+  private WorkbenchState getWorkbenchState() {
+    return TrackingPlugin.getDefault().getWorkbenchState();
+  }
+
   /**
    * If the given part is not null, calls {@link Recorder#start(Object)} on it.
    * 
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.tracking.internal.trackers;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import rabbit.data.internal.diagnostics.Diagnostics;
+import rabbit.tracking.internal.ISampledTracker;
+import rabbit.tracking.internal.OverheadMeter;
+import rabbit.tracking.internal.TrackingPlugin;
+
+/**
+ * Defines common behaviours for trackers that support sampling mode.
+ * <p>
+ * Subclasses check {@link #isSampling()} in {@link #doEnable()} to decide
+ * which listeners to register, and implement {@link #sample()}.
+ * </p>
+ * 
+ * @param <T> The type of the data of the tracker.
+ */
+public abstract class AbstractSampledTracker<T> extends AbstractTracker<T>
+    implements ISampledTracker<T> {
+
+  private volatile boolean isSampling;
+
+  /** Measures this tracker, created on first use. */
+  private volatile OverheadMeter meter;
+
+  /**
+   * Constructs a new tracker in event driven mode.
+   */
+  public AbstractSampledTracker() {
+    super();
+    isSampling = false;
+  }
+
+  @Override
+  public boolean isSampling() {
+    return isSampling;
+  }
+
+  @Override
+  public void setSampling(boolean sampling) {
+    checkState(!isEnabled(), "Tracker must be disabled to change its mode");
+    isSampling = sampling;
+  }
+
+  /**
+   * Gets the meter for measuring the time spent reacting to events in event
+   * driven mode. The measurements of this tracker are also added to the meter
+   * of the plug-in, see {@link TrackingPlugin#getOverheadMeter()}, and to the
+   * histogram {@code <Tracker>.callback} of {@link Diagnostics}.
+   * 
+   * @return The meter.
+   */
+  protected final OverheadMeter getOverheadMeter() {
+    if (meter == null) {
+      meter = new OverheadMeter(TrackingPlugin.getDefault().getOverheadMeter(),
+          Diagnostics.histogram(Diagnostics.nameOf(getClass()) + ".callback"));
+    }
+    return meter;
+  }
+}
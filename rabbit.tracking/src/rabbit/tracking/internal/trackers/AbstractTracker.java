@@ -15,20 +15,42 @@
  */
 package rabbit.tracking.internal.trackers;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import rabbit.data.internal.diagnostics.Diagnostics;
+import rabbit.data.internal.diagnostics.LatencyHistogram;
+import rabbit.data.store.EventBus;
 import rabbit.data.store.IStorer;
-import rabbit.tracking.ITracker;
+import rabbit.tracking.internal.IJournaledTracker;
+import rabbit.tracking.internal.Journal;
 
 import org.eclipse.core.runtime.Assert;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
 
 /**
  * Defines common behaviors for a tracker.
+ * <p>
+ * If a subclass provides a codec, see {@link #createJournalCodec()}, the data
+ * is recorded in the journal set by {@link #setJournal(Journal)} as it is
+ * added, and committed once it is saved or flushed.
+ * </p>
+ * <p>
+ * The data is also published on the {@link EventBus} as it is added, so that
+ * it can be shown before it is saved.
+ * </p>
  */
-public abstract class AbstractTracker<T> implements ITracker<T> {
+public abstract class AbstractTracker<T> implements IJournaledTracker<T> {
 
   /** Variable to indicate whether this tracker is activated. */
   private boolean isEnabled;
@@ -37,6 +59,16 @@ public abstract class AbstractTracker<T> implements ITracker<T> {
 
   private IStorer<T> storer;
 
+  private final String journalName;
+  @Nullable private volatile Journal journal;
+  @Nullable private Journal.Codec<T> codec;
+
+  private final LatencyHistogram addDataLatency;
+  private final LatencyHistogram saveDataLatency;
+
+  /** The number of events held by this tracker, not yet saved. */
+  private final AtomicLong bufferSize;
+
   /**
    * Constructs a new tracker.
    */
@@ -45,20 +77,51 @@ public abstract class AbstractTracker<T> implements ITracker<T> {
     data = new LinkedHashSet<T>();
     storer = createDataStorer();
     Assert.isNotNull(storer);
+    journalName = getClass().getName();
+
+    String name = Diagnostics.nameOf(getClass());
+    addDataLatency = Diagnostics.histogram(name + ".addData");
+    saveDataLatency = Diagnostics.histogram(name + ".saveData");
+    bufferSize = Diagnostics.counter(name + ".bufferSize");
   }
 
   /**
-   * Adds an event data to the collection.
+   * Adds an event data to the collection, see {@link #bufferData(Object)},
+   * and publishes it on the {@link EventBus}.
    * 
    * @param o The data.
    */
-  public void addData(T o) {
+  public final void addData(T o) {
+    long start = addDataLatency.start();
+    bufferData(o);
+    Journal j = journal;
+    if (j != null) {
+      j.append(journalName, o, codec);
+    }
+    EventBus bus = EventBus.getDefault();
+    if (bus.hasListeners()) {
+      bus.publish(o);
+    }
+    addDataLatency.stop(start);
+  }
+
+  /**
+   * Holds an event data until it is saved, called by {@link #addData(Object)}.
+   * Subclasses holding the data in a different form should also override
+   * {@link #getData()} and {@link #flushData()}.
+   * 
+   * @param o The data.
+   */
+  protected void bufferData(T o) {
     data.add(o);
+    bufferSize.set(data.size());
   }
 
   @Override
   public void flushData() {
     data.clear();
+    bufferSize.set(0);
+    commitJournal();
   }
 
   @Override
@@ -74,9 +137,38 @@ public abstract class AbstractTracker<T> implements ITracker<T> {
   @Override
   public void saveData() {
     if (!getData().isEmpty()) {
+      long start = saveDataLatency.start();
       storer.insert(getData());
       storer.commit();
+      saveDataLatency.stop(start);
+    }
+    commitJournal();
+  }
+
+  @Override
+  public void recover(List<byte[]> records) {
+    checkNotNull(records, "records");
+    Journal.Codec<T> c = getJournalCodec();
+    if (c == null || records.isEmpty()) {
+      return;
     }
+    for (byte[] record : records) {
+      try {
+        T event = c.read(new DataInputStream(new ByteArrayInputStream(record)));
+        if (event != null) {
+          data.add(event);
+        }
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+    saveData();
+    flushData();
+  }
+
+  @Override
+  public void setJournal(@Nullable Journal journal) {
+    this.journal = (getJournalCodec() == null) ? null : journal;
   }
 
   @Override
@@ -93,6 +185,18 @@ public abstract class AbstractTracker<T> implements ITracker<T> {
     }
   }
 
+  /**
+   * Creates the codec for recording the data of this tracker in a journal. The
+   * default implementation returns null, subclasses that support journaling
+   * should override this method.
+   * 
+   * @return A codec, or null if the data of this tracker is not journaled.
+   */
+  @Nullable
+  protected Journal.Codec<T> createJournalCodec() {
+    return null;
+  }
+
   /**
    * Creates a storer for storing the data.
    * 
@@ -133,4 +237,35 @@ public abstract class AbstractTracker<T> implements ITracker<T> {
    * @see #setEnabled(boolean)
    */
   protected abstract void doEnable();
+
+  /**
+   * Replaces the data of this tracker with the given data, without recording
+   * it in the journal again. For subclasses that transform their data before
+   * saving.
+   * 
+   * @param events The new data.
+   */
+  protected void replaceData(Collection<? extends T> events) {
+    data.clear();
+    data.addAll(events);
+    bufferSize.set(data.size());
+  }
+
+  /**
+   * Commits the journaled data, after it is saved or discarded.
+   */
+  private void commitJournal() {
+    Journal j = journal;
+    if (j != null) {
+      j.commit(journalName);
+    }
+  }
+
+  @Nullable
+  private Journal.Codec<T> getJournalCodec() {
+    if (codec == null) {
+      codec = createJournalCodec();
+    }
+    return codec;
+  }
 }
@@ -16,9 +16,13 @@
 package rabbit.tracking.internal.trackers;
 
 import rabbit.data.handler.DataHandler;
+import rabbit.data.internal.diagnostics.Diagnostics;
 import rabbit.data.store.IStorer;
 import rabbit.data.store.model.CommandEvent;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
 import org.eclipse.core.commands.ExecutionEvent;
 import org.eclipse.core.commands.ExecutionException;
 import org.eclipse.core.commands.IExecutionListener;
@@ -26,9 +30,21 @@ import org.eclipse.core.commands.NotHandledException;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.commands.ICommandService;
 import org.joda.time.DateTime;
+import org.joda.time.LocalDate;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Tracks command executions.
+ * <p>
+ * Executions are counted in place, one counter per command per day, so the
+ * memory used by this tracker does not grow with the number of executions.
+ * </p>
  */
 public class CommandTracker extends AbstractTracker<CommandEvent> implements
     IExecutionListener {
@@ -41,41 +57,136 @@ public class CommandTracker extends AbstractTracker<CommandEvent> implements
    * command is called to be execute, even if the command is non-executable at
    * that moment. For example, when there is nothing to undo in an editor, the
    * "Undo" menu is disabled, but if the user uses Ctrl+Z, the undo command will
-   * still be called. Therefore we don't use preExecute(String, ExecutionEvent).
+   * still be called. Therefore we only use preExecute(String, ExecutionEvent)
+   * to remember when the command was started, the start time of a command that
+   * is not executed is replaced the next time the command is called.
+   */
+
+  /**
+   * The executions of a command on a day, updated in place.
    */
+  private static final class Counter {
+    DateTime time;
+    int count;
+    long duration;
+    final int[] latencies = new int[CommandEvent.LATENCY_BUCKETS];
+
+    void add(CommandEvent event) {
+      if (time == null || time.isBefore(event.getTime())) {
+        time = event.getTime();
+      }
+      count += event.getCount();
+      duration += event.getDuration();
+      int[] other = event.getLatencies();
+      for (int i = 0; i < latencies.length; i++) {
+        latencies[i] += other[i];
+      }
+    }
+
+    CommandEvent toEvent(String commandId) {
+      return new CommandEvent(time, commandId, count, duration, latencies);
+    }
+  }
 
   /**
-   * The last recorded ExecutionEvent, to be updated every time
-   * {@link #preExecute(String, ExecutionEvent)} is called. We need this because
-   * {@link #postExecuteSuccess(String, Object)} does not have an
-   * {@link ExecutionEvent} parameter. This variable is null from the beginning.
+   * The counters of each day, by command ID. Guarded by itself.
    */
-  private ExecutionEvent lastEvent;
-  
+  private final Map<LocalDate, Map<String, Counter>> counters;
+
+  /**
+   * The {@link System#nanoTime()} of the last call to
+   * {@link #preExecute(String, ExecutionEvent)} of each command, removed when
+   * the execution of the command finishes. Guarded by {@link #counters}.
+   */
+  private final Map<String, Long> startTimes;
+
+  private final AtomicLong bufferSize;
+
   /** Constructor. */
   public CommandTracker() {
     super();
-    lastEvent = null;
+    counters = Maps.newHashMap();
+    startTimes = Maps.newHashMap();
+    bufferSize = Diagnostics.counter(
+        Diagnostics.nameOf(getClass()) + ".bufferSize");
+  }
+
+  /**
+   * Adds the executions of the given event to the counter of the command on
+   * the day of the event.
+   * 
+   * @param event The event.
+   */
+  @Override
+  protected void bufferData(CommandEvent event) {
+    LocalDate date = event.getTime().toLocalDate();
+    synchronized (counters) {
+      Map<String, Counter> day = counters.get(date);
+      if (day == null) {
+        day = Maps.newHashMap();
+        counters.put(date, day);
+      }
+      Counter counter = day.get(event.getCommandId());
+      if (counter == null) {
+        counter = new Counter();
+        day.put(event.getCommandId(), counter);
+        bufferSize.incrementAndGet();
+      }
+      counter.add(event);
+    }
+  }
+
+  @Override
+  public void flushData() {
+    synchronized (counters) {
+      counters.clear();
+      bufferSize.set(0);
+    }
+  }
+
+  /**
+   * Gets a snapshot of the counters, one event per command per day.
+   * 
+   * @return The events.
+   */
+  @Override
+  public Collection<CommandEvent> getData() {
+    synchronized (counters) {
+      List<CommandEvent> data = Lists.newArrayList();
+      for (Map<String, Counter> day : counters.values()) {
+        for (Map.Entry<String, Counter> entry : day.entrySet()) {
+          data.add(entry.getValue().toEvent(entry.getKey()));
+        }
+      }
+      return Collections.unmodifiableList(data);
+    }
   }
 
   @Override
   public void notHandled(String commandId, NotHandledException exception) {
+    removeStartTime(commandId);
   }
 
   @Override
   public void postExecuteFailure(String commandId, ExecutionException e) {
+    removeStartTime(commandId);
   }
 
   @Override
   public void postExecuteSuccess(String commandId, Object returnValue) {
-    if (lastEvent != null && lastEvent.getCommand().getId().equals(commandId)) {
-      addData(new CommandEvent(new DateTime(), lastEvent));
+    long end = System.nanoTime();
+    Long start = removeStartTime(commandId);
+    if (start != null) {
+      long duration = TimeUnit.NANOSECONDS.toMillis(Math.max(0, end - start));
+      addData(new CommandEvent(new DateTime(), commandId, duration));
     }
   }
 
   @Override
   public void preExecute(String commandId, ExecutionEvent event) {
-    lastEvent = event;
+    synchronized (counters) {
+      startTimes.put(commandId, System.nanoTime());
+    }
   }
 
   @Override
@@ -86,6 +197,9 @@ public class CommandTracker extends AbstractTracker<CommandEvent> implements
   @Override
   protected void doDisable() {
     getCommandService().removeExecutionListener(this);
+    synchronized (counters) {
+      startTimes.clear();
+    }
   }
 
   @Override
@@ -98,4 +212,10 @@ public class CommandTracker extends AbstractTracker<CommandEvent> implements
         ICommandService.class);
   }
 
+  private Long removeStartTime(String commandId) {
+    synchronized (counters) {
+      return startTimes.remove(commandId);
+    }
+  }
+
 }
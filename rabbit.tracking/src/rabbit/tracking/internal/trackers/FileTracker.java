@@ -18,6 +18,12 @@ package rabbit.tracking.internal.trackers;
 import rabbit.data.handler.DataHandler;
 import rabbit.data.store.IStorer;
 import rabbit.data.store.model.FileEvent;
+import rabbit.tracking.internal.BranchResolver;
+import rabbit.tracking.internal.Journal;
+import rabbit.tracking.internal.TrackingPlugin;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.IPath;
@@ -29,7 +35,14 @@ import org.eclipse.ui.IURIEditorInput;
 import org.eclipse.ui.IWorkbenchPart;
 import org.joda.time.Interval;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.net.URI;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Tracks time spent on files.
@@ -43,11 +56,38 @@ public class FileTracker extends AbstractPartTracker<FileEvent> {
     super();
   }
 
+  /**
+   * Tags the events with the version control branches of their files before
+   * saving, see {@link BranchResolver}.
+   */
+  @Override
+  public void saveData() {
+    attributeBranches();
+    super.saveData();
+  }
+
   @Override
   protected IStorer<FileEvent> createDataStorer() {
     return DataHandler.getStorer(FileEvent.class);
   }
 
+  @Override
+  protected Journal.Codec<FileEvent> createJournalCodec() {
+    return new Journal.Codec<FileEvent>() {
+      @Override
+      public FileEvent read(DataInput in) throws IOException {
+        Interval interval = Journal.readInterval(in);
+        return new FileEvent(interval, Path.fromPortableString(in.readUTF()));
+      }
+
+      @Override
+      public void write(FileEvent event, DataOutput out) throws IOException {
+        Journal.writeInterval(event.getInterval(), out);
+        out.writeUTF(event.getFilePath().toPortableString());
+      }
+    };
+  }
+
   @Override
   protected FileEvent tryCreateEvent(long start, long end, IWorkbenchPart part) {
 
@@ -78,4 +118,40 @@ public class FileTracker extends AbstractPartTracker<FileEvent> {
     }
     return null;
   }
+
+  /**
+   * Replaces the events that have no branch with events tagged with the
+   * current branches of their files. The branches are resolved once per
+   * distinct file.
+   */
+  private void attributeBranches() {
+    Collection<FileEvent> data = getData();
+    Set<IPath> paths = Sets.newHashSet();
+    for (FileEvent event : data) {
+      if (event.getBranch() == null) {
+        paths.add(event.getFilePath());
+      }
+    }
+    if (paths.isEmpty()) {
+      return;
+    }
+    Map<IPath, String> branches =
+        TrackingPlugin.getDefault().getBranchResolver().resolveAll(paths);
+    if (branches.isEmpty()) {
+      return;
+    }
+
+    List<FileEvent> attributed = Lists.newArrayListWithCapacity(data.size());
+    for (FileEvent event : data) {
+      String branch = branches.get(event.getFilePath());
+      if (event.getBranch() != null || branch == null) {
+        attributed.add(event);
+      } else {
+        attributed.add(
+            new FileEvent(event.getInterval(), event.getFilePath(), branch));
+      }
+    }
+    // Replace the old data with the attributed:
+    replaceData(attributed);
+  }
 }
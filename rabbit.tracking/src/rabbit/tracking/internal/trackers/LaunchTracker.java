@@ -20,11 +20,17 @@ import rabbit.data.store.IStorer;
 import rabbit.data.store.model.LaunchEvent;
 import rabbit.tracking.internal.util.Recorder;
 
-import com.google.common.collect.Maps;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Sets;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.debug.core.DebugEvent;
 import org.eclipse.debug.core.DebugException;
 import org.eclipse.debug.core.DebugPlugin;
@@ -32,6 +38,7 @@ import org.eclipse.debug.core.IDebugEventSetListener;
 import org.eclipse.debug.core.ILaunch;
 import org.eclipse.debug.core.ILaunchConfiguration;
 import org.eclipse.debug.core.ILaunchConfigurationType;
+import org.eclipse.debug.core.ILaunchesListener2;
 import org.eclipse.debug.core.model.IProcess;
 import org.eclipse.debug.core.model.ISourceLocator;
 import org.eclipse.debug.core.model.IStackFrame;
@@ -39,17 +46,46 @@ import org.eclipse.debug.core.model.IThread;
 import org.joda.time.Interval;
 
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nullable;
 
 /**
  * Tracks launch events.
+ * <p>
+ * The state of a launch is kept from the creation of its first process until
+ * the launch is terminated or removed. The files of a debug launch are the
+ * workspace files of the top stack frames of its suspended threads. Frames are
+ * not resolved to files on the debug event thread, instead the latest frame of
+ * each thread is handed to a background job, so quickly stepping through code
+ * only resolves the frame the thread stops at. Resolved frames are cached,
+ * debug models such as JDT keep using the same frame object while a thread
+ * steps within a method.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
  */
 public class LaunchTracker extends AbstractTracker<LaunchEvent> {
 
+  /**
+   * The time in milliseconds to wait for more suspend events before resolving
+   * the pending frames.
+   */
+  private static final long RESOLVE_DELAY = 100;
+
+  /**
+   * A placeholder for frames that are not in a workspace file, as the cache
+   * doesn't allow null values.
+   */
+  private static final IPath NO_FILE = Path.EMPTY;
+
   private final IDebugEventSetListener listener = new IDebugEventSetListener() {
     @Override
     public void handleDebugEvents(DebugEvent[] events) {
@@ -59,48 +95,97 @@ public class LaunchTracker extends AbstractTracker<LaunchEvent> {
     }
   };
 
+  private final ILaunchesListener2 launchesListener = new ILaunchesListener2() {
+    @Override
+    public void launchesAdded(ILaunch[] launches) {
+    }
+
+    @Override
+    public void launchesChanged(ILaunch[] launches) {
+    }
+
+    @Override
+    public void launchesRemoved(ILaunch[] launches) {
+      for (ILaunch launch : launches) {
+        release(launch);
+      }
+    }
+
+    @Override
+    public void launchesTerminated(ILaunch[] launches) {
+      for (ILaunch launch : launches) {
+        stop(launch);
+        release(launch);
+      }
+    }
+  };
+
   private final Observer observer = new Observer() {
     @Override
     public void update(Observable o, Object arg) {
-      if (recorders.values().contains(o)) {
-        @SuppressWarnings("unchecked")
-        Recorder<ILaunch> recorder = (Recorder<ILaunch>) o;
-        long start = recorder.getLastRecord().getStartTimeMillis();
-        long end = recorder.getLastRecord().getEndTimeMillis();
-        ILaunch launch = recorder.getLastRecord().getUserData();
-        ILaunchConfiguration config = launch.getLaunchConfiguration();
-        if (config == null) {
-          return;
-        }
-        ILaunchConfigurationType type = null;
-        try {
-          type = config.getType();
-        } catch (CoreException e) {
-          e.printStackTrace();
-          return;
-        }
-        
-        Set<IPath> files = launchFiles.get(launch);
-        if (files == null) {
-          files = Collections.emptySet();
-        }
-        
-        Interval interval = new Interval(start, end);
-        addData(new LaunchEvent(interval, launch, config, type, files));
+      @SuppressWarnings("unchecked")
+      Recorder<ILaunch> recorder = (Recorder<ILaunch>) o;
+      ILaunch launch = recorder.getLastRecord().getUserData();
+      if (launch == null || recorders.get(launch) != recorder) {
+        return;
+      }
+      long start = recorder.getLastRecord().getStartTimeMillis();
+      long end = recorder.getLastRecord().getEndTimeMillis();
+      ILaunchConfiguration config = launch.getLaunchConfiguration();
+      if (config == null) {
+        return;
       }
+      ILaunchConfigurationType type = null;
+      try {
+        type = config.getType();
+      } catch (CoreException e) {
+        e.printStackTrace();
+        return;
+      }
+
+      Set<IPath> files = launchFiles.get(launch);
+      if (files == null) {
+        files = Collections.emptySet();
+      }
+
+      Interval interval = new Interval(start, end);
+      addData(new LaunchEvent(interval, launch, config, type, files));
+    }
+  };
+
+  private final Job resolver = new Job("Resolving launch source locations") {
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      resolvePending(null);
+      return Status.OK_STATUS;
     }
   };
 
   /** A map of launches and the files involved (for debug launches). */
-  private final Map<ILaunch, Set<IPath>> launchFiles = Maps.newHashMap();
+  private final ConcurrentMap<ILaunch, Set<IPath>> launchFiles;
 
   /** One recorder for each launch. */
-  private final Map<ILaunch, Recorder<ILaunch>> recorders = Maps.newHashMap();
+  private final ConcurrentMap<ILaunch, Recorder<ILaunch>> recorders;
+
+  /** The latest top stack frame of each suspended thread, not yet resolved. */
+  private final ConcurrentMap<IThread, IStackFrame> pending;
+
+  /**
+   * Frames to the paths of their files, or to {@link #NO_FILE}. Keys are weak
+   * and compared by identity.
+   */
+  private final ConcurrentMap<IStackFrame, IPath> resolved;
 
   /**
    * Constructs a new tracker.
    */
   public LaunchTracker() {
+    launchFiles = new ConcurrentHashMap<ILaunch, Set<IPath>>();
+    recorders = new ConcurrentHashMap<ILaunch, Recorder<ILaunch>>();
+    pending = new ConcurrentHashMap<IThread, IStackFrame>();
+    resolved = new MapMaker().weakKeys().makeMap();
+    resolver.setSystem(true);
+    resolver.setPriority(Job.DECORATE);
   }
 
   @Override
@@ -112,14 +197,46 @@ public class LaunchTracker extends AbstractTracker<LaunchEvent> {
   protected void doDisable() {
     DebugPlugin debug = DebugPlugin.getDefault();
     debug.removeDebugEventListener(listener);
+    debug.getLaunchManager().removeLaunchListener(launchesListener);
+    resolver.cancel();
+    pending.clear();
   }
 
   @Override
   protected void doEnable() {
     DebugPlugin debug = DebugPlugin.getDefault();
+    debug.getLaunchManager().addLaunchListener(launchesListener);
     debug.addDebugEventListener(listener);
   }
 
+  /**
+   * Adds the file of the given frame to the files of the launch. Has no effects
+   * if the launch is not being recorded, such as a launch that has been
+   * released.
+   * 
+   * @param launch The launch.
+   * @param path The path of the file, or {@link #NO_FILE}.
+   */
+  private void addFile(ILaunch launch, IPath path) {
+    if (path == NO_FILE || !recorders.containsKey(launch)) {
+      return;
+    }
+    Set<IPath> paths = launchFiles.get(launch);
+    if (paths == null) {
+      Set<IPath> newPaths =
+          Sets.newSetFromMap(new ConcurrentHashMap<IPath, Boolean>());
+      paths = launchFiles.putIfAbsent(launch, newPaths);
+      if (paths == null) {
+        paths = newPaths;
+      }
+    }
+    paths.add(path);
+    // The launch may have been released since it was checked above:
+    if (!recorders.containsKey(launch)) {
+      launchFiles.remove(launch, paths);
+    }
+  }
+
   /**
    * Handles an event.
    * 
@@ -147,18 +264,24 @@ public class LaunchTracker extends AbstractTracker<LaunchEvent> {
 
     // Records the start time of this launch:
     if (event.getKind() == DebugEvent.CREATE) {
+      if (launch.isTerminated()) {
+        return;
+      }
       Recorder<ILaunch> r = recorders.get(launch);
       if (r == null) {
-        r = new Recorder<ILaunch>();
-        r.addObserver(observer);
-        recorders.put(launch, r);
+        Recorder<ILaunch> newRecorder = new Recorder<ILaunch>();
+        newRecorder.addObserver(observer);
+        r = recorders.putIfAbsent(launch, newRecorder);
+        if (r == null) {
+          r = newRecorder;
+        }
       }
       r.start(launch);
 
     } else if (event.getKind() == DebugEvent.TERMINATE) {
-      Recorder<ILaunch> r = recorders.get(launch);
-      if (r != null) {
-        r.stop();
+      stop(launch);
+      if (launch.isTerminated()) {
+        release(launch);
       }
     }
   }
@@ -177,8 +300,8 @@ public class LaunchTracker extends AbstractTracker<LaunchEvent> {
     }
 
     ILaunch launch = thread.getLaunch();
-    ILaunchConfiguration config = launch.getLaunchConfiguration();
-    if (config == null) {
+    if (launch.getLaunchConfiguration() == null
+        || !recorders.containsKey(launch)) {
       return;
     }
 
@@ -193,22 +316,101 @@ public class LaunchTracker extends AbstractTracker<LaunchEvent> {
       return;
     }
 
+    IPath path = resolved.get(stack);
+    if (path != null) {
+      addFile(launch, path);
+    } else {
+      pending.put(thread, stack);
+      resolver.schedule(RESOLVE_DELAY);
+    }
+  }
+
+  /**
+   * Releases the state kept for the given launch.
+   * 
+   * @param launch The launch.
+   */
+  private void release(ILaunch launch) {
+    Recorder<ILaunch> r = recorders.remove(launch);
+    if (r != null) {
+      r.deleteObserver(observer);
+    }
+    launchFiles.remove(launch);
+    for (Iterator<IThread> it = pending.keySet().iterator(); it.hasNext();) {
+      if (it.next().getLaunch() == launch) {
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Resolves a frame to the path of its file.
+   * 
+   * @param launch The launch of the frame.
+   * @param frame The frame.
+   * @return The path, or {@link #NO_FILE}.
+   */
+  private IPath resolve(ILaunch launch, IStackFrame frame) {
+    IPath path = resolved.get(frame);
+    if (path != null) {
+      return path;
+    }
     ISourceLocator sourceLocator = launch.getSourceLocator();
     if (sourceLocator == null) {
-      return;
+      return NO_FILE;
     }
 
-    Object element = sourceLocator.getSourceElement(stack);
+    Object element = null;
+    try {
+      element = sourceLocator.getSourceElement(frame);
+    } catch (RuntimeException e) {
+      element = null;
+    }
 
     // Element is a file in workspace, record it:
-    if (element != null && element instanceof IFile) {
-      IFile file = (IFile) element;
-      Set<IPath> filePaths = launchFiles.get(launch);
-      if (filePaths == null) {
-        filePaths = new HashSet<IPath>(3);
-        launchFiles.put(launch, filePaths);
+    if (element instanceof IFile) {
+      path = ((IFile) element).getFullPath();
+    } else if (frame.getThread().isSuspended()) {
+      path = NO_FILE;
+    } else {
+      // The thread has resumed since the frame was queued, the frame may not
+      // be valid anymore, so the result is not cached:
+      return NO_FILE;
+    }
+    resolved.put(frame, path);
+    return path;
+  }
+
+  /**
+   * Resolves the pending frames.
+   * 
+   * @param launch The launch to resolve the frames of, or null to resolve the
+   *        frames of all launches.
+   */
+  private void resolvePending(@Nullable ILaunch launch) {
+    for (Map.Entry<IThread, IStackFrame> entry : pending.entrySet()) {
+      IThread thread = entry.getKey();
+      ILaunch threadLaunch = thread.getLaunch();
+      if (launch != null && threadLaunch != launch) {
+        continue;
       }
-      filePaths.add(file.getFullPath());
+      if (pending.remove(thread, entry.getValue())) {
+        addFile(threadLaunch, resolve(threadLaunch, entry.getValue()));
+      }
+    }
+  }
+
+  /**
+   * Stops recording the given launch, after resolving its pending frames so
+   * that its event includes all its files.
+   * 
+   * @param launch The launch.
+   */
+  private void stop(ILaunch launch) {
+    Recorder<ILaunch> r = recorders.get(launch);
+    if (r != null) {
+      resolvePending(launch);
+      r.stop();
     }
   }
 }
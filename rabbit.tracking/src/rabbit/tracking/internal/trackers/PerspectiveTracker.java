@@ -19,7 +19,9 @@ import rabbit.data.handler.DataHandler;
 import rabbit.data.store.IStorer;
 import rabbit.data.store.model.PerspectiveEvent;
 import rabbit.tracking.internal.IdleDetector;
+import rabbit.tracking.internal.Journal;
 import rabbit.tracking.internal.TrackingPlugin;
+import rabbit.tracking.internal.WorkbenchState;
 import rabbit.tracking.internal.util.Recorder;
 import rabbit.tracking.internal.util.WorkbenchUtil;
 
@@ -32,15 +34,20 @@ import org.eclipse.ui.PerspectiveAdapter;
 import org.eclipse.ui.PlatformUI;
 import org.joda.time.Interval;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Observable;
 import java.util.Observer;
 
 import javax.annotation.Nullable;
 
 /**
- * Tracker for tracking on perspective usage.
+ * Tracker for tracking on perspective usage. In sampling mode, the perspective
+ * of the active window is sampled.
  */
-public class PerspectiveTracker extends AbstractTracker<PerspectiveEvent> {
+public class PerspectiveTracker extends
+    AbstractSampledTracker<PerspectiveEvent> {
 
   /**
    * A recorder for recording the time.
@@ -82,13 +89,23 @@ public class PerspectiveTracker extends AbstractTracker<PerspectiveEvent> {
     @Override
     public void perspectiveActivated(IWorkbenchPage page,
         IPerspectiveDescriptor perspective) {
-      recorder.start(perspective);
+      long start = getOverheadMeter().start();
+      try {
+        recorder.start(perspective);
+      } finally {
+        getOverheadMeter().stop(start);
+      }
     }
 
     @Override
     public void perspectiveDeactivated(IWorkbenchPage page,
         IPerspectiveDescriptor perspective) {
-      recorder.stop();
+      long start = getOverheadMeter().start();
+      try {
+        recorder.stop();
+      } finally {
+        getOverheadMeter().stop(start);
+      }
     }
   };
 
@@ -113,7 +130,7 @@ public class PerspectiveTracker extends AbstractTracker<PerspectiveEvent> {
     @Override
     public void windowOpened(IWorkbenchWindow win) {
       win.addPerspectiveListener(persplistener);
-      if (WorkbenchUtil.isActiveShell(win)) {
+      if (getWorkbenchState().isActiveShell(win)) {
         checkStart(win);
       }
     }
@@ -131,6 +148,26 @@ public class PerspectiveTracker extends AbstractTracker<PerspectiveEvent> {
     return DataHandler.getStorer(PerspectiveEvent.class);
   }
 
+  @Override
+  protected Journal.Codec<PerspectiveEvent> createJournalCodec() {
+    return new Journal.Codec<PerspectiveEvent>() {
+      @Override
+      public PerspectiveEvent read(DataInput in) throws IOException {
+        Interval interval = Journal.readInterval(in);
+        IPerspectiveDescriptor p = PlatformUI.getWorkbench()
+            .getPerspectiveRegistry().findPerspectiveWithId(in.readUTF());
+        return (p == null) ? null : new PerspectiveEvent(interval, p);
+      }
+
+      @Override
+      public void write(PerspectiveEvent event, DataOutput out)
+          throws IOException {
+        Journal.writeInterval(event.getInterval(), out);
+        out.writeUTF(event.getPerspective().getId());
+      }
+    };
+  }
+
   @Override
   protected void doDisable() {
     recorder.stop();
@@ -141,23 +178,45 @@ public class PerspectiveTracker extends AbstractTracker<PerspectiveEvent> {
     PlatformUI.getWorkbench().removeWindowListener(winlistener);
   }
 
+  @Override
+  public void sample() {
+    if (!isEnabled() || !isSampling()) {
+      return;
+    }
+    WorkbenchState state = getWorkbenchState();
+    IPerspectiveDescriptor p = null;
+    if (state.isActiveShell(state.getActiveWindow())) {
+      p = state.getPerspective();
+    }
+    if (p != null) {
+      recorder.start(p);
+    } else {
+      recorder.stop();
+    }
+  }
+
   @Override
   protected void doEnable() {
     checkStart();
-    for (IWorkbenchWindow win : getWorkbenchWindows()) {
-      win.addPerspectiveListener(persplistener);
-    }
     TrackingPlugin.getDefault().getIdleDetector().addObserver(observer);
-    PlatformUI.getWorkbench().addWindowListener(winlistener);
+    if (!isSampling()) {
+      for (IWorkbenchWindow win : getWorkbenchWindows()) {
+        win.addPerspectiveListener(persplistener);
+      }
+      PlatformUI.getWorkbench().addWindowListener(winlistener);
+    }
   }
 
   /**
    * Checks the conditions and starts recording if OK.
    */
   private void checkStart() {
-    IWorkbenchWindow win = WorkbenchUtil.getActiveWindow();
-    if (WorkbenchUtil.isActiveShell(win)) {
-      checkStart(win);
+    WorkbenchState state = getWorkbenchState();
+    if (state.isActiveShell(state.getActiveWindow())) {
+      IPerspectiveDescriptor p = state.getPerspective();
+      if (p != null) {
+        recorder.start(p);
+      }
     }
   }
 
@@ -173,6 +232,13 @@ public class PerspectiveTracker extends AbstractTracker<PerspectiveEvent> {
     }
   }
 
+  /**
+   * @return The workbench state of the tracking plug-in.
+   */
+  private WorkbenchState getWorkbenchState() {
+    return TrackingPlugin.getDefault().getWorkbenchState();
+  }
+
   /**
    * @return All workbench windows.
    */
@@ -19,15 +19,17 @@ import rabbit.data.handler.DataHandler;
 import rabbit.data.store.IStorer;
 import rabbit.data.store.model.SessionEvent;
 import rabbit.tracking.internal.IdleDetector;
+import rabbit.tracking.internal.Journal;
 import rabbit.tracking.internal.TrackingPlugin;
+import rabbit.tracking.internal.WorkbenchState;
 import rabbit.tracking.internal.util.Recorder;
 import rabbit.tracking.internal.util.Recorder.Record;
-import rabbit.tracking.internal.util.WorkbenchUtil;
 
-import org.eclipse.ui.IWorkbenchWindow;
-import org.eclipse.ui.PlatformUI;
 import org.joda.time.Interval;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Observable;
 import java.util.Observer;
 
@@ -48,7 +50,7 @@ public class SessionTracker extends AbstractTracker<SessionEvent> {
       if (o == TrackingPlugin.getDefault().getIdleDetector()) {
         IdleDetector dt = (IdleDetector) o;
         if (dt.isUserActive()) {
-          PlatformUI.getWorkbench().getDisplay().syncExec(startRecorder);
+          checkStart();
         } else {
           recorder.stop();
         }
@@ -62,18 +64,6 @@ public class SessionTracker extends AbstractTracker<SessionEvent> {
     }
   };
 
-  private final Runnable startRecorder = new Runnable() {
-    @Override
-    public void run() {
-      // Check for active shell instead of active workbench window to include
-      // dialogs (!shell.getMinimized() is also important, why?):
-      IWorkbenchWindow win = WorkbenchUtil.getActiveWindow();
-      if (WorkbenchUtil.isActiveShell(win)) {
-        recorder.start();
-      }
-    }
-  };
-
   /**
    * Constructor.
    */
@@ -86,6 +76,21 @@ public class SessionTracker extends AbstractTracker<SessionEvent> {
     return DataHandler.getStorer(SessionEvent.class);
   }
 
+  @Override
+  protected Journal.Codec<SessionEvent> createJournalCodec() {
+    return new Journal.Codec<SessionEvent>() {
+      @Override
+      public SessionEvent read(DataInput in) throws IOException {
+        return new SessionEvent(Journal.readInterval(in));
+      }
+
+      @Override
+      public void write(SessionEvent event, DataOutput out) throws IOException {
+        Journal.writeInterval(event.getInterval(), out);
+      }
+    };
+  }
+
   @Override
   protected void doDisable() {
     TrackingPlugin.getDefault().getIdleDetector().deleteObserver(observer);
@@ -95,6 +100,18 @@ public class SessionTracker extends AbstractTracker<SessionEvent> {
   @Override
   protected void doEnable() {
     TrackingPlugin.getDefault().getIdleDetector().addObserver(observer);
-    PlatformUI.getWorkbench().getDisplay().syncExec(startRecorder);
+    checkStart();
+  }
+
+  /**
+   * Starts recording if the active workbench window's shell is active.
+   */
+  private void checkStart() {
+    // Check for active shell instead of active workbench window to include
+    // dialogs (!shell.getMinimized() is also important, why?):
+    WorkbenchState state = TrackingPlugin.getDefault().getWorkbenchState();
+    if (state.isActiveShell(state.getActiveWindow())) {
+      recorder.start();
+    }
   }
 }
@@ -17,6 +17,9 @@ package rabbit.tracking.internal.util;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+import rabbit.data.internal.diagnostics.Diagnostics;
+import rabbit.data.internal.diagnostics.LatencyHistogram;
+
 import com.google.common.base.Objects;
 
 import java.util.Observable;
@@ -94,6 +97,15 @@ public final class Recorder<T> extends Observable {
     }
   }
 
+  private static final LatencyHistogram startLatency =
+      Diagnostics.histogram("Recorder.start");
+
+  /**
+   * Measures {@link #stop()}, including the notification of the observers.
+   */
+  private static final LatencyHistogram stopLatency =
+      Diagnostics.histogram("Recorder.stop");
+
   /**
    * Start time of a recording session, in milliseconds.
    */
@@ -135,16 +147,21 @@ public final class Recorder<T> extends Observable {
    * @see #isRecording()
    */
   public synchronized void start(@Nullable T userData) {
-    if (isRecording()) {
-      if (!Objects.equal(data, userData)) {
-        stop();
-      } else {
-        return;
+    long nanos = startLatency.start();
+    try {
+      if (isRecording()) {
+        if (!Objects.equal(data, userData)) {
+          stop();
+        } else {
+          return;
+        }
       }
+      start = System.currentTimeMillis();
+      data = userData;
+      running = true;
+    } finally {
+      startLatency.stop(nanos);
     }
-    start = System.currentTimeMillis();
-    data = userData;
-    running = true;
   }
 
   /**
@@ -162,18 +179,23 @@ public final class Recorder<T> extends Observable {
    * no effects.
    */
   public void stop() {
-    Record<T> r = null;
-    synchronized (this) {
-      if (!isRecording()) {
-        return;
+    long nanos = stopLatency.start();
+    try {
+      Record<T> r = null;
+      synchronized (this) {
+        if (!isRecording()) {
+          return;
+        }
+        record = new Record<T>(start, System.currentTimeMillis(), data);
+        r = record;
+        running = false;
+        data = null;
       }
-      record = new Record<T>(start, System.currentTimeMillis(), data);
-      r = record;
-      running = false;
-      data = null;
+      setChanged();
+      notifyObservers(r);
+    } finally {
+      stopLatency.stop(nanos);
     }
-    setChanged();
-    notifyObservers(r);
   }
 
   /**
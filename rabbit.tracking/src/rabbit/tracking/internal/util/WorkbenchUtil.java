@@ -31,7 +31,11 @@ import javax.annotation.Nullable;
 
 /**
  * Utility class for working with the workbench.
- * 
+ * <p>
+ * Some of the methods of this class block on the display thread when called
+ * from another thread, use {@link rabbit.tracking.internal.WorkbenchState}
+ * instead to read the state of the workbench from a non-display thread.
+ * </p>
  */
 public final class WorkbenchUtil {
 
@@ -59,6 +63,11 @@ public final class WorkbenchUtil {
    */
   public static boolean isActiveShell(IWorkbenchWindow win) {
     final Shell shell = win.getShell();
+    if (Display.getCurrent() != null) {
+      return shell.getDisplay().getActiveShell() == shell
+          && !shell.getMinimized();
+    }
+
     final boolean[] result = new boolean[1];
     PlatformUI.getWorkbench().getDisplay().syncExec(new Runnable() {
       @Override
@@ -147,6 +147,7 @@ public final class JavaPage extends AbsPage {
         new ResourceLabelProvider(),
         new DateLabelProvider(),
         new WorkspaceStorageLabelProvider());
+    contentProvider.addObserver(mainLabels);
 
     // The viewer:
     filteredTree = Viewers.newFilteredTree(parent,
@@ -155,7 +156,7 @@ public final class JavaPage extends AbsPage {
     FilterableTreePathContentProvider filteredContentProvider =
         new FilterableTreePathContentProvider(contentProvider);
     filteredContentProvider.addFilter(instanceOf(Duration.class));
-    viewer.setContentProvider(filteredContentProvider);
+    Viewers.setContentProvider(viewer, filteredContentProvider);
 
     // Column sorters:
     TreeViewerColumnSorter labelSorter =
@@ -234,7 +235,8 @@ public final class JavaPage extends AbsPage {
   @Override
   public Job updateJob(Preference pref) {
     TreeViewer viewer = filteredTree.getViewer();
-    return new UpdateJob<IJavaData>(viewer, pref, getAccessor()) {
+    return new UpdateJob<IJavaData>(viewer, pref, getAccessor(),
+        contentProvider, durationProvider) {
       @Override
       protected Object getInput(final Collection<IJavaData> data) {
         return new IJavaDataProvider() {
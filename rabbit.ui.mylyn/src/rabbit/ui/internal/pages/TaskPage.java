@@ -15,6 +15,7 @@
  */
 package rabbit.ui.internal.pages;
 
+import static rabbit.ui.internal.pages.Category.BRANCH;
 import static rabbit.ui.internal.pages.Category.DATE;
 import static rabbit.ui.internal.pages.Category.FILE;
 import static rabbit.ui.internal.pages.Category.FOLDER;
@@ -24,6 +25,7 @@ import static rabbit.ui.internal.pages.Category.WORKSPACE;
 import static rabbit.ui.internal.viewers.Viewers.newTreeViewerColumn;
 
 import rabbit.data.access.IAccessor;
+import rabbit.data.access.model.Branch;
 import rabbit.data.access.model.ITaskData;
 import rabbit.data.access.model.WorkspaceStorage;
 import rabbit.data.handler.DataHandler;
@@ -41,6 +43,7 @@ import rabbit.ui.internal.util.ICategorizer;
 import rabbit.ui.internal.util.IConverter;
 import rabbit.ui.internal.util.TreePathDurationConverter;
 import rabbit.ui.internal.util.TreePathValueProvider;
+import rabbit.ui.internal.viewers.BranchLabelProvider;
 import rabbit.ui.internal.viewers.CompositeCellLabelProvider;
 import rabbit.ui.internal.viewers.DateLabelProvider;
 import rabbit.ui.internal.viewers.FilterableTreePathContentProvider;
@@ -99,7 +102,8 @@ public class TaskPage extends AbsPage {
 
   @Override
   public void createContents(Composite parent) {
-    Category[] supported = {WORKSPACE, DATE, TASK, PROJECT, FOLDER, FILE};
+    Category[] supported =
+        {WORKSPACE, DATE, BRANCH, TASK, PROJECT, FOLDER, FILE};
     categoryProvider = new CategoryProvider(supported,
         TASK, PROJECT, FOLDER, FILE);
     categoryProvider.addObserver(this);
@@ -116,7 +120,9 @@ public class TaskPage extends AbsPage {
         new TaskLabelProvider(),
         new ResourceLabelProvider(),
         new DateLabelProvider(),
-        new WorkspaceStorageLabelProvider());
+        new WorkspaceStorageLabelProvider(),
+        new BranchLabelProvider());
+    contentProvider.addObserver(mainLabels);
 
     // The viewer:
     filteredTree = Viewers.newFilteredTree(parent,
@@ -125,7 +131,7 @@ public class TaskPage extends AbsPage {
     FilterableTreePathContentProvider filteredContentProvider =
         new FilterableTreePathContentProvider(contentProvider);
     filteredContentProvider.addFilter(instanceOf(Duration.class));
-    viewer.setContentProvider(filteredContentProvider);
+    Viewers.setContentProvider(viewer, filteredContentProvider);
 
     // Column sorters:
     TreeViewerColumnSorter labelSorter =
@@ -172,6 +178,7 @@ public class TaskPage extends AbsPage {
         .addGroupByAction(TASK, PROJECT, FOLDER, FILE)
         .addGroupByAction(DATE, TASK, PROJECT, FOLDER, FILE)
         .addGroupByAction(WORKSPACE, TASK, PROJECT, FOLDER, FILE)
+        .addGroupByAction(BRANCH, TASK, PROJECT, FOLDER, FILE)
 
         .addColorByAction(FILE)
         .addColorByAction(FOLDER)
@@ -179,6 +186,7 @@ public class TaskPage extends AbsPage {
         .addColorByAction(TASK)
         .addColorByAction(DATE)
         .addColorByAction(WORKSPACE)
+        .addColorByAction(BRANCH)
         .build();
 
     for (IContributionItem item : items) {
@@ -190,7 +198,8 @@ public class TaskPage extends AbsPage {
   @Override
   public Job updateJob(Preference pref) {
     TreeViewer viewer = filteredTree.getViewer();
-    return new UpdateJob<ITaskData>(viewer, pref, getAccessor()) {
+    return new UpdateJob<ITaskData>(viewer, pref, getAccessor(),
+        contentProvider, durationProvider) {
       @Override
       protected Object getInput(final Collection<ITaskData> data) {
         return new ITaskDataProvider() {
@@ -243,6 +252,7 @@ public class TaskPage extends AbsPage {
         .put(instanceOf(ITask.class), TASK)
         .put(instanceOf(LocalDate.class), DATE)
         .put(instanceOf(WorkspaceStorage.class), WORKSPACE)
+        .put(instanceOf(Branch.class), BRANCH)
         .build();
     ICategorizer categorizer = new Categorizer(categories);
     return categorizer;
@@ -94,6 +94,9 @@ public final class TaskDataTreeBuilder implements ITreePathBuilder {
         case DATE:
           segments.add(data.get(ITaskData.DATE));
           break;
+        case BRANCH:
+          segments.add(data.get(ITaskData.BRANCH));
+          break;
         case TASK:
           TaskId id = data.get(ITaskData.TASK_ID);
           ITask task = repository.getTask(id.getHandleIdentifier());
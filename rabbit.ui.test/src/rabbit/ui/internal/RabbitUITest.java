@@ -43,6 +43,16 @@ public class RabbitUITest {
         RabbitUI.UI_PAGE_EXTENSION_ID).length > 0);
   }
 
+  @Test
+  public void testLiveUpdateInterval() {
+    RabbitUI.getDefault().setLiveUpdateInterval(500);
+    assertEquals(500, RabbitUI.getDefault().getLiveUpdateInterval());
+    RabbitUI.getDefault().getPreferenceStore().setToDefault(
+        RabbitUI.LIVE_UPDATE_INTERVAL);
+    assertEquals(RabbitUI.DEFAULT_LIVE_UPDATE_INTERVAL,
+        RabbitUI.getDefault().getLiveUpdateInterval());
+  }
+
   @Test
   public void testLoadRootElements() {
     assertNotNull(RabbitUI.getDefault().loadRootPages());
@@ -15,6 +15,7 @@
  */
 package rabbit.ui.internal.treebuilders;
 
+import rabbit.data.access.model.Branch;
 import rabbit.data.access.model.IFileData;
 import rabbit.data.access.model.WorkspaceStorage;
 import rabbit.ui.IProvider;
@@ -52,6 +53,7 @@ public final class FileDataTreeBuilderTest extends
   LocalDate date;
   Duration duration;
   WorkspaceStorage ws;
+  Branch branch;
 
   IFileData data;
 
@@ -62,12 +64,14 @@ public final class FileDataTreeBuilderTest extends
     duration = new Duration(100);
     date = new LocalDate().minusDays(1);
     ws = new WorkspaceStorage(new Path(".a"), new Path("/a"));
+    branch = new Branch("master");
 
     data = mock(IFileData.class);
     given(data.get(IFileData.DATE)).willReturn(date);
     given(data.get(IFileData.DURATION)).willReturn(duration);
     given(data.get(IFileData.FILE)).willReturn(fileHasParentFolder);
     given(data.get(IFileData.WORKSPACE)).willReturn(ws);
+    given(data.get(IFileData.BRANCH)).willReturn(branch);
   }
 
   @Override
@@ -75,12 +79,14 @@ public final class FileDataTreeBuilderTest extends
     ICategory[] categories = {
         Category.DATE,
         Category.WORKSPACE,
+        Category.BRANCH,
         Category.PROJECT,
         Category.FOLDER,
         Category.FILE};
     List<TreePath> expected = asList(newPath(
         date,
         ws,
+        branch,
         fileHasParentFolder.getProject(),
         fileHasParentFolder.getParent(),
         fileHasParentFolder,
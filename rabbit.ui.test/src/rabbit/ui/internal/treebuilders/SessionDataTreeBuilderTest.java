@@ -15,11 +15,13 @@
  */
 package rabbit.ui.internal.treebuilders;
 
+import rabbit.data.access.model.IData;
 import rabbit.data.access.model.ISessionData;
 import rabbit.data.access.model.WorkspaceStorage;
 import rabbit.ui.IProvider;
 import rabbit.ui.internal.pages.Category;
 import rabbit.ui.internal.treebuilders.SessionDataTreeBuilder.ISessionDataProvider;
+import rabbit.ui.internal.treebuilders.SessionDataTreeBuilder.ISessionRowProvider;
 import rabbit.ui.internal.util.ICategory;
 import rabbit.ui.internal.util.ICategoryProvider;
 import rabbit.ui.internal.viewers.ITreePathBuilder;
@@ -35,9 +37,11 @@ import org.eclipse.jface.viewers.TreePath;
 import org.joda.time.Duration;
 import org.joda.time.LocalDate;
 import org.junit.Before;
+import org.junit.Test;
 
 import static java.util.Arrays.asList;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
@@ -110,6 +114,22 @@ public final class SessionDataTreeBuilderTest
         actual, hasItems(expected.toArray(new TreePath[0])));
   }
 
+  @Test
+  public void shouldBuildThePathsOfTheRowsOfAQuery() {
+    ICategory[] categories = {Category.DATE, Category.WORKSPACE};
+    List<TreePath> expected = asList(newPath(date, ws, duration));
+
+    ICategoryProvider provider = mock(ICategoryProvider.class);
+    given(provider.getSelected()).willReturn(asList(categories));
+    ITreePathBuilder builder = create(provider);
+
+    ISessionRowProvider input = mock(ISessionRowProvider.class);
+    given(input.get()).willReturn(Arrays.<IData> asList(data));
+    List<TreePath> actual = builder.build(input);
+
+    assertThat(toString(actual, expected), actual, equalTo(expected));
+  }
+
   @Override
   public void shouldRetainIdenticalPaths() {
     ICategory[] categories = {Category.DATE, Category.WORKSPACE};
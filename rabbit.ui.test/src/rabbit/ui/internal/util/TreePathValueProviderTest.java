@@ -16,6 +16,8 @@
 package rabbit.ui.internal.util;
 
 import rabbit.ui.IProvider;
+import rabbit.ui.internal.viewers.ITreePathBuilder;
+import rabbit.ui.internal.viewers.TreePathContentProvider;
 
 import com.google.common.base.Predicates;
 
@@ -26,6 +28,8 @@ import static org.junit.Assert.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.eclipse.jface.viewers.TreePath;
@@ -34,6 +38,7 @@ import org.mockito.Mockito;
 
 import static java.lang.Boolean.FALSE;
 import static java.lang.Boolean.TRUE;
+import static java.util.Arrays.asList;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -458,6 +463,88 @@ public class TreePathValueProviderTest {
     assertThat(v.shouldPaint(""), is(TRUE));
   }
 
+  @Test
+  public void getValueShouldReturnTheValuesOfThePreparedIndex() {
+    TreePath leaf1 = new TreePath(new Object[]{"1", "2"});
+    TreePath leaf2 = new TreePath(new Object[]{"1", "3"});
+
+    @SuppressWarnings("unchecked")
+    IConverter<TreePath> converter = mock(IConverter.class);
+    given(converter.convert(leaf1)).willReturn(Long.valueOf(1));
+    given(converter.convert(leaf2)).willReturn(Long.valueOf(2));
+
+    ITreePathBuilder builder = mock(ITreePathBuilder.class);
+    given(builder.build("input")).willReturn(asList(leaf1, leaf2));
+    TreePathContentProvider contents = new TreePathContentProvider(builder);
+
+    TreePathValueProvider values = create(
+        mock(ICategorizer.class), contents, converter);
+    values.prepare(contents.prepare("input"));
+    contents.inputChanged(null, null, "input");
+
+    assertThat(values.getValue(new TreePath(new Object[]{"1"})), is(3L));
+    verify(converter, times(1)).convert(leaf1);
+  }
+
+  @Test
+  public void getValueShouldNotDiscardThePreparedValuesBeforeTheIndexIsSet() {
+    TreePath oldLeaf = new TreePath(new Object[]{"0", "1"});
+    TreePath leaf1 = new TreePath(new Object[]{"1", "2"});
+    TreePath leaf2 = new TreePath(new Object[]{"1", "3"});
+
+    @SuppressWarnings("unchecked")
+    IConverter<TreePath> converter = mock(IConverter.class);
+    given(converter.convert(oldLeaf)).willReturn(Long.valueOf(5));
+    given(converter.convert(leaf1)).willReturn(Long.valueOf(1));
+    given(converter.convert(leaf2)).willReturn(Long.valueOf(2));
+
+    ITreePathBuilder builder = mock(ITreePathBuilder.class);
+    given(builder.build("old")).willReturn(asList(oldLeaf));
+    given(builder.build("new")).willReturn(asList(leaf1, leaf2));
+    TreePathContentProvider contents = new TreePathContentProvider(builder);
+    contents.inputChanged(null, null, "old");
+
+    TreePathValueProvider values = create(
+        mock(ICategorizer.class), contents, converter);
+    values.prepare(contents.prepare("new"));
+    // Painted before the new input is set:
+    assertThat(values.getValue(new TreePath(new Object[]{"0"})), is(5L));
+    contents.inputChanged(null, "old", "new");
+
+    assertThat(values.getValue(new TreePath(new Object[]{"1"})), is(3L));
+    verify(converter, times(1)).convert(leaf1);
+  }
+
+  @Test
+  public void setMaxValueShouldUseTheMaxValuePreparedForTheVisualCategory() {
+    TreePath leaf1 = new TreePath(new Object[]{"1", "2"});
+    TreePath leaf2 = new TreePath(new Object[]{"1", "3"});
+
+    @SuppressWarnings("unchecked")
+    IConverter<TreePath> converter = mock(IConverter.class);
+    given(converter.convert(leaf1)).willReturn(Long.valueOf(1));
+    given(converter.convert(leaf2)).willReturn(Long.valueOf(2));
+
+    ICategory category = mock(ICategory.class);
+    ICategorizer categorizer = mock(ICategorizer.class);
+    given(categorizer.hasCategory(category)).willReturn(TRUE);
+    given(categorizer.getCategory("1")).willReturn(category);
+
+    ITreePathBuilder builder = mock(ITreePathBuilder.class);
+    given(builder.build("input")).willReturn(asList(leaf1, leaf2));
+    TreePathContentProvider contents = new TreePathContentProvider(builder);
+
+    TreePathValueProvider values = create(categorizer, contents, converter);
+    values.setVisualCategory(category);
+    values.prepare(contents.prepare("input"));
+    contents.inputChanged(null, null, "input");
+    values.setMaxValue(category);
+
+    assertThat(values.getMaxValue(), is(3L));
+    // Only walked by prepare:
+    verify(categorizer, times(1)).getCategory("1");
+  }
+
   private TreePathValueProvider create() {
     return create(mock(ICategorizer.class), newProvider(), newConverter());
   }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.ui.internal.viewers;
+
+import rabbit.data.access.model.Branch;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * @see BranchLabelProvider
+ */
+public class BranchLabelProviderTest extends NullLabelProviderTest {
+
+  @Test
+  public void getForegroundShouldReturnAColorIfThereIsNoBranch() {
+    assertThat(provider.getForeground(Branch.NONE), notNullValue());
+  }
+
+  @Test
+  public void getForegroundShouldReturnNullForABranch() {
+    assertThat(provider.getForeground(new Branch("master")), nullValue());
+  }
+
+  @Test
+  public void getImageShouldReturnANonnullImage() {
+    assertThat(provider.getImage(new Branch("master")), notNullValue());
+  }
+
+  @Test
+  public void getTextShouldReturnTheNameOfTheBranch() {
+    assertThat(provider.getText(new Branch("topic/a")), equalTo("topic/a"));
+  }
+
+  @Test
+  public void getTextShouldReturnTheNoBranchStringIfThereIsNoBranch() {
+    assertThat(provider.getText(Branch.NONE), equalTo("No Branch"));
+  }
+
+  @Override
+  protected BranchLabelProvider create() {
+    return new BranchLabelProvider();
+  }
+}
@@ -22,6 +22,8 @@ import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import org.eclipse.jface.viewers.ColumnLabelProvider;
 import org.eclipse.jface.viewers.DelegatingStyledCellLabelProvider.IStyledLabelProvider;
@@ -39,6 +41,8 @@ import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import java.util.Observable;
+
 /**
  * @see CompositeCellLabelProvider
  */
@@ -183,6 +187,41 @@ public class CompositeCellLabelProviderTest {
     assertThat(provider.getText(""), equalTo(text));
   }
 
+  @Test
+  public void getTextShouldCacheTheTextOfAnElement() {
+    ILabelProvider p = mock(ILabelProvider.class);
+    given(p.getText("a")).willReturn("b");
+
+    CompositeCellLabelProvider provider = create(p);
+    provider.getText("a");
+    assertThat(provider.getText("a"), equalTo("b"));
+    verify(p, times(1)).getText("a");
+  }
+
+  @Test
+  public void getStyledTextShouldReturnACopyOfTheCachedText() {
+    Object element = new Object();
+    IStyledLabelProvider p = mock(IStyledLabelProvider.class);
+    given(p.getStyledText(element)).willReturn(new StyledString("Hello"));
+
+    CompositeCellLabelProvider provider = create(p);
+    provider.getStyledText(element).append(" World");
+    assertThat(provider.getStyledText(element).getString(), equalTo("Hello"));
+    verify(p, times(1)).getStyledText(element);
+  }
+
+  @Test
+  public void updateShouldClearTheCache() {
+    ILabelProvider p = mock(ILabelProvider.class);
+    given(p.getText("a")).willReturn("b");
+
+    CompositeCellLabelProvider provider = create(p);
+    provider.getText("a");
+    provider.update(new Observable(), null);
+    provider.getText("a");
+    verify(p, times(2)).getText("a");
+  }
+
   @Test
   public void shouldCloneTheArrayOfLabelProviders() throws Exception {
     String text = "Hello";
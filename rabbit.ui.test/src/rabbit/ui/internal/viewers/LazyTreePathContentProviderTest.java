@@ -0,0 +1,159 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.ui.internal.viewers;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.eclipse.jface.viewers.ITreePathContentProvider;
+import org.eclipse.jface.viewers.TreePath;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.jface.viewers.ViewerComparator;
+import org.eclipse.jface.viewers.ViewerFilter;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for a {@link LazyTreePathContentProvider}.
+ */
+public class LazyTreePathContentProviderTest {
+
+  private TreeViewer viewer;
+  private ITreePathContentProvider delegate;
+  private LazyTreePathContentProvider content;
+
+  @Before
+  public void before() {
+    viewer = mock(TreeViewer.class);
+    given(viewer.getFilters()).willReturn(new ViewerFilter[0]);
+    delegate = mock(ITreePathContentProvider.class);
+    content = new LazyTreePathContentProvider(delegate);
+    content.inputChanged(viewer, null, "input");
+  }
+
+  @Test
+  public void disposeShouldDisposeTheDelegate() {
+    content.dispose();
+    verify(delegate).dispose();
+  }
+
+  @Test
+  public void getParentsShouldReturnTheParentsFromTheDelegate() {
+    TreePath[] parents = {new TreePath(new Object[]{"a"})};
+    given(delegate.getParents("b")).willReturn(parents);
+    assertSame(parents, content.getParents("b"));
+  }
+
+  @Test
+  public void inputChangedShouldNotifyTheDelegate() {
+    content.inputChanged(viewer, "input", "newInput");
+    verify(delegate).inputChanged(viewer, "input", "newInput");
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void shouldThrowAnExceptionIfConstructedWithoutADelegate() {
+    new LazyTreePathContentProvider(null);
+  }
+
+  @Test
+  public void updateChildCountShouldApplyTheComparatorOfTheViewer() {
+    TreePath parent = new TreePath(new Object[]{"p"});
+    given(delegate.getChildren(parent)).willReturn(new Object[]{"b", "a"});
+    given(viewer.getComparator()).willReturn(new ViewerComparator());
+
+    content.updateChildCount(parent, 0);
+    content.updateElement(parent, 0);
+
+    verify(viewer).replace(parent, 0, "a");
+  }
+
+  @Test
+  public void updateChildCountShouldApplyTheFiltersOfTheViewer() {
+    TreePath parent = new TreePath(new Object[]{"p"});
+    given(delegate.getChildren(parent)).willReturn(new Object[]{"a", "b"});
+    given(viewer.getFilters()).willReturn(new ViewerFilter[]{
+        new ViewerFilter() {
+          @Override
+          public boolean select(Viewer v, Object parentElement, Object e) {
+            return !"a".equals(e);
+          }
+        }});
+
+    content.updateChildCount(parent, 0);
+
+    verify(viewer).setChildCount(parent, 1);
+  }
+
+  @Test
+  public void updateChildCountShouldNotSetTheCountIfUnchanged() {
+    TreePath parent = new TreePath(new Object[]{"p"});
+    given(delegate.getChildren(parent)).willReturn(new Object[]{"a", "b"});
+
+    content.updateChildCount(parent, 2);
+
+    verify(viewer, never()).setChildCount(any(), anyInt());
+  }
+
+  @Test
+  public void updateChildCountShouldUseTheRootElementsForAnEmptyPath() {
+    given(delegate.getElements("input")).willReturn(new Object[]{"a", "b"});
+    given(viewer.getInput()).willReturn("input");
+
+    content.updateChildCount(TreePath.EMPTY, 0);
+
+    verify(viewer).setChildCount(TreePath.EMPTY, 2);
+  }
+
+  @Test
+  public void updateElementShouldIgnoreAnIndexOutOfRange() {
+    TreePath parent = new TreePath(new Object[]{"p"});
+    given(delegate.getChildren(parent)).willReturn(new Object[]{"a"});
+
+    content.updateElement(parent, 1);
+
+    verify(viewer, never()).replace(anyObject(), anyInt(), anyObject());
+  }
+
+  @Test
+  public void updateElementShouldReplaceTheItemAndSetItsChildState() {
+    TreePath parent = new TreePath(new Object[]{"p"});
+    TreePath child = parent.createChildPath("a");
+    given(delegate.getChildren(parent)).willReturn(new Object[]{"a"});
+    given(delegate.hasChildren(child)).willReturn(true);
+
+    content.updateElement(parent, 0);
+
+    verify(viewer).replace(parent, 0, "a");
+    verify(viewer).setHasChildren(child, true);
+  }
+
+  @Test
+  public void updateHasChildrenShouldAskTheDelegate() {
+    TreePath path = new TreePath(new Object[]{"p"});
+    given(delegate.hasChildren(path)).willReturn(true);
+
+    content.updateHasChildren(path);
+
+    verify(viewer).setHasChildren(path, true);
+  }
+}
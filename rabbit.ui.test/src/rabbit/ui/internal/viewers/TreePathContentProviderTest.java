@@ -28,6 +28,7 @@ import static org.junit.Assert.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -285,6 +286,49 @@ public class TreePathContentProviderTest {
     assertThat(hasChildren, is(true));
   }
 
+  @Test
+  public void inputChangedShouldBuildTheTreeIfThePreparedInputIsDifferent() {
+    Object input = new Object();
+    ITreePathBuilder builder = mock(ITreePathBuilder.class);
+    given(builder.build(any())).willReturn(
+        asList(new TreePath(new Object[]{"a"})));
+    content = create(builder);
+
+    content.prepare(new Object());
+    content.inputChanged(null, null, input);
+
+    verify(builder).build(input);
+  }
+
+  @Test
+  public void inputChangedShouldUseThePreparedIndexOfTheSameInput() {
+    Object input = new Object();
+    ITreePathBuilder builder = mock(ITreePathBuilder.class);
+    given(builder.build(input)).willReturn(
+        asList(new TreePath(new Object[]{"a"})));
+    content = create(builder);
+
+    TreePathIndex index = content.prepare(input);
+    content.inputChanged(null, null, input);
+
+    verify(builder, times(1)).build(input);
+    assertThat(content.getIndex(), is(index));
+    assertThat(content.getElements(input), is(new Object[]{"a"}));
+  }
+
+  @Test
+  public void inputChangedShouldUseThePreparedIndexOnlyOnce() {
+    Object input = new Object();
+    ITreePathBuilder builder = mock(ITreePathBuilder.class);
+    content = create(builder);
+
+    content.prepare(input);
+    content.inputChanged(null, null, input);
+    content.inputChanged(null, input, input);
+
+    verify(builder, times(2)).build(input);
+  }
+
   @Test
   public void inputChangedShouldAcceptNullableNewInput() {
     content.inputChanged(mock(Viewer.class), "", null); // No exception
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.ui.internal.viewers;
+
+import static com.google.common.collect.Sets.newHashSet;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.eclipse.jface.viewers.TreePath;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+
+import java.util.Collections;
+
+/**
+ * Tests for a {@link TreePathIndex}.
+ */
+public class TreePathIndexTest {
+
+  private static final Object[] EMPTY_ARRAY = {};
+
+  @Test
+  public void getChildrenShouldReturnAnEmptyArrayIfPathIsNotIndexed() {
+    TreePathIndex index = TreePathIndex.of(asList(newPath("a", "b")));
+    assertThat(index.getChildren(newPath("x")), is(EMPTY_ARRAY));
+  }
+
+  @Test
+  public void getChildrenShouldReturnAnEmptyArrayIfPathIsNull() {
+    TreePathIndex index = TreePathIndex.of(asList(newPath("a", "b")));
+    assertThat(index.getChildren(null), is(EMPTY_ARRAY));
+  }
+
+  @Test
+  public void getChildrenShouldReturnTheDistinctChildrenInOrderOfAppearance() {
+    TreePathIndex index = TreePathIndex.of(asList(
+        newPath("a", "c"),
+        newPath("a", "b"),
+        newPath("a", "c", "d")));
+
+    Object[] expected = {"c", "b"};
+    assertThat(index.getChildren(newPath("a")), is(expected));
+  }
+
+  @Test
+  public void getChildrenShouldReturnTheRootElementsForAnEmptyPath() {
+    TreePathIndex index = TreePathIndex.of(asList(
+        newPath("a", "b"),
+        newPath("c"),
+        newPath("a")));
+
+    Object[] expected = {"a", "c"};
+    assertThat(index.getChildren(TreePath.EMPTY), is(expected));
+  }
+
+  @Test
+  public void getLeavesShouldReturnTheLeavesInOrder() {
+    TreePath leaf1 = newPath("b");
+    TreePath leaf2 = newPath("a");
+    TreePathIndex index = TreePathIndex.of(asList(leaf1, leaf2, leaf1));
+    assertThat(index.getLeaves(), is(asList(leaf1, leaf2, leaf1)));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void getLeavesShouldReturnAnImmutableList() {
+    TreePathIndex.of(asList(newPath("a"))).getLeaves().clear();
+  }
+
+  @Test
+  public void getNodesShouldReturnAllTheNodesOfAnElement() {
+    TreePathIndex index = TreePathIndex.of(asList(
+        newPath("a", "x"),
+        newPath("b", "x")));
+
+    int[] nodes = index.getNodes("x");
+    assertThat(nodes.length, is(2));
+    assertThat(index.getPath(nodes[0]), is(newPath("a", "x")));
+    assertThat(index.getPath(nodes[1]), is(newPath("b", "x")));
+  }
+
+  @Test
+  public void getNodesShouldReturnAnEmptyArrayIfElementIsNotIndexed() {
+    TreePathIndex index = TreePathIndex.of(asList(newPath("a")));
+    assertThat(index.getNodes("b"), is(new int[0]));
+    assertThat(index.getNodes(null), is(new int[0]));
+  }
+
+  @Test
+  public void getParentsShouldReturnAllTheParentPathsOfAnElement() {
+    TreePathIndex index = TreePathIndex.of(asList(
+        newPath("a", "x"),
+        newPath("b", "c", "x"),
+        newPath("a", "x", "y")));
+
+    assertThat(
+        newHashSet(index.getParents("x")),
+        is(newHashSet(newPath("a"), newPath("b", "c"))));
+  }
+
+  @Test
+  public void getParentsShouldReturnAnEmptyArrayIfElementIsNotIndexed() {
+    TreePathIndex index = TreePathIndex.of(asList(newPath("a")));
+    assertThat(index.getParents("b"), is(new TreePath[0]));
+  }
+
+  @Test
+  public void getParentsShouldReturnAnEmptyArrayIfElementIsNull() {
+    TreePathIndex index = TreePathIndex.of(asList(newPath("a")));
+    assertThat(index.getParents(null), is(new TreePath[0]));
+  }
+
+  @Test
+  public void indexOfShouldReturnANegativeNumberIfPathIsNotIndexed() {
+    TreePathIndex index = TreePathIndex.of(asList(newPath("a", "b")));
+    assertThat(index.indexOf(newPath("a", "c")) < 0, is(true));
+  }
+
+  @Test
+  public void indexOfShouldReturnTheNodeOfThePath() {
+    TreePath path = newPath("a", "b");
+    TreePathIndex index = TreePathIndex.of(asList(path));
+    int node = index.indexOf(path);
+    assertThat(index.getPath(node), is(path));
+    assertThat(index.getSegment(node), is((Object) "b"));
+    assertThat(index.getPath(index.getParentNode(node)), is(newPath("a")));
+  }
+
+  @Test
+  public void indexOfShouldReturnTheRootForAnEmptyPath() {
+    TreePathIndex index = TreePathIndex.of(asList(newPath("a")));
+    assertThat(index.indexOf(TreePath.EMPTY), is(TreePathIndex.ROOT));
+  }
+
+  @Test
+  public void ofShouldReturnTheEmptyIndexForNoLeaves() {
+    assertThat(
+        TreePathIndex.of(Collections.<TreePath> emptyList()),
+        is(TreePathIndex.EMPTY));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void ofShouldThrowAnExceptionIfLeavesContainNull() {
+    TreePathIndex.of(asList(newPath("a"), null));
+  }
+
+  @Test
+  public void sumShouldAddTheLeafValuesToAllTheNodesOnTheirPaths() {
+    TreePathIndex index = TreePathIndex.of(asList(
+        newPath("a", "b"),
+        newPath("a", "c"),
+        newPath("a", "b")));
+
+    long[] sums = index.sum(new long[]{1, 10, 100});
+
+    assertThat(sums[TreePathIndex.ROOT], is(111L));
+    assertThat(sums[index.indexOf(newPath("a"))], is(111L));
+    assertThat(sums[index.indexOf(newPath("a", "b"))], is(101L));
+    assertThat(sums[index.indexOf(newPath("a", "c"))], is(10L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void sumShouldThrowAnExceptionIfNumberOfValuesIsIncorrect() {
+    TreePathIndex.of(asList(newPath("a"))).sum(new long[2]);
+  }
+
+  private static TreePath newPath(Object... segments) {
+    return new TreePath(segments);
+  }
+}
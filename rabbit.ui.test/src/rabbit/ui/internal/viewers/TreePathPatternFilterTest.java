@@ -19,7 +19,12 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.*;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
+import com.google.common.base.Predicates;
+
+import org.eclipse.jface.viewers.ILabelProvider;
 import org.eclipse.jface.viewers.ITreePathContentProvider;
 import org.eclipse.jface.viewers.LabelProvider;
 import org.eclipse.jface.viewers.TreePath;
@@ -30,6 +35,8 @@ import org.junit.Test;
 import static java.lang.Boolean.FALSE;
 import static java.lang.Boolean.TRUE;
 
+import java.util.Arrays;
+
 /**
  * @see TreePathPatternFilter
  */
@@ -82,4 +89,88 @@ public final class TreePathPatternFilterTest {
     filter.setPattern("child");
     assertThat(filter.isElementVisible(v, path.getLastSegment()), is(TRUE));
   }
+
+  @Test
+  public void shouldShowTheParentOfAMatchingElementInAnIndexedTree() {
+    TreeViewer v = newIndexedViewer(
+        newPath("a", "b", "match"), newPath("x", "y"));
+    filter.setPattern("match");
+    assertThat(filter.isElementVisible(v, "a"), is(TRUE));
+    assertThat(filter.isElementVisible(v, "b"), is(TRUE));
+    assertThat(filter.isElementVisible(v, "x"), is(FALSE));
+    assertThat(filter.isElementVisible(v, "y"), is(FALSE));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldNotShowTheParentOfAFilteredMatchInAnIndexedTree() {
+    TreePathContentProvider contents = newContents(
+        newPath("a", "b", "match"));
+    FilterableTreePathContentProvider filterable =
+        new FilterableTreePathContentProvider(contents);
+    filterable.addFilter(Predicates.<Object> equalTo("b"));
+
+    TreeViewer v = mock(TreeViewer.class);
+    given(v.getContentProvider()).willReturn(filterable);
+
+    filter.setPattern("match");
+    assertThat(filter.isElementVisible(v, "a"), is(FALSE));
+  }
+
+  @Test
+  public void shouldShareTheLabelsOfACachingLabelProvider() {
+    ILabelProvider labels = mock(ILabelProvider.class);
+    given(labels.getText("a")).willReturn("a");
+    given(labels.getText("b")).willReturn("b");
+    filter = new TreePathPatternFilter(new CompositeCellLabelProvider(labels));
+    TreeViewer v = newIndexedViewer(newPath("a", "b"), newPath("b"));
+
+    filter.setPattern("a");
+    filter.isElementVisible(v, "a");
+    filter.setPattern("b");
+    filter.isElementVisible(v, "a");
+
+    verify(labels, times(1)).getText("a");
+    verify(labels, times(1)).getText("b");
+  }
+
+  @Test
+  public void shouldUseTheNewPatternInAnIndexedTree() {
+    TreeViewer v = newIndexedViewer(newPath("a", "b"), newPath("c"));
+    filter.setPattern("b");
+    assertThat(filter.isElementVisible(v, "c"), is(FALSE));
+    filter.setPattern("c");
+    assertThat(filter.isElementVisible(v, "c"), is(TRUE));
+    assertThat(filter.isElementVisible(v, "a"), is(FALSE));
+  }
+
+  @Test
+  public void shouldUseTheIndexBehindALazyContentProvider() {
+    TreePathContentProvider contents = newContents(newPath("a", "match"));
+    TreeViewer v = mock(TreeViewer.class);
+    given(v.getContentProvider()).willReturn(
+        new LazyTreePathContentProvider(contents));
+
+    filter.setPattern("match");
+    assertThat(filter.isElementVisible(v, "a"), is(TRUE));
+  }
+
+  private TreeViewer newIndexedViewer(TreePath... leaves) {
+    TreePathContentProvider contents = newContents(leaves);
+    TreeViewer v = mock(TreeViewer.class);
+    given(v.getContentProvider()).willReturn(contents);
+    return v;
+  }
+
+  private TreePathContentProvider newContents(TreePath... leaves) {
+    ITreePathBuilder builder = mock(ITreePathBuilder.class);
+    given(builder.build("input")).willReturn(Arrays.asList(leaves));
+    TreePathContentProvider contents = new TreePathContentProvider(builder);
+    contents.inputChanged(null, null, "input");
+    return contents;
+  }
+
+  private static TreePath newPath(Object... segments) {
+    return new TreePath(segments);
+  }
 }
@@ -21,6 +21,8 @@ import static org.junit.Assert.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import org.eclipse.jface.viewers.ITreeContentProvider;
 import org.eclipse.jface.viewers.LabelProvider;
@@ -33,6 +35,8 @@ import org.eclipse.swt.widgets.Tree;
 import org.eclipse.swt.widgets.TreeColumn;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 /**
  * @see TreeViewerColumnValueSorter
  */
@@ -86,6 +90,46 @@ public final class TreeViewerColumnValueSorterTest
     assertThat(tree.getItem(1).getData(), is((Object) smaller));
   }
 
+  @Test
+  public void sortShouldOnlyGetTheValueOfEachElementOnceForTheSameInput() {
+    TreePath a = new TreePath(new Object[]{"a"});
+    TreePath b = new TreePath(new Object[]{"b"});
+    TreePathContentProvider contents = newContents(a, b);
+    TreeViewer viewer = mock(TreeViewer.class);
+    given(viewer.getContentProvider()).willReturn(contents);
+
+    IValueProvider valueProvider = mock(IValueProvider.class);
+    given(valueProvider.getValue(a)).willReturn(2L);
+    given(valueProvider.getValue(b)).willReturn(1L);
+
+    TreeViewerColumnValueSorter sorter = create(viewer, valueProvider);
+    Object[] elements = {"a", "b"};
+    sorter.sort(viewer, TreePath.EMPTY, elements);
+    assertThat(elements, is(new Object[]{"b", "a"}));
+
+    elements = new Object[]{"a", "b"};
+    sorter.sort(viewer, TreePath.EMPTY, elements);
+    assertThat(elements, is(new Object[]{"b", "a"}));
+    verify(valueProvider, times(1)).getValue(a);
+    verify(valueProvider, times(1)).getValue(b);
+  }
+
+  @Test
+  public void sortShouldGetTheValuesAgainWhenTheInputIsChanged() {
+    TreePath a = new TreePath(new Object[]{"a"});
+    TreePathContentProvider contents = newContents(a);
+    TreeViewer viewer = mock(TreeViewer.class);
+    given(viewer.getContentProvider()).willReturn(contents);
+    IValueProvider valueProvider = mock(IValueProvider.class);
+
+    TreeViewerColumnValueSorter sorter = create(viewer, valueProvider);
+    sorter.sort(viewer, TreePath.EMPTY, new Object[]{"a"});
+    contents.inputChanged(viewer, "input", "input");
+    sorter.sort(viewer, TreePath.EMPTY, new Object[]{"a"});
+
+    verify(valueProvider, times(2)).getValue(a);
+  }
+
   @Override
   protected TreeViewerColumnValueSorter create(TreeViewer viewer) {
     return new TreeViewerColumnValueSorter(viewer, mock(IValueProvider.class));
@@ -95,4 +139,12 @@ public final class TreeViewerColumnValueSorterTest
       TreeViewer viewer, IValueProvider provider) {
     return new TreeViewerColumnValueSorter(viewer, provider);
   }
+
+  private TreePathContentProvider newContents(TreePath... leaves) {
+    ITreePathBuilder builder = mock(ITreePathBuilder.class);
+    given(builder.build("input")).willReturn(Arrays.asList(leaves));
+    TreePathContentProvider contents = new TreePathContentProvider(builder);
+    contents.inputChanged(null, null, "input");
+    return contents;
+  }
 }
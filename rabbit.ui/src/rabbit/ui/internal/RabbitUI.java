@@ -47,6 +47,13 @@ public class RabbitUI extends AbstractUIPlugin {
 
   public static final String DEFAULT_DISPLAY_DATE_PERIOD = "defaultDisplayDatePeriod";
 
+  public static final String VIRTUAL_TREE = "virtualTree";
+
+  public static final String LIVE_UPDATE_INTERVAL = "liveUpdateInterval";
+
+  /** The default interval in milliseconds between updates in live mode. */
+  public static final int DEFAULT_LIVE_UPDATE_INTERVAL = 2000;
+
   // The shared instance
   private static RabbitUI plugin;
 
@@ -84,10 +91,52 @@ public class RabbitUI extends AbstractUIPlugin {
     store.setValue(DEFAULT_DISPLAY_DATE_PERIOD, numDays);
   }
 
+  /**
+   * Checks whether the pages should use virtual trees, creating tree items
+   * only when they become visible.
+   * 
+   * @return True if virtual trees are enabled, false otherwise.
+   */
+  public boolean isVirtualTreeEnabled() {
+    return getPreferenceStore().getBoolean(VIRTUAL_TREE);
+  }
+
+  /**
+   * Sets whether the pages should use virtual trees. Only takes effect on
+   * pages created after this call.
+   * 
+   * @param enabled True to enable virtual trees, false otherwise.
+   */
+  public void setVirtualTreeEnabled(boolean enabled) {
+    getPreferenceStore().setValue(VIRTUAL_TREE, enabled);
+  }
+
+  /**
+   * Gets the minimum interval in milliseconds between two updates of the main
+   * view in live mode.
+   * 
+   * @return The interval in milliseconds.
+   */
+  public int getLiveUpdateInterval() {
+    return getPreferenceStore().getInt(LIVE_UPDATE_INTERVAL);
+  }
+
+  /**
+   * Sets the minimum interval in milliseconds between two updates of the main
+   * view in live mode.
+   * 
+   * @param millis The interval in milliseconds.
+   */
+  public void setLiveUpdateInterval(int millis) {
+    getPreferenceStore().setValue(LIVE_UPDATE_INTERVAL, millis);
+  }
+
   @Override
   public void start(BundleContext context) throws Exception {
     super.start(context);
     plugin = this;
+    getPreferenceStore().setDefault(
+        LIVE_UPDATE_INTERVAL, DEFAULT_LIVE_UPDATE_INTERVAL);
   }
 
   @Override
@@ -15,12 +15,20 @@
  */
 package rabbit.ui.internal;
 
+import rabbit.data.store.EventBus;
+import rabbit.data.store.IEventListener;
 import rabbit.tracking.internal.TrackingPlugin;
 import rabbit.ui.IPage;
 import rabbit.ui.Preference;
+import rabbit.ui.internal.pages.UpdateJob;
+
+import com.google.common.collect.Lists;
 
 import org.eclipse.core.runtime.IProduct;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.ControlContribution;
@@ -47,6 +55,7 @@ import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.Sash;
 import org.eclipse.swt.widgets.ToolBar;
 import org.eclipse.ui.IMemento;
+import org.eclipse.ui.ISharedImages;
 import org.eclipse.ui.IViewSite;
 import org.eclipse.ui.PartInitException;
 import org.eclipse.ui.PlatformUI;
@@ -54,10 +63,15 @@ import org.eclipse.ui.forms.widgets.Form;
 import org.eclipse.ui.forms.widgets.FormToolkit;
 import org.eclipse.ui.part.ViewPart;
 import org.eclipse.ui.progress.IWorkbenchSiteProgressService;
+import org.eclipse.ui.progress.UIJob;
 
 import java.util.Calendar;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -141,6 +155,9 @@ public class RabbitView extends ViewPart {
 
   /** A map containing pages and their tool bar items. */
   private Map<IPage, IContributionItem[]> pageToolItems;
+
+  /** A map containing pages and their last update jobs. */
+  private Map<IPage, Job> pageJobs;
   
   /** A tool bar for pages to create their tool bar items. */
   private IToolBarManager extensionToolBar;
@@ -170,6 +187,42 @@ public class RabbitView extends ViewPart {
   
   /** The form data of the sash dividing the two panels. */
   private FormData sashFormData;
+
+  /** The events published since the pages were last updated in live mode. */
+  private final Queue<Object> publishedEvents;
+
+  /** True if {@link #liveJob} has been scheduled but has not yet run. */
+  private final AtomicBoolean isLiveJobScheduled;
+
+  /**
+   * Passes the published events to the update jobs of the pages, the jobs
+   * apply the events to the data they have loaded.
+   */
+  private final UIJob liveJob = new UIJob("Updating Rabbit View...") {
+    @Override
+    public IStatus runInUIThread(IProgressMonitor monitor) {
+      isLiveJobScheduled.set(false);
+      if (!displayPanel.isDisposed()) {
+        dispatchPublishedEvents();
+      }
+      return Status.OK_STATUS;
+    }
+  };
+
+  /**
+   * Listens to the events recorded by the trackers in live mode, the pages are
+   * updated at most once every {@link RabbitUI#getLiveUpdateInterval()}
+   * milliseconds.
+   */
+  private final IEventListener eventListener = new IEventListener() {
+    @Override
+    public void eventPublished(Object event) {
+      publishedEvents.add(event);
+      if (isLiveJobScheduled.compareAndSet(false, true)) {
+        liveJob.schedule(RabbitUI.getDefault().getLiveUpdateInterval());
+      }
+    }
+  };
   
   /**
    * Constructs a new view.
@@ -178,6 +231,10 @@ public class RabbitView extends ViewPart {
     pages = new HashMap<IPage, Composite>();
     pageStatus = new HashMap<IPage, Boolean>();
     pageToolItems = new HashMap<IPage, IContributionItem[]>();
+    pageJobs = new HashMap<IPage, Job>();
+    publishedEvents = new ConcurrentLinkedQueue<Object>();
+    isLiveJobScheduled = new AtomicBoolean(false);
+    liveJob.setSystem(true);
 
     toolkit = new FormToolkit(PlatformUI.getWorkbench().getDisplay());
     stackLayout = new StackLayout();
@@ -332,6 +389,8 @@ public class RabbitView extends ViewPart {
   
   @Override
   public void dispose() {
+    EventBus.getDefault().removeListener(eventListener);
+    liveJob.cancel();
     toolkit.dispose();
     super.dispose();
   }
@@ -464,8 +523,21 @@ public class RabbitView extends ViewPart {
       refresh.setImageDescriptor(SharedImages.REFRESH);
     }
 
+    IAction live = new Action("Live", IAction.AS_CHECK_BOX) {
+      @Override
+      public void run() {
+        setLive(isChecked());
+      }
+    };
+    live.setToolTipText("Update the view as the data is recorded");
+    if (!isWindowsOS || isDropDownDateTimeSupported) {
+      live.setImageDescriptor(PlatformUI.getWorkbench().getSharedImages()
+          .getImageDescriptor(ISharedImages.IMG_ELCL_SYNCED));
+    }
+
     //
     toolBar.add(refresh);
+    toolBar.add(live);
     toolBar.update(true);
   }
 
@@ -484,10 +556,56 @@ public class RabbitView extends ViewPart {
     }
   }
 
+  /**
+   * Turns the live mode on or off. In live mode, the events recorded by the
+   * trackers are applied to the data already loaded by the pages, without
+   * saving and reading the data again.
+   * 
+   * @param live True to turn the live mode on, false to turn it off.
+   */
+  private void setLive(boolean live) {
+    if (live) {
+      // Starts from the current data, events recorded from now on are added:
+      updateView();
+      EventBus.getDefault().addListener(eventListener);
+    } else {
+      EventBus.getDefault().removeListener(eventListener);
+      publishedEvents.clear();
+    }
+  }
+
+  /**
+   * Passes the published events to the update jobs of the pages.
+   */
+  private void dispatchPublishedEvents() {
+    List<Object> events = Lists.newArrayList();
+    for (Object event; (event = publishedEvents.poll()) != null;) {
+      events.add(event);
+    }
+    if (events.isEmpty()) {
+      return;
+    }
+    for (Job job : pageJobs.values()) {
+      if (job instanceof UpdateJob<?>) {
+        ((UpdateJob<?>) job).addEvents(events);
+        job.schedule();
+      }
+    }
+  }
+
   private void updatePage(final IPage page, final Preference preference) {
+    // The published events are passed to the current jobs, as the new job
+    // shows them with the unsaved data of the trackers:
+    dispatchPublishedEvents();
     Job job = page.updateJob(preference);
     if (job == null)
       return;
+    if (job instanceof UpdateJob<?>) {
+      // Shows the data the trackers have not yet saved, with the saved data:
+      ((UpdateJob<?>) job).addEvents(
+          TrackingPlugin.getDefault().getUnsavedData());
+    }
+    pageJobs.put(page, job);
     
     IWorkbenchSiteProgressService service = (IWorkbenchSiteProgressService) 
         getSite().getService(IWorkbenchSiteProgressService.class);
@@ -499,12 +617,9 @@ public class RabbitView extends ViewPart {
    * Updates the pages to current preference.
    */
   private void updateView() {
-    // Sync with today's data:
-    Calendar today = Calendar.getInstance();
-    if (isSameDate(today, preferences.getEndDate())
-        || today.before(preferences.getEndDate())) {
-      TrackingPlugin.getDefault().saveCurrentData();
-    }
+    // The events published so far are saved or not yet saved by the trackers,
+    // either way the updated pages will show them:
+    publishedEvents.clear();
 
     // Mark all invisible pages as "not yet updated":
     for (Map.Entry<IPage, Composite> entry : pages.entrySet()) {
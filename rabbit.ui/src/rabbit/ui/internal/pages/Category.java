@@ -65,6 +65,9 @@ public enum Category implements ICategory {
   /** Workspace category */
   WORKSPACE("Workspaces", SharedImages.WORKSPACE),
 
+  /** Version control branch category */
+  BRANCH("Branches", SharedImages.HIERARCHY),
+
   /** Task category */
   TASK("Tasks", SharedImages.TASK),
 
@@ -101,6 +101,7 @@ public class CommandPage extends AbsPage {
         new CommandLabelProvider(),
         new DateLabelProvider(),
         new WorkspaceStorageLabelProvider());
+    contentProvider.addObserver(mainLabels);
 
     // The viewer:
     filteredTree = Viewers.newFilteredTree(parent,
@@ -109,7 +110,7 @@ public class CommandPage extends AbsPage {
     FilterableTreePathContentProvider filteredContentProvider =
         new FilterableTreePathContentProvider(contentProvider);
     filteredContentProvider.addFilter(instanceOf(Integer.class));
-    viewer.setContentProvider(filteredContentProvider);
+    Viewers.setContentProvider(viewer, filteredContentProvider);
 
     // Column sorters:
     TreeViewerColumnSorter labelSorter =
@@ -170,7 +171,8 @@ public class CommandPage extends AbsPage {
   @Override
   public Job updateJob(Preference pref) {
     TreeViewer viewer = filteredTree.getViewer();
-    return new UpdateJob<ICommandData>(viewer, pref, getAccessor()) {
+    return new UpdateJob<ICommandData>(viewer, pref, getAccessor(),
+        contentProvider, valueProvider) {
       @Override
       protected Object getInput(final Collection<ICommandData> data) {
         return new ICommandDataProvider() {
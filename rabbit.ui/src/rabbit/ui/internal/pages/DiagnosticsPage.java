@@ -0,0 +1,215 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.ui.internal.pages;
+
+import static rabbit.ui.internal.viewers.Viewers.newTreeViewerColumn;
+
+import rabbit.data.internal.diagnostics.Diagnostics;
+import rabbit.data.internal.diagnostics.LatencyHistogram;
+import rabbit.ui.IPage;
+import rabbit.ui.Preference;
+
+import com.google.common.collect.Lists;
+
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.ActionContributionItem;
+import org.eclipse.jface.action.IContributionItem;
+import org.eclipse.jface.action.IToolBarManager;
+import org.eclipse.jface.viewers.ITableLabelProvider;
+import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Tree;
+import org.eclipse.ui.IMemento;
+
+import java.util.List;
+
+/**
+ * A page for displaying the instruments of {@link Diagnostics}, that is the
+ * time spent by Rabbit itself, and the sizes of its buffers.
+ * <p>
+ * The page reads the instruments directly, and refreshes itself every second
+ * while it's visible, it is not affected by the selected dates.
+ * </p>
+ */
+public class DiagnosticsPage implements IPage {
+
+  /** The time between two refreshes, in milliseconds. */
+  private static final int REFRESH_INTERVAL = 1000;
+
+  /**
+   * Elements are the {@link LatencyHistogram}s, followed by the names of the
+   * counters.
+   */
+  private static class ContentProvider implements ITreeContentProvider {
+    @Override
+    public void dispose() {
+    }
+
+    @Override
+    public Object[] getChildren(Object parentElement) {
+      return new Object[0];
+    }
+
+    @Override
+    public Object[] getElements(Object inputElement) {
+      List<Object> elements = Lists.newArrayList();
+      elements.addAll(Diagnostics.getHistograms().values());
+      elements.addAll(Diagnostics.getCounters().keySet());
+      return elements.toArray();
+    }
+
+    @Override
+    public Object getParent(Object element) {
+      return null;
+    }
+
+    @Override
+    public boolean hasChildren(Object element) {
+      return false;
+    }
+
+    @Override
+    public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+    }
+  }
+
+  private static class TableLabelProvider extends LabelProvider
+      implements ITableLabelProvider {
+
+    @Override
+    public Image getColumnImage(Object element, int columnIndex) {
+      return null;
+    }
+
+    @Override
+    public String getColumnText(Object element, int columnIndex) {
+      if (element instanceof String) {
+        switch (columnIndex) {
+        case 0:
+          return (String) element;
+        case 1:
+          return String.valueOf(Diagnostics.counter((String) element).get());
+        default:
+          return "";
+        }
+      }
+      if (element instanceof LatencyHistogram) {
+        LatencyHistogram histogram = (LatencyHistogram) element;
+        switch (columnIndex) {
+        case 0:
+          return histogram.getName();
+        case 1:
+          return String.valueOf(histogram.getCount());
+        case 2:
+          return toMillis((long) histogram.getMeanNanos());
+        case 3:
+          return toMillis(histogram.getPercentileNanos(90));
+        case 4:
+          return toMillis(histogram.getPercentileNanos(99));
+        case 5:
+          return toMillis(histogram.getMaxNanos());
+        case 6:
+          return toMillis(histogram.getTotalNanos());
+        default:
+          return "";
+        }
+      }
+      return "";
+    }
+
+    private String toMillis(long nanos) {
+      return String.format("%.3f", nanos / 1000000.0);
+    }
+  }
+
+  private TreeViewer viewer;
+
+  private final Runnable refresher = new Runnable() {
+    @Override
+    public void run() {
+      Tree tree = viewer.getTree();
+      if (tree.isDisposed()) {
+        return;
+      }
+      if (tree.isVisible()) {
+        viewer.refresh();
+      }
+      tree.getDisplay().timerExec(REFRESH_INTERVAL, this);
+    }
+  };
+
+  public DiagnosticsPage() {}
+
+  @Override
+  public void createContents(Composite parent) {
+    viewer = new TreeViewer(parent, SWT.V_SCROLL | SWT.H_SCROLL);
+    viewer.getTree().setHeaderVisible(true);
+    viewer.getTree().setLinesVisible(true);
+    viewer.setContentProvider(new ContentProvider());
+
+    newTreeViewerColumn(viewer, SWT.LEFT, "Name", 300);
+    newTreeViewerColumn(viewer, SWT.RIGHT, "Count", 100);
+    newTreeViewerColumn(viewer, SWT.RIGHT, "Mean (ms)", 100);
+    newTreeViewerColumn(viewer, SWT.RIGHT, "90% (ms)", 100);
+    newTreeViewerColumn(viewer, SWT.RIGHT, "99% (ms)", 100);
+    newTreeViewerColumn(viewer, SWT.RIGHT, "Max (ms)", 100);
+    newTreeViewerColumn(viewer, SWT.RIGHT, "Total (ms)", 100);
+    viewer.setLabelProvider(new TableLabelProvider());
+
+    viewer.setInput(Diagnostics.class);
+    viewer.getTree().getDisplay().timerExec(REFRESH_INTERVAL, refresher);
+  }
+
+  @Override
+  public IContributionItem[] createToolBarItems(IToolBarManager toolBar) {
+    Action reset = new Action("Reset") {
+      @Override
+      public void run() {
+        Diagnostics.reset();
+        viewer.refresh();
+      }
+    };
+    reset.setToolTipText("Reset the measurements to zero");
+
+    IContributionItem item = new ActionContributionItem(reset);
+    toolBar.add(item);
+    return new IContributionItem[]{item};
+  }
+
+  @Override
+  public void onRestoreState(IMemento memento) {
+    StateHelper.of(memento, getClass().getSimpleName())
+        .restoreColumnWidths(viewer.getTree().getColumns());
+  }
+
+  @Override
+  public void onSaveState(IMemento memento) {
+    StateHelper.of(memento, getClass().getSimpleName())
+        .saveColumnWidths(viewer.getTree().getColumns());
+  }
+
+  @Override
+  public Job updateJob(Preference preference) {
+    viewer.refresh();
+    return null;
+  }
+}
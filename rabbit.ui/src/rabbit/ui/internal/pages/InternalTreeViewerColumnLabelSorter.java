@@ -40,4 +40,16 @@ public class InternalTreeViewerColumnLabelSorter extends TreeViewerColumnLabelSo
     }
     return super.doCompare(v, parentPath, e1, e2);
   }
+
+  /**
+   * Returns null for {@link LocalDate}s, dates are compared with
+   * {@link #doCompare(Viewer, TreePath, Object, Object)}.
+   */
+  @Override
+  protected Comparable<?> getSortKey(Viewer v, TreePath parentPath, Object element) {
+    if (element instanceof LocalDate) {
+      return null;
+    }
+    return super.getSortKey(v, parentPath, element);
+  }
 }
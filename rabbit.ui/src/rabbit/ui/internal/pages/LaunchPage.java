@@ -115,6 +115,7 @@ public class LaunchPage extends AbsPage {
         new ResourceLabelProvider(),
         new DateLabelProvider(),
         new WorkspaceStorageLabelProvider());
+    contentProvider.addObserver(mainLabels);
 
     // The viewer:
     filteredTree = Viewers.newFilteredTree(parent,
@@ -124,7 +125,7 @@ public class LaunchPage extends AbsPage {
         new FilterableTreePathContentProvider(contentProvider);
     filteredContentProvider.addFilter(instanceOf(Integer.class));
     filteredContentProvider.addFilter(instanceOf(Duration.class));
-    viewer.setContentProvider(filteredContentProvider);
+    Viewers.setContentProvider(viewer, filteredContentProvider);
 
     // Column sorters:
     TreeViewerColumnSorter labelSorter =
@@ -208,7 +209,8 @@ public class LaunchPage extends AbsPage {
   @Override
   public Job updateJob(Preference pref) {
     TreeViewer viewer = filteredTree.getViewer();
-    return new UpdateJob<ILaunchData>(viewer, pref, getAccessor()) {
+    return new UpdateJob<ILaunchData>(viewer, pref, getAccessor(),
+        contentProvider, durationProvider, countProvider) {
       @Override
       protected Object getInput(final Collection<ILaunchData> data) {
         return new ILaunchDataProvider() {
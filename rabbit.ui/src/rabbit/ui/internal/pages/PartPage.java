@@ -146,6 +146,7 @@ public class PartPage extends AbsPage {
         new WorkbenchPartLabelProvider(),
         new DateLabelProvider(),
         new WorkspaceStorageLabelProvider());
+    realContentProvider.addObserver(mainLabels);
 
     // The viewer:
     filteredTree = Viewers.newFilteredTree(parent,
@@ -154,7 +155,7 @@ public class PartPage extends AbsPage {
     filteredContentProvider =
         new FilterableTreePathContentProvider(realContentProvider);
     filteredContentProvider.addFilter(instanceOf(Duration.class));
-    viewer.setContentProvider(filteredContentProvider);
+    Viewers.setContentProvider(viewer, filteredContentProvider);
 
     // Column sorters:
     TreeViewerColumnSorter labelSorter =
@@ -219,7 +220,8 @@ public class PartPage extends AbsPage {
   @Override
   public Job updateJob(Preference pref) {
     TreeViewer viewer = filteredTree.getViewer();
-    return new UpdateJob<IPartData>(viewer, pref, getAccessor()) {
+    return new UpdateJob<IPartData>(viewer, pref, getAccessor(),
+        realContentProvider, durationProvider) {
       @Override
       protected Object getInput(final Collection<IPartData> data) {
         return new IPartDataProvider() {
@@ -103,6 +103,7 @@ public class PerspectivePage extends AbsPage {
         new PerspectiveLabelProvider(),
         new DateLabelProvider(),
         new WorkspaceStorageLabelProvider());
+    contentProvider.addObserver(mainLabels);
 
     // The viewer:
     filteredTree = Viewers.newFilteredTree(parent,
@@ -111,7 +112,7 @@ public class PerspectivePage extends AbsPage {
     FilterableTreePathContentProvider filteredContentProvider =
         new FilterableTreePathContentProvider(contentProvider);
     filteredContentProvider.addFilter(instanceOf(Duration.class));
-    viewer.setContentProvider(filteredContentProvider);
+    Viewers.setContentProvider(viewer, filteredContentProvider);
 
     // Column sorters:
     TreeViewerColumnSorter labelSorter =
@@ -173,7 +174,8 @@ public class PerspectivePage extends AbsPage {
   @Override
   public Job updateJob(Preference pref) {
     TreeViewer viewer = filteredTree.getViewer();
-    return new UpdateJob<IPerspectiveData>(viewer, pref, getAccessor()) {
+    return new UpdateJob<IPerspectiveData>(viewer, pref, getAccessor(),
+        contentProvider, durationProvider) {
       @Override
       protected Object getInput(final Collection<IPerspectiveData> data) {
         return new IPerspectiveDataProvider() {
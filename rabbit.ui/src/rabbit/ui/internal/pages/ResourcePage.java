@@ -15,6 +15,7 @@
  */
 package rabbit.ui.internal.pages;
 
+import static rabbit.ui.internal.pages.Category.BRANCH;
 import static rabbit.ui.internal.pages.Category.DATE;
 import static rabbit.ui.internal.pages.Category.FILE;
 import static rabbit.ui.internal.pages.Category.FOLDER;
@@ -23,6 +24,7 @@ import static rabbit.ui.internal.pages.Category.WORKSPACE;
 import static rabbit.ui.internal.viewers.Viewers.newTreeViewerColumn;
 
 import rabbit.data.access.IAccessor;
+import rabbit.data.access.model.Branch;
 import rabbit.data.access.model.IFileData;
 import rabbit.data.access.model.WorkspaceStorage;
 import rabbit.data.handler.DataHandler;
@@ -35,6 +37,7 @@ import rabbit.ui.internal.util.ICategorizer;
 import rabbit.ui.internal.util.IConverter;
 import rabbit.ui.internal.util.TreePathDurationConverter;
 import rabbit.ui.internal.util.TreePathValueProvider;
+import rabbit.ui.internal.viewers.BranchLabelProvider;
 import rabbit.ui.internal.viewers.CompositeCellLabelProvider;
 import rabbit.ui.internal.viewers.DateLabelProvider;
 import rabbit.ui.internal.viewers.FilterableTreePathContentProvider;
@@ -91,7 +94,7 @@ public class ResourcePage extends AbsPage {
 
   @Override
   public void createContents(Composite parent) {
-    Category[] supported = {WORKSPACE, DATE, PROJECT, FOLDER, FILE};
+    Category[] supported = {WORKSPACE, DATE, BRANCH, PROJECT, FOLDER, FILE};
     categoryProvider = new CategoryProvider(supported, PROJECT, FOLDER, FILE);
     categoryProvider.addObserver(this);
 
@@ -106,7 +109,9 @@ public class ResourcePage extends AbsPage {
     CompositeCellLabelProvider mainLabels = new CompositeCellLabelProvider(
         new ResourceLabelProvider(),
         new DateLabelProvider(),
-        new WorkspaceStorageLabelProvider());
+        new WorkspaceStorageLabelProvider(),
+        new BranchLabelProvider());
+    contentProvider.addObserver(mainLabels);
 
     // The viewer:
     filteredTree = Viewers.newFilteredTree(parent,
@@ -115,7 +120,7 @@ public class ResourcePage extends AbsPage {
     FilterableTreePathContentProvider filteredContentProvider =
         new FilterableTreePathContentProvider(contentProvider);
     filteredContentProvider.addFilter(instanceOf(Duration.class));
-    viewer.setContentProvider(filteredContentProvider);
+    Viewers.setContentProvider(viewer, filteredContentProvider);
 
     // Column sorters:
     TreeViewerColumnSorter labelSorter =
@@ -166,12 +171,14 @@ public class ResourcePage extends AbsPage {
         .addGroupByAction(PROJECT)
         .addGroupByAction(DATE, PROJECT, FOLDER, FILE)
         .addGroupByAction(WORKSPACE, PROJECT, FOLDER, FILE)
+        .addGroupByAction(BRANCH, PROJECT, FOLDER, FILE)
 
         .addColorByAction(FILE)
         .addColorByAction(FOLDER)
         .addColorByAction(PROJECT)
         .addColorByAction(DATE)
         .addColorByAction(WORKSPACE)
+        .addColorByAction(BRANCH)
         .build();
 
     for (IContributionItem item : items) {
@@ -183,7 +190,8 @@ public class ResourcePage extends AbsPage {
   @Override
   public Job updateJob(Preference pref) {
     TreeViewer viewer = filteredTree.getViewer();
-    return new UpdateJob<IFileData>(viewer, pref, getAccessor()) {
+    return new UpdateJob<IFileData>(viewer, pref, getAccessor(),
+        contentProvider, durationProvider) {
       @Override
       protected Object getInput(final Collection<IFileData> data) {
         return new IFileDataProvider() {
@@ -228,12 +236,15 @@ public class ResourcePage extends AbsPage {
   }
 
   private ICategorizer createCategorizer() {
-    Map<Predicate<Object>, Category> categories = ImmutableMap.of(
-        instanceOf(IFile.class), FILE,
-        instanceOf(IFolder.class), FOLDER,
-        instanceOf(IProject.class), PROJECT,
-        instanceOf(LocalDate.class), DATE,
-        instanceOf(WorkspaceStorage.class), WORKSPACE);
+    Map<Predicate<Object>, Category> categories = ImmutableMap
+        .<Predicate<Object>, Category> builder()
+        .put(instanceOf(IFile.class), FILE)
+        .put(instanceOf(IFolder.class), FOLDER)
+        .put(instanceOf(IProject.class), PROJECT)
+        .put(instanceOf(LocalDate.class), DATE)
+        .put(instanceOf(WorkspaceStorage.class), WORKSPACE)
+        .put(instanceOf(Branch.class), BRANCH)
+        .build();
     ICategorizer categorizer = new Categorizer(categories);
     return categorizer;
   }
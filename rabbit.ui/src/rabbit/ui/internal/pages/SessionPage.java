@@ -20,12 +20,15 @@ import static rabbit.ui.internal.pages.Category.WORKSPACE;
 import static rabbit.ui.internal.viewers.Viewers.newTreeViewerColumn;
 
 import rabbit.data.access.IAccessor;
+import rabbit.data.access.Query;
+import rabbit.data.access.model.IData;
 import rabbit.data.access.model.ISessionData;
 import rabbit.data.access.model.WorkspaceStorage;
 import rabbit.data.handler.DataHandler;
 import rabbit.ui.Preference;
 import rabbit.ui.internal.treebuilders.SessionDataTreeBuilder;
 import rabbit.ui.internal.treebuilders.SessionDataTreeBuilder.ISessionDataProvider;
+import rabbit.ui.internal.treebuilders.SessionDataTreeBuilder.ISessionRowProvider;
 import rabbit.ui.internal.util.Categorizer;
 import rabbit.ui.internal.util.CategoryProvider;
 import rabbit.ui.internal.util.ICategorizer;
@@ -48,7 +51,9 @@ import static com.google.common.base.Predicates.instanceOf;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.action.IContributionItem;
 import org.eclipse.jface.action.IToolBarManager;
@@ -95,6 +100,7 @@ public final class SessionPage extends AbsPage {
     // The main label provider for the first column:
     CompositeCellLabelProvider mainLabels = new CompositeCellLabelProvider(
         new DateLabelProvider(), new WorkspaceStorageLabelProvider());
+    contentProvider.addObserver(mainLabels);
     
     // The viewer:
     filteredTree = Viewers.newFilteredTree(parent, new TreePathPatternFilter(mainLabels));
@@ -102,7 +108,7 @@ public final class SessionPage extends AbsPage {
     FilterableTreePathContentProvider filteredContentProvider = 
         new FilterableTreePathContentProvider(contentProvider);
     filteredContentProvider.addFilter(instanceOf(Duration.class));
-    viewer.setContentProvider(filteredContentProvider);
+    Viewers.setContentProvider(viewer, filteredContentProvider);
 
     // Column sorters:
     TreeViewerColumnSorter labelSorter = new InternalTreeViewerColumnLabelSorter(viewer, mainLabels);
@@ -153,7 +159,8 @@ public final class SessionPage extends AbsPage {
   @Override
   public Job updateJob(Preference pref) {
     TreeViewer viewer = filteredTree.getViewer();
-    return new UpdateJob<ISessionData>(viewer, pref, getAccessor()) {
+    return new UpdateJob<ISessionData>(viewer, pref, getAccessor(),
+        contentProvider, valueProvider) {
       @Override
       protected Object getInput(final Collection<ISessionData> data) {
         return new ISessionDataProvider() {
@@ -163,6 +170,44 @@ public final class SessionPage extends AbsPage {
           }
         };
       }
+
+      /** The query of the current input. */
+      private Query query;
+
+      @Override
+      protected Object getInput(IAccessor<ISessionData> accessor,
+          LocalDate start, LocalDate end, IProgressMonitor monitor) {
+        // Only the total of each day of each workspace is shown:
+        query = new Query.Builder(start, end)
+            .groupBy(ISessionData.DATE, ISessionData.WORKSPACE)
+            .sum(ISessionData.DURATION)
+            .build();
+        return newRowProvider(accessor.getData(query));
+      }
+
+      @Override
+      protected Object update(Object current,
+          Collection<ISessionData> newData) {
+        if (!(current instanceof ISessionRowProvider)) {
+          return null;
+        }
+        // The rows are aggregated again with the new data, the number of rows
+        // is at most the number of days times the number of workspaces:
+        List<IData> rows =
+            Lists.newArrayList(((ISessionRowProvider) current).get());
+        rows.addAll(newData);
+        return newRowProvider(query.aggregate(rows));
+      }
+
+      private ISessionRowProvider newRowProvider(
+          final Collection<IData> rows) {
+        return new ISessionRowProvider() {
+          @Override
+          public Collection<IData> get() {
+            return rows;
+          }
+        };
+      }
     };
   }
 
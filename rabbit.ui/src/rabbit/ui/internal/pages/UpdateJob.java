@@ -16,13 +16,23 @@
 package rabbit.ui.internal.pages;
 
 import rabbit.data.access.IAccessor;
+import rabbit.data.access.IDataVisitor;
+import rabbit.data.internal.diagnostics.Diagnostics;
+import rabbit.data.internal.diagnostics.LatencyHistogram;
+import rabbit.data.store.model.DiscreteEvent;
 import rabbit.ui.Preference;
+import rabbit.ui.internal.util.TreePathValueProvider;
+import rabbit.ui.internal.viewers.TreePathContentProvider;
+import rabbit.ui.internal.viewers.TreePathIndex;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.common.collect.Lists;
+
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.viewers.TreePath;
 import org.eclipse.jface.viewers.TreeViewer;
@@ -30,15 +40,58 @@ import org.eclipse.ui.PlatformUI;
 import org.joda.time.LocalDate;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.annotation.Nullable;
 
 /**
  * An internal update job for updating a page.
+ * <p>
+ * The data is loaded in the background. If a content provider is given, the
+ * tree is also built and indexed, and the values of the given value providers
+ * are summed in the background, only the finished model is set on the viewer
+ * in the UI thread.
+ * </p>
+ * <p>
+ * Scheduling a job cancels the other update jobs of the same viewer, as their
+ * results would be superseded by the new job.
+ * </p>
+ * <p>
+ * The events given to {@link #addEvents(Collection)} are applied to the loaded
+ * data, such as the events the trackers have not yet saved. Once a job has
+ * loaded the data, the events are applied the next time the job is run,
+ * instead of loading the data again, see {@link #update(Object, Collection)}.
+ * </p>
  */
 public abstract class UpdateJob<T> extends Job {
 
+  private static final LatencyHistogram runLatency =
+      Diagnostics.histogram("UpdateJob.run");
+
   private final TreeViewer viewer;
   private final Preference pref;
   private final IAccessor<T> accessor;
+  private final TreePathContentProvider contentProvider;
+  private final TreePathValueProvider[] valueProviders;
+
+  /** The events to be applied to the current input. */
+  private final Queue<Object> events;
+
+  /** The current input of the viewer, null if not yet loaded. */
+  @Nullable private Object input;
+  @Nullable private LocalDate inputStart;
+  @Nullable private LocalDate inputEnd;
+
+  /**
+   * The data of the current input, if the input is created by
+   * {@link #getInput(Collection)}, otherwise null.
+   */
+  @Nullable private List<T> data;
+
+  /** The data of the input being created by this run of the job. */
+  @Nullable private List<T> nextData;
 
   /**
    * Constructs a new job.
@@ -49,50 +102,279 @@ public abstract class UpdateJob<T> extends Job {
    * @throws NullPointerException If any of the arguments are null.
    */
   public UpdateJob(TreeViewer viewer, Preference pref, IAccessor<T> accessor) {
+    this(viewer, pref, accessor, (TreePathContentProvider) null);
+  }
+
+  /**
+   * Constructs a new job which also builds the tree in the background.
+   * 
+   * @param viewer The tree viewer to be updated.
+   * @param pref The preference for getting the data.
+   * @param accessor The data accessor for getting the data from.
+   * @param contentProvider The content provider of the viewer, to build the
+   *        tree of the new input in the background, or null to build the tree
+   *        in the UI thread.
+   * @param valueProviders The value providers using the leaves of
+   *        {@code contentProvider}, to sum the values in the background.
+   * @throws NullPointerException If any of {@code viewer, pref, accessor} is
+   *         null, or if {@code valueProviders} contains null.
+   */
+  public UpdateJob(
+      TreeViewer viewer,
+      Preference pref,
+      IAccessor<T> accessor,
+      @Nullable TreePathContentProvider contentProvider,
+      TreePathValueProvider... valueProviders) {
     super("Updating Rabbit View...");
     this.viewer = checkNotNull(viewer);
     this.pref = checkNotNull(pref);
     this.accessor = checkNotNull(accessor);
+    this.contentProvider = contentProvider;
+    for (TreePathValueProvider provider : valueProviders) {
+      checkNotNull(provider);
+    }
+    this.valueProviders = valueProviders.clone();
+    this.events = new ConcurrentLinkedQueue<Object>();
+  }
+
+  /**
+   * Adds events to be applied to the current input the next time this job is
+   * run, such as the events published by the trackers. Events that are not
+   * of the type of the accessor of this job, or are not between the dates of
+   * the current input, are ignored. Events added before the data is loaded
+   * are applied as soon as it is loaded.
+   * 
+   * @param published The events.
+   * @throws NullPointerException If {@code published} is null.
+   */
+  public void addEvents(Collection<?> published) {
+    events.addAll(checkNotNull(published));
+  }
+
+  /**
+   * Update jobs belong to the family of the viewer they are updating.
+   */
+  @Override
+  public boolean belongsTo(Object family) {
+    return family == viewer;
+  }
+
+  /**
+   * Cancels the other update jobs of the same viewer before this job is
+   * scheduled. If this job is running, it is not canceled, and will run again
+   * once it is finished.
+   */
+  @Override
+  public boolean shouldSchedule() {
+    for (Job job : getJobManager().find(viewer)) {
+      if (job != this) {
+        job.cancel();
+      }
+    }
+    return super.shouldSchedule();
   }
 
   @Override
   protected IStatus run(IProgressMonitor monitor) {
+    long start = runLatency.start();
+    try {
+      return doRun(monitor);
+    } finally {
+      runLatency.stop(start);
+    }
+  }
+
+  /**
+   * When data is received from the data accessor, this method is called to get
+   * the input object for the viewer. This method is called in the background.
+   * 
+   * @param data The data received from the data accessor.
+   * @return The input object for the viewer.
+   */
+  protected abstract Object getInput(Collection<T> data);
+
+  /**
+   * Gets the input object for the viewer from the given accessor. This method
+   * is called in the background. By default, the data between the dates is
+   * collected as it is read, reporting the progress to the monitor, and then
+   * passed to {@link #getInput(Collection)}, pages that only need aggregated
+   * data can override this method to query the accessor instead, see
+   * {@link IAccessor#getData(rabbit.data.access.Query)}.
+   * 
+   * @param accessor The data accessor.
+   * @param start The start date of the data.
+   * @param end The end date of the data, inclusive.
+   * @param monitor The monitor for reporting the progress of reading the data,
+   *        the result is ignored if the monitor is canceled.
+   * @return The input object for the viewer.
+   */
+  protected Object getInput(IAccessor<T> accessor, LocalDate start,
+      LocalDate end, IProgressMonitor monitor) {
+    final List<T> result = Lists.newArrayList();
+    accessor.visit(start, end, new IDataVisitor<T>() {
+      @Override
+      public boolean visit(T node) {
+        result.add(node);
+        return true;
+      }
+    }, monitor);
+    nextData = result;
+    return getInput(result);
+  }
+
+  /**
+   * Gets the input object for the viewer, with the given new data added to the
+   * current input. This method is called in the background, instead of
+   * reading the data from the accessor again. By default, if the current
+   * input is created by {@link #getInput(Collection)}, the new data is added
+   * to the data of the current input and passed to
+   * {@link #getInput(Collection)}, pages that override
+   * {@link #getInput(IAccessor, LocalDate, LocalDate, IProgressMonitor)} need
+   * to override this method as well to update their input.
+   * 
+   * @param current The current input of the viewer, or the input just loaded
+   *        from the accessor.
+   * @param newData The new data, between the dates of the input.
+   * @return The new input object for the viewer, or null to load the data
+   *         from the accessor again, in which case the events that have not
+   *         yet been saved are not shown.
+   */
+  @Nullable
+  protected Object update(Object current, Collection<T> newData) {
+    List<T> base = (nextData != null) ? nextData : data;
+    if (base == null) {
+      return null;
+    }
+    // The current input may still be in use, so the data is copied:
+    List<T> result = Lists.newArrayListWithCapacity(
+        base.size() + newData.size());
+    result.addAll(base);
+    result.addAll(newData);
+    nextData = result;
+    return getInput(result);
+  }
+
+  /**
+   * Returns the cancel status, the given events will be applied again the
+   * next time this job is run.
+   */
+  private IStatus cancel(@Nullable Collection<Object> applied) {
+    if (applied != null) {
+      events.addAll(applied);
+    }
+    return Status.CANCEL_STATUS;
+  }
+
+  private IStatus doRun(final IProgressMonitor monitor) {
     if (monitor.isCanceled()) {
       return Status.CANCEL_STATUS;
     } else {
-      monitor.beginTask("Updating page...", 2);
+      monitor.beginTask("Updating page...", 3);
+    }
+
+    // Applies the new events to the current input, if it has been loaded:
+    nextData = null;
+    List<Object> applied = null;
+    Object newInput = null;
+    LocalDate start = inputStart;
+    LocalDate end = inputEnd;
+    if (input != null) {
+      applied = Lists.newArrayList();
+      for (Object event; (event = events.poll()) != null;) {
+        applied.add(event);
+      }
+      Collection<T> newData = accessor.convert(getEvents(applied, start, end));
+      if (newData.isEmpty()) {
+        monitor.done();
+        return Status.OK_STATUS;
+      }
+      newInput = update(input, newData);
+    }
+
+    if (newInput == null) {
+      start = LocalDate.fromCalendarFields(pref.getStartDate());
+      end = LocalDate.fromCalendarFields(pref.getEndDate());
+      newInput =
+          getInput(accessor, start, end, new SubProgressMonitor(monitor, 1));
+
+      // Applies the events added before the data was loaded, and the events
+      // that could not be applied to the current input:
+      if (applied == null) {
+        applied = Lists.newArrayList();
+      }
+      for (Object event; (event = events.poll()) != null;) {
+        applied.add(event);
+      }
+      Collection<T> newData = accessor.convert(getEvents(applied, start, end));
+      if (!newData.isEmpty() && !monitor.isCanceled()) {
+        Object updated = update(newInput, newData);
+        if (updated != null) {
+          newInput = updated;
+        }
+      }
+    } else {
+      monitor.worked(1);
+    }
+    final Object nextInput = newInput;
+
+    if (monitor.isCanceled()) {
+      return cancel(applied);
     }
 
-    LocalDate start = LocalDate.fromCalendarFields(pref.getStartDate());
-    LocalDate end = LocalDate.fromCalendarFields(pref.getEndDate());
-    final Collection<T> data = accessor.getData(start, end);
+    if (contentProvider != null) {
+      TreePathIndex index = contentProvider.prepare(nextInput);
+      for (TreePathValueProvider provider : valueProviders) {
+        provider.prepare(index);
+      }
+    }
     monitor.worked(1);
 
     if (monitor.isCanceled()) {
-      return Status.CANCEL_STATUS;
+      return cancel(applied);
     }
 
+    final boolean[] isSet = {false};
     PlatformUI.getWorkbench().getDisplay().syncExec(new Runnable() {
       @Override
       public void run() {
+        if (monitor.isCanceled() || viewer.getTree().isDisposed()) {
+          return;
+        }
         viewer.getTree().setRedraw(false);
         TreePath[] expandedPaths = viewer.getExpandedTreePaths();
-        viewer.setInput(getInput(data));
+        viewer.setInput(nextInput);
         viewer.setExpandedTreePaths(expandedPaths);
         viewer.getTree().setRedraw(true);
+        isSet[0] = true;
       }
     });
+    if (!isSet[0]) {
+      return cancel(applied);
+    }
+    this.input = nextInput;
+    this.inputStart = start;
+    this.inputEnd = end;
+    this.data = nextData;
+
     monitor.worked(1);
     monitor.done();
-    return Status.OK_STATUS;
+    return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
   }
 
   /**
-   * When data is received from the data accessor, this method is called to get
-   * the input object for the viewer.
-   * 
-   * @param data The data received from the data accessor.
-   * @return The input object for the viewer.
+   * Gets the events between the given dates, inclusive.
    */
-  protected abstract Object getInput(Collection<T> data);
+  private static List<Object> getEvents(Collection<Object> events,
+      LocalDate start, LocalDate end) {
+    List<Object> result = Lists.newArrayListWithCapacity(events.size());
+    for (Object event : events) {
+      if (event instanceof DiscreteEvent) {
+        LocalDate date = ((DiscreteEvent) event).getTime().toLocalDate();
+        if (!date.isBefore(start) && !date.isAfter(end)) {
+          result.add(event);
+        }
+      }
+    }
+    return result;
+  }
 }
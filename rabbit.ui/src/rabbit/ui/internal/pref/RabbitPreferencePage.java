@@ -15,6 +15,7 @@
  */
 package rabbit.ui.internal.pref;
 
+import rabbit.tracking.internal.TrackingPlugin;
 import rabbit.ui.internal.RabbitUI;
 
 import org.eclipse.jface.preference.PreferencePage;
@@ -22,6 +23,7 @@ import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Group;
@@ -34,6 +36,10 @@ public class RabbitPreferencePage extends PreferencePage implements
     IWorkbenchPreferencePage {
 
   private Spinner daySpinner;
+  private Button virtualTreeButton;
+  private Spinner liveSpinner;
+  private Button samplingButton;
+  private Spinner samplingSpinner;
 
   public RabbitPreferencePage() {
   }
@@ -57,7 +63,23 @@ public class RabbitPreferencePage extends PreferencePage implements
       RabbitUI.getDefault().setDefaultDisplayDatePeriod(
           daySpinner.getSelection());
     }
+    if (RabbitUI.getDefault().isVirtualTreeEnabled() != virtualTreeButton
+        .getSelection()) {
+      RabbitUI.getDefault().setVirtualTreeEnabled(
+          virtualTreeButton.getSelection());
+    }
+    if (RabbitUI.getDefault().getLiveUpdateInterval() != liveSpinner
+        .getSelection()) {
+      RabbitUI.getDefault().setLiveUpdateInterval(liveSpinner.getSelection());
+    }
 
+    TrackingPlugin tracking = TrackingPlugin.getDefault();
+    if (tracking.getSamplingInterval() != samplingSpinner.getSelection()) {
+      tracking.setSamplingInterval(samplingSpinner.getSelection());
+    }
+    if (tracking.isSamplingEnabled() != samplingButton.getSelection()) {
+      tracking.setSamplingEnabled(samplingButton.getSelection());
+    }
     return true;
   }
 
@@ -85,6 +107,45 @@ public class RabbitPreferencePage extends PreferencePage implements
           .getDefaultDisplayDatePeriod());
       daySpinner.setToolTipText("0 to display today's data only");
       new Label(viewGroup, SWT.HORIZONTAL).setText(" days.");
+
+      virtualTreeButton = new Button(viewGroup, SWT.CHECK);
+      virtualTreeButton.setText(
+          "Create tree items only when visible (faster for large data sets)");
+      virtualTreeButton.setSelection(RabbitUI.getDefault()
+          .isVirtualTreeEnabled());
+      virtualTreeButton.setToolTipText("Takes effect when the view is reopened");
+      virtualTreeButton.setLayoutData(
+          new GridData(SWT.FILL, SWT.CENTER, true, false, 3, 1));
+
+      new Label(viewGroup, SWT.HORIZONTAL)
+          .setText("In live mode, update the view at most every ");
+      liveSpinner = new Spinner(viewGroup, SWT.BORDER);
+      liveSpinner.setMinimum(250);
+      liveSpinner.setMaximum(60000);
+      liveSpinner.setIncrement(250);
+      liveSpinner.setSelection(RabbitUI.getDefault().getLiveUpdateInterval());
+      new Label(viewGroup, SWT.HORIZONTAL).setText(" milliseconds.");
+    }
+
+    // Contains setting for tracking:
+    Group trackingGroup = new Group(cmp, SWT.NONE);
+    trackingGroup.setText("Tracking");
+    trackingGroup.setLayoutData(new GridData(SWT.FILL, SWT.TOP, true, false));
+    trackingGroup.setLayout(new GridLayout(3, false));
+    {
+      TrackingPlugin tracking = TrackingPlugin.getDefault();
+      samplingButton = new Button(trackingGroup, SWT.CHECK);
+      samplingButton.setText("Sample the workbench every ");
+      samplingButton.setSelection(tracking.isSamplingEnabled());
+      samplingButton.setToolTipText(
+          "Instead of reacting to every change, lowers the tracking overhead"
+              + " in exchange for coarser time attribution");
+      samplingSpinner = new Spinner(trackingGroup, SWT.BORDER);
+      samplingSpinner.setMinimum(100);
+      samplingSpinner.setMaximum(60000);
+      samplingSpinner.setIncrement(100);
+      samplingSpinner.setSelection(tracking.getSamplingInterval());
+      new Label(trackingGroup, SWT.HORIZONTAL).setText(" milliseconds.");
     }
 
     return cmp;
@@ -93,6 +154,10 @@ public class RabbitPreferencePage extends PreferencePage implements
   @Override
   protected void performDefaults() {
     daySpinner.setSelection(7);
+    virtualTreeButton.setSelection(false);
+    liveSpinner.setSelection(RabbitUI.DEFAULT_LIVE_UPDATE_INTERVAL);
+    samplingButton.setSelection(false);
+    samplingSpinner.setSelection(TrackingPlugin.DEFAULT_SAMPLING_INTERVAL);
     super.performDefaults();
   }
 }
@@ -84,6 +84,9 @@ public final class FileDataTreeBuilder implements ITreePathBuilder {
         case DATE:
           segments.add(data.get(IFileData.DATE));
           break;
+        case BRANCH:
+          segments.add(data.get(IFileData.BRANCH));
+          break;
         case PROJECT:
           segments.add(file.getProject());
           break;
@@ -15,6 +15,8 @@
  */
 package rabbit.ui.internal.treebuilders;
 
+import rabbit.data.access.Query;
+import rabbit.data.access.model.IData;
 import rabbit.data.access.model.IKey;
 import rabbit.data.access.model.ISessionData;
 import rabbit.ui.IProvider;
@@ -31,6 +33,7 @@ import org.joda.time.Duration;
 import static java.util.Collections.emptyList;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -41,13 +44,19 @@ import java.util.List;
  * provider.
  */
 public final class SessionDataTreeBuilder
-    extends AbstractDataTreeBuilder<ISessionData> {
+    extends AbstractDataTreeBuilder<IData> {
 
   /**
    * Provides {@link ISessionData}.
    */
   public static interface ISessionDataProvider extends IProvider<ISessionData> {}
 
+  /**
+   * Provides the rows of a {@link Query} of session data, each row having the
+   * same keys as an {@link ISessionData}.
+   */
+  public static interface ISessionRowProvider extends IProvider<IData> {}
+
   /**
    * @param categoryProvider the provider for providing categories.
    * @throws NullPointerException if argument is null.
@@ -61,15 +70,20 @@ public final class SessionDataTreeBuilder
   }
 
   @Override
-  protected Collection<ISessionData> getData(Object input) {
+  protected Collection<IData> getData(Object input) {
     if (input instanceof ISessionDataProvider) {
-      return ((ISessionDataProvider) input).get();
+      Collection<ISessionData> data = ((ISessionDataProvider) input).get();
+      return (data == null)
+          ? null : Collections.<IData> unmodifiableCollection(data);
+    }
+    if (input instanceof ISessionRowProvider) {
+      return ((ISessionRowProvider) input).get();
     }
     return emptyList();
   }
 
   @Override
-  protected List<TreePath> transform(ISessionData data, TreePath path)
+  protected List<TreePath> transform(IData data, TreePath path)
       throws Exception {
     return ImmutableList.of(path.createChildPath(data.get(ISessionData.DURATION)));
   }
@@ -17,20 +17,20 @@ package rabbit.ui.internal.util;
 
 import rabbit.ui.IProvider;
 import rabbit.ui.internal.viewers.IValueProvider;
-import rabbit.ui.internal.viewers.TreePaths;
+import rabbit.ui.internal.viewers.TreePathContentProvider;
+import rabbit.ui.internal.viewers.TreePathIndex;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Predicates.alwaysTrue;
 
 import com.google.common.base.Objects;
 import com.google.common.base.Predicate;
-import com.google.common.collect.Sets;
 
 import org.eclipse.jface.viewers.TreePath;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Observable;
-import java.util.Set;
 
 import javax.annotation.Nullable;
 
@@ -54,6 +54,13 @@ import javax.annotation.Nullable;
  * {@link #getVisualCategory()} then {@link #shouldPaint(Object)} will return
  * true on the given path.
  * </p>
+ * <p>
+ * The values of all the sub paths are summed once for each collection of
+ * leaves and cached, {@link #prepare(TreePathIndex)} can be used to do this in
+ * a background thread before the leaves are set on the UI thread. The prepared
+ * values, and the max value of the visual category, are used once the index
+ * becomes the index of the content provider.
+ * </p>
  */
 public final class TreePathValueProvider extends Observable
     implements IValueProvider, IVisualProvider {
@@ -62,9 +69,19 @@ public final class TreePathValueProvider extends Observable
   private final IProvider<TreePath> pathProvider;
   private final IConverter<TreePath> converter;
 
-  private ICategory visual;
+  private volatile ICategory visual;
   private long max;
 
+  /**
+   * The values of the last collection of leaves, may be null.
+   */
+  private volatile Values values;
+
+  /**
+   * The values prepared for the next collection of leaves, may be null.
+   */
+  private volatile Values prepared;
+
   /**
    * Constructor.
    * @param categorizer for categorizing tree paths.
@@ -140,7 +157,7 @@ public final class TreePathValueProvider extends Observable
     if (!(element instanceof TreePath)) {
       return 0;
     }
-    return getValue((TreePath) element, getProvider().get());
+    return getValues().get((TreePath) element);
   }
 
   @Override
@@ -148,6 +165,24 @@ public final class TreePathValueProvider extends Observable
     return visual;
   }
 
+  /**
+   * Sums the values of all the sub paths of the given index, so that they will
+   * be ready when the leaves of the index become the leaves of
+   * {@link #getProvider()}. This method is safe to be called from a non-UI
+   * thread, provided that the converter is.
+   * @param index the index of the leaves.
+   * @throws NullPointerException if {@code index} is null.
+   */
+  public void prepare(TreePathIndex index) {
+    Values next = new Values(index, converter);
+    ICategory category = visual;
+    if (category != null) {
+      next.maxCategory = category;
+      next.maxValue = computeMaxValue(next, category, alwaysTrue());
+    }
+    prepared = next;
+  }
+
   /**
    * Sets the max value using a category. If the category of a tree node is
    * equal to the given category, and the value of that path (from the root to
@@ -156,7 +191,12 @@ public final class TreePathValueProvider extends Observable
    * @param category the category.
    */
   public void setMaxValue(ICategory category) {
-    setMaxValue(category, alwaysTrue());
+    Values current = getValues();
+    if (current.maxCategory != null && current.maxCategory.equals(category)) {
+      setMaxValue(current.maxValue);
+    } else {
+      setMaxValue(category, alwaysTrue());
+    }
   }
 
   /**
@@ -170,28 +210,7 @@ public final class TreePathValueProvider extends Observable
    */
   public void setMaxValue(ICategory category,
       Predicate<? super Object> predicate) {
-    Set<TreePath> paths = Sets.newHashSet();
-    Collection<TreePath> leaves = getProvider().get();
-    for (TreePath leaf : leaves) {
-      for (int i = 0; i < leaf.getSegmentCount(); ++i) {
-
-        Object segment = leaf.getSegment(i);
-        ICategory another = getCategorizer().getCategory(segment);
-        if (Objects.equal(category, another) && predicate.apply(segment)) {
-          paths.add(TreePaths.headPath(leaf, i + 1));
-          break;
-        }
-      }
-    }
-
-    long max = 0;
-    for (TreePath path : paths) {
-      long value = getValue(path, leaves);
-      if (value > max) {
-        max = value;
-      }
-    }
-    setMaxValue(max);
+    setMaxValue(computeMaxValue(getValues(), category, predicate));
   }
 
   /**
@@ -202,6 +221,34 @@ public final class TreePathValueProvider extends Observable
     this.max = max;
   }
 
+  /**
+   * Computes the max value of the given values, see
+   * {@link #setMaxValue(ICategory, Predicate)}.
+   */
+  private long computeMaxValue(Values current, ICategory category,
+      Predicate<? super Object> predicate) {
+    TreePathIndex index = current.index;
+
+    // A node is a candidate if it's the first node on its path to match:
+    boolean[] matched = new boolean[index.size()];
+    long max = 0;
+    for (int node = TreePathIndex.ROOT + 1; node < matched.length; ++node) {
+      if (matched[index.getParentNode(node)]) {
+        matched[node] = true;
+        continue;
+      }
+      Object segment = index.getSegment(node);
+      ICategory another = getCategorizer().getCategory(segment);
+      if (Objects.equal(category, another) && predicate.apply(segment)) {
+        matched[node] = true;
+        if (current.sums[node] > max) {
+          max = current.sums[node];
+        }
+      }
+    }
+    return max;
+  }
+
   /**
    * Sets the visual category. If the category is not supported by the
    * categorizer then it will be ignored and this method will return false. If
@@ -232,18 +279,69 @@ public final class TreePathValueProvider extends Observable
   }
 
   /**
-   * Gets the value of the given tree path. If the given tree path is a parent
-   * path of one or more child paths, then the sum of the children values will
-   * be returned.
-   * @return the value of the tree path, may be zero.
+   * Gets the values of the current leaves, summing them if they have changed
+   * and they have not been prepared.
    */
-  private long getValue(TreePath path, Collection<TreePath> leaves) {
-    long value = 0;
-    for (TreePath leaf : leaves) {
-      if (leaf.startsWith(path, null)) {
-        value += converter.convert(leaf);
+  private Values getValues() {
+    Values current = values;
+    if (pathProvider instanceof TreePathContentProvider) {
+      TreePathIndex index = ((TreePathContentProvider) pathProvider).getIndex();
+      if (current == null || current.index != index) {
+        Values next = prepared;
+        if (next != null && next.index == index) {
+          prepared = null;
+          current = next;
+        } else {
+          current = new Values(index, converter);
+        }
+        values = current;
+      }
+    } else {
+      Collection<TreePath> leaves = pathProvider.get();
+      if (current == null || current.leaves != leaves) {
+        current = new Values(TreePathIndex.of(leaves), converter, leaves);
+        values = current;
       }
     }
-    return value;
+    return current;
+  }
+
+  /**
+   * The summed values of all the sub paths of a collection of leaves.
+   */
+  private static final class Values {
+    final Collection<TreePath> leaves;
+    final TreePathIndex index;
+    final long[] sums;
+
+    /**
+     * The category {@link #maxValue} is computed for, or null if not computed.
+     */
+    @Nullable ICategory maxCategory;
+    long maxValue;
+
+    Values(TreePathIndex index, IConverter<TreePath> converter) {
+      this(index, converter, index.getLeaves());
+    }
+
+    Values(TreePathIndex index, IConverter<TreePath> converter,
+        Collection<TreePath> leaves) {
+      List<TreePath> indexed = index.getLeaves();
+      long[] leafValues = new long[indexed.size()];
+      for (int i = 0; i < leafValues.length; ++i) {
+        leafValues[i] = converter.convert(indexed.get(i));
+      }
+      this.leaves = leaves;
+      this.index = index;
+      this.sums = index.sum(leafValues);
+    }
+
+    /**
+     * Gets the value of the given path, zero if not found.
+     */
+    long get(TreePath path) {
+      int node = index.indexOf(path);
+      return (node < 0) ? 0 : sums[node];
+    }
   }
-}
\ No newline at end of file
+}
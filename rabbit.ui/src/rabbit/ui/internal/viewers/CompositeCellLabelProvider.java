@@ -28,15 +28,52 @@ import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.graphics.Image;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Observable;
+import java.util.Observer;
+
 /**
  * A label provider that simply delegates method calls to other
  * label providers until a not null value is found.
+ * <p>
+ * The text, styled text and image of the elements are cached, so that a label
+ * provider shared by a column, its sorter and a filter only computes the label
+ * of an element once. The cache holds the labels of the most recently used
+ * {@link #MAX_CACHE_SIZE} elements, and is cleared when this label provider is
+ * notified as an {@link Observer}, such as by a {@link TreePathContentProvider}
+ * when its input is changed.
+ * </p>
  */
 public class CompositeCellLabelProvider
-    extends ColumnLabelProvider implements IStyledLabelProvider {
+    extends ColumnLabelProvider implements IStyledLabelProvider, Observer {
+
+  /**
+   * The maximum number of elements to cache the labels for.
+   */
+  public static final int MAX_CACHE_SIZE = 10000;
+
+  /**
+   * Creates a map that removes the least recently used entry when there are
+   * more than {@link #MAX_CACHE_SIZE} entries.
+   */
+  private static <V> Map<Object, V> newCache() {
+    return new LinkedHashMap<Object, V>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Object, V> eldest) {
+        return size() > MAX_CACHE_SIZE;
+      }
+    };
+  }
 
   private final IBaseLabelProvider[] providers;
 
+  private final Map<Object, String> texts;
+  private final Map<Object, StyledString> styledTexts;
+  private final Map<Object, Image> images;
+
   /**
    * Constructor.
    * @param labelProviders the actual providers to ask for labels.
@@ -48,10 +85,23 @@ public class CompositeCellLabelProvider
       checkNotNull(p);
     }
     this.providers = labelProviders.clone();
+    this.texts = newCache();
+    this.styledTexts = newCache();
+    this.images = newCache();
+  }
+
+  /**
+   * Clears the cached labels, labels will be recomputed when next requested.
+   */
+  public void clearCache() {
+    texts.clear();
+    styledTexts.clear();
+    images.clear();
   }
   
   @Override
   public void dispose() {
+    clearCache();
     super.dispose();
     for (IBaseLabelProvider provider : providers) {
       provider.dispose();
@@ -99,6 +149,46 @@ public class CompositeCellLabelProvider
   
   @Override
   public Image getImage(Object element) {
+    Image image = images.get(element);
+    if (image == null && !images.containsKey(element)) {
+      image = findImage(element);
+      images.put(element, image);
+    }
+    return image;
+  }
+
+  @Override
+  public StyledString getStyledText(Object element) {
+    // Callers such as decorating label providers may modify the returned
+    // string, so the cached string is never returned:
+    StyledString str = styledTexts.get(element);
+    if (str != null) {
+      return new StyledString().append(str);
+    }
+    str = findStyledText(element);
+    styledTexts.put(element, new StyledString().append(str));
+    return str;
+  }
+
+  @Override
+  public String getText(Object element) {
+    String text = texts.get(element);
+    if (text == null && !texts.containsKey(element)) {
+      text = findText(element);
+      texts.put(element, text);
+    }
+    return text;
+  }
+
+  /**
+   * Clears the cached labels.
+   */
+  @Override
+  public void update(Observable o, Object arg) {
+    clearCache();
+  }
+
+  private Image findImage(Object element) {
     for (IBaseLabelProvider provider : providers) {
       if (provider instanceof ILabelProvider) {
         Image image = ((ILabelProvider) provider).getImage(element);
@@ -110,8 +200,7 @@ public class CompositeCellLabelProvider
     return super.getImage(element);
   }
 
-  @Override
-  public StyledString getStyledText(Object element) {
+  private StyledString findStyledText(Object element) {
     for (IBaseLabelProvider p : providers) {
       if (p instanceof IStyledLabelProvider) {
         StyledString str = ((IStyledLabelProvider) p).getStyledText(element);
@@ -127,8 +216,7 @@ public class CompositeCellLabelProvider
     return new StyledString(text);
   }
 
-  @Override
-  public String getText(Object element) {
+  private String findText(Object element) {
     for (IBaseLabelProvider provider : providers) {
       if (provider instanceof ILabelProvider) {
         String text = ((ILabelProvider) provider).getText(element);
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.ui.internal.viewers;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Maps.newHashMap;
+
+import org.eclipse.jface.viewers.ILazyTreePathContentProvider;
+import org.eclipse.jface.viewers.ITreePathContentProvider;
+import org.eclipse.jface.viewers.TreePath;
+import org.eclipse.jface.viewers.TreePathViewerSorter;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.jface.viewers.ViewerComparator;
+import org.eclipse.jface.viewers.ViewerFilter;
+
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * A lazy content provider for virtual {@link TreeViewer}s (created with
+ * {@code SWT.VIRTUAL}). Tree items are only created and labelled when they
+ * become visible, instead of creating all the items of the expanded branches
+ * up front.
+ * <p>
+ * This content provider gets the elements from another
+ * {@link ITreePathContentProvider}. Because a viewer does not apply its filters
+ * or its comparator when using a lazy content provider, this content provider
+ * applies the filters and the comparator of the viewer itself, once for each
+ * branch when the viewer asks for the child count of the branch.
+ * </p>
+ */
+public final class LazyTreePathContentProvider
+    implements ILazyTreePathContentProvider {
+
+  private final ITreePathContentProvider provider;
+
+  /**
+   * The filtered and sorted children of the branches known to the viewer.
+   */
+  private final Map<TreePath, Object[]> branches;
+
+  private TreeViewer viewer;
+
+  /**
+   * @param provider the provider to get the elements from.
+   * @throws NullPointerException if {@code provider} is null.
+   */
+  public LazyTreePathContentProvider(ITreePathContentProvider provider) {
+    this.provider = checkNotNull(provider, "provider");
+    this.branches = newHashMap();
+  }
+
+  @Override
+  public void dispose() {
+    branches.clear();
+    provider.dispose();
+  }
+
+  /**
+   * @return the provider which provides the elements.
+   */
+  public ITreePathContentProvider getDelegate() {
+    return provider;
+  }
+
+  @Override
+  public TreePath[] getParents(Object element) {
+    return provider.getParents(element);
+  }
+
+  /**
+   * @throws ClassCastException if {@code viewer} is not a {@link TreeViewer}.
+   */
+  @Override
+  public void inputChanged(
+      Viewer viewer, @Nullable Object oldInput, @Nullable Object newInput) {
+    this.viewer = (TreeViewer) viewer;
+    branches.clear();
+    provider.inputChanged(viewer, oldInput, newInput);
+  }
+
+  @Override
+  public void updateChildCount(TreePath path, int currentChildCount) {
+    Object[] children = childrenOf(path);
+    branches.put(path, children);
+    if (children.length != currentChildCount) {
+      viewer.setChildCount(path, children.length);
+    }
+  }
+
+  @Override
+  public void updateElement(TreePath parentPath, int index) {
+    Object[] children = branches.get(parentPath);
+    if (children == null) {
+      children = childrenOf(parentPath);
+      branches.put(parentPath, children);
+    }
+    if (index >= children.length) {
+      return;
+    }
+    Object child = children[index];
+    viewer.replace(parentPath, index, child);
+    TreePath childPath = parentPath.createChildPath(child);
+    viewer.setHasChildren(childPath, provider.hasChildren(childPath));
+  }
+
+  @Override
+  public void updateHasChildren(TreePath path) {
+    viewer.setHasChildren(path, provider.hasChildren(path));
+  }
+
+  /**
+   * Gets the children of a branch, filtered and sorted by the viewer's
+   * filters and comparator.
+   * @param path the branch, {@link TreePath#EMPTY} for the root elements.
+   * @return the children.
+   */
+  private Object[] childrenOf(TreePath path) {
+    Object[] children = (path.getSegmentCount() == 0)
+        ? provider.getElements(viewer.getInput())
+        : provider.getChildren(path);
+    if (children == null) {
+      return new Object[0];
+    }
+
+    for (ViewerFilter filter : viewer.getFilters()) {
+      children = filter.filter(viewer, path, children);
+    }
+
+    ViewerComparator comparator = viewer.getComparator();
+    if (comparator instanceof TreePathViewerSorter) {
+      children = children.clone();
+      ((TreePathViewerSorter) comparator).sort(viewer, path, children);
+    } else if (comparator != null) {
+      children = children.clone();
+      comparator.sort(viewer, children);
+    }
+    return children;
+  }
+}
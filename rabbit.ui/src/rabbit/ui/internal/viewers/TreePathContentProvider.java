@@ -15,24 +15,20 @@
  */
 package rabbit.ui.internal.viewers;
 
+import rabbit.data.internal.diagnostics.Diagnostics;
+import rabbit.data.internal.diagnostics.LatencyHistogram;
 import rabbit.ui.IProvider;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.Sets.newLinkedHashSet;
-
-import com.google.common.collect.ImmutableList;
+import static com.google.common.collect.Lists.newArrayListWithCapacity;
 
 import org.eclipse.jface.viewers.ITreePathContentProvider;
 import org.eclipse.jface.viewers.TreePath;
 import org.eclipse.jface.viewers.Viewer;
 
-import static java.util.Collections.emptyList;
-
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 import java.util.Observable;
-import java.util.Set;
 
 import javax.annotation.Nullable;
 
@@ -53,18 +49,30 @@ import javax.annotation.Nullable;
  * contain the child as one of their segments. The range of a sub path will be
  * from segment 0 up to but exclude the child segment.</li>
  * </ul>
+ * The leaves are indexed by a {@link TreePathIndex} when the input changes, so
+ * the methods of this content provider do not need to scan all the leaves. The
+ * index can also be built in advance in a background thread, see
+ * {@link #prepare(Object)}.
  */
 public final class TreePathContentProvider
     extends Observable implements ITreePathContentProvider, IProvider<TreePath> {
-  
-  private static final TreePath[] EMPTY = {};
 
   private final ITreePathBuilder builder;
 
   /**
-   * Immutable list of leaves, the list may be empty but never null.
+   * Measures {@link ITreePathBuilder#build(Object)}, per builder type.
+   */
+  private final LatencyHistogram buildLatency;
+
+  /**
+   * The index of the current leaves, never null.
+   */
+  private TreePathIndex index;
+
+  /**
+   * The index built in advance for the next input, may be null.
    */
-  private List<TreePath> leaves;
+  private volatile PreparedIndex prepared;
 
   /**
    * Constructs a content provider.
@@ -74,12 +82,14 @@ public final class TreePathContentProvider
    */
   public TreePathContentProvider(ITreePathBuilder builder) {
     this.builder = checkNotNull(builder, "builder");
-    this.leaves = emptyList();
+    this.index = TreePathIndex.EMPTY;
+    this.buildLatency = Diagnostics.histogram(
+        Diagnostics.nameOf(builder.getClass()) + ".build");
   }
 
   @Override
   public void dispose() {
-    leaves = emptyList();
+    index = TreePathIndex.EMPTY;
   }
 
   /**
@@ -88,12 +98,12 @@ public final class TreePathContentProvider
    */
   @Override
   public Collection<TreePath> get() {
-    return leaves;
+    return index.getLeaves();
   }
 
   @Override
   public Object[] getChildren(@Nullable TreePath branch) {
-    return childrenOf(branch).toArray();
+    return index.getChildren(branch);
   }
 
   /**
@@ -105,44 +115,34 @@ public final class TreePathContentProvider
    */
   @Override
   public Object[] getElements(@Nullable Object inputElement) {
-    Set<Object> elements = newLinkedHashSet();
-    for (TreePath leaf : leaves) {
-      if (leaf.getFirstSegment() != null) {
-        elements.add(leaf.getFirstSegment());
+    int[] roots = index.getChildNodes(TreePathIndex.ROOT);
+    List<Object> elements = newArrayListWithCapacity(roots.length);
+    for (int node : roots) {
+      Object element = index.getSegment(node);
+      if (element != null) {
+        elements.add(element);
       }
     }
     return elements.toArray();
   }
 
+  /**
+   * Gets the index of the current tree leaves in use by this content provider.
+   * @return the index, never null.
+   */
+  public TreePathIndex getIndex() {
+    return index;
+  }
+
   @Override
   public TreePath[] getParents(@Nullable Object element) {
-    if (element == null) {
-      return EMPTY;
-    }
-    
-    Set<TreePath> parents = newLinkedHashSet();
-    for (TreePath leaf : leaves) {
-      int index = TreePaths.indexOf(leaf, element);
-      if (index < 0) {
-        continue;
-      }
-      parents.add(TreePaths.headPath(leaf, index));
-    }
-    return parents.toArray(new TreePath[parents.size()]);
+    return index.getParents(element);
   }
 
   @Override
   public boolean hasChildren(@Nullable TreePath branch) {
-    if (branch == null) {
-      return false;
-    }
-    for (TreePath leaf : leaves) {
-      if (leaf.getSegmentCount() > branch.getSegmentCount()
-          && leaf.startsWith(branch, null)) {
-        return true;
-      }
-    }
-    return false;
+    int node = index.indexOf(branch);
+    return node >= 0 && index.getChildNodes(node).length > 0;
   }
 
   /**
@@ -155,28 +155,51 @@ public final class TreePathContentProvider
       @Nullable Object oldInput,
       @Nullable Object newInput) {
 
-    leaves = ImmutableList.copyOf(builder.build(newInput));
+    PreparedIndex next = prepared;
+    prepared = null;
+    if (next != null && next.input == newInput) {
+      index = next.index;
+    } else {
+      index = TreePathIndex.of(build(newInput));
+    }
     
     setChanged();
     notifyObservers();
   }
 
   /**
-   * Gets the children of the given parent.
-   * @param branch the parent.
-   * @return a collection of children, or an empty collection if no children.
+   * Builds the index of the given input in advance, so that when the input is
+   * next set on the viewer, the index will be used instead of being built on
+   * the UI thread. This method is safe to be called from a non-UI thread,
+   * provided that the tree path builder is.
+   * @param input the input that will be set.
+   * @return the index of the input.
    */
-  private Set<Object> childrenOf(@Nullable TreePath branch) {
-    if (branch == null) {
-      return Collections.emptySet();
+  public TreePathIndex prepare(@Nullable Object input) {
+    TreePathIndex next = TreePathIndex.of(build(input));
+    prepared = new PreparedIndex(input, next);
+    return next;
+  }
+
+  private List<TreePath> build(@Nullable Object input) {
+    long start = buildLatency.start();
+    try {
+      return builder.build(input);
+    } finally {
+      buildLatency.stop(start);
     }
-    Set<Object> children = newLinkedHashSet();
-    for (TreePath leaf : leaves) {
-      if (leaf.getSegmentCount() > branch.getSegmentCount()
-          && leaf.startsWith(branch, null)) {
-        children.add(leaf.getSegment(branch.getSegmentCount()));
-      }
+  }
+
+  /**
+   * An index built for an input.
+   */
+  private static final class PreparedIndex {
+    final Object input;
+    final TreePathIndex index;
+
+    PreparedIndex(Object input, TreePathIndex index) {
+      this.input = input;
+      this.index = index;
     }
-    return children;
   }
 }
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2010 The Rabbit Eclipse Plug-in Project
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package rabbit.ui.internal.viewers;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Lists.newArrayList;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
+import com.google.common.primitives.Ints;
+
+import org.eclipse.jface.viewers.TreePath;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * An immutable index of the tree formed by a collection of leaf
+ * {@link TreePath}s.
+ * <p>
+ * Each distinct sub path of the leaves is assigned a node number, node
+ * {@link #ROOT} represents {@link TreePath#EMPTY}. Children of a node are kept
+ * in the order they first appear in the leaves. Looking up the children or the
+ * parents of an element costs time proportional to the depth of the path and
+ * the size of the result, instead of a scan over all the leaves.
+ * </p>
+ */
+public final class TreePathIndex {
+
+  /**
+   * The node number of the root node.
+   */
+  public static final int ROOT = 0;
+
+  private static final TreePath[] NO_PATHS = {};
+  private static final Object[] NO_ELEMENTS = {};
+  private static final int[] NO_NODES = {};
+
+  /**
+   * An index containing no leaves.
+   */
+  public static final TreePathIndex EMPTY =
+      new TreePathIndex(Collections.<TreePath> emptyList());
+
+  /**
+   * Builds an index for the given leaves.
+   * @param leaves the leaves to index.
+   * @return an index.
+   * @throws NullPointerException if {@code leaves} is null or contains null.
+   */
+  public static TreePathIndex of(Collection<TreePath> leaves) {
+    return leaves.isEmpty() ? EMPTY : new TreePathIndex(leaves);
+  }
+
+  private final List<TreePath> leaves;
+
+  /** The leaf node of each leaf, by leaf index. */
+  private final int[] leafNodes;
+
+  /** The path of each node, by node number. */
+  private final List<TreePath> paths;
+
+  /** The parent of each node, by node number, -1 for the root. */
+  private final int[] parents;
+
+  /** The children of each node, by node number. */
+  private final int[][] children;
+
+  /** The children of each node, keyed by segment, by node number. */
+  private final List<Map<Object, Integer>> childMaps;
+
+  /** Nodes of each segment. */
+  private final ListMultimap<Object, Integer> segmentNodes;
+
+  private TreePathIndex(Collection<TreePath> leaves) {
+    this.leaves = ImmutableList.copyOf(leaves);
+    this.leafNodes = new int[this.leaves.size()];
+    this.paths = newArrayList();
+    this.childMaps = newArrayList();
+    this.segmentNodes = ArrayListMultimap.create();
+
+    List<Integer> parentList = newArrayList();
+    List<List<Integer>> childLists = newArrayList();
+
+    paths.add(TreePath.EMPTY);
+    parentList.add(-1);
+    childLists.add(new ArrayList<Integer>());
+    childMaps.add(new HashMap<Object, Integer>());
+
+    int leafIndex = 0;
+    for (TreePath leaf : this.leaves) {
+      int node = ROOT;
+      for (int i = 0; i < leaf.getSegmentCount(); ++i) {
+        Object segment = leaf.getSegment(i);
+        Map<Object, Integer> childMap = childMaps.get(node);
+        Integer child = childMap.get(segment);
+        if (child == null) {
+          child = paths.size();
+          paths.add(paths.get(node).createChildPath(segment));
+          parentList.add(node);
+          childLists.add(new ArrayList<Integer>());
+          childMaps.add(new HashMap<Object, Integer>());
+          childMap.put(segment, child);
+          childLists.get(node).add(child);
+          if (segment != null) {
+            segmentNodes.put(segment, child);
+          }
+        }
+        node = child;
+      }
+      leafNodes[leafIndex++] = node;
+    }
+
+    parents = Ints.toArray(parentList);
+    children = new int[childLists.size()][];
+    for (int i = 0; i < children.length; ++i) {
+      children[i] = Ints.toArray(childLists.get(i));
+    }
+  }
+
+  /**
+   * Gets the children of the node of the given path.
+   * @param path the parent path.
+   * @return the distinct children, or an empty array if the path is not in
+   *         this index or has no children.
+   */
+  public Object[] getChildren(@Nullable TreePath path) {
+    int node = indexOf(path);
+    if (node < 0 || children[node].length == 0) {
+      return NO_ELEMENTS;
+    }
+    int[] nodes = children[node];
+    Object[] result = new Object[nodes.length];
+    for (int i = 0; i < nodes.length; ++i) {
+      result[i] = getSegment(nodes[i]);
+    }
+    return result;
+  }
+
+  /**
+   * Gets the child nodes of a node.
+   * @param node the node number.
+   * @return the child node numbers, do not modify.
+   * @throws IndexOutOfBoundsException if the node is not in this index.
+   */
+  public int[] getChildNodes(int node) {
+    return children[node];
+  }
+
+  /**
+   * @return the leaves of this index, in the order they were given.
+   */
+  public List<TreePath> getLeaves() {
+    return leaves;
+  }
+
+  /**
+   * Gets the node of a leaf.
+   * @param leafIndex the index of the leaf in {@link #getLeaves()}.
+   * @return the node number.
+   * @throws IndexOutOfBoundsException if the leaf is not in this index.
+   */
+  public int getLeafNode(int leafIndex) {
+    return leafNodes[leafIndex];
+  }
+
+  /**
+   * Gets the nodes whose last segment is the given element.
+   * @param element the element.
+   * @return the node numbers, or an empty array if none.
+   */
+  public int[] getNodes(@Nullable Object element) {
+    if (element == null) {
+      return NO_NODES;
+    }
+    List<Integer> nodes = segmentNodes.get(element);
+    return nodes.isEmpty() ? NO_NODES : Ints.toArray(nodes);
+  }
+
+  /**
+   * Gets the parent node of a node.
+   * @param node the node number.
+   * @return the parent node number, or -1 if {@code node} is {@link #ROOT}.
+   * @throws IndexOutOfBoundsException if the node is not in this index.
+   */
+  public int getParentNode(int node) {
+    return parents[node];
+  }
+
+  /**
+   * Gets the parent paths of all the nodes containing the given element.
+   * @param element the element.
+   * @return the parent paths, or an empty array if none.
+   */
+  public TreePath[] getParents(@Nullable Object element) {
+    if (element == null) {
+      return NO_PATHS;
+    }
+    List<Integer> nodes = segmentNodes.get(element);
+    if (nodes.isEmpty()) {
+      return NO_PATHS;
+    }
+    TreePath[] result = new TreePath[nodes.size()];
+    for (int i = 0; i < result.length; ++i) {
+      result[i] = paths.get(parents[nodes.get(i)]);
+    }
+    return result;
+  }
+
+  /**
+   * Gets the path of a node.
+   * @param node the node number.
+   * @return the path from the root to the node.
+   * @throws IndexOutOfBoundsException if the node is not in this index.
+   */
+  public TreePath getPath(int node) {
+    return paths.get(node);
+  }
+
+  /**
+   * Gets the last segment of the path of a node.
+   * @param node the node number.
+   * @return the segment, or null if {@code node} is {@link #ROOT}.
+   * @throws IndexOutOfBoundsException if the node is not in this index.
+   */
+  public Object getSegment(int node) {
+    return paths.get(node).getLastSegment();
+  }
+
+  /**
+   * Gets the node number of the given path.
+   * @param path the path.
+   * @return the node number, or a negative number if the path is null or not
+   *         in this index.
+   */
+  public int indexOf(@Nullable TreePath path) {
+    if (path == null) {
+      return -1;
+    }
+    int node = ROOT;
+    for (int i = 0; i < path.getSegmentCount(); ++i) {
+      Integer child = childMaps.get(node).get(path.getSegment(i));
+      if (child == null) {
+        return -1;
+      }
+      node = child;
+    }
+    return node;
+  }
+
+  /**
+   * @return the number of nodes in this index, including the root node.
+   */
+  public int size() {
+    return paths.size();
+  }
+
+  /**
+   * Sums the given leaf values into every node along the paths of the leaves.
+   * @param leafValues the value of each leaf, by leaf index.
+   * @return the value of each node, by node number.
+   * @throws IllegalArgumentException if the length of {@code leafValues} is not
+   *         equal to the number of leaves.
+   */
+  public long[] sum(long[] leafValues) {
+    checkNotNull(leafValues, "leafValues");
+    if (leafValues.length != leafNodes.length) {
+      throw new IllegalArgumentException("Expected " + leafNodes.length
+          + " leaf values, got " + leafValues.length);
+    }
+    long[] sums = new long[size()];
+    for (int i = 0; i < leafNodes.length; ++i) {
+      for (int node = leafNodes[i]; node >= 0; node = parents[node]) {
+        sums[node] += leafValues[i];
+      }
+    }
+    return sums;
+  }
+}
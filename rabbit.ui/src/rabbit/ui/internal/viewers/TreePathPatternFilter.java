@@ -16,33 +16,127 @@
 package rabbit.ui.internal.viewers;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Lists.newArrayList;
 
 import org.eclipse.jface.viewers.ContentViewer;
+import org.eclipse.jface.viewers.IContentProvider;
 import org.eclipse.jface.viewers.ILabelProvider;
 import org.eclipse.jface.viewers.ITreePathContentProvider;
 import org.eclipse.jface.viewers.TreePath;
 import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.ui.dialogs.FilteredTree;
 import org.eclipse.ui.dialogs.PatternFilter;
 
+import java.util.BitSet;
+import java.util.List;
+
 /**
  * A {@link PatternFilter} that uses {@link TreePath}s. To use this class, the
  * viewer's content provider must be an instance of
  * {@link ITreePathContentProvider}, and
  * {@link ITreePathContentProvider#getParents(Object)} must return an array that
  * contains the actual parent of a given element.
+ * <p>
+ * If the viewer's content provider is backed by a
+ * {@link TreePathContentProvider} (directly, or wrapped by a
+ * {@link FilterableTreePathContentProvider} or a
+ * {@link LazyTreePathContentProvider}), the matching nodes of the tree are
+ * computed once per pattern, with one pass over the {@link TreePathIndex} of the
+ * content provider. The label text is requested once per segment for each
+ * pattern, use a caching label provider such as a
+ * {@link CompositeCellLabelProvider} to share the labels with the viewer. The
+ * pass is done lazily on the first query after the pattern is
+ * changed, so patterns that are replaced before the viewer is refreshed (the
+ * {@link FilteredTree} debounces the keystrokes) are never matched.
+ * </p>
  */
 public final class TreePathPatternFilter extends PatternFilter {
 
   private final ILabelProvider labelProvider;
 
+  /** The index {@link #matches} is computed for. */
+  private TreePathIndex matchedIndex;
+
+  /**
+   * The nodes of {@link #matchedIndex} that match the current pattern or have a
+   * descendant that does, null if not yet computed for the current pattern.
+   */
+  private BitSet matches;
+
   public TreePathPatternFilter(ILabelProvider labelProvider) {
     this.labelProvider = checkNotNull(labelProvider);
   }
 
+  @Override
+  public void setPattern(String patternString) {
+    super.setPattern(patternString);
+    matches = null;
+  }
+
   @Override
   protected boolean isParentMatch(Viewer viewer, Object element) {
-    ITreePathContentProvider provider = (ITreePathContentProvider)
-        ((ContentViewer) viewer).getContentProvider();
+    IContentProvider provider = ((ContentViewer) viewer).getContentProvider();
+    List<IFilterable> filterables = newArrayList();
+    TreePathIndex index = Viewers.findIndex(provider, filterables);
+    if (index == null) {
+      return isParentMatch(viewer, element, (ITreePathContentProvider) provider);
+    }
+
+    if (index != matchedIndex) {
+      matchedIndex = index;
+      matches = null;
+    }
+    if (matches == null) {
+      matches = match(index, filterables);
+    }
+    for (int node : index.getNodes(element)) {
+      if (matches.get(node)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  protected boolean isLeafMatch(Viewer viewer, Object element) {
+    String text = labelProvider.getText(element);
+    if (text != null) {
+      return wordMatches(text);
+    }
+    return false;
+  }
+
+  /**
+   * Finds the matching nodes of an index in a single pass. Parent nodes are
+   * numbered lower than their children, so a node is always visited after its
+   * ancestors.
+   * @param index the index.
+   * @param filterables the filters that hide nodes (and their subtrees) from
+   *        the viewer.
+   * @return the nodes that match, or have a descendant that matches.
+   */
+  private BitSet match(TreePathIndex index, List<IFilterable> filterables) {
+    BitSet hidden = new BitSet(index.size());
+    BitSet result = new BitSet(index.size());
+    for (int node = TreePathIndex.ROOT + 1; node < index.size(); ++node) {
+      int parent = index.getParentNode(node);
+      Object segment = index.getSegment(node);
+      if (hidden.get(parent) || isFiltered(segment, filterables)) {
+        hidden.set(node);
+        continue;
+      }
+      if (isLeafMatch(null, segment)) {
+        for (int n = node; n > TreePathIndex.ROOT && !result.get(n);
+            n = index.getParentNode(n)) {
+          result.set(n);
+        }
+      }
+    }
+    return result;
+  }
+
+  private boolean isParentMatch(
+      Viewer viewer, Object element, ITreePathContentProvider provider) {
     TreePath[] parents = provider.getParents(element);
     if (parents == null) {
       return false;
@@ -53,7 +147,7 @@ public final class TreePathPatternFilter extends PatternFilter {
       for (Object child : children) {
         if (child == element) {
           TreePath currentPath = parent.createChildPath(child);
-          if (isMatch(viewer, currentPath)) {
+          if (isMatch(viewer, currentPath, provider)) {
             return true;
           }
         }
@@ -62,29 +156,30 @@ public final class TreePathPatternFilter extends PatternFilter {
     return false;
   }
 
-  @Override
-  protected boolean isLeafMatch(Viewer viewer, Object element) {
-    String text = labelProvider.getText(element);
-    if (text != null) {
-      return wordMatches(text);
-    }
-    return false;
-  }
-
-  private boolean isMatch(Viewer viewer, TreePath path) {
+  private boolean isMatch(
+      Viewer viewer, TreePath path, ITreePathContentProvider provider) {
     if (isLeafMatch(viewer, path.getLastSegment())) {
       return true;
     }
 
-    ITreePathContentProvider provider = (ITreePathContentProvider)
-        ((ContentViewer) viewer).getContentProvider();
     Object[] children = provider.getChildren(path);
     if (children == null) {
       return false;
     }
 
     for (Object child : children) {
-      if (isMatch(viewer, path.createChildPath(child))) {
+      if (isMatch(viewer, path.createChildPath(child), provider)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isFiltered(
+      Object element, List<IFilterable> filterables) {
+    Object[] elements = {element};
+    for (IFilterable filterable : filterables) {
+      if (filterable.filter(elements).length == 0) {
         return true;
       }
     }
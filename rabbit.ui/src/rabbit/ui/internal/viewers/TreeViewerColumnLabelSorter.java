@@ -51,4 +51,21 @@ public class TreeViewerColumnLabelSorter extends TreeViewerColumnSorter {
     return s1.compareToIgnoreCase(s2);
   }
 
+  /**
+   * Returns the label of the element folded the same way as
+   * {@link String#compareToIgnoreCase(String)} folds the characters, so that
+   * comparing two keys gives the same result as comparing the two labels
+   * ignoring cases.
+   */
+  @Override
+  protected Comparable<?> getSortKey(
+      Viewer v, TreePath parentPath, Object element) {
+    String text = Strings.nullToEmpty(labelProvider.getText(element));
+    char[] chars = text.toCharArray();
+    for (int i = 0; i < chars.length; ++i) {
+      chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+    }
+    return new String(chars);
+  }
+
 }
@@ -16,7 +16,9 @@
 package rabbit.ui.internal.viewers;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Maps.newHashMap;
 
+import org.eclipse.jface.viewers.ContentViewer;
 import org.eclipse.jface.viewers.TreePath;
 import org.eclipse.jface.viewers.TreePathViewerSorter;
 import org.eclipse.jface.viewers.TreeViewer;
@@ -28,6 +30,12 @@ import org.eclipse.swt.widgets.Tree;
 import org.eclipse.swt.widgets.TreeColumn;
 import org.eclipse.swt.widgets.Widget;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
 /**
  * A comparator for sorting the a {@link TreeViewer} when the user is clicked on
  * a column.
@@ -39,7 +47,14 @@ import org.eclipse.swt.widgets.Widget;
  * <p>
  * Subclasses need to override
  * {@link #doCompare(Viewer, TreePath, Object, Object)} to do the actual
- * comparing of the elements.
+ * comparing of the elements. Subclasses can also override
+ * {@link #getSortKey(Viewer, TreePath, Object)} to compute a key for each
+ * element, the elements of a tree level will then be sorted by their keys
+ * instead of calling {@link #doCompare(Viewer, TreePath, Object, Object)} for
+ * every comparison. The keys do not depend on the sort direction, so they are
+ * kept and reused when the sort direction is toggled, until the index of the
+ * viewer's {@link TreePathContentProvider} changes. Keys are only computed for
+ * the levels of the tree that are sorted.
  * </p>
  */
 public abstract class TreeViewerColumnSorter
@@ -52,6 +67,12 @@ public abstract class TreeViewerColumnSorter
   private TreeColumn selectedColumn;
   private final TreeViewer viewer;
 
+  /**
+   * The sort keys of the elements, by parent path, for {@link #keyedIndex}.
+   */
+  private final Map<TreePath, Map<Object, Comparable<?>>> keys;
+  private TreePathIndex keyedIndex;
+
   /**
    * Constructor.
    * @param parent The parent viewer.
@@ -61,6 +82,7 @@ public abstract class TreeViewerColumnSorter
     viewer = checkNotNull(parent);
     sortDirection = SWT.NONE;
     selectedColumn = null;
+    keys = newHashMap();
   }
 
   @Override
@@ -81,6 +103,33 @@ public abstract class TreeViewerColumnSorter
     return value;
   }
 
+  @Override
+  public void sort(Viewer v, TreePath parentPath, Object[] elements) {
+    Comparable<?>[] sortKeys = getSortKeys(v, parentPath, elements);
+    if (sortKeys == null) {
+      super.sort(v, parentPath, elements);
+      return;
+    }
+
+    SortEntry[] entries = new SortEntry[elements.length];
+    for (int i = 0; i < entries.length; ++i) {
+      entries[i] = new SortEntry(
+          elements[i], category(elements[i]), sortKeys[i]);
+    }
+    Arrays.sort(entries, new Comparator<SortEntry>() {
+      @Override
+      public int compare(SortEntry a, SortEntry b) {
+        int value = (a.category != b.category)
+            ? a.category - b.category
+            : a.compareKeyTo(b);
+        return (sortDirection == SWT.DOWN) ? -value : value;
+      }
+    });
+    for (int i = 0; i < entries.length; ++i) {
+      elements[i] = entries[i].element;
+    }
+  }
+
   /**
    * Gets the currently selected column.
    * @return The selected column.
@@ -144,4 +193,80 @@ public abstract class TreeViewerColumnSorter
    */
   protected abstract int doCompare(Viewer v, TreePath parentPath, Object e1,
       Object e2);
+
+  /**
+   * Gets the key to sort an element by. Comparing the keys of two elements
+   * must give the same result as
+   * {@link #doCompare(Viewer, TreePath, Object, Object)}. This implementation
+   * returns null.
+   * @param v the viewer.
+   * @param parentPath the parent path of the element, {@link TreePath#EMPTY}
+   *        if the element is a root element.
+   * @param element the element.
+   * @return the key, or null if the elements of this level should be compared
+   *         with {@link #doCompare(Viewer, TreePath, Object, Object)}
+   *         instead.
+   */
+  @Nullable
+  protected Comparable<?> getSortKey(
+      Viewer v, TreePath parentPath, Object element) {
+    return null;
+  }
+
+  /**
+   * Gets the keys of the given elements, from the cache if possible.
+   * @return the keys, or null if an element has no key.
+   */
+  @Nullable
+  private Comparable<?>[] getSortKeys(
+      Viewer v, @Nullable TreePath parentPath, Object[] elements) {
+    TreePathIndex index = (v instanceof ContentViewer)
+        ? Viewers.findIndex(((ContentViewer) v).getContentProvider(), null)
+        : null;
+    if (index == null || index != keyedIndex) {
+      keys.clear();
+      keyedIndex = index;
+    }
+
+    TreePath path = (parentPath == null) ? TreePath.EMPTY : parentPath;
+    Map<Object, Comparable<?>> levelKeys = keys.get(path);
+    if (levelKeys == null) {
+      levelKeys = newHashMap();
+      keys.put(path, levelKeys);
+    }
+
+    Comparable<?>[] result = new Comparable<?>[elements.length];
+    for (int i = 0; i < elements.length; ++i) {
+      Comparable<?> key = levelKeys.get(elements[i]);
+      if (key == null) {
+        key = getSortKey(v, path, elements[i]);
+        if (key == null) {
+          return null;
+        }
+        levelKeys.put(elements[i], key);
+      }
+      result[i] = key;
+    }
+    return result;
+  }
+
+  /**
+   * An element to be sorted, with its category and its sort key.
+   */
+  private static final class SortEntry {
+    final Object element;
+    final int category;
+    final Comparable<?> key;
+
+    SortEntry(Object element, int category, Comparable<?> key) {
+      this.element = element;
+      this.category = category;
+      this.key = key;
+    }
+
+    @SuppressWarnings("unchecked")
+    int compareKeyTo(SortEntry other) {
+      return ((Comparable<Object>) key).compareTo(other.key);
+    }
+  }
 }
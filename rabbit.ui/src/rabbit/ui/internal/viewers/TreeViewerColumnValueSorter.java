@@ -52,4 +52,11 @@ public class TreeViewerColumnValueSorter extends TreeViewerColumnSorter {
           valueProvider.getValue(parentPath.createChildPath(e1)),
           valueProvider.getValue(parentPath.createChildPath(e2)));
   }
+
+  @Override
+  protected Comparable<?> getSortKey(
+      Viewer v, TreePath parentPath, Object element) {
+    return Long.valueOf(
+        valueProvider.getValue(parentPath.createChildPath(element)));
+  }
 }
@@ -15,9 +15,13 @@
  */
 package rabbit.ui.internal.viewers;
 
+import rabbit.ui.internal.RabbitUI;
+
 import org.eclipse.jface.layout.GridLayoutFactory;
 import org.eclipse.jface.viewers.DoubleClickEvent;
+import org.eclipse.jface.viewers.IContentProvider;
 import org.eclipse.jface.viewers.IDoubleClickListener;
+import org.eclipse.jface.viewers.ITreePathContentProvider;
 import org.eclipse.jface.viewers.ITreeSelection;
 import org.eclipse.jface.viewers.StructuredSelection;
 import org.eclipse.jface.viewers.TreePath;
@@ -33,6 +37,10 @@ import org.eclipse.swt.widgets.Composite;
 import org.eclipse.ui.dialogs.FilteredTree;
 import org.eclipse.ui.dialogs.PatternFilter;
 
+import java.util.List;
+
+import javax.annotation.Nullable;
+
 /**
  * Utility methods for working with viewers.
  */
@@ -71,6 +79,26 @@ public final class Viewers {
     return tree;
   }
 
+  /**
+   * Sets the content provider of a viewer created by
+   * {@link #newFilteredTree(Composite, PatternFilter)}. If virtual trees are
+   * enabled in the preferences, the provider will be wrapped in a
+   * {@link LazyTreePathContentProvider} so that only the visible tree items
+   * are created.
+   * @param viewer the viewer.
+   * @param provider the content provider for the viewer.
+   * @see RabbitUI#isVirtualTreeEnabled()
+   */
+  public static void setContentProvider(
+      TreeViewer viewer, ITreePathContentProvider provider) {
+    RabbitUI plugin = RabbitUI.getDefault();
+    if (plugin != null && plugin.isVirtualTreeEnabled()) {
+      viewer.setContentProvider(new LazyTreePathContentProvider(provider));
+    } else {
+      viewer.setContentProvider(provider);
+    }
+  }
+
   /**
    * Creates a new {@link TreeViewerColumn}.
    * @param viewer the parent viewer.
@@ -110,6 +138,37 @@ public final class Viewers {
     viewer.getTree().setRedraw(true);
   }
 
+  /**
+   * Finds the index of the {@link TreePathContentProvider} behind the given
+   * content provider, looking through {@link LazyTreePathContentProvider}s and
+   * {@link ForwardingTreePathContentProvider}s.
+   * @param provider the content provider of a viewer.
+   * @param filterables the list to add the filterable providers to, that are
+   *        found on the way to the index, may be null.
+   * @return the index, or null if the provider is not backed by a
+   *         {@link TreePathContentProvider}.
+   */
+  @Nullable
+  static TreePathIndex findIndex(@Nullable IContentProvider provider,
+      @Nullable List<IFilterable> filterables) {
+    while (provider != null) {
+      if (provider instanceof TreePathContentProvider) {
+        return ((TreePathContentProvider) provider).getIndex();
+      }
+      if (provider instanceof IFilterable && filterables != null) {
+        filterables.add((IFilterable) provider);
+      }
+      if (provider instanceof LazyTreePathContentProvider) {
+        provider = ((LazyTreePathContentProvider) provider).getDelegate();
+      } else if (provider instanceof ForwardingTreePathContentProvider) {
+        provider = ((ForwardingTreePathContentProvider) provider).delegate();
+      } else {
+        provider = null;
+      }
+    }
+    return null;
+  }
+
   /**
    * Clears the selection when user clicks on empty area.
    */